@@ -0,0 +1,326 @@
+/***===============================================================================
+ *
+ * MotiQ_2D plugin for imageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: November 07, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * =============================================================================**/
+
+package motiQ2D;
+
+/**
+ * Gaussian blur of an 8-bit image stored as a byte array (sigma in pixels).
+ * Applies the same kernels, edge handling and rounding as the "Gaussian Blur..." command of ImageJ
+ * (ij.plugin.filter.GaussianBlur by M. Schmid), so that the results are identical:
+ * the image is blurred in x and y and rounded to 8 bit.
+ * A filter instance is not thread-safe, use one instance per thread.
+ * */
+class GaussianFilter{
+	/** kernel accuracy used by ImageJ for 8-bit images*/
+	private static final double ACCURACY = 0.002;
+	private static final int UPSCALE_K_RADIUS = 2;
+	private static final double MIN_DOWNSCALED_SIGMA = 4.0;
+
+	private final double sigma;
+	private LineFilter filterX, filterY;
+	private float buffer [];
+
+	GaussianFilter(double sigma){
+		this.sigma = sigma;
+	}
+
+	/**
+	 * Blurs the
+	 * @param pixels (8-bit) of an image with size
+	 * @param width and
+	 * @param height in place
+	 * */
+	void blur(byte pixels [], int width, int height){
+		if(sigma <= 0.0)	return;
+		if(filterX == null || filterX.length != width)	filterX = new LineFilter(sigma, width);
+		if(filterY == null || filterY.length != height)	filterY = new LineFilter(sigma, height);
+		if(buffer == null || buffer.length != width * height)	buffer = new float [width * height];
+		for(int i = 0; i < buffer.length; i++){
+			buffer [i] = pixels [i] & 0xff;
+		}
+		for(int y = 0; y < height; y++){
+			filterX.blur(buffer, y * width, 1);
+		}
+		for(int x = 0; x < width; x++){
+			filterY.blur(buffer, x, width);
+		}
+		for(int i = 0; i < buffer.length; i++){
+			pixels [i] = toByte(buffer [i]);
+		}
+	}
+
+	/**
+	 * @return the value rounded and clamped to the 8-bit range
+	 * */
+	private static byte toByte(float value){
+		value += 0.5f;
+		if(value < 0f)	value = 0f;
+		if(value > 255f)	value = 255f;
+		return (byte)(int) value;
+	}
+
+	/**
+	 * Gaussian blur of lines with a fixed length. For large sigmas, lines are downscaled before and upscaled after the convolution.
+	 * */
+	private static class LineFilter{
+		final int length;
+		private final boolean downscale;
+		private final int reduceBy, newLength, unscaled0;
+		private final float kernel [][], downscaleKernel [], upscaleKernel [];
+		private final float cache1 [], cache2 [];
+
+		LineFilter(double sigma, int length){
+			this.length = length;
+			downscale = sigma > 2 * MIN_DOWNSCALED_SIGMA + 0.5;
+			reduceBy = downscale ? Math.min((int) Math.floor(sigma / MIN_DOWNSCALED_SIGMA), length) : 1;
+			double sigmaGauss = downscale ? Math.sqrt(sigma * sigma / (reduceBy * reduceBy) - 1. / 3. - 1. / 4.) : sigma;
+			int maxLength = downscale ? (length + reduceBy - 1) / reduceBy + 2 * (UPSCALE_K_RADIUS + 1) : length;
+			kernel = makeGaussianKernel(sigmaGauss, ACCURACY, maxLength);
+			newLength = maxLength;
+			unscaled0 = -(UPSCALE_K_RADIUS + 1) * reduceBy;
+			downscaleKernel = downscale ? makeDownscaleKernel(reduceBy) : null;
+			upscaleKernel = downscale ? makeUpscaleKernel(reduceBy) : null;
+			cache1 = new float [newLength];
+			cache2 = downscale ? new float [newLength] : null;
+		}
+
+		/**
+		 * Blurs the line of
+		 * @param pixels starting at
+		 * @param pixel0 with the distance
+		 * @param pointInc between neighboring points
+		 * */
+		void blur(float pixels [], int pixel0, int pointInc){
+			if(downscale){
+				downscaleLine(pixels, cache1, downscaleKernel, reduceBy, pixel0, unscaled0, length, pointInc, newLength);
+				convolveLine(cache1, cache2, kernel, 1, newLength - 1, 0, 1);
+				upscaleLine(cache2, pixels, upscaleKernel, reduceBy, pixel0, unscaled0, length, pointInc);
+			}else{
+				for(int i = 0, p = pixel0; i < length; i++, p += pointInc){
+					cache1 [i] = pixels [p];
+				}
+				convolveLine(cache1, pixels, kernel, 0, length, pixel0, pointInc);
+			}
+		}
+	}
+
+	/**
+	 * @return the Gaussian kernel (kernel [0]) and its running sum from the outer end (kernel [1]) for
+	 * @param sigma with a radius where the kernel drops below
+	 * @param accuracy (at most
+	 * @param maxRadius, but at least 50), the outer part of the kernel is smoothed to zero
+	 * */
+	private static float [][] makeGaussianKernel(double sigma, double accuracy, int maxRadius){
+		int kRadius = (int) Math.ceil(sigma * Math.sqrt(-2 * Math.log(accuracy))) + 1;
+		if(maxRadius < 50)	maxRadius = 50;
+		if(kRadius > maxRadius)	kRadius = maxRadius;
+		float kernel [][] = new float [2][kRadius];
+		for(int i = 0; i < kRadius; i++){
+			kernel [0][i] = (float) (Math.exp(-0.5 * i * i / sigma / sigma));
+		}
+		if(kRadius < maxRadius && kRadius > 3){
+			//edge correction
+			double sqrtSlope = Double.MAX_VALUE;
+			int r = kRadius;
+			while(r > kRadius / 2){
+				r--;
+				double a = Math.sqrt(kernel [0][r]) / (kRadius - r);
+				if(a < sqrtSlope){
+					sqrtSlope = a;
+				}else{
+					break;
+				}
+			}
+			for(int r1 = r + 2; r1 < kRadius; r1++){
+				kernel [0][r1] = (float) ((kRadius - r1) * (kRadius - r1) * sqrtSlope * sqrtSlope);
+			}
+		}
+		double sum;
+		if(kRadius < maxRadius){
+			sum = kernel [0][0];
+			for(int i = 1; i < kRadius; i++){
+				sum += 2 * kernel [0][i];
+			}
+		}else{
+			sum = sigma * Math.sqrt(2 * Math.PI);
+		}
+		double rsum = 0.5 + 0.5 * kernel [0][0] / sum;
+		for(int i = 0; i < kRadius; i++){
+			double v = kernel [0][i] / sum;
+			kernel [0][i] = (float) v;
+			rsum -= v;
+			kernel [1][i] = (float) rsum;
+		}
+		return kernel;
+	}
+
+	/**
+	 * Convolves the line
+	 * @param input with the
+	 * @param kernel and writes the points
+	 * @param writeFrom to
+	 * @param writeTo (exclusive) into
+	 * @param pixels starting at
+	 * @param point0 with the distance
+	 * @param pointInc; points outside the line are replaced by the nearest edge point
+	 * */
+	private static void convolveLine(float input [], float pixels [], float kernel [][], int writeFrom, int writeTo, int point0, int pointInc){
+		final int length = input.length;
+		final float first = input [0];
+		final float last = input [length - 1];
+		final float kern [] = kernel [0];
+		final float kern0 = kern [0];
+		final float kernSum [] = kernel [1];
+		final int kRadius = kern.length;
+		final int firstPart = kRadius < length ? kRadius : length;
+		int p = point0 + writeFrom * pointInc;
+		int i = writeFrom;
+		float result, v;
+		for(; i < firstPart; i++, p += pointInc){
+			result = input [i] * kern0;
+			result += kernSum [i] * first;
+			if(i + kRadius > length)	result += kernSum [length - i - 1] * last;
+			for(int k = 1; k < kRadius; k++){
+				v = 0;
+				if(i - k >= 0)	v += input [i - k];
+				if(i + k < length)	v += input [i + k];
+				result += kern [k] * v;
+			}
+			pixels [p] = result;
+		}
+		final int iEndInside = length - kRadius < writeTo ? length - kRadius : writeTo;
+		for(; i < iEndInside; i++, p += pointInc){
+			result = input [i] * kern0;
+			for(int k = 1; k < kRadius; k++){
+				result += kern [k] * (input [i - k] + input [i + k]);
+			}
+			pixels [p] = result;
+		}
+		for(; i < writeTo; i++, p += pointInc){
+			result = input [i] * kern0;
+			if(i < kRadius)	result += kernSum [i] * first;
+			if(i + kRadius >= length)	result += kernSum [length - i - 1] * last;
+			for(int k = 1; k < kRadius; k++){
+				v = 0;
+				if(i - k >= 0)	v += input [i - k];
+				if(i + k < length)	v += input [i + k];
+				result += kern [k] * v;
+			}
+			pixels [p] = result;
+		}
+	}
+
+	/**
+	 * Downscales a line of
+	 * @param pixels by the factor
+	 * @param reduceBy into
+	 * @param cache, smoothing with the downscale
+	 * @param kernel
+	 * */
+	private static void downscaleLine(float pixels [], float cache [], float kernel [], int reduceBy, int pixel0, int unscaled0,
+			int length, int pointInc, int newLength){
+		int p = pixel0 + pointInc * (unscaled0 - reduceBy * 3 / 2);
+		final int pLast = pixel0 + pointInc * (length - 1);
+		float sum0, sum1, sum2, v;
+		for(int xout = -1; xout <= newLength; xout++){
+			sum0 = 0;
+			sum1 = 0;
+			sum2 = 0;
+			for(int x = 0; x < reduceBy; x++, p += pointInc){
+				v = pixels [p < pixel0 ? pixel0 : (p > pLast ? pLast : p)];
+				sum0 += v * kernel [x + 2 * reduceBy];
+				sum1 += v * kernel [x + reduceBy];
+				sum2 += v * kernel [x];
+			}
+			if(xout > 0)	cache [xout - 1] += sum0;
+			if(xout >= 0 && xout < newLength)	cache [xout] += sum1;
+			if(xout + 1 < newLength)	cache [xout + 1] = sum2;
+		}
+	}
+
+	/**
+	 * @return the kernel for downscaling by
+	 * @param unitLength (the downscale factor)
+	 * */
+	private static float [] makeDownscaleKernel(int unitLength){
+		final int mid = unitLength * 3 / 2;
+		final float kernel [] = new float [3 * unitLength];
+		for(int i = 0; i <= unitLength / 2; i++){
+			final double x = i / (double) unitLength;
+			final float v = (float) ((0.75 - x * x) / unitLength);
+			kernel [mid - i] = v;
+			kernel [mid + i] = v;
+		}
+		for(int i = unitLength / 2 + 1; i < (unitLength * 3 + 1) / 2; i++){
+			final double x = i / (double) unitLength;
+			final float v = (float) ((0.125 + 0.5 * (x - 1) * (x - 2)) / unitLength);
+			kernel [mid - i] = v;
+			kernel [mid + i] = v;
+		}
+		return kernel;
+	}
+
+	/**
+	 * Upscales the downscaled line
+	 * @param cache into
+	 * @param pixels by the factor
+	 * @param reduceBy, interpolating with the upscale
+	 * @param kernel
+	 * */
+	private static void upscaleLine(float cache [], float pixels [], float kernel [], int reduceBy, int pixel0, int unscaled0,
+			int length, int pointInc){
+		int p = pixel0;
+		int xin, x;
+		for(int xout = 0; xout < length; xout++, p += pointInc){
+			xin = (xout - unscaled0 + reduceBy - 1) / reduceBy;
+			x = reduceBy - 1 - (xout - unscaled0 + reduceBy - 1) % reduceBy;
+			pixels [p] = cache [xin - 2] * kernel [x] + cache [xin - 1] * kernel [x + reduceBy]
+					+ cache [xin] * kernel [x + 2 * reduceBy] + cache [xin + 1] * kernel [x + 3 * reduceBy];
+		}
+	}
+
+	/**
+	 * @return the kernel for upscaling by
+	 * @param unitLength (the upscale factor)
+	 * */
+	private static float [] makeUpscaleKernel(int unitLength){
+		final float kernel [] = new float [4 * unitLength];
+		final int mid = 2 * unitLength;
+		kernel [0] = 0;
+		for(int i = 0; i < unitLength; i++){
+			final double x = i / (double) unitLength;
+			final float v = (float) ((2. / 3. - x * x * (1 - 0.5 * x)));
+			kernel [mid + i] = v;
+			kernel [mid - i] = v;
+		}
+		for(int i = unitLength; i < 2 * unitLength; i++){
+			final double x = i / (double) unitLength;
+			final float v = (float) ((2. - x) * (2. - x) * (2. - x) / 6.);
+			kernel [mid + i] = v;
+			kernel [mid - i] = v;
+		}
+		return kernel;
+	}
+}
@@ -583,7 +583,8 @@ public void run(String arg) {
 			int frames = imp.getNFrames();
 			if(imp.getNSlices()>1&&frames==1){
 				frames = imp.getNSlices();
-			}					//open Image
+			}			
+		//open Image
 
 		/***************************************************************************
 		 *#########################################################################* 
@@ -681,8 +682,8 @@ public void run(String arg) {
 				int pxCount1000 = pxCount/1000; if (pxCount1000==0){pxCount1000 = 1;}
 				int processedPxCount = 0;				
 				searchCells: for(int t = 0; t < frames; t++){
-					ArrayList <point> pointSaveCollection = new ArrayList <point> (pxCountPF[t]);
-					ArrayList <point> pointCollection = new ArrayList <point> (pxCountPF[t]);
+					PointCloud2D pointSaveCollection = new PointCloud2D(pxCountPF[t]);
+					PointCloud2D pointCollection = new PointCloud2D(pxCountPF[t]);
 					excludedParticles [t] = 0;					
 					int newPxCountPF = pxCountPF [t] - excludedParticles [t];
 					
@@ -691,7 +692,7 @@ public void run(String arg) {
 							if(imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1) > 0.0){
 								pointCollection.clear();
 								pointCollection.ensureCapacity(newPxCountPF);
-								pointCollection.add(new point(x,y,t,imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1)));
+								pointCollection.add(x,y,t,imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1));
 								imp.getStack().setVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1, 0.0);
 								processedPxCount++;
 								
@@ -710,8 +711,8 @@ public void run(String arg) {
 									index--;            
 									if ((floodNodeX > 0) 
 											&& (imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
-										pointCollection.add(new point((floodNodeX-1),(floodNodeY),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX-1),(floodNodeY),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -724,8 +725,8 @@ public void run(String arg) {
 									if ((floodNodeX < (width-1)) 
 											&& (imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 										
-										pointCollection.add(new point((floodNodeX+1),(floodNodeY),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX+1),(floodNodeY),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -738,8 +739,8 @@ public void run(String arg) {
 									if ((floodNodeY > 0) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 										
-										pointCollection.add(new point((floodNodeX),(floodNodeY-1),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY-1),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -752,8 +753,8 @@ public void run(String arg) {
 									if ((floodNodeY < (height-1)) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 
-										pointCollection.add(new point((floodNodeX),(floodNodeY+1),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY+1),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -769,32 +770,22 @@ public void run(String arg) {
 								}					
 								//Floodfiller
 								
-								pointCollection.trimToSize();
-								
 								//Filter Particle
 								if(pointCollection.size()<minParticleArea){
 									excludedParticles [t] += pointCollection.size();								
 								}else if(onlyLargest){
-									if(pointSaveCollection.isEmpty()){
-										pointSaveCollection.ensureCapacity(pointCollection.size());
-										for(int i = 0; i < pointCollection.size(); i++){
-											pointSaveCollection.add(pointCollection.get(i));
-										}
+									if(pointSaveCollection.size() == 0){
+										pointSaveCollection.addAll(pointCollection);
 									}else if(pointCollection.size() > pointSaveCollection.size()){
 										excludedParticles [t] += pointSaveCollection.size();
 										pointSaveCollection.clear();
-										pointSaveCollection.ensureCapacity(pointCollection.size());
-										for(int i = 0; i < pointCollection.size(); i++){
-											pointSaveCollection.add(pointCollection.get(i));
-										}
+										pointSaveCollection.addAll(pointCollection);
 									}else{
 										excludedParticles [t] += pointCollection.size();
 									}
 								}else{
 									//save points back to image
-									for(int i = 0; i < pointCollection.size(); i++){
-										pointSaveCollection.add(pointCollection.get(i));
-									}
+									pointSaveCollection.addAll(pointCollection);
 									includedParticles++;
 								}
 								//Filter particles
@@ -803,11 +794,10 @@ public void run(String arg) {
 						}
 					}
 					//write points in save collection back to image
-					pointSaveCollection.trimToSize();
 					for(int i = 0; i < pointSaveCollection.size(); i++){
-						imp.getStack().setVoxel(pointSaveCollection.get(i).x, pointSaveCollection.get(i).y,
-								imp.getStackIndex(1, 1, pointSaveCollection.get(i).t+1)-1,
-								pointSaveCollection.get(i).intensity);
+						imp.getStack().setVoxel(pointSaveCollection.x [i], pointSaveCollection.y [i],
+								imp.getStackIndex(1, 1, pointSaveCollection.t [i]+1)-1,
+								pointSaveCollection.intensity [i]);
 					}
 					newPxCount -= excludedParticles [t];
 					pxCountPF [t] -= excludedParticles [t];
@@ -826,7 +816,7 @@ public void run(String arg) {
 			}
 			
 			//Detect Particles			
-			ArrayList <point> wholePointCollection = new ArrayList <point>(pxCount);
+			PointCloud2D wholePointCollection = new PointCloud2D(pxCount);
 			TimelapseParticle2D allParticles = new TimelapseParticle2D();
 			double progressFactor1 = 0.25;
 			
@@ -837,7 +827,7 @@ public void run(String arg) {
 					for(int x = 0; x < width; x++){
 						for(int y = 0; y < height; y++){		
 							if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,1,t+1)-1) > 0.0){
-								wholePointCollection.add(new point(x,y,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,1,t+1)-1)));
+								wholePointCollection.add(x,y,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,1,t+1)-1));
 							}
 						}
 					}
@@ -855,14 +845,14 @@ public void run(String arg) {
 				int pxCount100 = pxCount/100; if (pxCount100==0){pxCount100 = 1;}
 				int pxCount1000 = pxCount/1000; if (pxCount1000==0){pxCount1000 = 1;}
 				
-				ArrayList <point> pointCollection = new ArrayList <point>();					
+				PointCloud2D pointCollection = new PointCloud2D(pxCount);					
 				searchCells: for(int t = 0; t < frames; t++){
 					for(int x = 0; x < width; x++){
 						for(int y = 0; y < height; y++){		
 							if(imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1) > 0.0){
 								pointCollection.clear();			
 								pointCollection.ensureCapacity(pxCount);
-								pointCollection.add(new point(x,y,t,imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1)));
+								pointCollection.add(x,y,t,imp.getStack().getVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1));
 								imp.getStack().setVoxel(x, y, imp.getStackIndex(1, 1, t+1)-1, 0.0);
 								processedPxCount++;
 								
@@ -882,8 +872,8 @@ public void run(String arg) {
 									if ((floodNodeX > 0) 
 											&& (imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 										
-										pointCollection.add(new point((floodNodeX-1),(floodNodeY),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX-1),(floodNodeY),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX-1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -896,8 +886,8 @@ public void run(String arg) {
 									if ((floodNodeX < (width-1)) 
 											&& (imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 										
-										pointCollection.add(new point((floodNodeX+1),(floodNodeY),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX+1),(floodNodeY),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX+1, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -910,8 +900,8 @@ public void run(String arg) {
 									if ((floodNodeY > 0) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 
-										pointCollection.add(new point((floodNodeX),(floodNodeY-1),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY-1),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY-1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -924,8 +914,8 @@ public void run(String arg) {
 									if ((floodNodeY < (height-1)) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1) > 0.0)){
 
-										pointCollection.add(new point((floodNodeX),(floodNodeY+1),(floodNodeT),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY+1),(floodNodeT),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY+1, imp.getStackIndex(1, 1, (floodNodeT)+1)-1, 0.0);
 										
 										index++;
@@ -938,8 +928,8 @@ public void run(String arg) {
 									if ((floodNodeT > 0) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT-1)+1)-1) > 0.0)){
 
-										pointCollection.add(new point((floodNodeX),(floodNodeY),(floodNodeT-1),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT-1)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY),(floodNodeT-1),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT-1)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT-1)+1)-1, 0.0);
 										
 										index++;
@@ -952,8 +942,8 @@ public void run(String arg) {
 									if ((floodNodeT < (frames-1)) 
 											&& (imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT+1)+1)-1) > 0.0)){
 
-										pointCollection.add(new point((floodNodeX),(floodNodeY),(floodNodeT+1),
-												imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT+1)+1)-1)));
+										pointCollection.add((floodNodeX),(floodNodeY),(floodNodeT+1),
+												imp.getStack().getVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT+1)+1)-1));
 										imp.getStack().setVoxel(floodNodeX, floodNodeY, imp.getStackIndex(1, 1, (floodNodeT+1)+1)-1, 0.0);
 										
 										index++;
@@ -972,7 +962,6 @@ public void run(String arg) {
 								}					
 								//Floodfiller
 								
-								pointCollection.trimToSize();
 								particleCollection.add(new TimelapseParticle2D(pointCollection, cal, totalGroupSize, skeletonize, gSigma, width, height, frames, true, binarizeBeforeSkl));													
 							}				
 						}
@@ -0,0 +1,582 @@
+/***===============================================================================
+ *
+ * MotiQ_2D plugin for imageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: November 07, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * =============================================================================**/
+
+package motiQ2D;
+
+import java.util.Arrays;
+
+import ij.measure.Calibration;
+
+/**
+ * Analysis of a 2D skeleton image (8-connected), stored in a flat byte array. Determines the same parameters as the
+ * AnalyzeSkeleton plugin by I. Arganda-Carreras (without pruning, with longest shortest path) for an image with a single slice:
+ * pixels are tagged as end points, junctions and slabs, the skeletons (trees) are separated and each tree is traversed
+ * in the same order as in AnalyzeSkeleton to build its graph (junction pixels that are neighbors form a single vertex)
+ * and to measure its branches. The longest shortest path of each tree is found with the SparsePathEngine.
+ * Points are stored as pixel indices (x + y * width) instead of point objects.
+ * */
+class Skeleton2D{
+	/** tags of the skeleton pixels (as in AnalyzeSkeleton)*/
+	static final byte END_POINT = 30, JUNCTION = 70, SLAB = 127;
+
+	/** offsets of the neighbors in the order in which AnalyzeSkeleton finds the next neighbor*/
+	private static final int DX [] = {1, 1, 1, 0, 0, -1, -1, -1},
+			DY [] = {1, 0, -1, 1, -1, 1, 0, -1};
+
+	private final int width, height;
+	private final double pixelWidth, pixelHeight;
+	/** input skeleton (pixels != 0)*/
+	private final byte skeleton [];
+	/** tagged skeleton (END_POINT, JUNCTION, SLAB)*/
+	private final byte tagged [];
+	private final boolean visited [];
+
+	//results (one entry per tree)
+	int numOfTrees = 0;
+	int numberOfBranches [], numberOfJunctions [], numberOfEndPoints [], numberOfJunctionVoxels [], numberOfSlabs [],
+		numberOfTriplePoints [], numberOfQuadruplePoints [];
+	double averageBranchLength [], maximumBranchLength [], shortestPath [];
+
+	//end points, junction pixels and starting slabs (of circular trees) sorted by tree: tree i owns entries first [i] ... first [i+1]-1
+	private int endPoints [], endPointsFirst [], junctionPixels [], junctionPixelsFirst [], startingSlabs [], startingSlabsFirst [];
+
+	/*
+	 * vertices: each junction vertex consists of the neighboring junction pixels vertexPoints [vertexPointsFirst [v]] ...,
+	 * vertices created for end points only consist of vertexFirstPoint [v]
+	 * */
+	private int nVertices = 0, nJunctionVertices = 0;
+	private int vertexFirstPoint [], vertexPoints [], vertexPointsFirst [];
+	/** junction vertex of each junction pixel*/
+	private int junctionVertex [];
+	/** junction vertices of tree i are junctionVerticesFirst [i] ... junctionVerticesFirst [i+1]-1*/
+	private int junctionVerticesFirst [];
+	/** tree whose graph contains the vertex (-1 if none) and index of the vertex in the vertex list of that graph*/
+	private int vertexGraph [], vertexGraphIndex [];
+
+	//graph of the current tree
+	private int nGraphVertices = 0, nEdges = 0;
+	private int edgeV1 [], edgeV2 [];
+	private double edgeLength [];
+
+	/** end point of the last visited branch and final vertex of that branch (as the auxiliary fields of AnalyzeSkeleton)*/
+	private int auxPoint = -1, auxFinalVertex = -1;
+
+	/**
+	 * Analyzes the skeleton given by the pixels != 0 of
+	 * @param skeleton with size
+	 * @param width and
+	 * @param height (lengths are calibrated with the pixel width and height of
+	 * @param cal)
+	 * */
+	Skeleton2D(byte skeleton [], int width, int height, Calibration cal){
+		this.width = width;
+		this.height = height;
+		this.pixelWidth = cal.pixelWidth;
+		this.pixelHeight = cal.pixelHeight;
+		this.skeleton = skeleton;
+		this.tagged = new byte [skeleton.length];
+		this.visited = new boolean [skeleton.length];
+
+		tagAndMarkTrees();
+		if(numOfTrees == 0)	return;
+
+		numberOfBranches = new int [numOfTrees];
+		numberOfJunctions = new int [numOfTrees];
+		numberOfSlabs = new int [numOfTrees];
+		numberOfTriplePoints = new int [numOfTrees];
+		numberOfQuadruplePoints = new int [numOfTrees];
+		averageBranchLength = new double [numOfTrees];
+		maximumBranchLength = new double [numOfTrees];
+		shortestPath = new double [numOfTrees];
+		numberOfEndPoints = new int [numOfTrees];
+		numberOfJunctionVoxels = new int [numOfTrees];
+		for(int i = 0; i < numOfTrees; i++){
+			numberOfEndPoints [i] = endPointsFirst [i+1] - endPointsFirst [i];
+			numberOfJunctionVoxels [i] = junctionPixelsFirst [i+1] - junctionPixelsFirst [i];
+		}
+
+		groupJunctions();
+		calculateTripleAndQuadruplePoints();
+
+		Arrays.fill(visited, false);
+		vertexGraph = new int [Math.max(16, 2 * nJunctionVertices)];
+		vertexGraphIndex = new int [vertexGraph.length];
+		Arrays.fill(vertexGraph, -1);
+		edgeV1 = new int [16];
+		edgeV2 = new int [16];
+		edgeLength = new double [16];
+		for(int i = 0; i < numOfTrees; i++){
+			visitSkeleton(i);
+			if(nGraphVertices == 1){
+				shortestPath [i] = 0.0;
+			}else{
+				for(int e = 0; e < nEdges; e++){
+					edgeV1 [e] = vertexGraph [edgeV1 [e]] == i ? vertexGraphIndex [edgeV1 [e]] : -1;
+					edgeV2 [e] = vertexGraph [edgeV2 [e]] == i ? vertexGraphIndex [edgeV2 [e]] : -1;
+				}
+				shortestPath [i] = new SparsePathEngine(nGraphVertices, nEdges, edgeV1, edgeV2, edgeLength).findLongestShortestPath();
+			}
+		}
+	}
+
+	/**
+	 * @return the tagged skeleton image (END_POINT, JUNCTION, SLAB), as the result image of AnalyzeSkeleton
+	 * */
+	byte [] getTaggedImage(){
+		return tagged;
+	}
+
+	/**
+	 * Tags the skeleton pixels (in the order of AnalyzeSkeleton: column by column) and labels the trees,
+	 * numbered in the order of their first end point, junction or slab pixel.
+	 * Sorts the end points, junction pixels and starting slabs by tree.
+	 * */
+	private void tagAndMarkTrees(){
+		int listOfEndPoints [] = new int [16], listOfJunctions [] = new int [16], listOfSlabs [] = new int [16];
+		int nEndPoints = 0, nJunctions = 0, nSlabs = 0, index, neighbors;
+		for(int x = 0; x < width; x++){
+			for(int y = 0; y < height; y++){
+				index = x + y * width;
+				if(skeleton [index] == 0)	continue;
+				neighbors = 0;
+				for(int i = 0; i < 8; i++){
+					if(getSkeleton(x + DX [i], y + DY [i]) != 0)	neighbors++;
+				}
+				if(neighbors < 2){
+					tagged [index] = END_POINT;
+					if(nEndPoints == listOfEndPoints.length)	listOfEndPoints = Arrays.copyOf(listOfEndPoints, 2 * nEndPoints);
+					listOfEndPoints [nEndPoints++] = index;
+				}else if(neighbors > 2){
+					tagged [index] = JUNCTION;
+					if(nJunctions == listOfJunctions.length)	listOfJunctions = Arrays.copyOf(listOfJunctions, 2 * nJunctions);
+					listOfJunctions [nJunctions++] = index;
+				}else{
+					tagged [index] = SLAB;
+					if(nSlabs == listOfSlabs.length)	listOfSlabs = Arrays.copyOf(listOfSlabs, 2 * nSlabs);
+					listOfSlabs [nSlabs++] = index;
+				}
+			}
+		}
+
+		//label 8-connected trees starting from end points, then junctions, then slabs (circular trees)
+		int tree [] = new int [skeleton.length];
+		int stack [] = new int [16];
+		int listOfStartingSlabs [] = new int [16];
+		int nStartingSlabs = 0;
+		for(int list = 0; list < 3; list++){
+			int points [] = list == 0 ? listOfEndPoints : (list == 1 ? listOfJunctions : listOfSlabs);
+			int nPoints = list == 0 ? nEndPoints : (list == 1 ? nJunctions : nSlabs);
+			for(int p = 0; p < nPoints; p++){
+				if(tree [points [p]] != 0)	continue;
+				numOfTrees++;
+				if(list == 2){
+					if(nStartingSlabs == listOfStartingSlabs.length)	listOfStartingSlabs = Arrays.copyOf(listOfStartingSlabs, 2 * nStartingSlabs);
+					listOfStartingSlabs [nStartingSlabs++] = points [p];
+				}
+				tree [points [p]] = numOfTrees;
+				stack [0] = points [p];
+				int nStack = 1, x, y;
+				while(nStack > 0){
+					index = stack [--nStack];
+					x = index % width;
+					y = index / width;
+					for(int i = 0; i < 8; i++){
+						if(getSkeleton(x + DX [i], y + DY [i]) != 0 && tree [index + DX [i] + DY [i] * width] == 0){
+							tree [index + DX [i] + DY [i] * width] = numOfTrees;
+							if(nStack == stack.length)	stack = Arrays.copyOf(stack, 2 * nStack);
+							stack [nStack++] = index + DX [i] + DY [i] * width;
+						}
+					}
+				}
+			}
+		}
+
+		endPointsFirst = new int [numOfTrees + 1];
+		endPoints = sortByTree(listOfEndPoints, nEndPoints, tree, endPointsFirst);
+		junctionPixelsFirst = new int [numOfTrees + 1];
+		junctionPixels = sortByTree(listOfJunctions, nJunctions, tree, junctionPixelsFirst);
+		startingSlabsFirst = new int [numOfTrees + 1];
+		startingSlabs = sortByTree(listOfStartingSlabs, nStartingSlabs, tree, startingSlabsFirst);
+	}
+
+	/**
+	 * Sorts the first
+	 * @param n entries of
+	 * @param points by
+	 * @param tree (stable)
+	 * @param first receives the first entry of each tree in the returned array
+	 * */
+	private int [] sortByTree(int points [], int n, int tree [], int first []){
+		for(int i = 0; i < n; i++){
+			first [tree [points [i]]]++;
+		}
+		for(int i = 0; i < numOfTrees; i++){
+			first [i+1] += first [i];
+		}
+		int sorted [] = new int [n];
+		int fill [] = Arrays.copyOf(first, numOfTrees);
+		for(int i = 0; i < n; i++){
+			sorted [fill [tree [points [i]] - 1]++] = points [i];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Groups neighboring junction pixels into junction vertices (in the order of AnalyzeSkeleton).
+	 * */
+	private void groupJunctions(){
+		int nJunctionPixels = junctionPixels.length;
+		junctionVertex = new int [skeleton.length];
+		vertexPoints = new int [nJunctionPixels];
+		vertexPointsFirst = new int [nJunctionPixels + 1];
+		vertexFirstPoint = new int [Math.max(16, 2 * nJunctionPixels)];
+		junctionVerticesFirst = new int [numOfTrees + 1];
+		int revisit [] = new int [nJunctionPixels];
+		int nPoints = 0, head, tail, next, start;
+		for(int t = 0; t < numOfTrees; t++){
+			junctionVerticesFirst [t] = nVertices;
+			for(int j = junctionPixelsFirst [t]; j < junctionPixelsFirst [t+1]; j++){
+				start = junctionPixels [j];
+				if(visited [start])	continue;
+				vertexFirstPoint [nVertices] = start;
+				vertexPointsFirst [nVertices] = nPoints;
+				vertexPoints [nPoints++] = start;
+				junctionVertex [start] = nVertices;
+				visited [start] = true;
+				head = 0;
+				tail = 0;
+				revisit [tail++] = start;
+				next = getNextUnvisitedJunction(start);
+				while(next >= 0 || head < tail){
+					if(next >= 0){
+						vertexPoints [nPoints++] = next;
+						junctionVertex [next] = nVertices;
+						visited [next] = true;
+						revisit [tail++] = next;
+						next = getNextUnvisitedJunction(next);
+					}else{
+						next = getNextUnvisitedJunction(revisit [head]);
+						if(next < 0)	head++;
+					}
+				}
+				numberOfJunctions [t]++;
+				nVertices++;
+			}
+		}
+		junctionVerticesFirst [numOfTrees] = nVertices;
+		vertexPointsFirst [nVertices] = nPoints;
+		nJunctionVertices = nVertices;
+	}
+
+	/**
+	 * Triple and quadruple points are junction vertices with exactly 3 and 4 neighboring slab and end-point pixels.
+	 * */
+	private void calculateTripleAndQuadruplePoints(){
+		int index, x, y, nBranches;
+		byte tag;
+		for(int t = 0; t < numOfTrees; t++){
+			for(int v = junctionVerticesFirst [t]; v < junctionVerticesFirst [t+1]; v++){
+				nBranches = 0;
+				for(int p = vertexPointsFirst [v]; p < vertexPointsFirst [v+1]; p++){
+					index = vertexPoints [p];
+					x = index % width;
+					y = index / width;
+					for(int i = 0; i < 8; i++){
+						if(getSkeleton(x + DX [i], y + DY [i]) == 0)	continue;
+						tag = tagged [index + DX [i] + DY [i] * width];
+						if(tag == SLAB || tag == END_POINT)	nBranches++;
+					}
+				}
+				if(nBranches == 3){
+					numberOfTriplePoints [t]++;
+				}else if(nBranches == 4){
+					numberOfQuadruplePoints [t]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits the branches of a tree starting at end points, junctions and slabs (circular trees) as in AnalyzeSkeleton,
+	 * measures them and builds the graph of the tree.
+	 * @param t tree index
+	 * */
+	private void visitSkeleton(int t){
+		nGraphVertices = 0;
+		nEdges = 0;
+		for(int v = junctionVerticesFirst [t]; v < junctionVerticesFirst [t+1]; v++){
+			addGraphVertex(v, t);
+		}
+		double branchLength = 0.0, length;
+		int v1, aux;
+
+		//branches starting at end points
+		for(int i = endPointsFirst [t]; i < endPointsFirst [t+1]; i++){
+			int endPoint = endPoints [i];
+			if(visited [endPoint])	continue;
+			v1 = newVertex(endPoint);
+			addGraphVertex(v1, t);
+			length = visitBranch(endPoint, t);
+
+			//length 0: the tree is formed by only one pixel
+			if(length == 0){
+				//if there is an adjacent visited junction, count it as a single pixel branch
+				aux = getVisitedJunctionNeighbor(endPoint, v1);
+				if(aux >= 0){
+					auxFinalVertex = junctionVertex [aux];
+					length += calculateDistance(endPoint, aux);
+					length += calculateDistance(vertexFirstPoint [auxFinalVertex], endPoint);
+					addGraphVertex(auxFinalVertex, t);
+					addEdge(v1, auxFinalVertex, length);
+					numberOfBranches [t]++;
+					branchLength += length;
+				}
+				continue;
+			}
+
+			//if the final point is a slab, add the path to the neighbor junction not belonging to the initial vertex (unless it is a self loop)
+			if(tagged [auxPoint] == SLAB){
+				aux = auxPoint;
+				auxPoint = getVisitedJunctionNeighbor(auxPoint, v1);
+				if(auxPoint < 0){
+					//inner loop
+					auxFinalVertex = v1;
+					auxPoint = aux;
+				}else{
+					auxFinalVertex = junctionVertex [auxPoint];
+				}
+				length += calculateDistance(auxPoint, aux);
+				length += calculateDistance(vertexFirstPoint [auxFinalVertex], auxPoint);
+			}
+			addGraphVertex(auxFinalVertex, t);
+			addEdge(v1, auxFinalVertex, length);
+			numberOfBranches [t]++;
+			branchLength += length;
+			if(length > maximumBranchLength [t])	maximumBranchLength [t] = length;
+		}
+
+		//branches starting at junctions
+		int junction, next;
+		for(int v = junctionVerticesFirst [t]; v < junctionVerticesFirst [t+1]; v++){
+			for(int p = vertexPointsFirst [v]; p < vertexPointsFirst [v+1]; p++){
+				junction = vertexPoints [p];
+				visited [junction] = true;
+				next = getNextUnvisited(junction);
+				while(next >= 0){
+					if(tagged [next] != JUNCTION){
+						numberOfSlabs [t]++;
+						length = calculateDistance(junction, next);
+						auxPoint = -1;
+						length += visitBranch(next, t);
+						branchLength += length;
+						if(length != 0){
+							if(auxPoint < 0)	auxPoint = next;
+							numberOfBranches [t]++;
+							if(tagged [auxPoint] == SLAB){
+								aux = auxPoint;
+								auxPoint = getVisitedJunctionNeighbor(auxPoint, v);
+								if(auxPoint < 0){
+									//inner loop
+									auxFinalVertex = v;
+									auxPoint = aux;
+								}else{
+									auxFinalVertex = junctionVertex [auxPoint];
+								}
+								length += calculateDistance(auxPoint, aux);
+							}
+							if(length > maximumBranchLength [t])	maximumBranchLength [t] = length;
+
+							//the graph edge starts at the first point of the junction vertex
+							length += calculateDistance(vertexFirstPoint [v], junction);
+							addEdge(v, auxFinalVertex, length);
+						}
+					}else{
+						visited [next] = true;
+					}
+					next = getNextUnvisited(junction);
+				}
+			}
+		}
+
+		//branches starting at slabs (circular trees without end points and junctions)
+		if(startingSlabsFirst [t+1] - startingSlabsFirst [t] == 1){
+			int start = startingSlabs [startingSlabsFirst [t]];
+			v1 = newVertex(start);
+			addGraphVertex(v1, t);
+			numberOfSlabs [t]++;
+			length = visitBranch(start, t);
+			if(length != 0){
+				numberOfBranches [t]++;
+				branchLength += length;
+				if(length > maximumBranchLength [t])	maximumBranchLength [t] = length;
+			}
+			addEdge(v1, v1, length);
+		}
+
+		if(numberOfBranches [t] == 0)	return;
+		averageBranchLength [t] = branchLength / numberOfBranches [t];
+	}
+
+	/**
+	 * Visits a branch until an end point or junction is found and counts its slab pixels.
+	 * Sets auxPoint to the last pixel of the branch and auxFinalVertex to the vertex of the end point or junction found.
+	 * @return the length of the branch (0 if the starting point has no unvisited neighbor)
+	 * */
+	private double visitBranch(int start, int t){
+		visited [start] = true;
+		int next = getNextUnvisited(start);
+		if(next < 0)	return 0.0;
+		double length = 0.0;
+		int previous = start;
+		while(next >= 0 && tagged [next] == SLAB){
+			numberOfSlabs [t]++;
+			length += calculateDistance(previous, next);
+			visited [next] = true;
+			previous = next;
+			next = getNextUnvisited(previous);
+		}
+		if(next >= 0){
+			length += calculateDistance(previous, next);
+			visited [next] = true;
+			if(tagged [next] == END_POINT){
+				auxFinalVertex = newVertex(next);
+			}else if(tagged [next] == JUNCTION){
+				auxFinalVertex = junctionVertex [next];
+				//add the length to the first point of the vertex
+				length += calculateDistance(vertexFirstPoint [auxFinalVertex], next);
+			}
+			auxPoint = next;
+		}else{
+			auxPoint = previous;
+		}
+		return length;
+	}
+
+	/**
+	 * @return a new vertex consisting of the end point
+	 * @param point
+	 * */
+	private int newVertex(int point){
+		if(nVertices == vertexFirstPoint.length){
+			vertexFirstPoint = Arrays.copyOf(vertexFirstPoint, 2 * nVertices);
+		}
+		vertexFirstPoint [nVertices] = point;
+		return nVertices++;
+	}
+
+	/**
+	 * adds the vertex v to the vertex list of the graph of tree t (if not yet contained)
+	 * */
+	private void addGraphVertex(int v, int t){
+		if(v >= vertexGraph.length){
+			int length = vertexGraph.length;
+			vertexGraph = Arrays.copyOf(vertexGraph, Math.max(2 * length, v + 1));
+			vertexGraphIndex = Arrays.copyOf(vertexGraphIndex, vertexGraph.length);
+			Arrays.fill(vertexGraph, length, vertexGraph.length, -1);
+		}
+		if(vertexGraph [v] == t)	return;
+		vertexGraph [v] = t;
+		vertexGraphIndex [v] = nGraphVertices++;
+	}
+
+	private void addEdge(int v1, int v2, double length){
+		if(nEdges == edgeV1.length){
+			edgeV1 = Arrays.copyOf(edgeV1, 2 * nEdges);
+			edgeV2 = Arrays.copyOf(edgeV2, 2 * nEdges);
+			edgeLength = Arrays.copyOf(edgeLength, 2 * nEdges);
+		}
+		edgeV1 [nEdges] = v1;
+		edgeV2 [nEdges] = v2;
+		edgeLength [nEdges] = length;
+		nEdges++;
+	}
+
+	/**
+	 * @return 1 if (x,y) is a skeleton pixel, 0 otherwise (also outside the image)
+	 * */
+	private int getSkeleton(int x, int y){
+		if(x < 0 || y < 0 || x >= width || y >= height)	return 0;
+		return skeleton [x + y * width] != 0 ? 1 : 0;
+	}
+
+	/**
+	 * @return the unvisited skeleton neighbor of the pixel
+	 * @param index that AnalyzeSkeleton would choose, -1 if there is none
+	 * */
+	private int getNextUnvisited(int index){
+		int x = index % width, y = index / width;
+		for(int i = 0; i < 8; i++){
+			if(getSkeleton(x + DX [i], y + DY [i]) != 0 && !visited [index + DX [i] + DY [i] * width]){
+				return index + DX [i] + DY [i] * width;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the unvisited junction neighbor of the pixel
+	 * @param index, -1 if there is none
+	 * */
+	private int getNextUnvisitedJunction(int index){
+		int x = index % width, y = index / width;
+		for(int i = 0; i < 8; i++){
+			if(getSkeleton(x + DX [i], y + DY [i]) != 0 && !visited [index + DX [i] + DY [i] * width]
+					&& tagged [index + DX [i] + DY [i] * width] == JUNCTION){
+				return index + DX [i] + DY [i] * width;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return a visited junction neighbor of the pixel
+	 * @param index that does not belong to the vertex
+	 * @param exclude, -1 if there is none
+	 * */
+	private int getVisitedJunctionNeighbor(int index, int exclude){
+		int x = index % width, y = index / width, neighbor;
+		for(int i = 0; i < 8; i++){
+			if(getSkeleton(x + DX [i], y + DY [i]) == 0)	continue;
+			neighbor = index + DX [i] + DY [i] * width;
+			if(visited [neighbor] && tagged [neighbor] == JUNCTION && !isVertexPoint(exclude, neighbor)){
+				return neighbor;
+			}
+		}
+		return -1;
+	}
+
+	private boolean isVertexPoint(int v, int point){
+		if(v < nJunctionVertices)	return junctionVertex [point] == v;
+		return vertexFirstPoint [v] == point;
+	}
+
+	/**
+	 * @return the calibrated distance between two pixels
+	 * */
+	private double calculateDistance(int point1, int point2){
+		return Math.sqrt(Math.pow((point1 % width - point2 % width) * pixelWidth, 2)
+				+ Math.pow((point1 / width - point2 / width) * pixelHeight, 2));
+	}
+}
@@ -0,0 +1,285 @@
+/***===============================================================================
+ *
+ * MotiQ_2D plugin for imageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: November 07, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * =============================================================================**/
+
+package motiQ2D;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Finds the length of the longest shortest path of a skeleton graph (replaces the all-pairs Warshall algorithm
+ * of AnalyzeSkeleton, same as the SparsePathEngine of the 3D Analyzer). The graph is stored as adjacency arrays.
+ * If the graph is a tree, the length is found with a double sweep of Dijkstra's algorithm.
+ * Otherwise, Dijkstra's algorithm is run from every vertex, skipping vertices whose eccentricity
+ * cannot exceed the longest path found so far (bound from a reference sweep and the triangle inequality).
+ * Parallel edges and self loops are weighted as in the adjacency matrix of the Warshall algorithm.
+ * */
+class SparsePathEngine{
+	/** relative tolerance used to recognize path lengths that are equal except for rounding errors*/
+	private static final double TIE_TOLERANCE = 1.0E-10;
+
+	private final int nVertices;
+	/** arcs of vertex i are arcs firstArc [i] ... firstArc [i+1]-1*/
+	private final int firstArc [];
+	private final int arcTarget [];
+	private final double arcLength [];
+	private boolean tree;
+	/** distance of each vertex to itself in the Warshall algorithm (shortest closed path)*/
+	private final double selfDistance [];
+
+	private double pathLength = 0.0;
+
+	//Dijkstra workspace
+	private final int heap [], heapPosition [];
+	private int heapSize;
+
+	/**
+	 * @param nVertices number of vertices of the graph (numbered in the order of the vertex list of the graph)
+	 * @param nEdges number of edges, edge i connects the vertices
+	 * @param edgeV1 [i] and
+	 * @param edgeV2 [i] (-1 for a vertex that is not in the vertex list of the graph) and has the length
+	 * @param edgeLength [i]
+	 * */
+	SparsePathEngine(int nVertices, int nEdges, int edgeV1 [], int edgeV2 [], double edgeLength []){
+		this.nVertices = nVertices;
+
+		/*
+		 * resolve edges, as in the adjacency matrix of the Warshall algorithm
+		 * - only the last of several edges connecting the same vertices defines their distance
+		 * - the distance of a vertex to itself is the length of a self loop if that is the last
+		 * 	edge of the vertex in the list of edges, and 0 otherwise
+		 * */
+		int v1 [] = new int [nEdges], v2 [] = new int [nEdges];
+		double length [] = new double [nEdges];
+		int degree [] = new int [nVertices + 1];
+		int nPairs = 0;
+		HashMap<Long,Integer> edgeOfPair = new HashMap<Long,Integer>(2 * nEdges);
+		Integer e;
+		selfDistance = new double [nVertices];
+		Arrays.fill(selfDistance, Double.POSITIVE_INFINITY);
+		boolean complete = true, loops = false;
+		int i1, i2;
+		for(int edge = 0; edge < nEdges; edge++){
+			i1 = edgeV1 [edge];
+			i2 = edgeV2 [edge];
+			if(i1 < 0 || i2 < 0){
+				//edge to a vertex that is not in the graph
+				complete = false;
+				continue;
+			}
+			if(i1 == i2){
+				selfDistance [i1] = edgeLength [edge];
+				loops = true;
+				continue;
+			}
+			selfDistance [i1] = 0.0;
+			selfDistance [i2] = 0.0;
+			e = edgeOfPair.get(Math.min(i1, i2) * (long) nVertices + Math.max(i1, i2));
+			if(e != null){
+				length [e] = edgeLength [edge];
+				continue;
+			}
+			edgeOfPair.put(Math.min(i1, i2) * (long) nVertices + Math.max(i1, i2), nPairs);
+			v1 [nPairs] = i1;
+			v2 [nPairs] = i2;
+			length [nPairs] = edgeLength [edge];
+			degree [i1]++;
+			degree [i2]++;
+			nPairs++;
+		}
+
+		firstArc = new int [nVertices + 1];
+		for(int i = 0; i < nVertices; i++){
+			firstArc [i+1] = firstArc [i] + degree [i];
+		}
+		arcTarget = new int [2 * nPairs];
+		arcLength = new double [2 * nPairs];
+		int fill [] = Arrays.copyOf(firstArc, nVertices);
+		for(int i = 0; i < nPairs; i++){
+			arcTarget [fill [v1 [i]]] = v2 [i];
+			arcLength [fill [v1 [i]]++] = length [i];
+			arcTarget [fill [v2 [i]]] = v1 [i];
+			arcLength [fill [v2 [i]]++] = length [i];
+		}
+
+		//a path to a neighbor and back may be shorter than the self loop
+		for(int i = 0; i < nVertices; i++){
+			for(int a = firstArc [i]; a < firstArc [i+1]; a++){
+				if(2.0 * arcLength [a] < selfDistance [i])	selfDistance [i] = 2.0 * arcLength [a];
+			}
+		}
+
+		//a connected graph with V-1 edges is a tree (connectivity is checked in the first sweep)
+		tree = complete && !loops && nPairs == nVertices - 1;
+
+		heap = new int [nVertices];
+		heapPosition = new int [nVertices];
+	}
+
+	/**
+	 * @return the length of the longest shortest path of the graph (0 if the graph has no path of positive length)
+	 * */
+	double findLongestShortestPath(){
+		if(nVertices < 2)	return 0.0;
+		double distance [] = new double [nVertices];
+		dijkstra(0, distance);
+		if(tree){
+			for(int i = 0; i < nVertices; i++){
+				if(distance [i] == Double.POSITIVE_INFINITY){
+					tree = false;
+					break;
+				}
+			}
+		}
+		if(tree){
+			//double sweep: the vertex farthest from any vertex is an end of a diameter (v1), the vertex farthest from v1 is the other end
+			double distance1 [] = new double [nVertices];
+			dijkstra(farthest(distance), distance1);
+			pathLength = Math.max(0.0, distance1 [farthest(distance1)]);
+		}else{
+			findInGraph(distance);
+		}
+		return pathLength;
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from every vertex that may be the start of a longer path than the longest found so far.
+	 * The eccentricity of a vertex v is at most d(r,v) + eccentricity(r) for the reference vertex r = 0.
+	 * @param distanceFrom0 distances from vertex 0
+	 * */
+	private void findInGraph(double distanceFrom0 []){
+		double eccentricity0 = 0.0;
+		for(int i = 0; i < nVertices; i++){
+			if(distanceFrom0 [i] != Double.POSITIVE_INFINITY && distanceFrom0 [i] > eccentricity0){
+				eccentricity0 = distanceFrom0 [i];
+			}
+		}
+		double distance [] = new double [nVertices];
+		for(int i = 0; i < nVertices; i++){
+			//only vertices connected to vertex 0 are bounded by the reference sweep
+			if(i > 0 && distanceFrom0 [i] != Double.POSITIVE_INFINITY
+					&& distanceFrom0 [i] + eccentricity0 <= pathLength){
+				continue;
+			}
+			if(i == 0){
+				System.arraycopy(distanceFrom0, 0, distance, 0, nVertices);
+			}else{
+				dijkstra(i, distance);
+			}
+			distance [i] = selfDistance [i];
+			for(int j = 0; j < nVertices; j++){
+				//paths that are longer only by rounding errors do not replace the path found first
+				if(distance [j] > pathLength * (1.0 + TIE_TOLERANCE) && distance [j] != Double.POSITIVE_INFINITY){
+					pathLength = distance [j];
+				}
+			}
+		}
+	}
+
+	private int farthest(double distance []){
+		int farthest = 0;
+		for(int i = 1; i < nVertices; i++){
+			if(distance [i] > distance [farthest])	farthest = i;
+		}
+		return farthest;
+	}
+
+	/**
+	 * Dijkstra's algorithm with an indexed binary heap
+	 * @param source index of the start vertex
+	 * @param distance receives the lengths of the shortest paths from the source (infinity if not connected)
+	 * */
+	private void dijkstra(int source, double distance []){
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(heapPosition, -1);
+		heapSize = 0;
+		distance [source] = 0.0;
+		push(source, distance);
+		int u, v;
+		double d;
+		while(heapSize > 0){
+			u = pop(distance);
+			for(int a = firstArc [u]; a < firstArc [u+1]; a++){
+				v = arcTarget [a];
+				if(heapPosition [v] == nVertices)	continue;	//already settled
+				d = distance [u] + arcLength [a];
+				if(d < distance [v]){
+					distance [v] = d;
+					if(heapPosition [v] < 0){
+						push(v, distance);
+					}else{
+						siftUp(heapPosition [v], distance);
+					}
+				}
+			}
+		}
+	}
+
+	private void push(int v, double distance []){
+		heap [heapSize] = v;
+		heapPosition [v] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1, distance);
+	}
+
+	private int pop(double distance []){
+		int top = heap [0];
+		heapSize--;
+		if(heapSize > 0){
+			heap [0] = heap [heapSize];
+			heapPosition [heap [0]] = 0;
+			siftDown(0, distance);
+		}
+		//settled vertices are marked with a position beyond the heap, so that they are never pushed again
+		heapPosition [top] = nVertices;
+		return top;
+	}
+
+	private void siftUp(int i, double distance []){
+		int v = heap [i], parent;
+		while(i > 0){
+			parent = (i - 1) >> 1;
+			if(distance [heap [parent]] <= distance [v])	break;
+			heap [i] = heap [parent];
+			heapPosition [heap [i]] = i;
+			i = parent;
+		}
+		heap [i] = v;
+		heapPosition [v] = i;
+	}
+
+	private void siftDown(int i, double distance []){
+		int v = heap [i], child;
+		while((child = 2 * i + 1) < heapSize){
+			if(child + 1 < heapSize && distance [heap [child + 1]] < distance [heap [child]])	child++;
+			if(distance [heap [child]] >= distance [v])	break;
+			heap [i] = heap [child];
+			heapPosition [heap [i]] = i;
+			i = child;
+		}
+		heap [i] = v;
+		heapPosition [v] = i;
+	}
+}
@@ -0,0 +1,236 @@
+/***===============================================================================
+ *
+ * MotiQ_2D plugin for imageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: November 07, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * =============================================================================**/
+
+package motiQ2D;
+
+import java.util.Arrays;
+
+/**
+ * Thinning (skeletonization) of a 2D binary image stored in a flat byte array.
+ * Implements the thinning algorithm of Lee et al. (1994) as in the Skeletonize3D plugin by I. Arganda-Carreras
+ * for an image with a single slice: in each iteration, the border points of the four directions (north, south, east, west)
+ * are deleted one direction after another if they are deletable (no end point, Euler invariant, simple), and the candidates
+ * of a direction are re-checked sequentially (in raster order) before deletion. For a single slice all tests only depend on the
+ * 8-neighborhood of a pixel, so they are looked up in tables with one entry per 8-bit neighborhood pattern.
+ * The resulting skeletons are identical to the ones of Skeletonize3D.
+ * */
+class Thinning2D{
+	/** offsets of the neighbors, bit i of a neighborhood pattern is the neighbor (DX [i], DY [i])*/
+	private static final int DX [] = {-1, 0, 1, -1, 1, -1, 0, 1},
+			DY [] = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+	/** pixels with these patterns can be deleted from the border (not an end point, Euler invariant, simple)*/
+	private static final boolean DELETABLE [] = new boolean [256];
+	/** pixels with these patterns are simple (the neighbors form at most one 8-connected component), used to re-check candidates*/
+	private static final boolean SIMPLE [] = new boolean [256];
+	static{
+		for(int pattern = 0; pattern < 256; pattern++){
+			SIMPLE [pattern] = countComponents(pattern) <= 1;
+			DELETABLE [pattern] = Integer.bitCount(pattern) != 1 && countComponents(pattern) == 1
+					&& eulerNumber(pattern, true) == eulerNumber(pattern, false);
+		}
+	}
+
+	/**
+	 * Thins the foreground (pixels != 0) of the image
+	 * @param pixels of the image with size
+	 * @param width and
+	 * @param height, afterwards skeleton pixels are 255 and all other pixels 0
+	 * */
+	static void thin(byte pixels [], int width, int height){
+		for(int i = 0; i < pixels.length; i++){
+			if(pixels [i] != 0)	pixels [i] = 1;
+		}
+
+		//only border points (with a background 4-neighbor) can be deleted, visit a list of them in raster order
+		boolean inBorderList [] = new boolean [pixels.length];
+		int borderPoints [] = new int [64];
+		int nBorderPoints = 0;
+		for(int y = 0; y < height; y++){
+			for(int x = 0; x < width; x++){
+				if(pixels [x + y * width] == 1 && (getPixel(pixels, width, height, x, y-1) == 0 || getPixel(pixels, width, height, x, y+1) == 0
+						|| getPixel(pixels, width, height, x+1, y) == 0 || getPixel(pixels, width, height, x-1, y) == 0)){
+					if(nBorderPoints == borderPoints.length)	borderPoints = Arrays.copyOf(borderPoints, 2 * nBorderPoints);
+					borderPoints [nBorderPoints++] = x + y * width;
+					inBorderList [x + y * width] = true;
+				}
+			}
+		}
+
+		int candidates [] = new int [64], newBorderPoints [] = new int [64], merged [] = new int [64];
+		int nCandidates, nNewBorderPoints, nMerged, index, x, y, j;
+		boolean changed = true, directionChanged;
+		//direction of the background neighbor: north, south, east, west
+		final int directionX [] = {0, 0, 1, -1}, directionY [] = {-1, 1, 0, 0};
+		while(changed){
+			changed = false;
+			for(int direction = 0; direction < 4; direction++){
+				//gather the deletable border points of this direction
+				nCandidates = 0;
+				for(int i = 0; i < nBorderPoints; i++){
+					index = borderPoints [i];
+					x = index % width;
+					y = index / width;
+					if(getPixel(pixels, width, height, x + directionX [direction], y + directionY [direction]) != 0)	continue;
+					if(!DELETABLE [getPattern(pixels, width, height, x, y)])	continue;
+					if(nCandidates == candidates.length)	candidates = Arrays.copyOf(candidates, 2 * nCandidates);
+					candidates [nCandidates++] = index;
+				}
+
+				//re-check sequentially to preserve connectivity
+				directionChanged = false;
+				nNewBorderPoints = 0;
+				for(int i = 0; i < nCandidates; i++){
+					index = candidates [i];
+					x = index % width;
+					y = index / width;
+					if(!SIMPLE [getPattern(pixels, width, height, x, y)])	continue;
+					pixels [index] = 0;
+					directionChanged = true;
+
+					//foreground 4-neighbors of the deleted pixel become border points
+					if(nNewBorderPoints + 4 > newBorderPoints.length)	newBorderPoints = Arrays.copyOf(newBorderPoints, 2 * newBorderPoints.length + 4);
+					for(int d = 0; d < 4; d++){
+						if(getPixel(pixels, width, height, x + directionX [d], y + directionY [d]) == 1
+								&& !inBorderList [index + directionX [d] + directionY [d] * width]){
+							inBorderList [index + directionX [d] + directionY [d] * width] = true;
+							newBorderPoints [nNewBorderPoints++] = index + directionX [d] + directionY [d] * width;
+						}
+					}
+				}
+				if(!directionChanged)	continue;
+				changed = true;
+
+				//update the list of border points: remove deleted pixels and merge the new border points (keeping raster order)
+				Arrays.sort(newBorderPoints, 0, nNewBorderPoints);
+				if(merged.length < nBorderPoints + nNewBorderPoints)	merged = new int [nBorderPoints + nNewBorderPoints];
+				nMerged = 0;
+				j = 0;
+				for(int i = 0; i < nBorderPoints; i++){
+					index = borderPoints [i];
+					if(pixels [index] != 1){
+						inBorderList [index] = false;
+						continue;
+					}
+					while(j < nNewBorderPoints && newBorderPoints [j] < index){
+						merged [nMerged++] = newBorderPoints [j++];
+					}
+					merged [nMerged++] = index;
+				}
+				while(j < nNewBorderPoints){
+					merged [nMerged++] = newBorderPoints [j++];
+				}
+				int swap [] = borderPoints;
+				borderPoints = merged;
+				merged = swap;
+				nBorderPoints = nMerged;
+			}
+		}
+
+		for(int i = 0; i < pixels.length; i++){
+			if(pixels [i] != 0)	pixels [i] = (byte) 255;
+		}
+	}
+
+	/**
+	 * @return the pixel value at (x,y) or 0 if outside the image
+	 * */
+	private static byte getPixel(byte pixels [], int width, int height, int x, int y){
+		if(x < 0 || y < 0 || x >= width || y >= height)	return 0;
+		return pixels [x + y * width];
+	}
+
+	/**
+	 * @return the neighborhood pattern of the pixel (x,y): bit i is set if the neighbor (DX [i], DY [i]) is foreground
+	 * */
+	private static int getPattern(byte pixels [], int width, int height, int x, int y){
+		int pattern = 0;
+		if(x > 0 && y > 0 && x < width - 1 && y < height - 1){
+			int index = x + y * width;
+			for(int i = 0; i < 8; i++){
+				if(pixels [index + DX [i] + DY [i] * width] == 1)	pattern |= 1 << i;
+			}
+		}else{
+			for(int i = 0; i < 8; i++){
+				if(getPixel(pixels, width, height, x + DX [i], y + DY [i]) == 1)	pattern |= 1 << i;
+			}
+		}
+		return pattern;
+	}
+
+	/**
+	 * @return the number of 8-connected components formed by the neighbors in the
+	 * @param pattern (without the center pixel)
+	 * */
+	private static int countComponents(int pattern){
+		int label [] = new int [8], stack [] = new int [8];
+		int nComponents = 0, nStack, k;
+		for(int i = 0; i < 8; i++){
+			if((pattern & (1 << i)) == 0 || label [i] != 0)	continue;
+			nComponents++;
+			label [i] = nComponents;
+			stack [0] = i;
+			nStack = 1;
+			while(nStack > 0){
+				k = stack [--nStack];
+				for(int j = 0; j < 8; j++){
+					if((pattern & (1 << j)) != 0 && label [j] == 0
+							&& Math.abs(DX [j] - DX [k]) <= 1 && Math.abs(DY [j] - DY [k]) <= 1){
+						label [j] = nComponents;
+						stack [nStack++] = j;
+					}
+				}
+			}
+		}
+		return nComponents;
+	}
+
+	/**
+	 * @return four times the Euler number (8-connectivity) of the 3x3 neighborhood given by
+	 * @param pattern and
+	 * @param center (is the center pixel set), calculated from the counts of 2x2 bit quads (Gray, 1971)
+	 * */
+	private static int eulerNumber(int pattern, boolean center){
+		int grid [][] = new int [5][5];
+		for(int i = 0; i < 8; i++){
+			if((pattern & (1 << i)) != 0)	grid [2 + DY [i]][2 + DX [i]] = 1;
+		}
+		if(center)	grid [2][2] = 1;
+		int q1 = 0, q3 = 0, qDiagonal = 0, sum;
+		for(int y = 0; y < 4; y++){
+			for(int x = 0; x < 4; x++){
+				sum = grid [y][x] + grid [y][x+1] + grid [y+1][x] + grid [y+1][x+1];
+				if(sum == 1){
+					q1++;
+				}else if(sum == 3){
+					q3++;
+				}else if(sum == 2 && grid [y][x] == grid [y+1][x+1]){
+					qDiagonal++;
+				}
+			}
+		}
+		return q1 - q3 - 2 * qDiagonal;
+	}
+}
@@ -38,12 +38,11 @@ import ij.ImageStack;
 import ij.gui.PolygonRoi;
 import ij.gui.Roi;
 import ij.measure.Calibration;
-import motiQ2D.skeleton_analysis.*;
-import motiQ2D.skeletonize3D.*;
+import ij.process.ByteProcessor;
+import ij.process.ImageConverter;
 
 class TimelapseParticle2D{
 	public boolean initialized = false;
-	double pointList [][];	//[nr][x,y,time]
 	double data [][][];
 	boolean hullData [][][];
 	int tMin, tMax, times, xMin, xMax, width, yMin, yMax, height, projectedTimes;		
@@ -191,13 +190,21 @@ class TimelapseParticle2D{
 	
 	//noninitilaized timelapseParticle
 	public TimelapseParticle2D(){}	
-	public TimelapseParticle2D(ArrayList<point> points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigma, int orWidth, int orHeight, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization){		
+	public TimelapseParticle2D(ArrayList<point> points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigma, int orWidth, int orHeight, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization){
+		this(PointCloud2D.fromList(points), cal, projectedFrames, skeletonize, gaussSigma, orWidth, orHeight, orTimes, minimizeImages, binarizeBeforeSkeletonization);
+		points.clear();
+	}
+	
+	/**
+	 * @param points: pixels of the particle (uncalibrated coordinates), the PointCloud2D is cleared after construction
+	 * */
+	public TimelapseParticle2D(PointCloud2D points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigma, int orWidth, int orHeight, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization){		
 		double calibration = cal.pixelWidth;
 		pxArea = calibration*calibration;
-		double timePerFrame = cal.frameInterval;
 		
 		int nPoints = points.size();
-		pointList = new double [nPoints][4];	//x,y,t,intensity
+		final int pX [] = points.x, pY [] = points.y, pT [] = points.t;
+		final float pIntensity [] = points.intensity;
 		
 		//get min/max values
 		tMin = Integer.MAX_VALUE;
@@ -207,19 +214,14 @@ class TimelapseParticle2D{
 		yMin = Integer.MAX_VALUE;
 		yMax = 0;
 		for(int i = 0; i < nPoints; i++){
-			pointList[i][0] = points.get(i).x*calibration;
-			pointList[i][1] = points.get(i).y*calibration;
-			pointList[i][2] = points.get(i).t*timePerFrame;	
-			pointList[i][3] = points.get(i).intensity;	
-			if(pointList[i][2]/timePerFrame>tMax)	tMax = (int)Math.round(pointList[i][2]/timePerFrame);
-			if(pointList[i][2]/timePerFrame<tMin)	tMin = (int)Math.round(pointList[i][2]/timePerFrame);
-			if(pointList[i][0]/calibration>xMax)		xMax = (int)Math.round(pointList[i][0]/calibration);
-			if(pointList[i][0]/calibration<xMin)		xMin = (int)Math.round(pointList[i][0]/calibration);
-			if(pointList[i][1]/calibration>yMax)		yMax = (int)Math.round(pointList[i][1]/calibration);
-			if(pointList[i][1]/calibration<yMin)		yMin = (int)Math.round(pointList[i][1]/calibration);
+			if(pT[i]>tMax)	tMax = pT[i];
+			if(pT[i]<tMin)	tMin = pT[i];
+			if(pX[i]>xMax)	xMax = pX[i];
+			if(pX[i]<xMin)	xMin = pX[i];
+			if(pY[i]>yMax)	yMax = pY[i];
+			if(pY[i]<yMin)	yMin = pY[i];
 		}
 		points.clear();
-		System.gc();
 		
 		times = 1+tMax-tMin;
 		width = 1+xMax-xMin;
@@ -286,36 +288,40 @@ class TimelapseParticle2D{
 			}
 			
 			int tcal, xcal, ycal;
+			double px, py, pi;
 			for(int i = 0; i < nPoints; i++){
-				if(pointList[i][3]>maxIntensity){
-					maxIntensity=pointList[i][3];
+				px = pX [i]*calibration;
+				py = pY [i]*calibration;
+				pi = pIntensity [i];
+				if(pi>maxIntensity){
+					maxIntensity=pi;
 				}
 				
-				tcal = (int)Math.round(pointList [i][2] / timePerFrame)-tMin;				
-				xC [tcal] += pointList[i][0];
-				yC [tcal] += pointList[i][1];
-				xCOM [tcal] += pointList[i][0]*pointList[i][3];
-				yCOM [tcal] += pointList[i][1]*pointList[i][3];
-				xCOMsum [tcal] += pointList[i][3];
-				yCOMsum [tcal] += pointList[i][3];
+				tcal = pT [i]-tMin;				
+				xC [tcal] += px;
+				yC [tcal] += py;
+				xCOM [tcal] += px*pi;
+				yCOM [tcal] += py*pi;
+				xCOMsum [tcal] += pi;
+				yCOMsum [tcal] += pi;
 				
-				if(pointList[i][0] > maxX [tcal]){	maxX [tcal] = pointList[i][0];}
-				if(pointList[i][0] < minX [tcal]){	minX [tcal] = pointList[i][0];}
-				if(pointList[i][1] > maxY [tcal]){	maxY [tcal] = pointList[i][1];}
-				if(pointList[i][1] < minY [tcal]){	minY [tcal] = pointList[i][1];}
+				if(px > maxX [tcal]){	maxX [tcal] = px;}
+				if(px < minX [tcal]){	minX [tcal] = px;}
+				if(py > maxY [tcal]){	maxY [tcal] = py;}
+				if(py < minY [tcal]){	minY [tcal] = py;}
 				
-				averageIntensity [tcal] += pointList [i][3];	
-				if(pointList[i][3] > maximumIntensity [tcal]){
-					maximumIntensity [tcal] = pointList[i][3];
+				averageIntensity [tcal] += pi;	
+				if(pi > maximumIntensity [tcal]){
+					maximumIntensity [tcal] = pi;
 				}
-				if(pointList[i][3] < minimumIntensity [tcal]){
-					minimumIntensity [tcal] = pointList[i][3];
+				if(pi < minimumIntensity [tcal]){
+					minimumIntensity [tcal] = pi;
 				}					
 				
 				area [tcal] += pxArea;
 				
-				data [(int)Math.round(pointList [i][0] / calibration)-xMin][(int)Math.round(pointList [i][1] / calibration)-yMin][tcal] = pointList[i][3];
-				convexHullPolygon.get(tcal).addPoint((int)Math.round(pointList [i][0] / calibration)-xMin, (int)Math.round(pointList [i][1] / calibration)-yMin);
+				data [pX [i]-xMin][pY [i]-yMin][tcal] = pi;
+				convexHullPolygon.get(tcal).addPoint(pX [i]-xMin, pY [i]-yMin);
 			}
 			
 			for(int t = 0; t < times; t++){		
@@ -323,11 +329,11 @@ class TimelapseParticle2D{
 			}
 			
 			for(int i = 0; i < nPoints; i++){									
-				xcal = (int)Math.round(pointList [i][0] / calibration);
-				ycal = (int)Math.round(pointList [i][1] / calibration);
-				tcal = (int)Math.round(pointList [i][2] / timePerFrame)-tMin;
+				xcal = pX [i];
+				ycal = pY [i];
+				tcal = pT [i]-tMin;
 				
-				sdIntensity [tcal] += Math.pow(pointList [i][3] - averageIntensity [tcal], 2.0);	
+				sdIntensity [tcal] += Math.pow(pIntensity [i] - averageIntensity [tcal], 2.0);	
 				
 				//Look for other cell particles in surroundings
 				double transientOutline = 0.0;
@@ -552,58 +558,23 @@ class TimelapseParticle2D{
 				sklStack = new ImageStack(orWidth, orHeight);
 			}
 			
-			ImagePlus particleImpGaussed = (ImagePlus) particleImp.duplicate();
-			particleImpGaussed.setCalibration(cal);
-			
-			if(binarizeBeforeSkeletonization){
-				for(int t = 0; t < particleImp.getNFrames(); t++){
-					for(int x = 0; x < particleImp.getWidth(); x++){
-						for(int y = 0; y < particleImp.getHeight(); y++){
-							if(particleImpGaussed.getStack().getVoxel(x,y,t)>0.0){
-								particleImpGaussed.getStack().setVoxel(x,y,t,maxPossibIntensity);
-							}
-						}
-					}
-				}
-			}
-			
-			//make 8-bit to fit requirements for use of skeletonize plug-in
-			particleImpGaussed.setDisplayRange(0.0,maxIntensity);
-			IJ.run(particleImpGaussed, "8-bit", "");
-			
-			//Gaussfilter
-				DecimalFormat gaussformat = new DecimalFormat("#0.0");
-				gaussformat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
-				IJ.run(particleImpGaussed, "Gaussian Blur...", "sigma=" + gaussformat.format(gaussSigma) + " stack");
-//				IJ.run(imp, "Gaussian Blur 3D...", "x=" + gaussformat.format(gaussSigma) + " y=" + gaussformat.format(gaussSigma) + " t=" + 0);				
-			// Gaussfilter
+			//the particle image is converted to 8-bit and blurred frame by frame, sigma is rounded to one decimal (as in the previous "Gaussian Blur..." command)
+			DecimalFormat gaussformat = new DecimalFormat("#0.0");
+			gaussformat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+			GaussianFilter gaussFilter = new GaussianFilter(Double.parseDouble(gaussformat.format(gaussSigma)));
 				
-			ImagePlus tempImp = new ImagePlus();
-			ImageStack tempStack; 
-			ArrayList<Double> lst;
+			int sklWidth = particleImp.getWidth(), sklHeight = particleImp.getHeight();
+			byte sklPixels [];
+			Skeleton2D skl;
 			
 			for(int t = 0; t < times; t++){
-				tempStack = new ImageStack(particleImpGaussed.getWidth(),particleImpGaussed.getHeight());
-				particleImpGaussed.setSlice(t+1);
-				tempStack.addSlice(particleImpGaussed.getProcessor().duplicate());
-				tempImp = new ImagePlus();
-				tempImp.setStack(tempStack);
-				tempImp.setCalibration(cal);
-				
-//				IJ.run(tempImp,"Skeletonize (2D/3D)","");
-				Skeletonize3D_ skelProc = new Skeletonize3D_();
-				skelProc.setup("", tempImp);
-				skelProc.run(tempImp.getProcessor());
-
-				AnalyzeSkeleton_ skel = new AnalyzeSkeleton_();
-				skel.calculateShortestPath = true;
-				skel.setup("", tempImp);
-				
-				//run(int pruneIndex, boolean pruneEnds, boolean shortPath, ImagePlus origIP, boolean silent, boolean verbose)
-				SkeletonResult sklRes = skel.run(AnalyzeSkeleton_.NONE, false, true, null, true, false);
-				sklStack.addSlice("skeleton " + (t+1), skel.getResultImage(false).getProcessor(1).duplicate());
+				sklPixels = create8BitFrame(t, binarizeBeforeSkeletonization, maxIntensity);
+				gaussFilter.blur(sklPixels, sklWidth, sklHeight);
+				Thinning2D.thin(sklPixels, sklWidth, sklHeight);
+				skl = new Skeleton2D(sklPixels, sklWidth, sklHeight, cal);
+				sklStack.addSlice("skeleton " + (t+1), new ByteProcessor(sklWidth, sklHeight, skl.getTaggedImage()));
 								
-				foundSkl [t] = sklRes.getNumOfTrees();				
+				foundSkl [t] = skl.numOfTrees;				
 				IDofLargest [t] = 0;	double sklLargestValue = 0.0;
 				branchesOfAll [t] = 0;
 				junctionsOfAll [t] = 0;
@@ -619,17 +590,16 @@ class TimelapseParticle2D{
 				shortestPathOfAll [t] = 0.0;
 				
 				if(foundSkl [t]>0){
-					int [] sBranches = sklRes.getBranches();
-					int [] sJunctions = sklRes.getJunctions();
-					int [] sTips = sklRes.getEndPoints();
-					int [] sJunctionVx = sklRes.getJunctionVoxels();
-					int [] sSlabs = sklRes.getSlabs();
-					int [] sTriples = sklRes.getTriples();
-					int [] sQuadruples = sklRes.getQuadruples();
-					double [] sAvBrL = sklRes.getAverageBranchLength();
-					double [] sMaxBrL = sklRes.getMaximumBranchLength();
+					int [] sBranches = skl.numberOfBranches;
+					int [] sJunctions = skl.numberOfJunctions;
+					int [] sTips = skl.numberOfEndPoints;
+					int [] sJunctionVx = skl.numberOfJunctionVoxels;
+					int [] sSlabs = skl.numberOfSlabs;
+					int [] sTriples = skl.numberOfTriplePoints;
+					int [] sQuadruples = skl.numberOfQuadruplePoints;
+					double [] sAvBrL = skl.averageBranchLength;
+					double [] sMaxBrL = skl.maximumBranchLength;
 					double [] sTreeL = new double [foundSkl [t]];
-					lst = sklRes.getShortestPathList();
 					
 					for(int i = 0; i < foundSkl [t]; i++){
 						sTreeL [i] = sAvBrL[i]*sBranches[i];	//Total Tree length
@@ -658,7 +628,7 @@ class TimelapseParticle2D{
 							triplePsOfAll [t] += sTriples [i];
 							quadruplePsOfAll [t] += sQuadruples [i];
 							treeLengthOfAll [t] += sTreeL[i];
-							shortestPathOfAll [t] += lst.get(i); 
+							shortestPathOfAll [t] += skl.shortestPath [i]; 
 						}						
 					}
 					avBranchLengthOfAll [t] /= (double) averageOfAllCounter;
@@ -674,18 +644,13 @@ class TimelapseParticle2D{
 					quadruplePs [t] = sQuadruples [IDofLargest[t]];	//# Quadruple Points
 					maxBranchLength [t] = sMaxBrL [IDofLargest[t]];	//Maximum Branch length
 					treeLength [t] = sTreeL [IDofLargest[t]];	//Total Tree length
-					shortestPath [t] = lst.get(IDofLargest[t]);
-					lst.clear();
-					lst.trimToSize();
+					shortestPath [t] = skl.shortestPath [IDofLargest[t]];
 				}				
 			}
 						
 			skeletonImp = new ImagePlus("Skeleton Image");
 			skeletonImp.setStack(sklStack);
 			skeletonImp.setCalibration(cal);				
-			
-			IJ.run(tempImp, "Close", "No");
-			IJ.run(particleImpGaussed, "Close", "No");
 		}
 		System.gc();
 		
@@ -1212,6 +1177,58 @@ class TimelapseParticle2D{
 		initialized = true;
 	}
 	
+	/**
+	 * @return the pixels of frame
+	 * @param t of the particle image converted to 8-bit (scaled to the display range from 0 to
+	 * @param maxIntensity), as by the "8-bit" command of ImageJ; if
+	 * @param binarize is true, all particle pixels are set to the maximum intensity of the bit depth before
+	 * */
+	private byte [] create8BitFrame(int t, boolean binarize, double maxIntensity){
+		Object framePixels = particleImp.getStack().getPixels(t+1);
+		byte pixels [] = new byte [particleImp.getWidth() * particleImp.getHeight()];
+
+		//scaling as in ij.process.TypeConverter
+		boolean scale = ImageConverter.getDoScaling();
+		if(framePixels instanceof byte []){
+			byte pixels8 [] = (byte []) framePixels;
+			for(int i = 0; i < pixels.length; i++){
+				if(binarize && pixels8 [i] != 0){
+					pixels [i] = (byte) 255;
+				}else{
+					pixels [i] = pixels8 [i];
+				}
+			}
+		}else if(framePixels instanceof short []){
+			short pixels16 [] = (short []) framePixels;
+			double scale16 = 256.0 / ((int) Math.min(maxIntensity, 65535.0) + 1);
+			int value;
+			for(int i = 0; i < pixels.length; i++){
+				value = pixels16 [i] & 0xffff;
+				if(value == 0)	continue;
+				if(binarize)	value = 65535;
+				if(scale)	value = (int) (value * scale16 + 0.5);
+				pixels [i] = (byte) Math.min(value, 255);
+			}
+		}else{
+			float pixels32 [] = (float []) framePixels;
+			float scale32 = 255f / (float) maxIntensity, value;
+			for(int i = 0; i < pixels.length; i++){
+				value = pixels32 [i];
+				if(value == 0f)	continue;
+				if(binarize && value > 0f)	value = (float) 2147483647.0;
+				if(scale){
+					if(value < 0f)	value = 0f;
+					pixels [i] = (byte) Math.min((int) (value * scale32 + 0.5f), 255);
+				}else{
+					value += 0.5f;
+					if(value < 0f)	value = 0f;
+					pixels [i] = (byte) (int) Math.min(value, 255f);
+				}
+			}
+		}
+		return pixels;
+	}
+	
 	public void closeImps (){
 		if(branches!=null){
 			skeletonImp.changes = false;
@@ -0,0 +1,221 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+/**
+ * Binary 3D mask of one time-step packed into a long[] (one bit per voxel).
+ * Each image row (fixed y and z) starts at a new word, so that rows can be processed word by word.
+ * */
+class BitPlane{
+	final int width, height, slices, wordsPerRow;
+	final long words [];
+
+	public BitPlane(int width, int height, int slices){
+		this.width = width;
+		this.height = height;
+		this.slices = slices;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.words = new long [wordsPerRow * height * slices];
+	}
+
+	/**
+	 * @return a BitPlane containing all voxels of time-step
+	 * @param t in the VoxelStore
+	 * @param store that have a value other than 0
+	 * */
+	static BitPlane fromStore(VoxelStore store, int t){
+		BitPlane plane = new BitPlane(store.width, store.height, store.slices);
+		for(int z = 0; z < store.slices; z++){
+			for(int y = 0; y < store.height; y++){
+				for(int x = 0; x < store.width; x++){
+					if(store.get(x, y, z, t) > 0.0){
+						plane.set(x, y, z);
+					}
+				}
+			}
+		}
+		return plane;
+	}
+
+	private int rowStart(int y, int z){
+		return (z * height + y) * wordsPerRow;
+	}
+
+	boolean get(int x, int y, int z){
+		return (words [rowStart(y, z) + (x >>> 6)] & (1L << x)) != 0L;
+	}
+
+	void set(int x, int y, int z){
+		words [rowStart(y, z) + (x >>> 6)] |= 1L << x;
+	}
+
+	/**
+	 * @return a new BitPlane containing all voxels that are set in this plane but not in
+	 * @param other (this & ~other)
+	 * */
+	BitPlane andNot(BitPlane other){
+		BitPlane result = new BitPlane(width, height, slices);
+		for(int i = 0; i < words.length; i++){
+			result.words [i] = words [i] & ~other.words [i];
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of set voxels
+	 * */
+	int cardinality(){
+		int count = 0;
+		for(int i = 0; i < words.length; i++){
+			count += Long.bitCount(words [i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the 6-connected fragments of the set voxels. Works on runs of set bits within the rows:
+	 * runs that overlap in x with a run in the previous row (y-1) or in the same row of the previous slice (z-1) are merged.
+	 * @return {number of fragments, number of fragments consisting of more than one voxel}
+	 * */
+	int [] countFragments(){
+		//collect runs [start x, end x (exclusive)] row by row
+		int nRows = height * slices;
+		int rowFirstRun [] = new int [nRows + 1];
+		int runStart [] = new int [64], runEnd [] = new int [64];
+		int nRuns = 0;
+		long word, inverted;
+		int bit, x, end, rowOffset;
+		for(int row = 0; row < nRows; row++){
+			rowFirstRun [row] = nRuns;
+			rowOffset = row * wordsPerRow;
+			x = 0;
+			while(x < width){
+				//find next set bit
+				word = words [rowOffset + (x >>> 6)] & (-1L << x);
+				if(word == 0L){
+					x = ((x >>> 6) + 1) << 6;
+					continue;
+				}
+				bit = Long.numberOfTrailingZeros(word);
+				x = ((x >>> 6) << 6) + bit;
+				//find end of the run
+				end = x;
+				while(end < width){
+					inverted = ~words [rowOffset + (end >>> 6)] & (-1L << end);
+					if(inverted == 0L){
+						end = ((end >>> 6) + 1) << 6;
+					}else{
+						end = ((end >>> 6) << 6) + Long.numberOfTrailingZeros(inverted);
+						break;
+					}
+				}
+				if(end > width)	end = width;
+				if(nRuns == runStart.length){
+					runStart = java.util.Arrays.copyOf(runStart, nRuns * 2);
+					runEnd = java.util.Arrays.copyOf(runEnd, nRuns * 2);
+				}
+				runStart [nRuns] = x;
+				runEnd [nRuns] = end;
+				nRuns++;
+				x = end;
+			}
+		}
+		rowFirstRun [nRows] = nRuns;
+
+		//merge overlapping runs of neighboring rows
+		int parent [] = new int [nRuns];
+		for(int i = 0; i < nRuns; i++){
+			parent [i] = i;
+		}
+		for(int row = 0; row < nRows; row++){
+			if(row % height > 0){
+				mergeRows(rowFirstRun [row], rowFirstRun [row+1], rowFirstRun [row-1], rowFirstRun [row], runStart, runEnd, parent);
+			}
+			if(row >= height){
+				mergeRows(rowFirstRun [row], rowFirstRun [row+1], rowFirstRun [row-height], rowFirstRun [row-height+1], runStart, runEnd, parent);
+			}
+		}
+
+		//count fragments and their sizes
+		int size [] = new int [nRuns];
+		for(int i = 0; i < nRuns; i++){
+			size [find(parent, i)] += runEnd [i] - runStart [i];
+		}
+		int fragments = 0, fragmentsMoreThan1Vx = 0;
+		for(int i = 0; i < nRuns; i++){
+			if(parent [i] == i){
+				fragments++;
+				if(size [i] > 1)	fragmentsMoreThan1Vx++;
+			}
+		}
+		return new int [] {fragments, fragmentsMoreThan1Vx};
+	}
+
+	/**
+	 * merges all runs of [a0,a1) with the runs of [b0,b1) they overlap with; both run lists are sorted by x
+	 * */
+	private static void mergeRows(int a0, int a1, int b0, int b1, int runStart [], int runEnd [], int parent []){
+		int a = a0, b = b0;
+		while(a < a1 && b < b1){
+			if(runEnd [a] <= runStart [b]){
+				a++;
+			}else if(runEnd [b] <= runStart [a]){
+				b++;
+			}else{
+				union(parent, a, b);
+				if(runEnd [a] < runEnd [b]){
+					a++;
+				}else{
+					b++;
+				}
+			}
+		}
+	}
+
+	private static int find(int parent [], int i){
+		int root = i;
+		while(parent [root] != root){
+			root = parent [root];
+		}
+		int next;
+		while(parent [i] != root){
+			next = parent [i];
+			parent [i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	private static void union(int parent [], int a, int b){
+		int rootA = find(parent, a), rootB = find(parent, b);
+		if(rootA == rootB)	return;
+		if(rootA < rootB){
+			parent [rootB] = rootA;
+		}else{
+			parent [rootA] = rootB;
+		}
+	}
+}
@@ -0,0 +1,453 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * 3D convex hull (Quickhull) of the voxel cubes of a binary mask.
+ * Only the corners of the first and last voxel of each image row (fixed y and z) are used as hull points.
+ * All coordinates are doubled (voxel center x -> 2x, voxel corners -> 2x +- 1), so that all
+ * geometric tests are evaluated exactly in integer arithmetic.
+ * */
+class ConvexHull3D{
+	final int width, height, slices;
+	/** hull points (doubled coordinates)*/
+	private int px [], py [], pz [];
+	/** faces of the hull, vertices are ordered counter-clockwise when viewed from outside*/
+	final ArrayList<Face> faces = new ArrayList<Face>();
+
+	static class Face{
+		final int a, b, c;
+		/** outward normal (not normalized) and offset: a point p is outside if n*p > d*/
+		final long nx, ny, nz, d;
+		/** neighbor faces across the edges a-b, b-c, and c-a*/
+		final Face neighbor [] = new Face [3];
+		private int outside [] = new int [0];
+		private int nrOfOutside = 0;
+		private boolean visible = false, deleted = false;
+
+		Face(ConvexHull3D hull, int a, int b, int c){
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			long ux = hull.px [b] - hull.px [a], uy = hull.py [b] - hull.py [a], uz = hull.pz [b] - hull.pz [a];
+			long vx = hull.px [c] - hull.px [a], vy = hull.py [c] - hull.py [a], vz = hull.pz [c] - hull.pz [a];
+			nx = uy * vz - uz * vy;
+			ny = uz * vx - ux * vz;
+			nz = ux * vy - uy * vx;
+			d = nx * hull.px [a] + ny * hull.py [a] + nz * hull.pz [a];
+		}
+
+		int vertex(int i){
+			if(i == 0)	return a;
+			if(i == 1)	return b;
+			return c;
+		}
+
+		/**
+		 * @return a value > 0 if point
+		 * @param p lies outside of the plane of the face (proportional to the distance)
+		 * */
+		long distance(ConvexHull3D hull, int p){
+			return nx * hull.px [p] + ny * hull.py [p] + nz * hull.pz [p] - d;
+		}
+
+		private void addOutside(int p){
+			if(nrOfOutside == outside.length){
+				outside = java.util.Arrays.copyOf(outside, nrOfOutside * 2 + 4);
+			}
+			outside [nrOfOutside++] = p;
+		}
+	}
+
+	/**
+	 * Computes the convex hull of all voxels that are true in
+	 * @param image [x][y][z]; the hull has no faces if the image contains no true voxel
+	 * */
+	ConvexHull3D(boolean [][][] image){
+		width = image.length;
+		height = image [0].length;
+		slices = image [0][0].length;
+		collectPoints(image);
+		if(px.length > 0)	build();
+	}
+
+	/**
+	 * collects the outer corners of the first and last voxel in each row
+	 * */
+	private void collectPoints(boolean [][][] image){
+		HashSet<Long> known = new HashSet<Long>();
+		int nr = 0;
+		px = new int [64];	py = new int [64];	pz = new int [64];
+		int first, last, cx, cy, cz;
+		for(int z = 0; z < slices; z++){
+			for(int y = 0; y < height; y++){
+				first = -1;
+				last = -1;
+				for(int x = 0; x < width; x++){
+					if(image [x][y][z]){
+						if(first == -1)	first = x;
+						last = x;
+					}
+				}
+				if(first == -1)	continue;
+				for(int i = 0; i < 8; i++){
+					cx = (i & 1) == 0 ? 2 * first - 1 : 2 * last + 1;
+					cy = 2 * y + ((i & 2) == 0 ? -1 : 1);
+					cz = 2 * z + ((i & 4) == 0 ? -1 : 1);
+					if(!known.add(((long) (cz + 1) << 42) | ((long) (cy + 1) << 21) | (long) (cx + 1)))	continue;
+					if(nr == px.length){
+						px = java.util.Arrays.copyOf(px, nr * 2);
+						py = java.util.Arrays.copyOf(py, nr * 2);
+						pz = java.util.Arrays.copyOf(pz, nr * 2);
+					}
+					px [nr] = cx;
+					py [nr] = cy;
+					pz [nr] = cz;
+					nr++;
+				}
+			}
+		}
+		px = java.util.Arrays.copyOf(px, nr);
+		py = java.util.Arrays.copyOf(py, nr);
+		pz = java.util.Arrays.copyOf(pz, nr);
+	}
+
+	private void build(){
+		int n = px.length;
+
+		//initial tetrahedron from extreme points
+		int p0 = 0;
+		for(int i = 1; i < n; i++){
+			if(px [i] < px [p0] || (px [i] == px [p0] && (py [i] < py [p0] || (py [i] == py [p0] && pz [i] < pz [p0]))))	p0 = i;
+		}
+		int p1 = p0;
+		long max = 0, value;
+		for(int i = 0; i < n; i++){
+			value = sq(px [i] - px [p0]) + sq(py [i] - py [p0]) + sq(pz [i] - pz [p0]);
+			if(value > max){
+				max = value;
+				p1 = i;
+			}
+		}
+		int p2 = p1;
+		max = 0;
+		long ux = px [p1] - px [p0], uy = py [p1] - py [p0], uz = pz [p1] - pz [p0], vx, vy, vz;
+		for(int i = 0; i < n; i++){
+			vx = px [i] - px [p0];	vy = py [i] - py [p0];	vz = pz [i] - pz [p0];
+			value = sq(uy * vz - uz * vy) + sq(uz * vx - ux * vz) + sq(ux * vy - uy * vx);
+			if(value > max){
+				max = value;
+				p2 = i;
+			}
+		}
+		Face base = new Face(this, p0, p1, p2);
+		int p3 = p2;
+		max = 0;
+		for(int i = 0; i < n; i++){
+			value = Math.abs(base.distance(this, i));
+			if(value > max){
+				max = value;
+				p3 = i;
+			}
+		}
+		if(base.distance(this, p3) > 0){
+			//turn the base face so that p3 lies inside
+			int swap = p1;
+			p1 = p2;
+			p2 = swap;
+		}
+		Face f0 = new Face(this, p0, p1, p2);
+		Face f1 = new Face(this, p0, p3, p1);
+		Face f2 = new Face(this, p1, p3, p2);
+		Face f3 = new Face(this, p2, p3, p0);
+		link(f0, 0, f1, 2);
+		link(f0, 1, f2, 2);
+		link(f0, 2, f3, 2);
+		link(f1, 0, f3, 1);
+		link(f1, 1, f2, 0);
+		link(f2, 1, f3, 0);
+		faces.add(f0);
+		faces.add(f1);
+		faces.add(f2);
+		faces.add(f3);
+
+		//assign all points to the first face they lie outside of
+		for(int i = 0; i < n; i++){
+			if(i == p0 || i == p1 || i == p2 || i == p3)	continue;
+			for(int f = 0; f < 4; f++){
+				if(faces.get(f).distance(this, i) > 0){
+					faces.get(f).addOutside(i);
+					break;
+				}
+			}
+		}
+
+		//add the farthest outside point of a face until no face has outside points left
+		ArrayList<Face> pending = new ArrayList<Face>(faces);
+		ArrayList<Face> visibleFaces = new ArrayList<Face>();
+		ArrayList<Face> newFaces = new ArrayList<Face>();
+		HashMap<Integer,Face> byStart = new HashMap<Integer,Face>(), byEnd = new HashMap<Integer,Face>();
+		Face face, other, created;
+		int eye;
+		while(!pending.isEmpty()){
+			face = pending.remove(pending.size()-1);
+			if(face.deleted || face.nrOfOutside == 0)	continue;
+			eye = face.outside [0];
+			max = face.distance(this, eye);
+			for(int i = 1; i < face.nrOfOutside; i++){
+				value = face.distance(this, face.outside [i]);
+				if(value > max){
+					max = value;
+					eye = face.outside [i];
+				}
+			}
+
+			//find all faces visible from the eye point
+			visibleFaces.clear();
+			face.visible = true;
+			visibleFaces.add(face);
+			for(int v = 0; v < visibleFaces.size(); v++){
+				for(int e = 0; e < 3; e++){
+					other = visibleFaces.get(v).neighbor [e];
+					if(!other.visible && other.distance(this, eye) > 0){
+						other.visible = true;
+						visibleFaces.add(other);
+					}
+				}
+			}
+
+			//create a new face for each edge of the horizon
+			newFaces.clear();
+			byStart.clear();
+			byEnd.clear();
+			for(int v = 0; v < visibleFaces.size(); v++){
+				face = visibleFaces.get(v);
+				for(int e = 0; e < 3; e++){
+					other = face.neighbor [e];
+					if(other.visible)	continue;
+					created = new Face(this, face.vertex(e), face.vertex((e+1)%3), eye);
+					for(int oe = 0; oe < 3; oe++){
+						if(other.neighbor [oe] == face){
+							link(created, 0, other, oe);
+							break;
+						}
+					}
+					byStart.put(created.a, created);
+					byEnd.put(created.b, created);
+					newFaces.add(created);
+				}
+			}
+			for(int f = 0; f < newFaces.size(); f++){
+				created = newFaces.get(f);
+				created.neighbor [1] = byStart.get(created.b);
+				created.neighbor [2] = byEnd.get(created.a);
+			}
+
+			//reassign the outside points of the removed faces
+			for(int v = 0; v < visibleFaces.size(); v++){
+				face = visibleFaces.get(v);
+				face.deleted = true;
+				for(int i = 0; i < face.nrOfOutside; i++){
+					if(face.outside [i] == eye)	continue;
+					for(int f = 0; f < newFaces.size(); f++){
+						if(newFaces.get(f).distance(this, face.outside [i]) > 0){
+							newFaces.get(f).addOutside(face.outside [i]);
+							break;
+						}
+					}
+				}
+				face.outside = null;
+			}
+			for(int f = 0; f < newFaces.size(); f++){
+				faces.add(newFaces.get(f));
+				if(newFaces.get(f).nrOfOutside > 0)	pending.add(newFaces.get(f));
+			}
+		}
+
+		for(int f = faces.size()-1; f >= 0; f--){
+			if(faces.get(f).deleted)	faces.remove(f);
+		}
+	}
+
+	private static void link(Face f, int edgeF, Face g, int edgeG){
+		f.neighbor [edgeF] = g;
+		g.neighbor [edgeG] = f;
+	}
+
+	private static long sq(long value){
+		return value * value;
+	}
+
+	/**
+	 * Writes the hull into
+	 * @param mask [x][y][z] (same dimensions as the input image): a voxel is set if its center lies strictly inside the hull.
+	 * */
+	void fill(boolean [][][] mask){
+		int bounds [][] = getRowBounds();
+		int row;
+		for(int z = 0; z < slices; z++){
+			for(int y = 0; y < height; y++){
+				row = z * height + y;
+				for(int x = 0; x < width; x++){
+					mask [x][y][z] = x >= bounds [0][row] && x <= bounds [1][row];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determines for each row (fixed y and z, index z * height + y) the first and last voxel whose center lies strictly inside the hull.
+	 * The bounds in x are derived from the faces whose projection onto the y-z plane covers the row.
+	 * @return {first x [row], last x [row]}, first x > last x for rows outside the hull
+	 * */
+	int [][] getRowBounds(){
+		int nRows = height * slices;
+		int lowerX [] = new int [nRows], upperX [] = new int [nRows];
+		boolean excluded [] = new boolean [nRows];
+		java.util.Arrays.fill(lowerX, Integer.MIN_VALUE);
+		java.util.Arrays.fill(upperX, Integer.MAX_VALUE);
+		boolean hasLower [] = new boolean [nRows], hasUpper [] = new boolean [nRows];
+
+		Face face;
+		int y0, y1, z0, z1, row, bound;
+		long numerator;
+		for(int f = 0; f < faces.size(); f++){
+			face = faces.get(f);
+			y0 = Math.max(0, ceilHalf(Math.min(py [face.a], Math.min(py [face.b], py [face.c]))));
+			y1 = Math.min(height-1, floorHalf(Math.max(py [face.a], Math.max(py [face.b], py [face.c]))));
+			z0 = Math.max(0, ceilHalf(Math.min(pz [face.a], Math.min(pz [face.b], pz [face.c]))));
+			z1 = Math.min(slices-1, floorHalf(Math.max(pz [face.a], Math.max(pz [face.b], pz [face.c]))));
+			for(int z = z0; z <= z1; z++){
+				for(int y = y0; y <= y1; y++){
+					row = z * height + y;
+					if(face.nx == 0){
+						//face parallel to the x axis: rows lying in its plane are on the hull surface
+						if(face.ny * 2 * y + face.nz * 2 * z >= face.d)	excluded [row] = true;
+						continue;
+					}
+					if(!coversRow(face, 2 * y, 2 * z))	continue;
+					numerator = face.d - face.ny * 2 * y - face.nz * 2 * z;
+					if(face.nx > 0){
+						//2x * nx < numerator
+						bound = (int) (Math.floorDiv(numerator - 1, 2 * face.nx));
+						if(bound < upperX [row])	upperX [row] = bound;
+						hasUpper [row] = true;
+					}else{
+						//2x * nx < numerator, nx < 0
+						bound = (int) (Math.floorDiv(numerator, 2 * face.nx) + 1);
+						if(bound > lowerX [row])	lowerX [row] = bound;
+						hasLower [row] = true;
+					}
+				}
+			}
+		}
+
+		for(row = 0; row < nRows; row++){
+			if(excluded [row] || !hasLower [row] || !hasUpper [row]){
+				lowerX [row] = 0;
+				upperX [row] = -1;
+			}else{
+				lowerX [row] = Math.max(0, lowerX [row]);
+				upperX [row] = Math.min(width-1, upperX [row]);
+			}
+		}
+		return new int [][] {lowerX, upperX};
+	}
+
+	/**
+	 * Measures the hull polytope. Voxel (0,0,0) spans [0,voxelWidth] x [0,voxelWidth] x [0,voxelDepth].
+	 * @return {volume, surface, center x, center y, center z} in calibrated units
+	 * */
+	double [] measure(double voxelWidth, double voxelDepth){
+		double volume = 0.0, surface = 0.0, cX = 0.0, cY = 0.0, cZ = 0.0;
+		if(faces.isEmpty())	return new double [] {0.0, 0.0, Double.NaN, Double.NaN, Double.NaN};
+		//reference point for the tetrahedra: first vertex of the first face
+		int r = faces.get(0).a;
+		double ax, ay, az, bx, by, bz, cx, cy, cz, nx, ny, nz, tetVolume;
+		Face face;
+		for(int f = 0; f < faces.size(); f++){
+			face = faces.get(f);
+			ax = (px [face.a] - px [r]) * voxelWidth / 2.0;
+			ay = (py [face.a] - py [r]) * voxelWidth / 2.0;
+			az = (pz [face.a] - pz [r]) * voxelDepth / 2.0;
+			bx = (px [face.b] - px [r]) * voxelWidth / 2.0;
+			by = (py [face.b] - py [r]) * voxelWidth / 2.0;
+			bz = (pz [face.b] - pz [r]) * voxelDepth / 2.0;
+			cx = (px [face.c] - px [r]) * voxelWidth / 2.0;
+			cy = (py [face.c] - py [r]) * voxelWidth / 2.0;
+			cz = (pz [face.c] - pz [r]) * voxelDepth / 2.0;
+
+			//triangle area
+			nx = (by - ay) * (cz - az) - (bz - az) * (cy - ay);
+			ny = (bz - az) * (cx - ax) - (bx - ax) * (cz - az);
+			nz = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+			surface += Math.sqrt(nx * nx + ny * ny + nz * nz) / 2.0;
+
+			//signed volume of the tetrahedron (reference point, a, b, c)
+			tetVolume = (ax * (by * cz - bz * cy) + ay * (bz * cx - bx * cz) + az * (bx * cy - by * cx)) / 6.0;
+			volume += tetVolume;
+			cX += tetVolume * (ax + bx + cx) / 4.0;
+			cY += tetVolume * (ay + by + cy) / 4.0;
+			cZ += tetVolume * (az + bz + cz) / 4.0;
+		}
+		cX /= volume;
+		cY /= volume;
+		cZ /= volume;
+		//doubled coordinate P corresponds to (P + 1) / 2 voxel lengths
+		cX += (px [r] + 1) * voxelWidth / 2.0;
+		cY += (py [r] + 1) * voxelWidth / 2.0;
+		cZ += (pz [r] + 1) * voxelDepth / 2.0;
+		return new double [] {volume, surface, cX, cY, cZ};
+	}
+
+	/**
+	 * @return true if the projection of the face onto the y-z plane contains the point (y,z) (including the border)
+	 * */
+	private boolean coversRow(Face face, int y, int z){
+		long e0 = edge(py [face.a], pz [face.a], py [face.b], pz [face.b], y, z);
+		long e1 = edge(py [face.b], pz [face.b], py [face.c], pz [face.c], y, z);
+		long e2 = edge(py [face.c], pz [face.c], py [face.a], pz [face.a], y, z);
+		return (e0 >= 0 && e1 >= 0 && e2 >= 0) || (e0 <= 0 && e1 <= 0 && e2 <= 0);
+	}
+
+	private static long edge(long ay, long az, long by, long bz, long y, long z){
+		return (by - ay) * (z - az) - (bz - az) * (y - ay);
+	}
+
+	/** smallest voxel index whose doubled coordinate is >= value*/
+	private static int ceilHalf(int value){
+		return Math.floorDiv(value + 1, 2);
+	}
+
+	/** largest voxel index whose doubled coordinate is <= value*/
+	private static int floorHalf(int value){
+		return Math.floorDiv(value, 2);
+	}
+}
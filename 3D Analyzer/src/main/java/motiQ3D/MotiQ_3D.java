@@ -29,6 +29,9 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.UIManager;
 
 import ij.*;
@@ -84,15 +87,30 @@ public class MotiQ_3D implements PlugIn, Measurements{
 	
 	static final String[] mergeOrNotMerge = {"all detected particles merged into one object","every particle seperately (track particles by overlap)"};
 	String mergeSelection = mergeOrNotMerge [0];
+	int nrOfThreads = Runtime.getRuntime().availableProcessors();
+	
+	static final String [] hullOptions = {"3D convex hull - measure voxels and save hull images", "3D convex hull - measure polytope without hull images",
+			"legacy hull (connected 2D hulls of the individual slices)"};
+	/** the legacy hull stays the default, so that results remain comparable to previous versions*/
+	String hullOptionSelection = hullOptions [2];
+	int convexHullMode = TimelapseParticle.HULL_LEGACY;
 	
 	static final String [] sklOptions = {"do not calculate skeleton results", "derive skeleton from a copy of the input image", "derive skeleton data from a BINARIZED copy of the input image"};
 	String sklOptionSelection = sklOptions [1];
 	boolean skeletonize = true;
 	boolean binarizeBeforeSkl = true;
+	static final String [] sklTimeOptions = {"thin each time-step completely", "re-thin only regions changed since the previous time-step",
+			"re-thin changed regions and verify against complete thinning (slow)"};
+	String sklTimeOptionSelection = sklTimeOptions [0];
+	int skeletonMode = TimelapseParticle.SKL_FULL;
 	double gSigmaXY = 1.0,
 			gSigmaZ = 0.0;
+	/** additional Gaussian sigmas for a skeleton sweep (pairs XY/Z separated by ';'), empty = no sweep*/
+	String sigmaSweep = "";
+	double sweepSigmasXY [] = null, sweepSigmasZ [] = null;
 	
 	boolean saveDate = false;
+	boolean metricsOnly = false;
 		
 	//choice   Number Format for Saving-------------------------------------------	
 		static final String[] nrFormats = {"US (0.00...)", "Germany (0,00...)"};
@@ -218,6 +236,43 @@ public void run(String arg) {
     		}
 //    		IJ.log("detected calculate: " + mergeSelection);
 		}
+    	
+    	if(macroOptions.contains("threads=")){
+			temp = macroOptions.substring(macroOptions.indexOf("threads="));
+    		temp = temp.substring(temp.indexOf("=")+1,temp.indexOf(" "));
+    		nrOfThreads = Integer.parseInt(temp);
+//    		IJ.log("detected nrOfThreads: " + nrOfThreads);
+		}
+    	
+    	if(macroOptions.contains("convex-hull=")){
+			temp = macroOptions.substring(macroOptions.indexOf("convex-hull="));
+    		temp = temp.substring(temp.indexOf("=")+1);
+    		if(temp.startsWith("[")){
+    			temp = temp.substring(1,temp.indexOf("]"));
+    		}else if(temp.contains(" ")){
+    			temp = temp.substring(0,temp.indexOf(" "));
+    		}
+    		if(temp.contains("legacy")){
+    			hullOptionSelection = hullOptions [2];
+    		}else if(temp.contains("polytope")){
+    			hullOptionSelection = hullOptions [1];
+    		}else {
+    			hullOptionSelection = hullOptions [0];
+    		}
+//    		IJ.log("detected convex hull: " + hullOptionSelection);
+		}
+    	
+    	if(macroOptions.contains("sigma-sweep=")){
+			temp = macroOptions.substring(macroOptions.indexOf("sigma-sweep="));
+    		temp = temp.substring(temp.indexOf("=")+1);
+    		if(temp.startsWith("[")){
+    			temp = temp.substring(1,temp.indexOf("]"));
+    		}else if(temp.contains(" ")){
+    			temp = temp.substring(0,temp.indexOf(" "));
+    		}
+    		sigmaSweep = temp;
+//    		IJ.log("detected sigma sweep: " + sigmaSweep);
+		}
     	    	
     	if(macroOptions.contains("skeleton=")){
 			temp = macroOptions.substring(macroOptions.indexOf("skeleton="));
@@ -234,7 +289,25 @@ public void run(String arg) {
         	}
     		
 //    		IJ.log("detected skeleton: " + sklOptionSelection);
-		}   	
+		}
+    	
+    	if(macroOptions.contains("skeleton-time-steps=")){
+			temp = macroOptions.substring(macroOptions.indexOf("skeleton-time-steps="));
+    		temp = temp.substring(temp.indexOf("=")+1);
+    		if(temp.startsWith("[")){
+    			temp = temp.substring(1,temp.indexOf("]"));
+    		}else if(temp.contains(" ")){
+    			temp = temp.substring(0,temp.indexOf(" "));
+    		}
+    		if(temp.contains("verify")){
+    			sklTimeOptionSelection = sklTimeOptions [2];
+    		}else if(temp.contains("changed")){
+    			sklTimeOptionSelection = sklTimeOptions [1];
+    		}else {
+    			sklTimeOptionSelection = sklTimeOptions [0];
+    		}
+//    		IJ.log("detected skeleton time-steps: " + sklTimeOptionSelection);
+		}
     	if(sklOptionSelection.equals(sklOptions [0])){
     		skeletonize = false;
     	}else if(sklOptionSelection.equals(sklOptions [1])){
@@ -289,6 +362,12 @@ public void run(String arg) {
 			saveDate = false;
 		}
 		
+		if(macroOptions.contains("metrics-only")){
+			metricsOnly = true;
+		}else {
+			metricsOnly = false;
+		}
+		
 		if(macroOptions.contains("nogui") || macroOptions.contains("noGUI") || macroOptions.contains("NOGUI")){
     		noGUIs = true;
 //			IJ.log("detected noGUIs: " + noGUIs);
@@ -337,13 +416,18 @@ public void run(String arg) {
     	gd.setInsets(5,0,0);	gd.addMessage("Calculation", SubHeadingFont);
     	gd.setInsets(5,0,0);	gd.addNumericField("# time-steps grouped for long-term analysis: ", totalGroupSize, 0);
     	gd.setInsets(0,0,0);	gd.addChoice("Calculate results for", mergeOrNotMerge, mergeSelection);
+    	gd.setInsets(0,0,0);	gd.addNumericField("# threads for processing particles in parallel: ", nrOfThreads, 0);
+    	gd.setInsets(0,0,0);	gd.addChoice("Convex hull: ", hullOptions, hullOptionSelection);
     	gd.setInsets(5,0,0);	gd.addChoice("SKELETON options: ", sklOptions, sklOptionSelection);
+    	gd.setInsets(0,0,0);	gd.addChoice("Skeletons of time-steps: ", sklTimeOptions, sklTimeOptionSelection);
     	gd.setInsets(5,0,0);	gd.addNumericField("Gauss filter prior to skeletonization - sigma XY and Z: ", gSigmaXY, 1);
     	gd.setInsets(-23,60,0);	gd.addNumericField("", gSigmaZ, 1);
+    	gd.setInsets(0,0,0);	gd.addStringField("Sigma sweep - XY/Z pairs separated by ';' (empty = none): ", sigmaSweep);
     	
     	gd.setInsets(5,0,0);	gd.addMessage("Output", SubHeadingFont);
     	gd.setInsets(5,0,0);	gd.addChoice("Number format", nrFormats, ChosenNumberFormat);
     	gd.setInsets(0,0,0);	gd.addCheckbox("Include date/time of analysis in output file-names", saveDate);
+    	gd.setInsets(0,0,0);	gd.addCheckbox("Metrics only (do not save particle images and 3D visualizations)", metricsOnly);
     	
     	gd.showDialog();
     	//show Dialog-----------------------------------------------------------------
@@ -367,6 +451,8 @@ public void run(String arg) {
     	
     	totalGroupSize = (int) gd.getNextNumber();
     	mergeSelection = gd.getNextChoice();
+    	nrOfThreads = (int) gd.getNextNumber();
+    	hullOptionSelection = gd.getNextChoice();
     	
     	sklOptionSelection = gd.getNextChoice();
     	if(sklOptionSelection.equals(sklOptions [0])){
@@ -378,8 +464,10 @@ public void run(String arg) {
     		skeletonize = true;
     		binarizeBeforeSkl = true;
     	}
+    	sklTimeOptionSelection = gd.getNextChoice();
     	gSigmaXY = (double) gd.getNextNumber();
     	gSigmaZ = (double) gd.getNextNumber();
+    	sigmaSweep = gd.getNextString().trim();
     		
     	ChosenNumberFormat = gd.getNextChoice();
     	if(ChosenNumberFormat.equals(nrFormats[0])){
@@ -392,6 +480,7 @@ public void run(String arg) {
     		dformat6.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.GERMANY));
     	}
     	saveDate = gd.getNextBoolean();
+    	metricsOnly = gd.getNextBoolean();
     	    	
     	if (gd.wasCanceled()) return;
 
@@ -400,6 +489,28 @@ public void run(String arg) {
     	}
     }
     
+    if(nrOfThreads < 1){
+    	nrOfThreads = 1;
+    }
+    if(hullOptionSelection.equals(hullOptions [1])){
+    	convexHullMode = TimelapseParticle.HULL_POLYTOPE;
+    }else if(hullOptionSelection.equals(hullOptions [2])){
+    	convexHullMode = TimelapseParticle.HULL_LEGACY;
+    }else{
+    	convexHullMode = TimelapseParticle.HULL_VOXELIZED;
+    }
+    if(sklTimeOptionSelection.equals(sklTimeOptions [1])){
+    	skeletonMode = TimelapseParticle.SKL_DELTA;
+    }else if(sklTimeOptionSelection.equals(sklTimeOptions [2])){
+    	skeletonMode = TimelapseParticle.SKL_DELTA_VERIFIED;
+    }else{
+    	skeletonMode = TimelapseParticle.SKL_FULL;
+    }
+    if(!readSigmaSweep()){
+    	IJ.error("Could not interpret sigma sweep option");
+    	return;
+    }
+    
     //Create macro recording string if macro recording activated:
     if (record) {  
     	String recordString = "";
@@ -418,16 +529,25 @@ public void run(String arg) {
     	}
     	recordString += "time-steps-grouped=" + totalGroupSize + " ";
     	recordString += "calculate=[" + mergeSelection + "] ";
+    	recordString += "threads=" + nrOfThreads + " ";
+    	recordString += "convex-hull=[" + hullOptionSelection + "] ";
     	recordString += "skeleton=[" + sklOptionSelection + "] ";
+    	recordString += "skeleton-time-steps=[" + sklTimeOptionSelection + "] ";
     	
     	recordString += "gauss-xy=" + dformatdialog.format(gSigmaXY) + " ";
     	recordString += "gauss-z=" + dformatdialog.format(gSigmaZ) + " ";
+    	if(sigmaSweep.length() != 0) {
+    		recordString += "sigma-sweep=[" + sigmaSweep + "] ";
+    	}
 
     	recordString += "number-format=[" + ChosenNumberFormat + "] ";
     	
     	if(saveDate) {
         	recordString += "include-date ";    		
     	}
+    	if(metricsOnly) {
+        	recordString += "metrics-only ";    		
+    	}
     	
     	recordString = recordString.substring(0,recordString.length()-1);
 
@@ -696,16 +816,17 @@ public void run(String arg) {
 			int [] pxCountPF = new int [frames];
 			for(int t = 0; t < frames; t++){
 				pxCountPF[t] = 0;
+				Object [] framePixels = ParticleLabeler3D.getFramePixels(imp, t);
+				double value;
 				for(int z = 0; z < slices; z++){
-					for(int x = 0; x < width; x++){
-						for(int y = 0; y < height; y++){							
-							if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1) > 0.0){								
-								if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1) < minDetectedNonZeroIntensity){
-									minDetectedNonZeroIntensity = imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1);
-								}
-								pxCount++;
-								pxCountPF[t]++;
-							}						
+					for(int i = 0; i < width*height; i++){
+						value = ParticleLabeler3D.getValue(framePixels [z], i);
+						if(value > 0.0){								
+							if(value < minDetectedNonZeroIntensity){
+								minDetectedNonZeroIntensity = value;
+							}
+							pxCount++;
+							pxCountPF[t]++;
 						}
 					}
 				}				
@@ -724,201 +845,60 @@ public void run(String arg) {
 			int includedParticles = 0;
 			final double ProgressFactor0 = 0.15;
 			final double ProgressFactor1 = 0.15;
-			int floodNodeX, floodNodeY, floodNodeZ, floodNodeT, index = 0;
-			int[][] floodNodes = new int[pxCount][4];
+			OverlapTracker tracker = null;
 			{				
 				int newPxCount = pxCount;
-				int pxCount100 = pxCount/100; if (pxCount100==0){pxCount100 = 1;}
-				int pxCount1000 = pxCount/1000; if (pxCount1000==0){pxCount1000 = 1;}
-				int processedPxCount = 0;				
-				
-				ArrayList <ImPoint> pointSaveCollection;
-				ArrayList <ImPoint> pointCollection;
-				
-				searchCells: for(int t = 0; t < frames; t++){
-					pointSaveCollection = new ArrayList <ImPoint> (pxCountPF[t]);
-					pointCollection = new ArrayList <ImPoint> (pxCountPF[t]);
+				ParticleLabeler3D labeler = new ParticleLabeler3D(width, height, slices);
+				Object [] framePixels;
+				boolean [] keepParticle;
+				for(int t = 0; t < frames; t++){
 					excludedParticles [t] = 0;
-					int newPxCountPF = pxCountPF [t] - excludedParticles [t];
-					for(int z = 0; z < slices; z++){
-						for(int x = 0; x < width; x++){
-							for(int y = 0; y < height; y++){		
-								if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1) > 0.0){
-									pointCollection.clear();
-									pointCollection.ensureCapacity(newPxCountPF);
-									pointCollection.add(new ImPoint(x,y,z,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1)));
-									imp.getStack().setVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1,0.0);
-									processedPxCount++;
-									
-									//Floodfiller					
-									floodNodeX = x;
-									floodNodeY = y;
-									floodNodeZ = z;
-									floodNodeT = t;
-									index = 0;
-									floodNodes[0][0] = floodNodeX;
-									floodNodes[0][1] = floodNodeY;
-									floodNodes[0][2] = floodNodeZ;
-									floodNodes[0][3] = floodNodeT;
-									while (index >= 0){
-										floodNodeX = floodNodes[index][0];
-										floodNodeY = floodNodes[index][1];
-										floodNodeZ = floodNodes[index][2];
-										floodNodeT = floodNodes[index][3];
-										index--;            
-										if ((floodNodeX > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX-1),(floodNodeY),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1,0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX-1;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeX < (width-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX+1),(floodNodeY),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX+1;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeY > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX, floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY-1),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX, floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX, floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY-1;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}                
-										if ((floodNodeY < (height-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX, floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY+1),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX, floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX, floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1,0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY+1;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeZ > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ-1),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ-1;
-											floodNodes[index][3] = floodNodeT;
-										}                
-										if ((floodNodeZ < (slices-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ+1),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX, floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ+1;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if(processedPxCount%(pxCount100)<pxCount1000){
-											if(!noGUIs) {
-												progress.setBar(ProgressFactor0*((double)(processedPxCount)/(double)(pxCount)));
-												progress.updateBarText("filtering particles ... " + dformat3.format(100.0*(double)(processedPxCount)/(double)(pxCount)) + "%");
-											}											
-										}
-									}					
-									//Floodfiller
-									
-									pointCollection.trimToSize();
-									
-									//Filter Particle
-									if(pointCollection.size()<minParticleVolume){
-										excludedParticles [t] += pointCollection.size();								
-									}else if(onlyLargest){
-										if(pointSaveCollection.isEmpty()){
-											pointSaveCollection.ensureCapacity(pointCollection.size());
-											for(int i = 0; i < pointCollection.size(); i++){
-												pointSaveCollection.add(pointCollection.get(i));
-											}
-										}else if(pointCollection.size()>pointSaveCollection.size()){
-											excludedParticles [t] += pointSaveCollection.size();
-											pointSaveCollection.clear();
-											pointSaveCollection.ensureCapacity(pointCollection.size());
-											for(int i = 0; i < pointCollection.size(); i++){
-												pointSaveCollection.add(pointCollection.get(i));
-											}
-										}else{
-											excludedParticles [t] += pointCollection.size();
-										}
-									}else{
-										//save points back to image
-										for(int i = 0; i < pointCollection.size(); i++){
-											pointSaveCollection.add(pointCollection.get(i));
-										}
-										includedParticles++;										
-									}
-									//Filter particles
-								}		
-								newPxCountPF = pxCountPF [t] - excludedParticles [t];
+					if(pxCountPF [t] == 0)	continue;
+					
+					//label particles and filter them based on the label sizes
+					framePixels = ParticleLabeler3D.getFramePixels(imp, t);
+					int nrOfLabels = labeler.label(framePixels);
+					keepParticle = new boolean [nrOfLabels+1];
+					if(onlyLargest){
+						int largest = labeler.getLargestLabel();
+						if(largest != 0 && labeler.sizes [largest] >= minParticleVolume){
+							keepParticle [largest] = true;
+						}
+					}else{
+						for(int l = 1; l <= nrOfLabels; l++){
+							if(labeler.sizes [l] >= minParticleVolume){
+								keepParticle [l] = true;
+								includedParticles++;
 							}
-						}						
+						}
+					}
+					for(int l = 1; l <= nrOfLabels; l++){
+						if(!keepParticle [l]){
+							excludedParticles [t] += labeler.sizes [l];
+						}
 					}
 					
-					//write points in saveCollection back to image
-					pointSaveCollection.trimToSize();
-					for(int i = 0; i < pointSaveCollection.size(); i++){
-						imp.getStack().setVoxel(pointSaveCollection.get(i).x, pointSaveCollection.get(i).y,
-								imp.getStackIndex(1, pointSaveCollection.get(i).z+1, pointSaveCollection.get(i).t+1)-1,
-								pointSaveCollection.get(i).intensity);
+					//remove excluded particles from image
+					if(excludedParticles [t] > 0){
+						labeler.removeParticles(framePixels, keepParticle);
 					}
 					newPxCount -= excludedParticles [t];
 					pxCountPF [t] -= excludedParticles [t];
-					if(processedPxCount==pxCount){					
-						break searchCells;
+					
+					if(!noGUIs) {
+						progress.setBar(ProgressFactor0*((double)(t+1)/(double)(frames)));
+						progress.updateBarText("filtering particles ... " + dformat3.format(100.0*(double)(t+1)/(double)(frames)) + "%");
 					}
-					pointSaveCollection.clear();
-					pointCollection.clear();
 				}				
 				pxCount = newPxCount;
 			}
-			System.gc();
 			
 			if(continueProcessing == false){
 				break continueAll;
 			}
 			
 			//Detect Particles			
-			ArrayList <ImPoint> wholePointCollection = new ArrayList <ImPoint>(pxCount);
+			PointCloud wholePointCollection = new PointCloud(pxCount);
 			TimelapseParticle allParticles = new TimelapseParticle();
 			if(onlyLargest)	includedParticles = frames;
 			ArrayList <TimelapseParticle> particleCollection = new ArrayList <TimelapseParticle>(includedParticles);
@@ -930,7 +910,7 @@ public void run(String arg) {
 						for(int x = 0; x < width; x++){
 							for(int y = 0; y < height; y++){
 								if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1) > 0.0){
-									wholePointCollection.add(new ImPoint(x,y,z,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1)));
+									wholePointCollection.add(x,y,z,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1));
 								}								
 							}
 						}
@@ -941,179 +921,38 @@ public void run(String arg) {
 					progress.setBar(ProgressFactor0+ProgressFactor1);
 					progress.updateBarText("detecting particles ... " + dformat3.format(100.0) + "%");
 				}				
-				allParticles = new TimelapseParticle(wholePointCollection, cal, totalGroupSize, skeletonize, gSigmaXY, gSigmaZ, 
-						width, height, slices, frames, false, binarizeBeforeSkl, progress, noGUIs);
+				try{
+					allParticles = createParticleInPool(wholePointCollection, cal, width, height, slices, frames);
+				}catch(Exception e){
+					if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": error - particle analysis failed: " + e.toString(),ProgressDialog.ERROR);
+					imp.changes = false;
+					imp.close();
+					break continueAll;
+				}
 				wholePointCollection.clear();
 			}else{
-				//separate objects over time
-				int processedPxCount = 0;
-				int pxCount100 = pxCount/100; if (pxCount100==0){pxCount100 = 1;}
-				int pxCount1000 = pxCount/1000; if (pxCount1000==0){pxCount1000 = 1;}
+				//separate objects over time: label each time-step and link the labels of consecutive time-steps by overlap
+				if(!noGUIs) progress.updateBarText("detecting particles ... tracking by overlap");
+				tracker = new OverlapTracker(width, height, slices, frames);
+				TimelapseParticle [] trackedParticles;
+				try{
+					tracker.track(imp, nrOfThreads);
+					trackedParticles = createParticlesInParallel(tracker.getTrackPoints(imp), cal, width, height, slices, frames, pxCount);
+				}catch(Exception e){
+					if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": error - particle tracking failed: " + e.toString(),ProgressDialog.ERROR);
+					imp.changes = false;
+					imp.close();
+					break continueAll;
+				}
 				
-				ArrayList <ImPoint> pointCollection = new ArrayList <ImPoint>(pxCount);	
-				searchCells: for(int t = 0; t < frames; t++){
-					for(int z = 0; z < slices; z++){
-						for(int x = 0; x < width; x++){
-							for(int y = 0; y < height; y++){		
-								if(imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1) > 0.0){
-									pointCollection.clear();
-									pointCollection.ensureCapacity(pxCount);
-									pointCollection.add(new ImPoint(x,y,z,t,imp.getStack().getVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1)));
-									imp.getStack().setVoxel(x,y,imp.getStackIndex(1,z+1,t+1)-1,0.0);
-									processedPxCount++;
-									
-									//Floodfiller					
-									floodNodeX = x;
-									floodNodeY = y;
-									floodNodeZ = z;
-									floodNodeT = t;
-									index = 0;
-									floodNodes = new int[pxCount][4];
-									floodNodes[0][0] = floodNodeX;
-									floodNodes[0][1] = floodNodeY;
-									floodNodes[0][2] = floodNodeZ;
-									floodNodes[0][3] = floodNodeT;
-									while (index >= 0){
-										floodNodeX = floodNodes[index][0];
-										floodNodeY = floodNodes[index][1];
-										floodNodeZ = floodNodes[index][2];
-										floodNodeT = floodNodes[index][3];
-										index--;            
-										if ((floodNodeX > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX-1),(floodNodeY),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX-1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX-1;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeX < (width-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX+1),(floodNodeY),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX+1,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX+1;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeY > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY-1),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY-1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY-1;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}                
-										if ((floodNodeY < (height-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY+1),(floodNodeZ),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY+1,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT)+1)-1, 0.0);
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY+1;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeZ > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ-1),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ-1)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ-1;
-											floodNodes[index][3] = floodNodeT;
-										}                
-										if ((floodNodeZ < (slices-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ+1),(floodNodeT),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ+1)+1,(floodNodeT)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ+1;
-											floodNodes[index][3] = floodNodeT;
-										}
-										if ((floodNodeT > 0) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT-1)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ),(floodNodeT-1),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT-1)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT-1)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT-1;
-										}                
-										if ((floodNodeT < (frames-1)) 
-												&& (imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT+1)+1)-1) > 0.0)){
-											pointCollection.add(new ImPoint((floodNodeX),(floodNodeY),(floodNodeZ),(floodNodeT+1),
-													imp.getStack().getVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT+1)+1)-1)));
-											imp.getStack().setVoxel(floodNodeX,floodNodeY,imp.getStackIndex(1,(floodNodeZ)+1,(floodNodeT+1)+1)-1, 0.0);
-											
-											index++;
-											processedPxCount++;
-											
-											floodNodes[index][0] = floodNodeX;
-											floodNodes[index][1] = floodNodeY;
-											floodNodes[index][2] = floodNodeZ;
-											floodNodes[index][3] = floodNodeT+1;
-										}
-										if(processedPxCount%(pxCount100)<pxCount1000){
-											if(!noGUIs) {
-												progress.setBar(ProgressFactor0+ProgressFactor1*((double)(processedPxCount)/(double)(pxCount)));
-												progress.updateBarText("detecting particles ... " + dformat3.format(100.0*(double)(processedPxCount)/(double)(pxCount)) + "%");												
-											}
-										}
-									}					
-									//Floodfiller
-									
-									pointCollection.trimToSize();
-									particleCollection.add(new TimelapseParticle(pointCollection, cal, totalGroupSize, skeletonize, 
-											gSigmaXY, gSigmaZ, width, height, slices, frames, true, 
-											binarizeBeforeSkl, progress, noGUIs));												
-								}				
-							}
-						}
-						if(processedPxCount==pxCount){					
-							break searchCells;
-						}
-					}
+				//keep the order of the tracks (order of first appearance) for the output files
+				for(int p = 0; p < trackedParticles.length; p++){
+					particleCollection.add(trackedParticles [p]);
 				}
 				particleCollection.trimToSize();
 			}
 			imp.changes = false;
 			imp.close();
-			System.gc();
 			
 			if(continueProcessing == false){
 				break continueAll;
@@ -1376,11 +1215,18 @@ public void run(String arg) {
 				}else{
 					tw1.append("		Particles were tracked by overlap and analyzed seperately.");
 				}
+				tw1.append("	Convex hull:	" + hullOptionSelection);
 				if(skeletonize){
 					String sklAppendTxt = "	Skeleton was analyzed - gauss filter:	Sigma xy: " + dformat3.format(gSigmaXY) + "	Sigma z: " + dformat3.format(gSigmaZ);
 					if(binarizeBeforeSkl&&semiBinary){
 						sklAppendTxt += "	" + "Skeleton was determined in a binary version of the image.";
 					}
+					if(skeletonMode != TimelapseParticle.SKL_FULL){
+						sklAppendTxt += "	" + "Skeletons of time-steps: " + sklTimeOptionSelection + ".";
+					}
+					if(sweepSigmasXY != null){
+						sklAppendTxt += "	" + "Skeleton results for the sigma sweep " + sigmaSweep + " are saved in '" + filePrefix + "_sigma_sweep.txt'.";
+					}
 					sklAppendTxt += "	Skeleton results are generated using the ImageJ plugins 'Skeletonize3D' and 'AnalyzeSkeleton'"
 					+ " by: Ignacio Arganda-Carreras, Rodrigo Fernandez-Gonzalez, Arrate Munoz-Barrutia, Carlos Ortiz-De-Solorzano,"
 					+ " '3D reconstruction of histological sections: Application to mammary gland tissue', Microscopy Research and Technique,"
@@ -1636,54 +1482,69 @@ public void run(String arg) {
 					if(frames>=totalGroupSize){
 						saveOneRowResultsLT(onePartLL, frames, xCorr, yCorr, zCorr, dir [task], name [task], (dir[task] + filePrefix + "l2.txt"));
 					}				
+					if(skeletonize && sweepSigmasXY != null){
+						saveSigmaSweepResults(onePartLL, (dir[task] + filePrefix + "_sigma_sweep.txt"));
+					}
 				}else if(mergeSelection.equals(mergeOrNotMerge[1])){
 					//save results
 					saveOneRowResultsST(particleCollection, frames, xCorr, yCorr, zCorr, dir [task], name [task], (dir[task] + filePrefix + "l1.txt"));
 					if(frames>=totalGroupSize){
 						saveOneRowResultsLT(particleCollection, frames, xCorr, yCorr, zCorr, dir [task], name [task], (dir[task] + filePrefix + "l2.txt"));
 					}				
+					if(skeletonize && sweepSigmasXY != null){
+						saveSigmaSweepResults(particleCollection, (dir[task] + filePrefix + "_sigma_sweep.txt"));
+					}
+					//save lineage (overlap links, merges and splits) of tracked particles
+					tracker.saveLineageTable(subfolderPrefix + "_Lineage.txt", dformat0);
 				}	
 				
 				//Save Images	
-				v3D = new Visualizer3D(imp, 3.0f);
-				v3D.setAngle(10.0f, -10.0f, 0.0f);
+				//images are only created for saving (not in metrics-only mode)
+				if(!metricsOnly){
+					v3D = new Visualizer3D(imp, 3.0f);
+					v3D.setAngle(10.0f, -10.0f, 0.0f);
 				
-				if(!noGUIs) progress.updateBarText("generating visualizations...");
-				if(mergeSelection.equals(mergeOrNotMerge[0])){				
-					IJ.saveAs(allParticles.particleImp, "tif", subfolderPrefix + RPSuffix + ".tif");
-					IJ.saveAs(allParticles.convexHullImp, "tif", subfolderPrefix + "_H.tif");
-					if(skeletonize){
-						IJ.saveAs(allParticles.skeletonImp, "tif", subfolderPrefix + "_Skl.tif");
-					}
-					try{
-						allParticles.save3DVisualizations(subfolderPrefix, RPSuffix, v3D);
-					}catch(Exception e){
-						String out = "";
-						for(int err = 0; err < e.getStackTrace().length; err++){
-							out += " \n " + e.getStackTrace()[err].toString();
+					if(!noGUIs) progress.updateBarText("generating visualizations...");
+					if(mergeSelection.equals(mergeOrNotMerge[0])){				
+						IJ.saveAs(allParticles.getParticleImp(), "tif", subfolderPrefix + RPSuffix + ".tif");
+						if(allParticles.getConvexHullImp() != null){
+							IJ.saveAs(allParticles.getConvexHullImp(), "tif", subfolderPrefix + "_H.tif");
 						}
-						if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": No 3D visualization generated - an error occured: " + out,ProgressDialog.NOTIFICATION);						
-					}					
-					allParticles.closeImps();
-				}else if(mergeSelection.equals(mergeOrNotMerge[1])){
-					for(int i = 0; i < particleCollection.size(); i++){
-						IJ.saveAs(particleCollection.get(i).particleImp, "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + RPSuffix + ".tif");
-						IJ.saveAs(particleCollection.get(i).convexHullImp, "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + "_H.tif");
 						if(skeletonize){
-							IJ.saveAs(particleCollection.get(i).skeletonImp, "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + "_Skl.tif");
+							IJ.saveAs(allParticles.getSkeletonImp(), "tif", subfolderPrefix + "_Skl.tif");
 						}
 						try{
-							particleCollection.get(i).save3DVisualizations(subfolderPrefix + "_P" + dformat0.format(i+1), RPSuffix, v3D);
+							allParticles.save3DVisualizations(subfolderPrefix, RPSuffix, v3D, nrOfThreads);
 						}catch(Exception e){
 							String out = "";
 							for(int err = 0; err < e.getStackTrace().length; err++){
 								out += " \n " + e.getStackTrace()[err].toString();
 							}
-							if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": An error occured when generating a 3D visualization - the analysis and all other output files than the missing 3D file are however unaffected and valid!"
-									+ " Debuggin information: " + out + "",ProgressDialog.NOTIFICATION);		
-						}	
-						particleCollection.get(i).closeImps();
-					}				
+							if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": No 3D visualization generated - an error occured: " + out,ProgressDialog.NOTIFICATION);						
+						}					
+						allParticles.closeImps();
+					}else if(mergeSelection.equals(mergeOrNotMerge[1])){
+						for(int i = 0; i < particleCollection.size(); i++){
+							IJ.saveAs(particleCollection.get(i).getParticleImp(), "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + RPSuffix + ".tif");
+							if(particleCollection.get(i).getConvexHullImp() != null){
+								IJ.saveAs(particleCollection.get(i).getConvexHullImp(), "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + "_H.tif");
+							}
+							if(skeletonize){
+								IJ.saveAs(particleCollection.get(i).getSkeletonImp(), "tif", subfolderPrefix + "_P" + dformat0.format(i+1) + "_Skl.tif");
+							}
+							try{
+								particleCollection.get(i).save3DVisualizations(subfolderPrefix + "_P" + dformat0.format(i+1), RPSuffix, v3D, nrOfThreads);
+							}catch(Exception e){
+								String out = "";
+								for(int err = 0; err < e.getStackTrace().length; err++){
+									out += " \n " + e.getStackTrace()[err].toString();
+								}
+								if(!noGUIs) progress.notifyMessage("Task " + (task+1) + "/" + tasks + ": An error occured when generating a 3D visualization - the analysis and all other output files than the missing 3D file are however unaffected and valid!"
+										+ " Debuggin information: " + out + "",ProgressDialog.NOTIFICATION);		
+							}	
+							particleCollection.get(i).closeImps();
+						}				
+					}
 				}
 				if(!noGUIs) progress.setBar(0.9);
 				
@@ -1707,6 +1568,91 @@ public void run(String arg) {
 		}
 	}
 
+	/**
+	 * Creates a TimelapseParticle for each point list in
+	 * @param trackPoints (e.g., the tracks of the OverlapTracker) on a work-stealing pool with nrOfThreads threads.
+	 * The largest particles are started first so that large particles do not delay the end of the analysis.
+	 * @param pxCount = total number of points in all point lists (for progress display)
+	 * @return the particles in the same order as the point lists
+	 * */
+	TimelapseParticle [] createParticlesInParallel(ArrayList<PointCloud> trackPoints, final Calibration cal, 
+			final int width, final int height, final int slices, final int frames, int pxCount) throws Exception{
+		final TimelapseParticle [] particles = new TimelapseParticle [trackPoints.size()];
+		final PointCloud [] pointLists = trackPoints.toArray(new PointCloud [trackPoints.size()]);
+		trackPoints.clear();
+		final int [] sizes = new int [pointLists.length];
+		Integer [] order = new Integer [pointLists.length];
+		for(int p = 0; p < pointLists.length; p++){
+			sizes [p] = pointLists [p].size();
+			order [p] = p;
+		}
+		Arrays.sort(order, new Comparator<Integer>(){
+			@Override
+			public int compare(Integer a, Integer b){
+				if(sizes [a] != sizes [b])	return Integer.compare(sizes [b], sizes [a]);
+				return Integer.compare(a, b);
+			}
+		});
+		
+		ForkJoinPool pool = new ForkJoinPool(nrOfThreads);
+		try{
+			ExecutorCompletionService<Integer> completion = new ExecutorCompletionService<Integer>(pool);
+			for(int i = 0; i < order.length; i++){
+				final int p = order [i];
+				completion.submit(new Callable<Integer>(){
+					@Override
+					public Integer call(){
+						particles [p] = new TimelapseParticle(pointLists [p], cal, totalGroupSize, skeletonize, 
+								gSigmaXY, gSigmaZ, width, height, slices, frames, true, 
+								binarizeBeforeSkl, convexHullMode, skeletonMode, progress, noGUIs);
+						if(skeletonize && sweepSigmasXY != null){
+							particles [p].sweepSkeleton(sweepSigmasXY, sweepSigmasZ, binarizeBeforeSkl, cal);
+						}
+						pointLists [p] = null;
+						return p;
+					}
+				});
+			}
+			int processedPxCount = 0;
+			for(int i = 0; i < order.length; i++){
+				processedPxCount += sizes [completion.take().get()];
+				if(!noGUIs) {
+					progress.setBar(0.15+0.15*((double)(processedPxCount)/(double)(pxCount)));
+					progress.updateBarText("detecting particles ... " + dformat3.format(100.0*(double)(processedPxCount)/(double)(pxCount)) + "%");
+				}
+			}
+		}finally{
+			pool.shutdownNow();
+			SkeletonWorkspace.discardReleased();
+		}
+		return particles;
+	}
+	
+	/**
+	 * Creates the particle containing all detected voxels (merged mode) in a ForkJoinPool of nrOfThreads threads,
+	 * so that the time-steps of the particle are processed in parallel
+	 * */
+	TimelapseParticle createParticleInPool(final PointCloud points, final Calibration cal, 
+			final int width, final int height, final int slices, final int frames) throws Exception{
+		ForkJoinPool pool = new ForkJoinPool(nrOfThreads);
+		try{
+			return pool.submit(new Callable<TimelapseParticle>(){
+				@Override
+				public TimelapseParticle call(){
+					TimelapseParticle particle = new TimelapseParticle(points, cal, totalGroupSize, skeletonize, gSigmaXY, gSigmaZ, 
+							width, height, slices, frames, false, binarizeBeforeSkl, convexHullMode, skeletonMode, progress, noGUIs);
+					if(skeletonize && sweepSigmasXY != null){
+						particle.sweepSkeleton(sweepSigmasXY, sweepSigmasZ, binarizeBeforeSkl, cal);
+					}
+					return particle;
+				}
+			}).get();
+		}finally{
+			pool.shutdownNow();
+			SkeletonWorkspace.discardReleased();
+		}
+	}
+	
 	/**
 	 * saves a legend file for the one-line files that save short-term parameters
 	 * */
@@ -3203,6 +3149,139 @@ public void run(String arg) {
 		tw3.finish();
 	}
 
+	/**
+	 * Reads the pairs of sigmas (XY/Z, separated by ';') of the sigma sweep option into sweepSigmasXY and sweepSigmasZ,
+	 * sorted ascending, so that consecutive levels with the same XY sigma can share the xy blur. If no Z sigma is given for a pair, gSigmaZ is used.
+	 * @return false if the option cannot be interpreted
+	 * */
+	boolean readSigmaSweep(){
+		sweepSigmasXY = null;
+		sweepSigmasZ = null;
+		if(sigmaSweep.length() == 0)	return true;
+		String pairs [] = sigmaSweep.split(";");
+		final double sigmas [][] = new double [pairs.length][2];
+		try{
+			for(int i = 0; i < pairs.length; i++){
+				String pair = pairs [i].trim();
+				if(pair.contains("/")){
+					sigmas [i][0] = Double.parseDouble(pair.substring(0,pair.indexOf("/")).trim().replace(",", "."));
+					sigmas [i][1] = Double.parseDouble(pair.substring(pair.indexOf("/")+1).trim().replace(",", "."));
+				}else{
+					sigmas [i][0] = Double.parseDouble(pair.replace(",", "."));
+					sigmas [i][1] = gSigmaZ;
+				}
+				if(sigmas [i][0] < 0.0 || sigmas [i][1] < 0.0)	return false;
+			}
+		}catch(NumberFormatException e){
+			return false;
+		}
+		Arrays.sort(sigmas, new Comparator<double []>(){
+			@Override
+			public int compare(double a [], double b []){
+				if(a [0] != b [0])	return Double.compare(a [0], b [0]);
+				return Double.compare(a [1], b [1]);
+			}
+		});
+		sweepSigmasXY = new double [pairs.length];
+		sweepSigmasZ = new double [pairs.length];
+		for(int i = 0; i < pairs.length; i++){
+			sweepSigmasXY [i] = sigmas [i][0];
+			sweepSigmasZ [i] = sigmas [i][1];
+		}
+		return true;
+	}
+	
+	/**
+	 * saves the skeleton results of all levels of the sigma sweep in one table (one row per sigma pair, particle and time-step)
+	 * */
+	void saveSigmaSweepResults(ArrayList<TimelapseParticle> particles, String savePath){
+		OutputTextFile tw = new OutputTextFile(savePath);
+		tw.append("Skeleton results of the sigma sweep - sigmas are given in pixels, skeletons were determined"
+				+ (binarizeBeforeSkl ? " in a binary version of the image." : " in a copy of the image."));
+		String legend = "sigma xy [px]	sigma z [px]	particle nr	time [" + timeUnit + "]";
+		legend += "	" + "ID of largest skeleton (skl)";
+		legend += "	" + "# found skls";
+		legend += "	" + "# branches (largest skl)";
+		legend += "	" + "# junctions (largest skl)";
+		legend += "	" + "# tips (largest skl)";
+		legend += "	" + "# triple points (largest skl)";
+		legend += "	" + "# quadruple points (largest skl)";
+		legend += "	" + "# junction voxels (largest skl)";
+		legend += "	" + "# slab voxels (largest skl)";
+		legend += "	" + "tree length (largest skl) [" + calibrationDimension + "]";
+		legend += "	" + "average branch length (largest skl) [" + calibrationDimension + "]";
+		legend += "	" + "maximum branch length (largest skl) [" + calibrationDimension + "]";
+		legend += "	" + "shortest path (largest skl) [" + calibrationDimension + "]";
+		legend += "	" + "# branches (all skls)";
+		legend += "	" + "# junctions (all skls)";
+		legend += "	" + "# tips (all skls)";
+		legend += "	" + "# triple points (all skls)";
+		legend += "	" + "# quadruple points (all skls)";
+		legend += "	" + "# junction voxels (all skls)";
+		legend += "	" + "# slab voxels (all skls)";
+		legend += "	" + "tree length (all skls) [" + calibrationDimension + "]";
+		legend += "	" + "average branch length (all skls) [" + calibrationDimension + "]";
+		legend += "	" + "maximum branch length (all skls) [" + calibrationDimension + "]";
+		legend += "	" + "shortest path (all skls) [" + calibrationDimension + "]";
+		tw.append(legend);
+		for(int p = 0; p < particles.size(); p++){
+			TimelapseParticle particle = particles.get(p);
+			if(!particle.initialized || particle.sweepLevels == null)	continue;
+			for(int k = 0; k < particle.sweepLevels.length; k++){
+				TimelapseParticle level = particle.sweepLevels [k];
+				for(int t = 0; t < level.times; t++){
+					String appendTxt = "" + dformat3.format(level.sweepSigmaXY);
+					appendTxt += "	" + dformat3.format(level.sweepSigmaZ);
+					appendTxt += "	" + dformat0.format(p+1);
+					appendTxt += "	" + dformat6.format((particle.tMin+t)*timePerFrame);
+					appendTxt += "	" + dformat0.format(level.IDofLargest [t]+1);
+					appendTxt += "	" + dformat0.format(level.foundSkl [t]);
+					appendTxt += "	" + dformat0.format(level.branches [t]);
+					appendTxt += "	" + dformat0.format(level.junctions [t]);
+					appendTxt += "	" + dformat0.format(level.tips [t]);
+					appendTxt += "	" + dformat0.format(level.triplePs [t]);
+					appendTxt += "	" + dformat0.format(level.quadruplePs [t]);
+					appendTxt += "	" + dformat0.format(level.junctionVx [t]);
+					appendTxt += "	" + dformat0.format(level.slabVx [t]);
+					appendTxt += "	" + dformat6.format(level.treeLength [t]);
+					appendTxt += "	" + dformat6.format(level.avBranchLength [t]);
+					appendTxt += "	" + dformat6.format(level.maxBranchLength [t]);
+					appendTxt += "	" + dformat6.format(level.largestShortestPath [t]);
+					appendTxt += "	" + dformat0.format(level.branchesOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.junctionsOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.tipsOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.triplePsOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.quadruplePsOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.junctionVxOfAll [t]);
+					appendTxt += "	" + dformat0.format(level.slabVxOfAll [t]);
+					appendTxt += "	" + dformat6.format(level.treeLengthOfAll [t]);
+					appendTxt += "	" + dformat6.format(level.avBranchLengthOfAll [t]);
+					appendTxt += "	" + dformat6.format(level.maxBranchLengthOfAll [t]);
+					appendTxt += "	" + dformat6.format(level.largestShortestPathOfAll [t]);
+					tw.append(appendTxt);
+				}
+			}
+		}
+		tw.append("");
+		tw.append("Datafile was generated by '"+PLUGINNAME+"',"
+				+ " \u00a9 2014 - " + yearOnly.format(new Date()) + " Jan Niklas Hansen (jan.hansen@uni-bonn.de).");
+		tw.append("Plugin version:	"+PLUGINVERSION);
+		tw.finish();
+	}
+
+	/**
+	 * @return the number of working buffers of
+	 * @param bytesPerCopy bytes each that fit into half of the heap memory that is currently available
+	 * (at least 1, at most 
+	 * @param maxCopies)
+	 * */
+	static int getAffordableCopies(long bytesPerCopy, int maxCopies){
+		Runtime runtime = Runtime.getRuntime();
+		long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		long copies = available / 2 / Math.max(1L, bytesPerCopy);
+		return (int) Math.max(1L, Math.min(maxCopies, copies));
+	}
+
 	/**
 	 * @return maximum intensity value a pixel can be of in the ImagePlus
 	 * @param imp
@@ -0,0 +1,360 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ij.ImagePlus;
+
+/**
+ * Tracks particles over time by overlap. Each time-step is labeled independently (in parallel)
+ * with the ParticleLabeler3D, afterwards labels of consecutive time-steps that overlap in at least
+ * one voxel are merged with a union-find. The result is identical to a 4D flood-fill with
+ * 6-connectivity in space and overlap-connectivity in time. The links between labels
+ * of consecutive time-steps are kept and can be saved as a merge / split lineage table.
+ * */
+class OverlapTracker{
+	final int width, height, slices, frames;
+
+	int nrOfLabels [];			//[t]
+	int labelSizes [][];		//[t][label]
+	int labelFirstVoxel [][];	//[t][label], position in the legacy z,x,y scan order
+	int compactLabels [][];		//[t][foreground voxel nr in z,y,x scan order] = label
+
+	int nrOfTracks = 0;
+	int track [][];				//[t][label] = track index (0-based), tracks are ordered by their first voxel in the legacy t,z,x,y scan order
+	int trackSizes [];			//[track index]
+
+	/** links between labels of consecutive time-steps, each entry: {t, label in t, label in t+1, overlap [voxel]}*/
+	ArrayList<int[]> links = new ArrayList<int[]>();
+
+	private int frameOffset [];
+	private int parent [];
+
+	public OverlapTracker(int width, int height, int slices, int frames){
+		this.width = width;
+		this.height = height;
+		this.slices = slices;
+		this.frames = frames;
+	}
+
+	/**
+	 * Labels all time-steps of the
+	 * @param imp and links labels by overlap
+	 * @param threads = number of threads used for labeling and linking
+	 * */
+	void track(final ImagePlus imp, int threads) throws InterruptedException, ExecutionException{
+		nrOfLabels = new int [frames];
+		labelSizes = new int [frames][];
+		labelFirstVoxel = new int [frames][];
+		compactLabels = new int [frames][];
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try{
+			//label each time-step independently, each labeler holds a label volume of a full time-step,
+			//so the number of labelers is limited by the available memory (workers wait for a free labeler)
+			int nLabelers = MotiQ_3D.getAffordableCopies(4L * width * height * slices, Math.max(1, threads));
+			final ArrayBlockingQueue<ParticleLabeler3D> labelers = new ArrayBlockingQueue<ParticleLabeler3D>(nLabelers);
+			for(int i = 0; i < nLabelers; i++){
+				labelers.add(new ParticleLabeler3D(width, height, slices));
+			}
+			ArrayList<Future<?>> futures = new ArrayList<Future<?>>(frames);
+			for(int t = 0; t < frames; t++){
+				final int frame = t;
+				futures.add(executor.submit(new Callable<Object>(){
+					@Override
+					public Object call() throws InterruptedException{
+						ParticleLabeler3D labeler = labelers.take();
+						try{
+							labelFrame(labeler, ParticleLabeler3D.getFramePixels(imp, frame), frame);
+						}finally{
+							labelers.add(labeler);
+						}
+						return null;
+					}
+				}));
+			}
+			for(int i = 0; i < futures.size(); i++){
+				futures.get(i).get();
+			}
+
+			//find overlaps between consecutive time-steps
+			ArrayList<Future<ArrayList<int[]>>> linkFutures = new ArrayList<Future<ArrayList<int[]>>>(frames);
+			for(int t = 0; t < frames-1; t++){
+				final int frame = t;
+				linkFutures.add(executor.submit(new Callable<ArrayList<int[]>>(){
+					@Override
+					public ArrayList<int[]> call(){
+						return linkFrames(ParticleLabeler3D.getFramePixels(imp, frame),
+								ParticleLabeler3D.getFramePixels(imp, frame+1), frame);
+					}
+				}));
+			}
+			links.clear();
+			for(int i = 0; i < linkFutures.size(); i++){
+				links.addAll(linkFutures.get(i).get());
+			}
+		}finally{
+			executor.shutdown();
+		}
+
+		//merge linked labels
+		frameOffset = new int [frames+1];
+		for(int t = 0; t < frames; t++){
+			frameOffset [t+1] = frameOffset [t] + nrOfLabels [t];
+		}
+		parent = new int [frameOffset [frames]];
+		for(int i = 0; i < parent.length; i++){
+			parent [i] = i;
+		}
+		for(int i = 0; i < links.size(); i++){
+			int link [] = links.get(i);
+			union(frameOffset [link[0]] + link[1] - 1, frameOffset [link[0]+1] + link[2] - 1);
+		}
+
+		//number tracks in the order of their first voxel
+		final long [] rootKey = new long [parent.length];
+		Arrays.fill(rootKey, Long.MAX_VALUE);
+		long frameVolume = (long) width * height * slices;
+		for(int t = 0; t < frames; t++){
+			for(int l = 1; l <= nrOfLabels [t]; l++){
+				int root = find(frameOffset [t] + l - 1);
+				long key = t * frameVolume + labelFirstVoxel [t][l];
+				if(key < rootKey [root])	rootKey [root] = key;
+			}
+		}
+		ArrayList<Integer> roots = new ArrayList<Integer>();
+		for(int i = 0; i < parent.length; i++){
+			if(find(i) == i)	roots.add(i);
+		}
+		roots.sort(new Comparator<Integer>(){
+			@Override
+			public int compare(Integer a, Integer b){
+				return Long.compare(rootKey [a], rootKey [b]);
+			}
+		});
+		int trackOfRoot [] = new int [parent.length];
+		for(int i = 0; i < roots.size(); i++){
+			trackOfRoot [roots.get(i)] = i;
+		}
+		nrOfTracks = roots.size();
+		trackSizes = new int [nrOfTracks];
+		track = new int [frames][];
+		for(int t = 0; t < frames; t++){
+			track [t] = new int [nrOfLabels [t]+1];
+			for(int l = 1; l <= nrOfLabels [t]; l++){
+				track [t][l] = trackOfRoot [find(frameOffset [t] + l - 1)];
+				trackSizes [track [t][l]] += labelSizes [t][l];
+			}
+		}
+	}
+
+	/**
+	 * @return the voxels of all tracked particles, in the order of the tracks
+	 * @param imp, which needs to be the image that was tracked
+	 * */
+	ArrayList<PointCloud> getTrackPoints(ImagePlus imp){
+		ArrayList<PointCloud> trackPoints = new ArrayList<PointCloud>(nrOfTracks);
+		for(int i = 0; i < nrOfTracks; i++){
+			trackPoints.add(new PointCloud(trackSizes [i]));
+		}
+		Object framePixels [];
+		int count;
+		double value;
+		for(int t = 0; t < frames; t++){
+			if(nrOfLabels [t] == 0)	continue;
+			framePixels = ParticleLabeler3D.getFramePixels(imp, t);
+			count = 0;
+			for(int z = 0; z < slices; z++){
+				for(int y = 0; y < height; y++){
+					for(int x = 0; x < width; x++){
+						value = ParticleLabeler3D.getValue(framePixels [z], y*width+x);
+						if(value > 0.0){
+							trackPoints.get(track [t][compactLabels [t][count]]).add(x,y,z,t,value);
+							count++;
+						}
+					}
+				}
+			}
+		}
+		return trackPoints;
+	}
+
+	/**
+	 * Saves the lineage table, which lists for each label of each time-step the track it belongs to
+	 * and the labels in the next time-step it overlaps with, to
+	 * @param savePath
+	 * */
+	void saveLineageTable(String savePath, DecimalFormat dformat0){
+		int successors [][] = new int [frames][],
+			predecessors [][] = new int [frames][];
+		ArrayList<ArrayList<String>> linkedLabels = new ArrayList<ArrayList<String>>(frames);
+		for(int t = 0; t < frames; t++){
+			successors [t] = new int [nrOfLabels [t]+1];
+			predecessors [t] = new int [nrOfLabels [t]+1];
+			ArrayList<String> linkTexts = new ArrayList<String>(nrOfLabels [t]+1);
+			for(int l = 0; l <= nrOfLabels [t]; l++){
+				linkTexts.add("");
+			}
+			linkedLabels.add(linkTexts);
+		}
+		for(int i = 0; i < links.size(); i++){
+			int link [] = links.get(i);
+			successors [link[0]][link[1]]++;
+			predecessors [link[0]+1][link[2]]++;
+			String text = linkedLabels.get(link[0]).get(link[1]);
+			if(text.length() > 0)	text += ", ";
+			text += dformat0.format(link[2]) + " (" + dformat0.format(link[3]) + ")";
+			linkedLabels.get(link[0]).set(link[1], text);
+		}
+
+		OutputTextFile tw = new OutputTextFile(savePath);
+		tw.append("Lineage of particles tracked by overlap");
+		tw.append("	particle nr	time-step	label in time-step	volume [voxel]	# predecessors	# successors	event	overlapping labels in next time-step (overlap [voxel])");
+		for(int t = 0; t < frames; t++){
+			for(int l = 1; l <= nrOfLabels [t]; l++){
+				String event = "";
+				if(predecessors [t][l] == 0 && t > 0)	event += "appears";
+				if(predecessors [t][l] > 1)	event += (event.length() > 0 ? ", " : "") + "merge";
+				if(successors [t][l] > 1)	event += (event.length() > 0 ? ", " : "") + "split";
+				if(successors [t][l] == 0 && t < frames-1)	event += (event.length() > 0 ? ", " : "") + "disappears";
+				tw.append("	" + dformat0.format(track [t][l]+1)
+						+ "	" + dformat0.format(t+1)
+						+ "	" + dformat0.format(l)
+						+ "	" + dformat0.format(labelSizes [t][l])
+						+ "	" + dformat0.format(predecessors [t][l])
+						+ "	" + dformat0.format(successors [t][l])
+						+ "	" + event
+						+ "	" + linkedLabels.get(t).get(l));
+			}
+		}
+		tw.finish();
+	}
+
+	private void labelFrame(ParticleLabeler3D labeler, Object [] pixels, int t){
+		int n = labeler.label(pixels);
+		int compact [] = new int [sum(labeler.sizes)];
+		int count = 0, labelSlice [];
+		for(int z = 0; z < slices; z++){
+			labelSlice = labeler.labels [z];
+			for(int i = 0; i < labeler.sliceSize; i++){
+				if(labelSlice [i] != 0){
+					compact [count] = labelSlice [i];
+					count++;
+				}
+			}
+		}
+		nrOfLabels [t] = n;
+		labelSizes [t] = labeler.sizes.clone();
+		labelFirstVoxel [t] = labeler.firstVoxel.clone();
+		compactLabels [t] = compact;
+	}
+
+	/**
+	 * @return links between labels of time-step
+	 * @param t and t+1 (given by the slice pixel arrays
+	 * @param pixels0 and
+	 * @param pixels1) that overlap in at least one voxel
+	 * */
+	private ArrayList<int[]> linkFrames(Object [] pixels0, Object [] pixels1, int t){
+		HashMap<Long,int[]> overlaps = new HashMap<Long,int[]>();
+		int count0 = 0, count1 = 0;
+		boolean in0, in1;
+		for(int z = 0; z < slices; z++){
+			for(int i = 0; i < width*height; i++){
+				in0 = ParticleLabeler3D.getValue(pixels0 [z], i) > 0.0;
+				in1 = ParticleLabeler3D.getValue(pixels1 [z], i) > 0.0;
+				if(in0 && in1){
+					int l0 = compactLabels [t][count0], l1 = compactLabels [t+1][count1];
+					long key = ((long) l0 << 32) | l1;
+					int overlap [] = overlaps.get(key);
+					if(overlap == null){
+						overlaps.put(key, new int [] {t, l0, l1, 1});
+					}else{
+						overlap [3]++;
+					}
+				}
+				if(in0)	count0++;
+				if(in1)	count1++;
+			}
+		}
+		ArrayList<int[]> frameLinks = new ArrayList<int[]>(overlaps.size());
+		for(Map.Entry<Long,int[]> entry : overlaps.entrySet()){
+			frameLinks.add(entry.getValue());
+		}
+		frameLinks.sort(new Comparator<int[]>(){
+			@Override
+			public int compare(int[] a, int[] b){
+				if(a[1] != b[1])	return Integer.compare(a[1], b[1]);
+				return Integer.compare(a[2], b[2]);
+			}
+		});
+		return frameLinks;
+	}
+
+	private static int sum(int [] values){
+		int s = 0;
+		for(int i = 0; i < values.length; i++){
+			s += values [i];
+		}
+		return s;
+	}
+
+	private int find(int i){
+		int root = i;
+		while(parent [root] != root){
+			root = parent [root];
+		}
+		int next;
+		while(parent [i] != root){
+			next = parent [i];
+			parent [i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	private void union(int a, int b){
+		int rootA = find(a), rootB = find(b);
+		if(rootA == rootB)	return;
+		if(rootA < rootB){
+			parent [rootB] = rootA;
+		}else{
+			parent [rootA] = rootB;
+		}
+	}
+}
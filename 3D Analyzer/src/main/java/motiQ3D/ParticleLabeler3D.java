@@ -0,0 +1,266 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+
+/**
+ * Connected-component labeling of one time-step of a 3D image. Works directly on the
+ * slice pixel arrays (byte, short, float or int) and uses a two-pass union-find algorithm
+ * with 6-connectivity, i.e., the same neighborhood as the flood-filler used before.
+ * The labeler keeps its buffers and can be reused for all time-steps of an image.
+ * */
+class ParticleLabeler3D{
+	final int width, height, slices, sliceSize;
+
+	/**
+	 * Label volume of the last labeled time-step, [z][y*width+x], 0 = background,
+	 * particles are labeled 1 to nrOfLabels in the order of their first voxel (row-wise scan)
+	 * */
+	int labels [][];
+
+	/** Voxel count of each label (index = label) of the last labeled time-step*/
+	int sizes [];
+
+	/**
+	 * For each label the position of its first voxel when scanning the stack with z, x, y loops,
+	 * which is the scanning order of the original flood-filler (index = label)
+	 * */
+	int firstVoxel [];
+
+	int nrOfLabels = 0;
+	private int parent [] = new int [1024];
+
+	public ParticleLabeler3D(int width, int height, int slices){
+		this.width = width;
+		this.height = height;
+		this.slices = slices;
+		this.sliceSize = width * height;
+		labels = new int [slices][sliceSize];
+	}
+
+	/**
+	 * @return the slice pixel arrays of time-step
+	 * @param t (zero-based) of the ImagePlus
+	 * @param imp
+	 * */
+	static Object [] getFramePixels(ImagePlus imp, int t){
+		ImageStack stack = imp.getStack();
+		Object pixels [] = new Object [imp.getNSlices()];
+		for(int z = 0; z < pixels.length; z++){
+			pixels [z] = stack.getPixels(imp.getStackIndex(1, z+1, t+1));
+		}
+		return pixels;
+	}
+
+	/**
+	 * @return the intensity value at index
+	 * @param i in the slice pixel array
+	 * @param pixels, with the same value that ImageStack.getVoxel would return
+	 * */
+	static double getValue(Object pixels, int i){
+		if(pixels instanceof byte[]){
+			return ((byte[]) pixels)[i] & 0xff;
+		}else if(pixels instanceof short[]){
+			return ((short[]) pixels)[i] & 0xffff;
+		}else if(pixels instanceof float[]){
+			return ((float[]) pixels)[i];
+		}else{
+			return ((int[]) pixels)[i] & 0xffffff;
+		}
+	}
+
+	/**
+	 * sets the voxel at index
+	 * @param i in the slice pixel array
+	 * @param pixels to zero
+	 * */
+	static void clearValue(Object pixels, int i){
+		if(pixels instanceof byte[]){
+			((byte[]) pixels)[i] = 0;
+		}else if(pixels instanceof short[]){
+			((short[]) pixels)[i] = 0;
+		}else if(pixels instanceof float[]){
+			((float[]) pixels)[i] = 0.0f;
+		}else{
+			((int[]) pixels)[i] = 0;
+		}
+	}
+
+	/**
+	 * Labels all voxels with an intensity > 0 in the time-step given by the slice pixel arrays
+	 * @param pixels (one array per slice, as returned by getFramePixels)
+	 * @return the number of detected particles
+	 * */
+	int label(Object [] pixels){
+		//First pass: provisional labels and label equivalences
+		int nextLabel = 1, i, current, left, up, back;
+		int labelSlice [], previousSlice [] = null;
+		for(int z = 0; z < slices; z++){
+			labelSlice = labels [z];
+			for(int y = 0; y < height; y++){
+				for(int x = 0; x < width; x++){
+					i = y * width + x;
+					if(getValue(pixels [z], i) <= 0.0){
+						labelSlice [i] = 0;
+						continue;
+					}
+
+					left = (x > 0) ? labelSlice [i-1] : 0;
+					up = (y > 0) ? labelSlice [i-width] : 0;
+					back = (z > 0) ? previousSlice [i] : 0;
+
+					current = 0;
+					if(left != 0)	current = left;
+					if(up != 0){
+						if(current == 0){
+							current = up;
+						}else{
+							current = union(current, up);
+						}
+					}
+					if(back != 0){
+						if(current == 0){
+							current = back;
+						}else{
+							current = union(current, back);
+						}
+					}
+					if(current == 0){
+						if(nextLabel == parent.length){
+							int newParent [] = new int [parent.length * 2];
+							System.arraycopy(parent, 0, newParent, 0, parent.length);
+							parent = newParent;
+						}
+						parent [nextLabel] = nextLabel;
+						current = nextLabel;
+						nextLabel++;
+					}
+					labelSlice [i] = current;
+				}
+			}
+			previousSlice = labelSlice;
+		}
+
+		//Resolve equivalences into consecutive final labels
+		int finalLabel [] = new int [nextLabel];
+		nrOfLabels = 0;
+		for(int l = 1; l < nextLabel; l++){
+			int root = find(l);
+			if(root == l){
+				nrOfLabels++;
+				finalLabel [l] = nrOfLabels;
+			}
+		}
+		for(int l = 1; l < nextLabel; l++){
+			finalLabel [l] = finalLabel [find(l)];
+		}
+
+		//Second pass: write final labels, count sizes and find first voxels in legacy scan order
+		sizes = new int [nrOfLabels+1];
+		firstVoxel = new int [nrOfLabels+1];
+		java.util.Arrays.fill(firstVoxel, Integer.MAX_VALUE);
+		int l, legacyIndex;
+		for(int z = 0; z < slices; z++){
+			labelSlice = labels [z];
+			for(int y = 0; y < height; y++){
+				for(int x = 0; x < width; x++){
+					i = y * width + x;
+					if(labelSlice [i] == 0) continue;
+					l = finalLabel [labelSlice [i]];
+					labelSlice [i] = l;
+					sizes [l]++;
+					legacyIndex = z * sliceSize + x * height + y;
+					if(legacyIndex < firstVoxel [l]){
+						firstVoxel [l] = legacyIndex;
+					}
+				}
+			}
+		}
+		return nrOfLabels;
+	}
+
+	/**
+	 * @return the label of the largest particle in the last labeled time-step or 0 if there is no particle;
+	 * if several particles have the same size, the one that the original flood-filler would have found first is returned
+	 * */
+	int getLargestLabel(){
+		int largest = 0;
+		for(int l = 1; l <= nrOfLabels; l++){
+			if(largest == 0 || sizes [l] > sizes [largest]
+					|| (sizes [l] == sizes [largest] && firstVoxel [l] < firstVoxel [largest])){
+				largest = l;
+			}
+		}
+		return largest;
+	}
+
+	/**
+	 * Sets all voxels in the slice pixel arrays to zero that belong to a particle not to be kept
+	 * @param pixels (one array per slice, need to be the arrays that were labeled last)
+	 * @param keep, boolean array indexed by label
+	 * */
+	void removeParticles(Object [] pixels, boolean [] keep){
+		int labelSlice [];
+		for(int z = 0; z < slices; z++){
+			labelSlice = labels [z];
+			for(int i = 0; i < sliceSize; i++){
+				if(labelSlice [i] != 0 && !keep [labelSlice [i]]){
+					clearValue(pixels [z], i);
+					labelSlice [i] = 0;
+				}
+			}
+		}
+	}
+
+	private int find(int l){
+		int root = l;
+		while(parent [root] != root){
+			root = parent [root];
+		}
+		//path compression
+		int next;
+		while(parent [l] != root){
+			next = parent [l];
+			parent [l] = root;
+			l = next;
+		}
+		return root;
+	}
+
+	private int union(int a, int b){
+		int rootA = find(a), rootB = find(b);
+		if(rootA == rootB)	return rootA;
+		//keep the smaller label as root so that labels stay in the order of their first voxel
+		if(rootA < rootB){
+			parent [rootB] = rootA;
+			return rootA;
+		}
+		parent [rootA] = rootB;
+		return rootB;
+	}
+}
@@ -0,0 +1,111 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import java.util.ArrayList;
+
+/**
+ * Compact list of voxels (uncalibrated x, y, z, t coordinates and intensity) stored in
+ * parallel primitive arrays instead of one ImPoint object per voxel.
+ * Intensities are stored as float, which is lossless for 8-bit, 16-bit and 32-bit images.
+ * */
+public class PointCloud{
+	int x [], y [], z [], t [];
+	float intensity [];
+	private int size = 0;
+
+	public PointCloud(int initialCapacity){
+		initialCapacity = Math.max(initialCapacity, 1);
+		x = new int [initialCapacity];
+		y = new int [initialCapacity];
+		z = new int [initialCapacity];
+		t = new int [initialCapacity];
+		intensity = new float [initialCapacity];
+	}
+
+	/**
+	 * @return a PointCloud containing the points of
+	 * @param points
+	 * */
+	public static PointCloud fromList(ArrayList<ImPoint> points){
+		PointCloud cloud = new PointCloud(points.size());
+		ImPoint p;
+		for(int i = 0; i < points.size(); i++){
+			p = points.get(i);
+			cloud.add(p.x, p.y, p.z, p.t, p.intensity);
+		}
+		return cloud;
+	}
+
+	public void add(int ix, int iy, int iz, int it, double value){
+		if(size == x.length){
+			ensureCapacity(size + (size >> 1) + 1);
+		}
+		x [size] = ix;
+		y [size] = iy;
+		z [size] = iz;
+		t [size] = it;
+		intensity [size] = (float) value;
+		size++;
+	}
+
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * removes all points, the arrays are kept for reuse
+	 * */
+	public void clear(){
+		size = 0;
+	}
+
+	public void ensureCapacity(int capacity){
+		if(capacity <= x.length)	return;
+		resize(capacity);
+	}
+
+	public void trimToSize(){
+		if(size < x.length){
+			resize(Math.max(size, 1));
+		}
+	}
+
+	private void resize(int capacity){
+		int [] newX = new int [capacity], newY = new int [capacity], newZ = new int [capacity], newT = new int [capacity];
+		float [] newIntensity = new float [capacity];
+		System.arraycopy(x, 0, newX, 0, size);
+		System.arraycopy(y, 0, newY, 0, size);
+		System.arraycopy(z, 0, newZ, 0, size);
+		System.arraycopy(t, 0, newT, 0, size);
+		System.arraycopy(intensity, 0, newIntensity, 0, size);
+		x = newX;
+		y = newY;
+		z = newZ;
+		t = newT;
+		intensity = newIntensity;
+	}
+}
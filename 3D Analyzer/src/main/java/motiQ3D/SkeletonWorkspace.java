@@ -0,0 +1,120 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import motiQ3D.skeleton_analysis.AnalyzeSkeleton_;
+import motiQ3D.skeletonize3D.Skeletonize3D_;
+
+/**
+ * Frame buffer, Gaussian filter and skeleton plugin instances for skeletonizing time-steps. Released workspaces are kept
+ * (see acquire()) and reused for the following time-steps and particles, so that the buffers are reset
+ * instead of allocated again for every time-step. Only as many workspaces are created as time-steps are skeletonized at the same time.
+ * */
+class SkeletonWorkspace{
+	private static final ConcurrentLinkedQueue<SkeletonWorkspace> released = new ConcurrentLinkedQueue<SkeletonWorkspace>();
+
+	final Skeletonize3D_ skeletonizer = new Skeletonize3D_();
+	final AnalyzeSkeleton_ analyzer = new AnalyzeSkeleton_();
+
+	private byte frame [][] = new byte [0][];
+	private byte inputs [][][] = {new byte [0][], new byte [0][]};
+	private GaussianFilter filter = null;
+	private double filterSigmaXY, filterSigmaZ;
+
+	/**
+	 * @return a released workspace or a new workspace if all are in use, call release() when done
+	 * */
+	static SkeletonWorkspace acquire(){
+		SkeletonWorkspace workspace = released.poll();
+		if(workspace == null){
+			workspace = new SkeletonWorkspace();
+		}
+		return workspace;
+	}
+
+	/** makes the workspace available for the next acquire()*/
+	void release(){
+		released.add(this);
+	}
+
+	/** discards the released workspaces and their buffers (e.g., when all particles are processed)*/
+	static void discardReleased(){
+		released.clear();
+	}
+
+	/**
+	 * @return the frame buffer with
+	 * @param depth slices of
+	 * @param sliceSize voxels, all voxels are set to 0. The buffer is overwritten by the next call.
+	 * */
+	byte [][] getFrame(int sliceSize, int depth){
+		frame = reset(frame, sliceSize, depth);
+		return frame;
+	}
+
+	/**
+	 * @return input buffer
+	 * @param index (0 or 1, e.g., for the inputs of consecutive time-steps) with
+	 * @param depth slices of
+	 * @param sliceSize voxels, all voxels are set to 0. The buffer is overwritten by the next call with the same index.
+	 * */
+	byte [][] getInput(int index, int sliceSize, int depth){
+		inputs [index] = reset(inputs [index], sliceSize, depth);
+		return inputs [index];
+	}
+
+	/** @return the buffer resized to depth slices of sliceSize voxels, with all voxels set to 0*/
+	private static byte [][] reset(byte buffer [][], int sliceSize, int depth){
+		if(buffer.length != depth){
+			buffer = Arrays.copyOf(buffer, depth);
+		}
+		for(int z = 0; z < depth; z++){
+			if(buffer [z] == null || buffer [z].length != sliceSize){
+				buffer [z] = new byte [sliceSize];
+			}else{
+				Arrays.fill(buffer [z], (byte) 0);
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return a Gaussian filter with the sigmas
+	 * @param sigmaXY and
+	 * @param sigmaZ, the filter of the previous call is reused if the sigmas did not change
+	 * */
+	GaussianFilter getFilter(double sigmaXY, double sigmaZ){
+		if(filter == null || filterSigmaXY != sigmaXY || filterSigmaZ != sigmaZ){
+			filter = new GaussianFilter(sigmaXY, sigmaZ);
+			filterSigmaXY = sigmaXY;
+			filterSigmaZ = sigmaZ;
+		}
+		return filter;
+	}
+}
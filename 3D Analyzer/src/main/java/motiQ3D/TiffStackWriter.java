@@ -0,0 +1,179 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import ij.ImageJ;
+import ij.process.ImageProcessor;
+
+/**
+ * Writes an RGB stack to a TIFF file image by image, so that the stack does not need to be kept in memory.
+ * The file has the layout of a stack saved by ImageJ (pixel data of all images in one block, ImageJ description with
+ * the number of images) and is opened as a stack by ImageJ. The number of images has to be known in advance.
+ * */
+class TiffStackWriter{
+	private static final int HEADER_SIZE = 8, BPS_SIZE = 6;
+	private static final int NEW_SUBFILE_TYPE = 254, IMAGE_WIDTH = 256, IMAGE_LENGTH = 257, BITS_PER_SAMPLE = 258,
+			PHOTO_INTERP = 262, IMAGE_DESCRIPTION = 270, STRIP_OFFSETS = 273, SAMPLES_PER_PIXEL = 277,
+			ROWS_PER_STRIP = 278, STRIP_BYTE_COUNT = 279;
+	private static final int SHORT = 3, LONG = 4, ASCII = 2;
+
+	private final File file;
+	private final int nImages;
+	private DataOutputStream out = null;
+	private int width, height, written = 0;
+	private byte row [];
+	private byte description [];
+
+	/**
+	 * @param path of the TIFF file to be created
+	 * @param nImages number of images that will be written
+	 * */
+	TiffStackWriter(String path, int nImages){
+		this.file = new File(path);
+		this.nImages = nImages;
+	}
+
+	/**
+	 * Appends the image
+	 * @param ip to the file (converted to RGB), all images need to have the size of the first image
+	 * */
+	void write(ImageProcessor ip) throws IOException{
+		if(out == null){
+			width = ip.getWidth();
+			height = ip.getHeight();
+			row = new byte [width * 3];
+			String info = "ImageJ=" + ImageJ.VERSION + "\n";
+			if(nImages > 1){
+				info += "images=" + nImages + "\nslices=" + nImages + "\nloop=false\n";
+			}
+			description = (info + "\0").getBytes("ISO-8859-1");
+			if(getFirstIFDOffset() + nImages * (long) getIFDSize(false) > 0xffffffffL){
+				throw new IOException("stack exceeds the 4 GB limit of TIFF files");
+			}
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+
+			//header (big-endian), followed by the pixel data, the IFDs are written behind the pixel data
+			out.writeShort(0x4d4d);
+			out.writeShort(42);
+			out.writeInt((int) getFirstIFDOffset());
+		}else if(ip.getWidth() != width || ip.getHeight() != height){
+			throw new IllegalArgumentException("image size differs from the first image of the stack");
+		}
+		if(written == nImages){
+			throw new IllegalStateException("all " + nImages + " images have already been written");
+		}
+		int pixels [] = (int []) ip.convertToRGB().getPixels();
+		for(int y = 0; y < height; y++){
+			for(int x = 0, i = y * width; x < width; x++, i++){
+				row [3*x] = (byte) (pixels [i] >> 16);
+				row [3*x+1] = (byte) (pixels [i] >> 8);
+				row [3*x+2] = (byte) pixels [i];
+			}
+			out.write(row);
+		}
+		written++;
+	}
+
+	private long getImageSize(){
+		return (long) width * height * 3;
+	}
+
+	/** @return the offset of bits per sample, description and IFDs behind the pixel data (word-aligned)*/
+	private long getPixelDataEnd(){
+		long end = HEADER_SIZE + nImages * getImageSize();
+		return end + (end % 2);
+	}
+
+	private long getFirstIFDOffset(){
+		long offset = getPixelDataEnd() + BPS_SIZE + description.length;
+		return offset + (offset % 2);
+	}
+
+	/**
+	 * Writes the IFDs and closes the file. If less images than announced were written (e.g., rendering failed),
+	 * the incomplete file is deleted.
+	 * */
+	void close() throws IOException{
+		if(out == null)	return;
+		if(written < nImages){
+			out.close();
+			out = null;
+			file.delete();
+			return;
+		}
+		long position = HEADER_SIZE + nImages * getImageSize();
+		if(position % 2 == 1)	out.writeByte(0);
+		out.writeShort(8);
+		out.writeShort(8);
+		out.writeShort(8);
+		out.write(description);
+		if(description.length % 2 == 1)	out.writeByte(0);
+
+		long bpsOffset = getPixelDataEnd(), descriptionOffset = bpsOffset + BPS_SIZE, ifdOffset = getFirstIFDOffset();
+		for(int i = 0; i < nImages; i++){
+			boolean first = i == 0;
+			long nextIFD = (i == nImages - 1) ? 0 : ifdOffset + getIFDSize(first);
+			out.writeShort(first ? 10 : 9);
+			writeEntry(NEW_SUBFILE_TYPE, LONG, 1, 0);
+			writeEntry(IMAGE_WIDTH, LONG, 1, width);
+			writeEntry(IMAGE_LENGTH, LONG, 1, height);
+			writeEntry(BITS_PER_SAMPLE, SHORT, 3, bpsOffset);
+			writeEntry(PHOTO_INTERP, SHORT, 1, 2);
+			if(first)	writeEntry(IMAGE_DESCRIPTION, ASCII, description.length, descriptionOffset);
+			writeEntry(STRIP_OFFSETS, LONG, 1, HEADER_SIZE + i * getImageSize());
+			writeEntry(SAMPLES_PER_PIXEL, SHORT, 1, 3);
+			writeEntry(ROWS_PER_STRIP, SHORT, 1, height);
+			writeEntry(STRIP_BYTE_COUNT, LONG, 1, getImageSize());
+			out.writeInt((int) nextIFD);
+			ifdOffset = nextIFD;
+		}
+		out.close();
+		out = null;
+	}
+
+	private static int getIFDSize(boolean first){
+		return 2 + (first ? 10 : 9) * 12 + 4;
+	}
+
+	/** writes an IFD entry, SHORT values are left-justified in the value field*/
+	private void writeEntry(int tag, int fieldType, int count, long value) throws IOException{
+		out.writeShort(tag);
+		out.writeShort(fieldType);
+		out.writeInt(count);
+		if(fieldType == SHORT && count == 1){
+			out.writeShort((int) value);
+			out.writeShort(0);
+		}else{
+			out.writeInt((int) value);
+		}
+	}
+}
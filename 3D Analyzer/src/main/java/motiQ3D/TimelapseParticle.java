@@ -26,11 +26,22 @@
 package motiQ3D;
 
 import java.awt.Polygon;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 import ij.IJ;
 import ij.ImagePlus;
@@ -40,21 +51,113 @@ import ij.gui.Roi;
 import ij.measure.Calibration;
 import ij.plugin.HyperStackConverter;
 import ij.plugin.RGBStackConverter;
+import ij.process.ImageConverter;
 import ij.process.ImageProcessor;
 import motiQ3D.skeletonize3D.*;
 import motiQ3D.skeleton_analysis.*;
 
 public class TimelapseParticle{
+	/** convex hull modes: 2D hulls of the slices connected by lines (as in previous versions), 
+	 * rasterized 3D convex hull (metrics counted from voxels, hull image generated), 
+	 * 3D convex hull polytope (metrics derived from the polytope, no hull image)*/
+	public static final int HULL_LEGACY = 0, HULL_VOXELIZED = 1, HULL_POLYTOPE = 2;
+	/** skeleton modes: every time-step is thinned completely (as in previous versions), 
+	 * time-steps are thinned incrementally (only regions that changed since the previous time-step are re-thinned), 
+	 * incrementally with verification (time-steps deviating from complete thinning are logged and replaced by complete thinning)*/
+	public static final int SKL_FULL = 0, SKL_DELTA = 1, SKL_DELTA_VERIFIED = 2;
+	/** incremental skeleton modes: every KEY_FRAME_INTERVAL-th time-step is thinned completely, 
+	 * the groups of time-steps starting with such a key frame are processed in parallel*/
+	private static final int KEY_FRAME_INTERVAL = 8;
+	/** incremental skeleton modes: edge length of the bricks in which changes are detected, 
+	 * changed bricks are re-thinned together with their neighboring bricks*/
+	private static final int DIRTY_BRICK = 8;
+	/** 3D visualizations: images rendered by save3DVisualizationStack*/
+	private static final int VIS_PARTICLE = 0, VIS_HULL = 1, VIS_SKELETON = 2;
+	/** 3D visualizations: maximum number of time-steps rendered concurrently, the tiles of each time-step 
+	 * are rendered in parallel by the render pool of the Volume Viewer*/
+	private static final int MAX_CONCURRENT_3D_FRAMES = 3;
+	/** 3D visualizations: bytes per voxel of a render context (volume buffers of the Volume Viewer) and its RGB input*/
+	private static final int RENDER_CONTEXT_BYTES_PER_VOXEL = 19;
+	/** bytes per voxel of the working buffers of a time-step: hull mask (including the legacy hull); 
+	 * skeleton workspace, thinning and analysis buffers and the skeleton copies of incremental thinning*/
+	private static final long HULL_BYTES_PER_VOXEL = 2, SKELETON_BYTES_PER_VOXEL = 10;
 	public boolean initialized = false;
-	double pointList [][];	//[nr][x,y,time]
-	double data [][][][];
-	boolean hullData [][][][];
+	VoxelStore data, hullData;
+	/** HULL_POLYTOPE mode only: first and last x of the hull in each row [t][0 = first, 1 = last][z * height + y]*/
+	int hullRowBounds [][][];
+	
+	/** work for a single time-step (0 <= t < times), may only write to results of this time-step*/
+	interface FrameTask{
+		void run(int t);
+	}
+	
+	/**
+	 * Runs the task for all time-steps. If called from a ForkJoinPool (particles are created in a pool by MotiQ_3D), 
+	 * the time-steps are processed in parallel by the threads of the pool, otherwise one after another.
+	 * */
+	static void forEachFrame(int times, FrameTask task){
+		forEachFrame(times, times, task);
+	}
+	
+	/**
+	 * Runs the task for all time-steps as forEachFrame(int, FrameTask), but processes the time-steps in windows of
+	 * @param maxConcurrent time-steps, so that no more time-steps are processed at the same time (e.g., to limit the working buffers alive)
+	 * */
+	static void forEachFrame(int times, int maxConcurrent, FrameTask task){
+		if(ForkJoinTask.inForkJoinPool() && times > 1 && maxConcurrent > 1){
+			for(int first = 0; first < times; first += maxConcurrent){
+				new FrameAction(task, first, Math.min(first + maxConcurrent, times)).invoke();
+			}
+		}else{
+			for(int t = 0; t < times; t++){
+				task.run(t);
+			}
+		}
+	}
+	
+	/**
+	 * @return the number of time-steps that may be processed at the same time, if each time-step needs working buffers of
+	 * @param bytesPerFrame bytes (limited by the parallelism of the pool and the available memory, see MotiQ_3D.getAffordableCopies)
+	 * */
+	static int getConcurrentFrames(long bytesPerFrame){
+		int parallelism = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism() : 1;
+		return MotiQ_3D.getAffordableCopies(bytesPerFrame, parallelism);
+	}
+	
+	/** splits a range of time-steps until each action processes a single time-step*/
+	private static class FrameAction extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		private final FrameTask task;
+		private final int first, end;
+		
+		FrameAction(FrameTask task, int first, int end){
+			this.task = task;
+			this.first = first;
+			this.end = end;
+		}
+		
+		@Override
+		protected void compute(){
+			if(end - first == 1){
+				task.run(first);
+				return;
+			}
+			int middle = (first + end) >>> 1;
+			invokeAll(new FrameAction(task, first, middle), new FrameAction(task, middle, end));
+		}
+	}
 	int tMin, tMax, times, xMin, xMax, width, yMin, yMax, height, zMin, zMax, slices, projectedTimes;		
 	int time [];
 	double vxVolume;
 	
+	//images are only created on request (see getParticleImp(), getConvexHullImp(), getSkeletonImp())
+	private Calibration imageCal;
+	private String imageBitDepth;
+	private double imageMaxIntensity;
+	private int imageWidth, imageHeight, imageSlices, imageFrames, imageOffsetX, imageOffsetY, imageOffsetZ, imageOffsetT;
+	
 	//Morphological static parameters
-	public ImagePlus convexHullImp, particleImp;
+	ImagePlus convexHullImp, particleImp;
 	double xC [], yC [], zC [],
 	xCOM [], yCOM [], zCOM [],
 	xSpan [], ySpan [], zSpan [],
@@ -76,7 +179,9 @@ public class TimelapseParticle{
 	polarityIndexSemiBIN [];
 	
 	//Skeleton parameters
-	public ImagePlus skeletonImp = null;
+	ImagePlus skeletonImp = null;
+	/** voxels of the skeleton image (coordinates in the particle image) for each time-step*/
+	PointCloud skeletonPoints [];
 	int IDofLargest [],
 	foundSkl [],
 	branches [],
@@ -101,6 +206,10 @@ public class TimelapseParticle{
 	avBranchLengthOfAll [],
 	maxBranchLengthOfAll [],
 	largestShortestPathOfAll [];
+	/** skeleton results for other Gaussian sigmas (see sweepSkeleton), null if no sigma sweep was run*/
+	TimelapseParticle sweepLevels [] = null;
+	/** sigmas of a sweep level (only set in the particles of sweepLevels)*/
+	double sweepSigmaXY, sweepSigmaZ;
 	
 	//Dynamic parameters
 	double movingVectorLengthBIN [],
@@ -190,17 +299,46 @@ public class TimelapseParticle{
 	public TimelapseParticle(){}	
 	
 	public TimelapseParticle(ArrayList<ImPoint> points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigmaXY, double gaussSigmaZ,
-			int orWidth, int orHeight, int orSlices, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization, ProgressDialog progressDialog, boolean noGUIs){		
+			int orWidth, int orHeight, int orSlices, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization, ProgressDialog progressDialog, boolean noGUIs){
+		this(PointCloud.fromList(points), cal, projectedFrames, skeletonize, gaussSigmaXY, gaussSigmaZ, orWidth, orHeight, orSlices, orTimes,
+				minimizeImages, binarizeBeforeSkeletonization, progressDialog, noGUIs);
+		points.clear();
+	}
+	
+	public TimelapseParticle(PointCloud points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigmaXY, double gaussSigmaZ,
+			int orWidth, int orHeight, int orSlices, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization, ProgressDialog progressDialog, boolean noGUIs){
+		this(points, cal, projectedFrames, skeletonize, gaussSigmaXY, gaussSigmaZ, orWidth, orHeight, orSlices, orTimes,
+				minimizeImages, binarizeBeforeSkeletonization, HULL_LEGACY, progressDialog, noGUIs);
+	}
+	
+	public TimelapseParticle(PointCloud points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigmaXY, double gaussSigmaZ,
+			int orWidth, int orHeight, int orSlices, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization, int convexHullMode,
+			ProgressDialog progressDialog, boolean noGUIs){
+		this(points, cal, projectedFrames, skeletonize, gaussSigmaXY, gaussSigmaZ, orWidth, orHeight, orSlices, orTimes,
+				minimizeImages, binarizeBeforeSkeletonization, convexHullMode, SKL_FULL, progressDialog, noGUIs);
+	}
+	
+	/**
+	 * @param points: voxels of the particle (uncalibrated coordinates), the PointCloud is cleared after construction
+	 * @param convexHullMode: HULL_LEGACY, HULL_VOXELIZED, or HULL_POLYTOPE; 
+	 * no convexHullImp is generated in HULL_POLYTOPE mode
+	 * @param skeletonMode: SKL_FULL, SKL_DELTA, or SKL_DELTA_VERIFIED
+	 * @param minimizeImages: if true, images of the particle are cropped to the particle, otherwise they have the size of the original image (orWidth x orHeight x orSlices x orTimes).
+	 * Images are only created when requested by getParticleImp(), getConvexHullImp(), or getSkeletonImp().
+	 * */
+	public TimelapseParticle(PointCloud points, Calibration cal, double projectedFrames, boolean skeletonize, double gaussSigmaXY, double gaussSigmaZ,
+			int orWidth, int orHeight, int orSlices, int orTimes, boolean minimizeImages, boolean binarizeBeforeSkeletonization, int convexHullMode,
+			int skeletonMode, ProgressDialog progressDialog, boolean noGUIs){		
 //		SimpleDateFormat df = new SimpleDateFormat("HH:mm:ss");		
 //		if(!noGUIs) progressDialog.notifyMessage("Started particle generation " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 		
 		final double calibration = cal.pixelWidth;
 		final double voxelDepth = cal.pixelDepth;
 		vxVolume = calibration * calibration * voxelDepth;
-		final double timePerFrame = cal.frameInterval;
 				
 		final int nPoints = points.size();
-		pointList = new double [nPoints][5];	//x,y,z,t,intensity
+		final int pX [] = points.x, pY [] = points.y, pZ [] = points.z, pT [] = points.t;
+		final float pIntensity [] = points.intensity;
 		
 		//get min/max values
 		tMin = Integer.MAX_VALUE;
@@ -212,21 +350,19 @@ public class TimelapseParticle{
 		zMin = Integer.MAX_VALUE;
 		zMax = 0;
 		
+		double maxPointIntensity = 0.0;
+		boolean integerIntensities = true;
 		for(int i = 0; i < nPoints; i++){
-			pointList[i][0] = points.get(i).x*calibration;
-			pointList[i][1] = points.get(i).y*calibration;
-			pointList[i][2] = points.get(i).z*voxelDepth;
-			pointList[i][3] = points.get(i).t*timePerFrame;	
-			pointList[i][4] = points.get(i).intensity;	
-			
-			if(pointList[i][0]/calibration>xMax)	xMax = (int)Math.round(pointList[i][0]/calibration);
-			if(pointList[i][0]/calibration<xMin)	xMin = (int)Math.round(pointList[i][0]/calibration);
-			if(pointList[i][1]/calibration>yMax)	yMax = (int)Math.round(pointList[i][1]/calibration);
-			if(pointList[i][1]/calibration<yMin)	yMin = (int)Math.round(pointList[i][1]/calibration);
-			if(pointList[i][2]/voxelDepth>zMax)		zMax = (int)Math.round(pointList[i][2]/voxelDepth);
-			if(pointList[i][2]/voxelDepth<zMin)		zMin = (int)Math.round(pointList[i][2]/voxelDepth);
-			if(pointList[i][3]/timePerFrame>tMax)	tMax = (int)Math.round(pointList[i][3]/timePerFrame);
-			if(pointList[i][3]/timePerFrame<tMin)	tMin = (int)Math.round(pointList[i][3]/timePerFrame);
+			if(pIntensity[i]>maxPointIntensity)	maxPointIntensity = pIntensity[i];
+			if(integerIntensities && pIntensity[i] != Math.rint(pIntensity[i]))	integerIntensities = false;
+			if(pX[i]>xMax)	xMax = pX[i];
+			if(pX[i]<xMin)	xMin = pX[i];
+			if(pY[i]>yMax)	yMax = pY[i];
+			if(pY[i]<yMin)	yMin = pY[i];
+			if(pZ[i]>zMax)	zMax = pZ[i];
+			if(pZ[i]<zMin)	zMin = pZ[i];
+			if(pT[i]>tMax)	tMax = pT[i];
+			if(pT[i]<tMin)	tMin = pT[i];
 		}
 		points.clear();
 
@@ -234,7 +370,9 @@ public class TimelapseParticle{
 		slices = 1+zMax-zMin;
 		width = 1+xMax-xMin;
 		height = 1+yMax-yMin;
-		data = new double [width][height][slices][times];
+		//store intensities at the bit depth of the image, non-integer intensities are kept as 32-bit
+		data = VoxelStore.create(width, height, slices, times, 
+				integerIntensities ? VoxelStore.getBitDepth(maxPointIntensity) : 32, nPoints);
 		
 //		if(!noGUIs) progressDialog.notifyMessage("Step 1 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 		
@@ -247,10 +385,10 @@ public class TimelapseParticle{
 			xCOM = new double [times];
 			yCOM = new double [times];
 			zCOM = new double [times];
-			double COMsum [] = new double [times];
-			xSpan = new double [times];	double minX [] = new double [times];	double maxX [] = new double [times];
-			ySpan = new double [times];	double minY [] = new double [times];	double maxY [] = new double [times];
-			zSpan = new double [times];	double minZ [] = new double [times];	double maxZ [] = new double [times];
+			final double COMsum [] = new double [times];
+			xSpan = new double [times];	final double minX [] = new double [times];	final double maxX [] = new double [times];
+			ySpan = new double [times];	final double minY [] = new double [times];	final double maxY [] = new double [times];
+			zSpan = new double [times];	final double minZ [] = new double [times];	final double maxZ [] = new double [times];
 			averageIntensity = new double [times];	
 			minimumIntensity = new double [times];	
 			maximumIntensity = new double [times];	
@@ -297,149 +435,203 @@ public class TimelapseParticle{
 				convexHullxC [t] = 0.0;
 				convexHullyC [t] = 0.0;
 				convexHullzC [t] = 0.0;
-			
-				for(int z = 0; z < slices; z++){
-					for(int x = 0; x < width; x++){
-						for(int y = 0; y < height; y++){
-							data [x][y][z][t] = 0.0;	
-						}
-					}
-				}
 			}
 			
 //			if(!noGUIs) progressDialog.notifyMessage("Step static 1 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 			
-			int xCal, yCal, zCal, tCal;
+			//list the points of each time-step (in their original order), so that time-steps can be processed in parallel
+			final int frameStart [] = new int [times+1];
+			final int frameOrder [] = new int [nPoints];
 			for(int i = 0; i < nPoints; i++){
-				tCal = (int)Math.round(pointList [i][3] / timePerFrame)-tMin;
-				if(pointList[i][4] > maxIntensity){
-					maxIntensity = pointList[i][4];
-				}
-				
-				data [(int)Math.round(pointList [i][0]/calibration)-xMin][(int)Math.round(pointList [i][1]/calibration)-yMin][(int)Math.round(pointList [i][2]/voxelDepth)-zMin][tCal] = pointList[i][4];
-				
-				xC [tCal] += pointList[i][0];
-				yC [tCal] += pointList[i][1];
-				zC [tCal] += pointList[i][2];
-				xCOM [tCal] += pointList[i][0] * pointList[i][4];
-				yCOM [tCal] += pointList[i][1] * pointList[i][4];
-				zCOM [tCal] += pointList[i][2] * pointList[i][4];
-				COMsum [tCal] += pointList[i][4];
-				
-				if(pointList[i][0] > maxX [tCal]){	maxX [tCal] = pointList[i][0];}
-				if(pointList[i][0] < minX [tCal]){	minX [tCal] = pointList[i][0];}
-				if(pointList[i][1] > maxY [tCal]){	maxY [tCal] = pointList[i][1];}
-				if(pointList[i][1] < minY [tCal]){	minY [tCal] = pointList[i][1];}
-				if(pointList[i][2] > maxZ [tCal]){	maxZ [tCal] = pointList[i][2];}
-				if(pointList[i][2] < minZ [tCal]){	minZ [tCal] = pointList[i][2];}
-				
-				averageIntensity [tCal] += pointList [i][4];	
-				if(pointList[i][4] > maximumIntensity [tCal]){
-					maximumIntensity [tCal] = pointList[i][4];
-				}
-				if(pointList[i][4] < minimumIntensity [tCal]){
-					minimumIntensity [tCal] = pointList[i][4];
-				}				
-				
-				volume [tCal] += vxVolume;
+				frameStart [pT [i]-tMin+1]++;
 			}
-			
-//			if(!noGUIs) progressDialog.notifyMessage("Step static 2 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
-			
-			for(int t = 0; t < times; t++){		
-				averageIntensity [t] /= (volume [t] / vxVolume);
+			for(int t = 0; t < times; t++){
+				frameStart [t+1] += frameStart [t];
 			}
-						
-			for(int i = 0; i < nPoints; i++){				
-				xCal = (int)Math.round(pointList [i][0] / calibration);
-				yCal = (int)Math.round(pointList [i][1] / calibration);
-				zCal = (int)Math.round(pointList [i][2] / voxelDepth);
-				tCal = (int)Math.round(pointList [i][3] / timePerFrame)-tMin;
-				
-				sdIntensity [tCal] += Math.pow(pointList [i][4] - averageIntensity [tCal], 2.0);			
-				
-				//Look for other cell particles in surroundings
-				double transientSurface = 0.0;
-				if(yCal-1>=yMin){ 
-					if(data[xCal-xMin][yCal-1-yMin][zCal-zMin][tCal]==0.0){transientSurface += calibration*voxelDepth;}
-				}else{transientSurface += calibration*voxelDepth;}
-				if(yCal+1<=yMax){ 
-					if(data[xCal-xMin][yCal+1-yMin][zCal-zMin][tCal]==0.0){transientSurface += calibration*voxelDepth;}
-				}else{transientSurface += calibration*voxelDepth;}
-				if(xCal-1>=xMin){ 
-					if(data[xCal-1-xMin][yCal-yMin][zCal-zMin][tCal]==0.0){transientSurface += calibration*voxelDepth;}
-				}else{transientSurface += calibration*voxelDepth;}
-				if(xCal+1<=xMax){ 
-					if(data[xCal+1-xMin][yCal-yMin][zCal-zMin][tCal]==0.0){transientSurface += calibration*voxelDepth;}
-				}else{transientSurface += calibration*voxelDepth;}
-				if(zCal-1>=zMin){ 
-					if(data[xCal-xMin][yCal-yMin][zCal-1-zMin][tCal]==0.0){transientSurface += calibration*calibration;}
-				}else{transientSurface += calibration*calibration;}
-				if(zCal+1<=zMax){ 
-					if(data[xCal-xMin][yCal-yMin][zCal+1-zMin][tCal]==0.0){transientSurface += calibration*calibration;}
-				}else{transientSurface += calibration*calibration;}
-				//Look for other cell particles in surroundings
-				
-				surface [tCal] += transientSurface;
+			{
+				int next [] = Arrays.copyOf(frameStart, times);
+				for(int i = 0; i < nPoints; i++){
+					frameOrder [next [pT [i]-tMin]++] = i;
+				}
 			}
 			
-//			if(!noGUIs) progressDialog.notifyMessage("Step static 3 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
-			
-			double transientRadius;
+			forEachFrame(times, new FrameTask(){
+				@Override
+				public void run(int tCal){
+					int i, xCal, yCal, zCal;
+					double px, py, pz, pi;
+					for(int j = frameStart [tCal]; j < frameStart [tCal+1]; j++){
+						i = frameOrder [j];
+						px = pX [i]*calibration;
+						py = pY [i]*calibration;
+						pz = pZ [i]*voxelDepth;
+						pi = pIntensity [i];
+						
+						data.set(pX [i]-xMin, pY [i]-yMin, pZ [i]-zMin, tCal, pi);
+						
+						xC [tCal] += px;
+						yC [tCal] += py;
+						zC [tCal] += pz;
+						xCOM [tCal] += px * pi;
+						yCOM [tCal] += py * pi;
+						zCOM [tCal] += pz * pi;
+						COMsum [tCal] += pi;
+						
+						if(px > maxX [tCal]){	maxX [tCal] = px;}
+						if(px < minX [tCal]){	minX [tCal] = px;}
+						if(py > maxY [tCal]){	maxY [tCal] = py;}
+						if(py < minY [tCal]){	minY [tCal] = py;}
+						if(pz > maxZ [tCal]){	maxZ [tCal] = pz;}
+						if(pz < minZ [tCal]){	minZ [tCal] = pz;}
+						
+						averageIntensity [tCal] += pi;	
+						if(pi > maximumIntensity [tCal]){
+							maximumIntensity [tCal] = pi;
+						}
+						if(pi < minimumIntensity [tCal]){
+							minimumIntensity [tCal] = pi;
+						}				
+						
+						volume [tCal] += vxVolume;
+					}
+					
+					averageIntensity [tCal] /= (volume [tCal] / vxVolume);
+								
+					for(int j = frameStart [tCal]; j < frameStart [tCal+1]; j++){
+						i = frameOrder [j];
+						xCal = pX [i];
+						yCal = pY [i];
+						zCal = pZ [i];
+						
+						sdIntensity [tCal] += Math.pow(pIntensity [i] - averageIntensity [tCal], 2.0);			
+						
+						//Look for other cell particles in surroundings
+						double transientSurface = 0.0;
+						if(yCal-1>=yMin){ 
+							if(data.get(xCal-xMin, yCal-1-yMin, zCal-zMin, tCal)==0.0){transientSurface += calibration*voxelDepth;}
+						}else{transientSurface += calibration*voxelDepth;}
+						if(yCal+1<=yMax){ 
+							if(data.get(xCal-xMin, yCal+1-yMin, zCal-zMin, tCal)==0.0){transientSurface += calibration*voxelDepth;}
+						}else{transientSurface += calibration*voxelDepth;}
+						if(xCal-1>=xMin){ 
+							if(data.get(xCal-1-xMin, yCal-yMin, zCal-zMin, tCal)==0.0){transientSurface += calibration*voxelDepth;}
+						}else{transientSurface += calibration*voxelDepth;}
+						if(xCal+1<=xMax){ 
+							if(data.get(xCal+1-xMin, yCal-yMin, zCal-zMin, tCal)==0.0){transientSurface += calibration*voxelDepth;}
+						}else{transientSurface += calibration*voxelDepth;}
+						if(zCal-1>=zMin){ 
+							if(data.get(xCal-xMin, yCal-yMin, zCal-1-zMin, tCal)==0.0){transientSurface += calibration*calibration;}
+						}else{transientSurface += calibration*calibration;}
+						if(zCal+1<=zMax){ 
+							if(data.get(xCal-xMin, yCal-yMin, zCal+1-zMin, tCal)==0.0){transientSurface += calibration*calibration;}
+						}else{transientSurface += calibration*calibration;}
+						//Look for other cell particles in surroundings
+						
+						surface [tCal] += transientSurface;
+					}
+					
+					int t = tCal;
+					xC [t] /= (volume [t]/vxVolume);
+					yC [t] /= (volume [t]/vxVolume);
+					zC [t] /= (volume [t]/vxVolume);
+					xCOM [t] /= COMsum [t];
+					yCOM [t] /= COMsum [t];
+					zCOM [t] /= COMsum [t];
+					xC [t] += calibration / 2.0;
+					yC [t] += calibration / 2.0;
+					zC [t] += voxelDepth / 2.0;
+					xCOM [t] += calibration / 2.0;
+					yCOM [t] += calibration / 2.0;
+					zCOM [t] += voxelDepth / 2.0;
+					xSpan [t] = maxX [t] - minX [t] + calibration;
+					ySpan [t] = maxY [t] - minY [t] + calibration;
+					zSpan [t] = maxZ [t] - minZ [t] + voxelDepth;
+					sdIntensity [t] /= (volume [t] / vxVolume)-1.0;
+					sdIntensity [t] = Math.sqrt(sdIntensity[t]);
+					
+			   		double transientRadius = Math.pow((double)((volume [t]*3.0)/(4.0*Math.PI)), (double)1/3.0);			
+					RI [t] =  surface [t] / (Math.PI * Math.pow(transientRadius,2) * 4);	//RI
+				}
+			});
 			for(int t = 0; t < times; t++){
-				xC [t] /= (volume [t]/vxVolume);
-				yC [t] /= (volume [t]/vxVolume);
-				zC [t] /= (volume [t]/vxVolume);
-				xCOM [t] /= COMsum [t];
-				yCOM [t] /= COMsum [t];
-				zCOM [t] /= COMsum [t];
-				xC [t] += calibration / 2.0;
-				yC [t] += calibration / 2.0;
-				zC [t] += voxelDepth / 2.0;
-				xCOM [t] += calibration / 2.0;
-				yCOM [t] += calibration / 2.0;
-				zCOM [t] += voxelDepth / 2.0;
-				xSpan [t] = maxX [t] - minX [t] + calibration;
-				ySpan [t] = maxY [t] - minY [t] + calibration;
-				zSpan [t] = maxZ [t] - minZ [t] + voxelDepth;
-				sdIntensity [t] /= (volume [t] / vxVolume)-1.0;
-				sdIntensity [t] = Math.sqrt(sdIntensity[t]);
-				
-		   		transientRadius = Math.pow((double)((volume [t]*3.0)/(4.0*Math.PI)), (double)1/3.0);			
-				RI [t] =  surface [t] / (Math.PI * Math.pow(transientRadius,2) * 4);	//RI
-			}			
+				if(maximumIntensity [t] > maxIntensity){
+					maxIntensity = maximumIntensity [t];
+				}
+			}
 			
 //			if(!noGUIs) progressDialog.notifyMessage("Step static 4 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 			
 			{
 				//convex hull calculation
-				hullData = new boolean [width][height][slices][times];
-				for(int t = 0; t < times; t++){
-					boolean [][][] transHullData = new boolean [width][height][slices];
-					for(int z = 0; z < slices; z++){
-						for(int x = 0; x < width; x++){
-							for(int y = 0; y < height; y++){
-								if(data [x][y][z][t] > 0.0){
-									transHullData [x][y][z] = true;
-								}else{
-									transHullData [x][y][z] = false;
-								}
-									
-							}
+				if(convexHullMode == HULL_POLYTOPE){
+					hullRowBounds = new int [times][][];
+				}else{
+					//the hull is much larger than the particle, the bounding box of each time-step is used as estimate of its hull voxels
+					long nHullVoxels = 0;
+					for(int t = 0; t < times; t++){
+						if(minX [t] > maxX [t])	continue;
+						nHullVoxels += (Math.round((maxX [t] - minX [t]) / calibration) + 1)
+								* (Math.round((maxY [t] - minY [t]) / calibration) + 1)
+								* (Math.round((maxZ [t] - minZ [t]) / voxelDepth) + 1);
+					}
+					hullData = VoxelStore.create(width, height, slices, times, 8, nHullVoxels);
+				}
+				//the masks of the particle are reused for the following time-steps, the number of masks is limited by the concurrent time-steps
+				final ConcurrentLinkedQueue<boolean [][][]> hullMasks = new ConcurrentLinkedQueue<boolean [][][]>();
+				forEachFrame(times, getConcurrentFrames(HULL_BYTES_PER_VOXEL * width * height * slices), new FrameTask(){
+					@Override
+					public void run(int t){
+						boolean [][][] mask = hullMasks.poll();
+						if(mask == null)	mask = new boolean [width][height][slices];
+						try{
+							fillHull(t, mask);
+						}finally{
+							hullMasks.add(mask);
 						}
 					}
 					
-					//calculate hull
-					transHullData = getConv3DHull(transHullData, progressDialog, noGUIs);
-					
-					for(int z = 0; z < slices; z++){
-						for(int x = 0; x < width; x++){
-							for(int y = 0; y < height; y++){
-								hullData [x][y][z][t] = transHullData [x][y][z];									
+					private void fillHull(int t, boolean transHullData [][][]){
+						for(int z = 0; z < slices; z++){
+							for(int x = 0; x < width; x++){
+								for(int y = 0; y < height; y++){
+									if(data.get(x, y, z, t) > 0.0){
+										transHullData [x][y][z] = true;
+									}else{
+										transHullData [x][y][z] = false;
+									}
+										
+								}
+							}
+						}
+						
+						//calculate hull
+						if(convexHullMode == HULL_LEGACY){
+							transHullData = getConv3DHull(transHullData, progressDialog, noGUIs);
+						}else if(convexHullMode == HULL_VOXELIZED){
+							new ConvexHull3D(transHullData).fill(transHullData);
+						}else{
+							ConvexHull3D hull = new ConvexHull3D(transHullData);
+							hullRowBounds [t] = hull.getRowBounds();
+							double hullMeasures [] = hull.measure(calibration, voxelDepth);
+							convexHullVolume [t] = hullMeasures [0];
+							convexHullSurface [t] = hullMeasures [1];
+							convexHullxC [t] = hullMeasures [2] + xMin * calibration;
+							convexHullyC [t] = hullMeasures [3] + yMin * calibration;
+							convexHullzC [t] = hullMeasures [4] + zMin * voxelDepth;
+							return;
+						}
+						
+						for(int z = 0; z < slices; z++){
+							for(int x = 0; x < width; x++){
+								for(int y = 0; y < height; y++){
+									if(transHullData [x][y][z]){
+										hullData.set(x, y, z, t, 1.0);
+									}
+								}
 							}
 						}
 					}
-				}
+				});
 			}
 			
 //			if(!noGUIs) progressDialog.notifyMessage("Step static 5 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
@@ -449,148 +641,69 @@ public class TimelapseParticle{
 				if(maxIntensity>255.0){bitDepth = "16-bit"; maxPossibIntensity = 65535.0;}
 				if(maxIntensity>65535.0){bitDepth = "32-bit"; maxPossibIntensity = 2147483647.0;}
 							
-				if(minimizeImages){	
-					//(java.lang.String title,java.lang.String type,int width,int height,int channels,int slices,int frames)
-					particleImp = IJ.createImage("Particle image", bitDepth, width+4, height+4, 1, slices, times);
-					convexHullImp = IJ.createImage("Convex Hull Image", "8-bit", width+4, height+4, 1, slices, times);
-					for(int t = 0; t < times; t++){
-						for(int z = 0; z < slices; z++){
-							for(int x = 0; x < width; x++){
-								for(int y = 0; y < height; y++){
-									int iz = particleImp.getStackIndex(1,z+1,t+1)-1;	//(int channel,int slice,int frame);
-																	
-									if(hullData [x][y][z][t]){
-										//Convex hull volume data
-										convexHullVolume [t] += vxVolume;
-										convexHullxC [t] += (double)(x+xMin);
-										convexHullyC [t] += (double)(y+yMin);	
-										convexHullzC [t] += (double)(z+zMin);	
-										
-										//Convex hull surface data									
-										double transientSurface = 0.0;
-										//Look for other cell particles in surroundings
-										if(y-1>=0){ 
-											if(!hullData[x][y-1][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(y+1<height){ 
-											if(!hullData[x][y+1][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(x-1>=0){ 
-											if(!hullData[x-1][y][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(x+1<width){ 
-											if(!hullData[x+1][y][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(z-1>=0){ 
-											if(!hullData[x][y][z-1][t]){transientSurface += calibration*calibration;}
-										}else{transientSurface += calibration*calibration;}
-										if(z+1<slices){ 
-											if(!hullData[x][y][z+1][t]){transientSurface += calibration*calibration;}
-										}else{transientSurface += calibration*calibration;}
-										//Look for other cell particles in surroundings
-										convexHullSurface [t] += transientSurface;									
+				//minimized images are cropped to the particle with a border of 2 pixels, otherwise the particle is placed at its original position
+				imageCal = cal;
+				imageBitDepth = bitDepth;
+				imageMaxIntensity = maxIntensity;
+				if(minimizeImages){
+					imageWidth = width+4;
+					imageHeight = height+4;
+					imageSlices = slices;
+					imageFrames = times;
+					imageOffsetX = 2;
+					imageOffsetY = 2;
+					imageOffsetZ = 0;
+					imageOffsetT = 0;
+				}else{
+					imageWidth = orWidth;
+					imageHeight = orHeight;
+					imageSlices = orSlices;
+					imageFrames = orTimes;
+					imageOffsetX = xMin;
+					imageOffsetY = yMin;
+					imageOffsetZ = zMin;
+					imageOffsetT = tMin;
+				}
+				
+				if(hullData != null){
+					forEachFrame(times, new FrameTask(){
+						@Override
+						public void run(int t){
+							for(int z = 0; z < slices; z++){
+								for(int x = 0; x < width; x++){
+									for(int y = 0; y < height; y++){
+										if(hullData.isSet(x, y, z, t)){
+											//Convex hull volume data
+											convexHullVolume [t] += vxVolume;
+											convexHullxC [t] += (double)(x+xMin);
+											convexHullyC [t] += (double)(y+yMin);	
+											convexHullzC [t] += (double)(z+zMin);
 											
-										if(transientSurface!=0.0){										
-											convexHullImp.getStack().setVoxel(x+2,y+2,iz,255.0);
-										}else{
-											convexHullImp.getStack().setVoxel(x+2,y+2,iz,0.0);
+											//Convex hull surface data
+											convexHullSurface [t] += getHullSurface(x, y, z, t, calibration, voxelDepth);
 										}
-									}else{
-										convexHullImp.getStack().setVoxel(x+2,y+2,iz,0.0);
-									}
-		
-									//generate particle image
-									if(data[x][y][z][t] != 0.0){
-										particleImp.getStack().setVoxel(x+2,y+2,iz,data[x][y][z][t]);
-									}else{
-										particleImp.getStack().setVoxel(x+2,y+2,iz,0.0);
 									}
 								}
-							}
+							}					
 						}
-					}
-					particleImp.setCalibration(cal);
-					particleImp.setDisplayRange(0.0,maxIntensity);
-					convexHullImp.setCalibration(cal);	
-				}else{
-					//(java.lang.String title,java.lang.String type,int width,int height,int channels,int slices,int frames)
-					particleImp = IJ.createImage("Particle image", bitDepth, orWidth, orHeight, 1, orSlices, orTimes);
-					particleImp.setCalibration(cal);
-					convexHullImp = IJ.createImage("Convex Hull Image", "8-bit", orWidth, orHeight, 1, orSlices, orTimes);
-					for(int t = 0; t < times; t++){
-						for(int z = 0; z < slices; z++){
-							for(int x = 0; x < width; x++){
-								for(int y = 0; y < height; y++){
-									int iz = particleImp.getStackIndex(1,z+zMin+1,t+tMin+1)-1;	//(int channel,int slice,int frame);
-									
-									if(hullData [x][y][z][t]){
-										//Convex hull volume data
-										convexHullVolume [t] += vxVolume;
-										convexHullxC [t] += (double)(x+xMin);
-										convexHullyC [t] += (double)(y+yMin);	
-										convexHullzC [t] += (double)(z+zMin);	
-									
-										//Convex hull surface data
-										double transientSurface = 0.0;
-										//Look for other cell particles in surroundings
-										if(y-1>=0){ 
-											if(!hullData[x][y-1][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(y+1<height){ 
-											if(!hullData[x][y+1][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(x-1>=0){ 
-											if(!hullData[x-1][y][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(x+1<width){ 
-											if(!hullData[x+1][y][z][t]){transientSurface += calibration*voxelDepth;}
-										}else{transientSurface += calibration*voxelDepth;}
-										if(z-1>=0){ 
-											if(!hullData[x][y][z-1][t]){transientSurface += calibration*calibration;}
-										}else{transientSurface += calibration*calibration;}
-										if(z+1<slices){ 
-											if(!hullData[x][y][z+1][t]){transientSurface += calibration*calibration;}
-										}else{transientSurface += calibration*calibration;}
-										//Look for other cell particles in surroundings
-										convexHullSurface [t] += transientSurface;
-										
-										if(transientSurface!=0.0){
-											convexHullImp.getStack().setVoxel(x+xMin,y+yMin,iz,255.0);
-										}else{
-											convexHullImp.getStack().setVoxel(x+xMin,y+yMin,iz,0.0);
-										}
-									}else{
-										convexHullImp.getStack().setVoxel(x+xMin,y+yMin,iz,0.0);
-									}
-									
-									//generate particle image
-									if(data[x][y][z][t] != 0.0){
-										particleImp.getStack().setVoxel(x+xMin,y+yMin,iz,data[x][y][z][t]);
-									}else{
-										particleImp.getStack().setVoxel(x+xMin,y+yMin,iz,0.0);
-									}
-								}
-							}
-						}					
-					}
-				}	
-				particleImp.setCalibration(cal);
-				particleImp.setDisplayRange(0.0,maxIntensity);
-				convexHullImp.setCalibration(cal);				
+					});
+				}
 			}			
 			
 //			if(!noGUIs) progressDialog.notifyMessage("Step static 6 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 			
 			for(int t = 0; t < times; t++){
-				convexHullxC [t] /= (convexHullVolume [t]/vxVolume);
-				convexHullyC [t] /= (convexHullVolume [t]/vxVolume);
-				convexHullzC [t] /= (convexHullVolume [t]/vxVolume);
-				convexHullxC [t] *= calibration;
-				convexHullyC [t] *= calibration;
-				convexHullzC [t] *= voxelDepth;
-				convexHullxC [t] += calibration / 2.0;
-				convexHullyC [t] += calibration / 2.0;
-				convexHullzC [t] += voxelDepth / 2.0;
+				if(hullData != null){
+					convexHullxC [t] /= (convexHullVolume [t]/vxVolume);
+					convexHullyC [t] /= (convexHullVolume [t]/vxVolume);
+					convexHullzC [t] /= (convexHullVolume [t]/vxVolume);
+					convexHullxC [t] *= calibration;
+					convexHullyC [t] *= calibration;
+					convexHullzC [t] *= voxelDepth;
+					convexHullxC [t] += calibration / 2.0;
+					convexHullyC [t] += calibration / 2.0;
+					convexHullzC [t] += voxelDepth / 2.0;
+				}
 				
 				xPolarityVectorBIN [t] = convexHullxC [t] - xC [t];
 				yPolarityVectorBIN [t] = convexHullyC [t] - yC [t];
@@ -610,197 +723,55 @@ public class TimelapseParticle{
 		
 		// SKELETON PARAMETERS
 		if(skeletonize){
-			IDofLargest = new int [times];
-			foundSkl = new int [times];
-			branches = new int [times];
-			junctions = new int [times];
-			tips = new int [times];
-			triplePs = new int [times];
-			quadruplePs = new int [times];
-			junctionVx = new int [times];
-			slabVx = new int [times];
-			treeLength = new double [times];
-			avBranchLength = new double [times];
-			maxBranchLength = new double [times];
-			largestShortestPath = new double [times];
-			
-			branchesOfAll = new int [times];
-			junctionsOfAll = new int [times];
-			tipsOfAll = new int [times];
-			triplePsOfAll = new int [times];
-			quadruplePsOfAll = new int [times];
-			junctionVxOfAll = new int [times];
-			slabVxOfAll = new int [times];		
-			treeLengthOfAll = new double [times];
-			avBranchLengthOfAll = new double [times];
-			maxBranchLengthOfAll = new double [times];
-			largestShortestPathOfAll = new double [times];
-				
-			skeletonImp = IJ.createHyperStack("Skl image", particleImp.getWidth(), particleImp.getHeight(), particleImp.getNChannels(),
-					particleImp.getNSlices(), particleImp.getNFrames(), 8);	
-			skeletonImp.setCalibration(cal);	
-			
-			ImagePlus particleImpGaussed = particleImp.duplicate();
-			particleImpGaussed.setCalibration(cal);
-			
-			if(binarizeBeforeSkeletonization){
-				for(int t = 0; t < particleImp.getNFrames(); t++){
-					for(int z = 0; z < particleImp.getNSlices(); z++){
-						for(int x = 0; x < particleImp.getWidth(); x++){
-							for(int y = 0; y < particleImp.getHeight(); y++){
-								int iz = 0;
-//								if(minimizeImages){
-									iz = particleImp.getStackIndex(1,z+1,t+1)-1;	//(int channel,int slice,int frame);
-//								}else{
-//									iz = particleImp.getStackIndex(1,z+zMin+1,t+tMin+1)-1;	//(int channel,int slice,int frame);
-//								}
-								if(particleImpGaussed.getStack().getVoxel(x,y,iz)>0.0){
-									particleImpGaussed.getStack().setVoxel(x,y,iz,maxPossibIntensity);
-								}
-							}
-						}
-					}					
-				}
-			}
-			
-			//make 8-bit to fit requirements for use of skeletonize plug-in
-			particleImpGaussed.setDisplayRange(0.0,maxIntensity);
-			IJ.run(particleImpGaussed, "8-bit", "");
-			
-			//Gaussfilter
-				DecimalFormat gaussformat = new DecimalFormat("#0.0");
-				gaussformat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
-				IJ.run(particleImpGaussed, "Gaussian Blur 3D...", "x=" + gaussformat.format(gaussSigmaXY) + " y=" + gaussformat.format(gaussSigmaXY) + " z=" + gaussformat.format(gaussSigmaZ));				
-			// Gaussfilter
-							
-			ImagePlus tempImp = IJ.createHyperStack("Skl image", particleImp.getWidth(), particleImp.getHeight(), 1, particleImp.getNSlices(), 1, 8);	;
-			ImageStack tempStack; 
-			int iz;
-			ArrayList<Double> lst;
+			initSkeletonResults();
 			
-			for(int t = 0; t < times; t++){
-				tempStack = new ImageStack(particleImpGaussed.getWidth(),particleImpGaussed.getHeight());
-				for(int z = 0; z < particleImp.getNSlices(); z++){
-					particleImpGaussed.setZ(z+1);
-					particleImpGaussed.setT(t+1);
-					tempStack.addSlice(particleImpGaussed.getProcessor().duplicate());
-				}
-				tempImp = new ImagePlus();
-				tempImp.setStack(tempStack);
-				tempImp.setCalibration(cal);
-
-//				IJ.run(tempImp,"Skeletonize (2D/3D)","");
-				Skeletonize3D_ skelProc = new Skeletonize3D_();
-				skelProc.setup("", tempImp);
-				skelProc.run(tempImp.getProcessor());
-								
-				//	Before skeleton analysis: cut skeleton in empty space	//TODO change for future mode
-//				tempImp = pruneSkeleton(particleImp, tempImp);
-				
-				AnalyzeSkeleton_ skel = new AnalyzeSkeleton_();
-				skel.calculateShortestPath = true;
-				skel.setup("", tempImp);
-				
-				SkeletonResult sklRes = skel.run(AnalyzeSkeleton_.NONE, false, true, null, true, false);
-				//run(int pruneIndex, boolean pruneEnds, boolean shortPath, ImagePlus origIP, boolean silent, boolean verbose)
-				
-				{
-					ImagePlus sklResultImage = new ImagePlus("skeleton " + (t+1) + "", skel.getResultImage(false));
-					for(int x = 0; x < sklResultImage.getWidth(); x++){
-						for(int y = 0; y < sklResultImage.getHeight(); y++){
-							for(int z = 0; z < sklResultImage.getNSlices(); z++){
-								iz = particleImp.getStackIndex(1,z+1,t+1)-1;	//(int channel,int slice,int frame);
-								skeletonImp.getStack().setVoxel(x,y,iz,sklResultImage.getStack().getVoxel(x,y,z));
-							}
+			//the particle image is converted to 8-bit, blurred and skeletonized frame by frame
+			final double sigmaXY = roundSigma(gaussSigmaXY), sigmaZ = roundSigma(gaussSigmaZ);
+			final boolean binarize = binarizeBeforeSkeletonization;
+			final int concurrentFrames = getConcurrentFrames(SKELETON_BYTES_PER_VOXEL * imageWidth * imageHeight * imageSlices);
+			if(skeletonMode == SKL_FULL){
+				forEachFrame(times, concurrentFrames, new FrameTask(){
+					@Override
+					public void run(int t){
+						//the frame is thinned in the buffer of the workspace of the thread
+						SkeletonWorkspace workspace = SkeletonWorkspace.acquire();
+						try{
+							byte slices [][] = create8BitFrame(t, binarize, workspace.getFrame(imageWidth * imageHeight, imageSlices));
+							workspace.getFilter(sigmaXY, sigmaZ).blur(slices, imageWidth, imageHeight);
+							analyzeSkeleton(workspace, t, thin(workspace, slices, null), cal);
+						}finally{
+							workspace.release();
 						}
 					}
-					sklResultImage.changes = false;
-					sklResultImage.close();
-				}
-				
-								
-				foundSkl [t] = sklRes.getNumOfTrees();				
-				IDofLargest [t] = 0;	double sklLargestValue = 0.0;
-				branchesOfAll [t] = 0;
-				junctionsOfAll [t] = 0;
-				tipsOfAll [t] = 0;
-				triplePsOfAll [t] = 0;
-				quadruplePsOfAll [t] = 0;
-				junctionVxOfAll [t] = 0;
-				slabVxOfAll [t] = 0;				
-				int averageOfAllCounter = 0;
-				treeLengthOfAll [t] = 0.0;
-				maxBranchLengthOfAll [t] = 0.0;
-				avBranchLengthOfAll [t] = 0.0;
-				largestShortestPathOfAll [t] = 0.0;
-				
-				if(foundSkl [t]>0){
-					int [] sBranches = sklRes.getBranches();
-					int [] sJunctions = sklRes.getJunctions();
-					int [] sTips = sklRes.getEndPoints();
-					int [] sJunctionVx = sklRes.getJunctionVoxels();
-					int [] sSlabs = sklRes.getSlabs();
-					int [] sTriples = sklRes.getTriples();
-					int [] sQuadruples = sklRes.getQuadruples();
-					double [] sAvBrL = sklRes.getAverageBranchLength();
-					double [] sMaxBrL = sklRes.getMaximumBranchLength();
-					double [] sTreeL = new double [foundSkl [t]];
-					lst = sklRes.getShortestPathList();
-//					IJ.log(lst.size() + " - size");
-					
-					for(int i = 0; i < foundSkl [t]; i++){
-						sTreeL [i] = sAvBrL[i]*sBranches[i];	//Total Tree length
-						if(sTreeL [i] > sklLargestValue){
-							IDofLargest [t] = i; sklLargestValue = sTreeL [i] ;
-						}
-						
-						//Parameters for connecting all skeletons
-						if(sBranches[i] > 0){	//connect only if at least one branch
-							if(i>0){
-								branchesOfAll [t] += sBranches[i] - 1;
-								tipsOfAll [t] += sTips[i] - 2;
-								if(sMaxBrL[i] > maxBranchLengthOfAll [t]){
-									maxBranchLengthOfAll [t] = 0 + sMaxBrL[i];
+				});
+			}else{
+				//groups of time-steps are processed in parallel, each group starts with a completely thinned key frame
+				final boolean verify = skeletonMode == SKL_DELTA_VERIFIED;
+				forEachFrame((times + KEY_FRAME_INTERVAL - 1) / KEY_FRAME_INTERVAL, concurrentFrames, new FrameTask(){
+					@Override
+					public void run(int group){
+						//the inputs of consecutive time-steps are compared, so they alternate between the two input buffers of the workspace
+						SkeletonWorkspace workspace = SkeletonWorkspace.acquire();
+						try{
+							GaussianFilter filter = workspace.getFilter(sigmaXY, sigmaZ);
+							byte input [][], previousInput [][] = null, skeleton [][] = null;
+							for(int t = group * KEY_FRAME_INTERVAL; t < times && t < (group + 1) * KEY_FRAME_INTERVAL; t++){
+								input = create8BitFrame(t, binarize, workspace.getInput(t % 2, imageWidth * imageHeight, imageSlices));
+								filter.blur(input, imageWidth, imageHeight);
+								if(previousInput == null){
+									skeleton = thin(workspace, copySlices(input, workspace.getFrame(imageWidth * imageHeight, imageSlices)), null);
+									analyzeSkeleton(workspace, t, skeleton, cal);
+								}else{
+									skeleton = thinIncrementally(workspace, t, previousInput, input, skeleton, verify, cal);
 								}
-							}else{
-								branchesOfAll [t] += sBranches[i];
-								tipsOfAll [t] += sTips[i];
-								maxBranchLengthOfAll [t] = 0 + sMaxBrL[i];
+								previousInput = input;
 							}
-							junctionsOfAll [t] += sJunctions[i];
-							junctionVxOfAll [t] += sJunctionVx[i];
-							slabVxOfAll [t] += sSlabs [i];						
-							avBranchLengthOfAll [t] += (sAvBrL[i] * sBranches[i]);
-								averageOfAllCounter += sBranches[i];
-							triplePsOfAll [t] += sTriples [i];
-							quadruplePsOfAll [t] += sQuadruples [i];
-							treeLengthOfAll [t] += sTreeL[i];
-							largestShortestPathOfAll [t] += lst.get(i); 
-						}						
+						}finally{
+							workspace.release();
+						}
 					}
-					avBranchLengthOfAll [t] /= (double) averageOfAllCounter;
-					
-					//Get values of largest Skeleton
-					branches [t] = sBranches [IDofLargest[t]];	//# Branches
-					junctions [t] = sJunctions [IDofLargest[t]];	//# Junctions
-					tips [t] = sTips [IDofLargest[t]];	//# End-Points
-					junctionVx [t] = sJunctionVx [IDofLargest[t]];	//# Junction Voxels
-					slabVx [t] = sSlabs [IDofLargest[t]];	//# Slab Voxels
-					avBranchLength [t] = sAvBrL [IDofLargest[t]];	//Averaged Branch length
-					triplePs [t] = sTriples [IDofLargest[t]];	//# Triple Points
-					quadruplePs [t] = sQuadruples [IDofLargest[t]];	//# Quadruple Points
-					maxBranchLength [t] = sMaxBrL [IDofLargest[t]];	//Maximum Branch length
-					treeLength [t] = sTreeL [IDofLargest[t]];	//Total Tree length
-					largestShortestPath [t] = lst.get(IDofLargest[t]);
-					lst.clear();
-					lst.trimToSize();
-				}				
+				});
 			}
-			
-			tempImp.changes = false;
-			tempImp.close();
-			particleImpGaussed.changes = false;
-			particleImpGaussed.close();
 		}
 				
 //		if(!noGUIs) progressDialog.notifyMessage("Step 3 TIMEDEP " + df.format(new Date()),ProgressDialog.NOTIFICATION);
@@ -817,7 +788,6 @@ public class TimelapseParticle{
 			nrOfRetractions = new int [times];
 			nrOfExtensionsMoreThan1Vx = new int [times];
 			nrOfRetractionsMoreThan1Vx = new int [times];
-			boolean extensRetractions [][][][][] = new boolean [width][height][slices][times][2];	//0 = ext, 1 = retr
 			motility = new double [times];
 						
 			deltaVolume [0] = 0.0;
@@ -832,238 +802,49 @@ public class TimelapseParticle{
 			nrOfRetractionsMoreThan1Vx [0] = 0;
 			motility [0] = 0.0;
 					
-			for(int t = 1; t < times; t++){
-				deltaVolume [t] = volume [t] - volume [t-1];
-				deltaRI [t] = RI [t] - RI [t-1];
-				movingVectorLengthBIN [t] = Math.sqrt(Math.pow(xC [t] - xC [t-1],2.0)
-						+ Math.pow(yC [t] - yC [t-1], 2.0)
-						+ Math.pow(zC [t] - zC [t-1], 2.0));
-				movingVectorLengthSemiBIN [t] = Math.sqrt(Math.pow(xCOM [t] - xCOM [t-1],2.0)
-						+ Math.pow(yCOM [t] - yCOM [t-1], 2.0)
-						+ Math.pow(zCOM [t] - zCOM [t-1], 2.0));
-				occupVolume[t] = 0.0;
-				lostVolume[t] = 0.0;
-				for(int z = 0; z < slices; z++){
-					for(int x = 0; x < width; x++){
-						for(int y = 0; y < height; y++){							
-							if(data [x][y][z][t] > 0.0 && data [x][y][z][t-1] == 0.0){
-								occupVolume [t] += vxVolume;
-								extensRetractions [x][y][z][t][0] = true;
-							}else{
-								extensRetractions [x][y][z][t][0] = false;
-							}
-							if(data [x][y][z][t] == 0.0 && data [x][y][z][t-1] > 0.0){
-								lostVolume [t] += vxVolume;
-								extensRetractions [x][y][z][t][1] = true;
-							}else{
-								extensRetractions [x][y][z][t][1] = false;
-							}
-						}
+			//extensions and retractions as bit planes: extensions = current & ~previous, retractions = previous & ~current
+			//the time-steps are processed in windows, so that only the planes of one window (and its previous time-step) are alive
+			int window = getConcurrentFrames(8L * ((width + 63) >>> 6) * height * slices);
+			final BitPlane planes [] = new BitPlane [window+1];	//[0] = time-step before the window
+			for(int first = 1; first < times; first += window){
+				final int start = first;
+				int windowLength = Math.min(window, times - first);
+				planes [0] = (first == 1) ? BitPlane.fromStore(data, 0) : planes [window];
+				forEachFrame(windowLength, new FrameTask(){
+					@Override
+					public void run(int i){
+						planes [i+1] = BitPlane.fromStore(data, start + i);
+					}
+				});
+				forEachFrame(windowLength, new FrameTask(){
+					@Override
+					public void run(int i){
+						int t = start + i;
+						deltaVolume [t] = volume [t] - volume [t-1];
+						deltaRI [t] = RI [t] - RI [t-1];
+						movingVectorLengthBIN [t] = Math.sqrt(Math.pow(xC [t] - xC [t-1],2.0)
+								+ Math.pow(yC [t] - yC [t-1], 2.0)
+								+ Math.pow(zC [t] - zC [t-1], 2.0));
+						movingVectorLengthSemiBIN [t] = Math.sqrt(Math.pow(xCOM [t] - xCOM [t-1],2.0)
+								+ Math.pow(yCOM [t] - yCOM [t-1], 2.0)
+								+ Math.pow(zCOM [t] - zCOM [t-1], 2.0));
 						
+						BitPlane extensionPlane = planes [i+1].andNot(planes [i]);
+						BitPlane retractionPlane = planes [i].andNot(planes [i+1]);
+						occupVolume [t] = extensionPlane.cardinality() * vxVolume;
+						lostVolume [t] = retractionPlane.cardinality() * vxVolume;
+						motility [t] = occupVolume [t] + lostVolume [t];
+						
+						//count 6-connected extension and retraction fragments
+						int fragments [] = extensionPlane.countFragments();
+						nrOfExtensions [t] = fragments [0];
+						nrOfExtensionsMoreThan1Vx [t] = fragments [1];
+						fragments = retractionPlane.countFragments();
+						nrOfRetractions [t] = fragments [0];
+						nrOfRetractionsMoreThan1Vx [t] = fragments [1];
 					}
-				}
-				motility [t] = occupVolume [t] + lostVolume [t];
-			}	
-			
-//			if(!noGUIs) progressDialog.notifyMessage("Step 3.1 " + df.format(new Date()),ProgressDialog.NOTIFICATION);
-			
-			//FloodFiller to find #extensions and #retractions
-			int floodNodeX, floodNodeY, floodNodeZ, floodNodeT, index, maxExtRetr = 0;
-			for(int t = 1; t < times; t++){
-				if(maxExtRetr < (int)Math.round(occupVolume [t] / vxVolume)){
-					maxExtRetr = (int)Math.round(occupVolume [t] / vxVolume);
-				}
-				if(maxExtRetr < (int)Math.round(lostVolume [t] / vxVolume)){
-					maxExtRetr = (int)Math.round(lostVolume [t] / vxVolume);
-				}				
+				});
 			}
-			int[][] floodNodes = new int[maxExtRetr][4];
-			int extensionsCounter, retractionsCounter;
-			for(int t = 1; t < times; t++){
-				for(int z = 0; z < slices; z++){
-					for(int x = 0; x < width; x++){
-						for(int y = 0; y < height; y++){
-							//extensions flood-filler
-							if(extensRetractions[x][y][z][t][0]){
-								extensionsCounter = 1;
-								extensRetractions[x][y][z][t][0] = false;
-								floodNodeX = x;
-								floodNodeY = y;
-								floodNodeZ = z;
-								floodNodeT = t;
-								index = 0;
-								
-								floodNodes[0][0] = floodNodeX;
-								floodNodes[0][1] = floodNodeY;
-								floodNodes[0][2] = floodNodeZ;
-								floodNodes[0][3] = floodNodeT;
-								while (index >= 0){
-									floodNodeX = floodNodes[index][0];
-									floodNodeY = floodNodes[index][1];
-									floodNodeZ = floodNodes[index][2];
-									floodNodeT = floodNodes[index][3];
-									index--;            
-									if ((floodNodeX > 0) && (extensRetractions[floodNodeX-1][floodNodeY][floodNodeZ][floodNodeT][0])){
-										extensRetractions[floodNodeX-1][floodNodeY][floodNodeZ][floodNodeT][0] = false;
-										
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX-1;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeX < (width-1)) && (extensRetractions[floodNodeX+1][floodNodeY][floodNodeZ][floodNodeT][0])){
-										extensRetractions[floodNodeX+1][floodNodeY][floodNodeZ][floodNodeT][0] = false;
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX+1;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeY > 0) && (extensRetractions[floodNodeX][floodNodeY-1][floodNodeZ][floodNodeT][0])){
-										extensRetractions[floodNodeX][floodNodeY-1][floodNodeZ][floodNodeT][0] = false;
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY-1;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}                
-									if ((floodNodeY < (height-1)) && (extensRetractions[floodNodeX][floodNodeY+1][floodNodeZ][floodNodeT][0])){
-										extensRetractions[floodNodeX][floodNodeY+1][floodNodeZ][floodNodeT][0] = false;
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY+1;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeZ > 0) && (extensRetractions[floodNodeX][floodNodeY][floodNodeZ-1][floodNodeT][0])){
-										extensRetractions[floodNodeX][floodNodeY][floodNodeZ-1][floodNodeT][0] = false;
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ-1;
-										floodNodes[index][3] = floodNodeT;
-									}                
-									if ((floodNodeZ < (slices-1)) && (extensRetractions[floodNodeX][floodNodeY][floodNodeZ+1][floodNodeT][0])){
-										extensRetractions[floodNodeX][floodNodeY][floodNodeZ+1][floodNodeT][0] = false;
-										extensionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ+1;
-										floodNodes[index][3] = floodNodeT;
-									}
-								}								
-								//Filter and save
-								nrOfExtensions [t]++;
-								if(extensionsCounter > 1){
-									nrOfExtensionsMoreThan1Vx [t]++;
-								}							
-							}
-							
-							//retractions flood-filler
-							if(extensRetractions[x][y][z][t][1]){
-								retractionsCounter = 1;
-								extensRetractions[x][y][z][t][1] = false;
-								
-								floodNodeX = x;
-								floodNodeY = y;
-								floodNodeZ = z;
-								floodNodeT = t;
-								index = 0;
-								floodNodes[0][0] = floodNodeX;
-								floodNodes[0][1] = floodNodeY;
-								floodNodes[0][2] = floodNodeZ;
-								floodNodes[0][3] = floodNodeT;
-								while (index >= 0){
-									floodNodeX = floodNodes[index][0];
-									floodNodeY = floodNodes[index][1];
-									floodNodeZ = floodNodes[index][2];
-									floodNodeT = floodNodes[index][3];
-									index--;            
-									if ((floodNodeX > 0) && (extensRetractions[floodNodeX-1][floodNodeY][floodNodeZ][floodNodeT][1])){
-										extensRetractions[floodNodeX-1][floodNodeY][floodNodeZ][floodNodeT][1] = false;
-										
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX-1;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeX < (width-1)) && (extensRetractions[floodNodeX+1][floodNodeY][floodNodeZ][floodNodeT][1])){
-										extensRetractions[floodNodeX+1][floodNodeY][floodNodeZ][floodNodeT][1] = false;
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX+1;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeY > 0) && (extensRetractions[floodNodeX][floodNodeY-1][floodNodeZ][floodNodeT][1])){
-										extensRetractions[floodNodeX][floodNodeY-1][floodNodeZ][floodNodeT][1] = false;
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY-1;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}                
-									if ((floodNodeY < (height-1)) && (extensRetractions[floodNodeX][floodNodeY+1][floodNodeZ][floodNodeT][1])){
-										extensRetractions[floodNodeX][floodNodeY+1][floodNodeZ][floodNodeT][1] = false;
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY+1;
-										floodNodes[index][2] = floodNodeZ;
-										floodNodes[index][3] = floodNodeT;
-									}
-									if ((floodNodeZ > 0) && (extensRetractions[floodNodeX][floodNodeY][floodNodeZ-1][floodNodeT][1])){
-										extensRetractions[floodNodeX][floodNodeY][floodNodeZ-1][floodNodeT][1] = false;
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ-1;
-										floodNodes[index][3] = floodNodeT;
-									}                
-									if ((floodNodeZ < (slices-1)) && (extensRetractions[floodNodeX][floodNodeY][floodNodeZ+1][floodNodeT][1])){
-										extensRetractions[floodNodeX][floodNodeY][floodNodeZ+1][floodNodeT][1] = false;
-										retractionsCounter++;
-										
-										index++;
-										floodNodes[index][0] = floodNodeX;
-										floodNodes[index][1] = floodNodeY;
-										floodNodes[index][2] = floodNodeZ+1;
-										floodNodes[index][3] = floodNodeT;
-									}
-								}								
-								//Filter and save
-								nrOfRetractions [t]++;
-								if(retractionsCounter > 1){
-									nrOfRetractionsMoreThan1Vx [t]++;
-								}							
-							}
-						}
-					}
-				}				
-			}				
 		}
 		
 //		if(!noGUIs) progressDialog.notifyMessage("Step 4 LTPs " + df.format(new Date()),ProgressDialog.NOTIFICATION);
@@ -1098,12 +879,12 @@ public class TimelapseParticle{
 						particleStatic = true;
 						hullStatic = true;
 						for(int t = 0; t < times; t++){
-							if(data [x][y][z][t] > 0.0){
+							if(data.get(x, y, z, t) > 0.0){
 								particleTouched = true;
 							}else{
 								particleStatic = false;
 							}
-							if(hullData [x][y][z][t]){
+							if(isInHull(x, y, z, t)){
 								hullTouched = true;
 							}else{
 								hullStatic = false;
@@ -1433,16 +1214,619 @@ public class TimelapseParticle{
 //		if(!noGUIs) progressDialog.notifyMessage("Done " + df.format(new Date()),ProgressDialog.NOTIFICATION);
 	}
 	
+	/**
+	 * Writes frame
+	 * @param t of the particle image converted to 8-bit (scaled to the display range from 0 to the maximum intensity),
+	 * as by the "8-bit" command of ImageJ, into the
+	 * @param frame (imageSlices slices of imageWidth * imageHeight voxels, all 0); if
+	 * @param binarize is true, all particle voxels are set to the maximum intensity of the bit depth before
+	 * @return the frame
+	 * */
+	private byte [][] create8BitFrame(int t, boolean binarize, byte frame [][]){
+		//frame t of the particle image contains time-step t - imageOffsetT
+		int tData = t - imageOffsetT;
+		if(tData < 0 || tData >= times)	return frame;
+		
+		//values as stored in the image of the bit depth, scaling as in ij.process.TypeConverter
+		boolean scale = ImageConverter.getDoScaling();
+		int bitDepth = imageBitDepth.equals("8-bit") ? 8 : (imageBitDepth.equals("16-bit") ? 16 : 32);
+		int max16 = (int) Math.min(imageMaxIntensity, 65535.0);
+		double scale16 = 256.0 / (max16 + 1);
+		float scale32 = 255f / (float) imageMaxIntensity;
+		double value;
+		int value8;
+		float value32;
+		for(int z = 0; z < slices; z++){
+			byte pixels [] = frame [z + imageOffsetZ];
+			for(int y = 0; y < height; y++){
+				for(int x = 0; x < width; x++){
+					value = data.get(x, y, z, tData);
+					if(value == 0.0)	continue;
+					if(bitDepth == 32){
+						value32 = (float) value;
+						if(binarize && value32 > 0f)	value32 = (float) 2147483647.0;
+						if(scale){
+							if(value32 < 0f)	value32 = 0f;
+							value8 = (int) (value32 * scale32 + 0.5f);
+						}else{
+							value32 += 0.5f;
+							if(value32 < 0f)	value32 = 0f;
+							value8 = (int) Math.min(value32, 255f);
+						}
+					}else{
+						value8 = (int) (Math.max(Math.min(value, bitDepth == 8 ? 255.0 : 65535.0), 0.0) + 0.5);
+						if(bitDepth == 16){
+							if(binarize && value8 > 0)	value8 = 65535;
+							if(scale)	value8 = (int) (value8 * scale16 + 0.5);
+						}else if(binarize && value8 > 0){
+							value8 = 255;
+						}
+					}
+					pixels [(x + imageOffsetX) + (y + imageOffsetY) * imageWidth] = (byte) Math.min(value8, 255);
+				}
+			}
+		}
+		return frame;
+	}
+	
+	/**
+	 * Creates the arrays for the skeleton results of all time-steps
+	 * */
+	private void initSkeletonResults(){
+		IDofLargest = new int [times];
+		foundSkl = new int [times];
+		branches = new int [times];
+		junctions = new int [times];
+		tips = new int [times];
+		triplePs = new int [times];
+		quadruplePs = new int [times];
+		junctionVx = new int [times];
+		slabVx = new int [times];
+		treeLength = new double [times];
+		avBranchLength = new double [times];
+		maxBranchLength = new double [times];
+		largestShortestPath = new double [times];
+		
+		branchesOfAll = new int [times];
+		junctionsOfAll = new int [times];
+		tipsOfAll = new int [times];
+		triplePsOfAll = new int [times];
+		quadruplePsOfAll = new int [times];
+		junctionVxOfAll = new int [times];
+		slabVxOfAll = new int [times];
+		treeLengthOfAll = new double [times];
+		avBranchLengthOfAll = new double [times];
+		maxBranchLengthOfAll = new double [times];
+		largestShortestPathOfAll = new double [times];
+		
+		skeletonPoints = new PointCloud [times];
+	}
+	
+	/**
+	 * Skeletonizes the particle again for each pair of Gaussian sigmas
+	 * @param sigmasXY and
+	 * @param sigmasZ (in pixels, sorted ascending) and stores the skeleton results of each pair in the particles of sweepLevels.
+	 * Each level is blurred and thinned exactly as the skeleton of the particle (sigmas rounded to one decimal, 8-bit rounding after the xy and the z pass),
+	 * so that a level with the sigmas of the particle reproduces its skeleton results. The particle image is converted to 8-bit only once per time-step
+	 * (binarized if
+	 * @param binarize is true) and levels with the same xy sigma share the xy pass. All results that do not depend on the sigmas are only determined once by the constructor.
+	 * */
+	public void sweepSkeleton(double sigmasXY [], double sigmasZ [], final boolean binarize, final Calibration cal){
+		final double roundedXY [] = new double [sigmasXY.length], roundedZ [] = new double [sigmasZ.length];
+		sweepLevels = new TimelapseParticle [sigmasXY.length];
+		for(int k = 0; k < sigmasXY.length; k++){
+			roundedXY [k] = roundSigma(sigmasXY [k]);
+			roundedZ [k] = roundSigma(sigmasZ [k]);
+			TimelapseParticle level = new TimelapseParticle();
+			level.sweepSigmaXY = roundedXY [k];
+			level.sweepSigmaZ = roundedZ [k];
+			level.times = times;
+			level.tMin = tMin;
+			level.imageWidth = imageWidth;
+			level.imageHeight = imageHeight;
+			level.imageSlices = imageSlices;
+			level.initSkeletonResults();
+			sweepLevels [k] = level;
+		}
+		forEachFrame(times, getConcurrentFrames(SKELETON_BYTES_PER_VOXEL * imageWidth * imageHeight * imageSlices), new FrameTask(){
+			@Override
+			public void run(int t){
+				SkeletonWorkspace workspace = SkeletonWorkspace.acquire();
+				try{
+					sweepFrame(workspace, t, roundedXY, roundedZ, binarize, cal);
+				}finally{
+					workspace.release();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Skeletonizes time-step
+	 * @param t for all levels of the sigma sweep (see sweepSkeleton), using the buffers of the
+	 * @param workspace
+	 * */
+	private void sweepFrame(SkeletonWorkspace workspace, int t, double sigmasXY [], double sigmasZ [], boolean binarize, Calibration cal){
+		final int sliceSize = imageWidth * imageHeight;
+		byte source [][] = create8BitFrame(t, binarize, workspace.getInput(0, sliceSize, imageSlices));
+		byte blurredXY [][] = null;
+		for(int k = 0; k < sweepLevels.length; k++){
+			GaussianFilter filter = workspace.getFilter(sigmasXY [k], sigmasZ [k]);
+			if(blurredXY == null || sigmasXY [k] != sigmasXY [k-1]){
+				blurredXY = copySlices(source, workspace.getInput(1, sliceSize, imageSlices));
+				filter.blurXY(blurredXY, imageWidth, imageHeight);
+			}
+			//the level is thinned in the frame buffer, the xy-blurred input is kept for the next level
+			byte frame [][] = copySlices(blurredXY, workspace.getFrame(sliceSize, imageSlices));
+			filter.blurZ(frame, imageWidth, imageHeight);
+			sweepLevels [k].analyzeSkeleton(workspace, t, sweepLevels [k].thin(workspace, frame, null), cal);
+		}
+	}
+	
+	/**
+	 * @return the Gaussian
+	 * @param sigma rounded to one decimal (as in the previous "Gaussian Blur 3D..." command)
+	 * */
+	private static double roundSigma(double sigma){
+		DecimalFormat gaussformat = new DecimalFormat("#0.0");
+		gaussformat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+		return Double.parseDouble(gaussformat.format(sigma));
+	}
+	
+	/**
+	 * Thins the
+	 * @param slices (8-bit, foreground != 0) of a time-step in place, keeping the
+	 * @param fixed voxels (index x + y * imageWidth + z * imageWidth * imageHeight, null = none)
+	 * @return the slices, skeleton voxels are 255
+	 * */
+	private byte [][] thin(SkeletonWorkspace workspace, byte slices [][], boolean fixed []){
+		ImageStack tempStack = new ImageStack(imageWidth, imageHeight);
+		for(int z = 0; z < slices.length; z++){
+			tempStack.addSlice("", slices [z]);
+		}
+		ImagePlus tempImp = new ImagePlus();
+		tempImp.setStack(tempStack);
+		
+//		IJ.run(tempImp,"Skeletonize (2D/3D)","");
+		Skeletonize3D_ skelProc = workspace.skeletonizer;
+		skelProc.setup("", tempImp);
+		if(ForkJoinTask.inForkJoinPool()){
+			//check the z-slabs of large images in parallel with the threads of the pool
+			skelProc.setNumberOfThreads(ForkJoinTask.getPool().getParallelism());
+		}
+		skelProc.setFixedPoints(fixed);
+		skelProc.run(tempImp.getProcessor());
+		return slices;
+	}
+	
+	/**
+	 * Skeletonizes time-step
+	 * @param t incrementally: only the bricks containing voxels whose foreground state differs between the
+	 * @param previousInput (thinning input of time-step t-1) and the
+	 * @param input of time-step t and their neighboring bricks are re-thinned, the
+	 * @param previousSkeleton (of time-step t-1) is kept outside of these bricks. If the skeleton did not change, 
+	 * the skeleton results of time-step t-1 are copied, otherwise the skeleton is analyzed.
+	 * @param verify: if true, the skeleton is compared to the complete thinning of the input and replaced by it if it deviates (deviations are logged)
+	 * @return the skeleton of time-step t
+	 * */
+	private byte [][] thinIncrementally(SkeletonWorkspace workspace, int t, byte previousInput [][], byte input [][], byte previousSkeleton [][], 
+			boolean verify, Calibration cal){
+		final int sliceSize = imageWidth * imageHeight;
+		final int bricksX = (imageWidth + DIRTY_BRICK - 1) / DIRTY_BRICK, 
+				bricksY = (imageHeight + DIRTY_BRICK - 1) / DIRTY_BRICK,
+				bricksZ = (imageSlices + DIRTY_BRICK - 1) / DIRTY_BRICK;
+		boolean dirty [] = new boolean [bricksX * bricksY * bricksZ];
+		boolean changed = false;
+		for(int z = 0; z < imageSlices; z++){
+			for(int y = 0; y < imageHeight; y++){
+				for(int x = 0; x < imageWidth; x++){
+					if((input [z][x + y * imageWidth] != 0) != (previousInput [z][x + y * imageWidth] != 0)){
+						dirty [x / DIRTY_BRICK + (y / DIRTY_BRICK) * bricksX + (z / DIRTY_BRICK) * bricksX * bricksY] = true;
+						changed = true;
+					}
+				}
+			}
+		}
+		
+		byte skeleton [][] = previousSkeleton;
+		if(changed){
+			//re-thin the changed bricks and their neighbors, the previous skeleton is fixed in all other bricks
+			boolean region [] = new boolean [dirty.length];
+			for(int bz = 0; bz < bricksZ; bz++){
+				for(int by = 0; by < bricksY; by++){
+					for(int bx = 0; bx < bricksX; bx++){
+						if(!dirty [bx + by * bricksX + bz * bricksX * bricksY])	continue;
+						for(int nz = Math.max(bz-1, 0); nz <= Math.min(bz+1, bricksZ-1); nz++){
+							for(int ny = Math.max(by-1, 0); ny <= Math.min(by+1, bricksY-1); ny++){
+								for(int nx = Math.max(bx-1, 0); nx <= Math.min(bx+1, bricksX-1); nx++){
+									region [nx + ny * bricksX + nz * bricksX * bricksY] = true;
+								}
+							}
+						}
+					}
+				}
+			}
+			
+			boolean fixed [] = new boolean [sliceSize * imageSlices];
+			skeleton = copySlices(previousSkeleton);
+			for(int z = 0; z < imageSlices; z++){
+				for(int y = 0; y < imageHeight; y++){
+					for(int x = 0; x < imageWidth; x++){
+						if(region [x / DIRTY_BRICK + (y / DIRTY_BRICK) * bricksX + (z / DIRTY_BRICK) * bricksX * bricksY]){
+							skeleton [z][x + y * imageWidth] = input [z][x + y * imageWidth];
+						}else{
+							fixed [x + y * imageWidth + z * sliceSize] = true;
+						}
+					}
+				}
+			}
+			thin(workspace, skeleton, fixed);
+		}
+		
+		if(verify){
+			byte completeSkeleton [][] = thin(workspace, copySlices(input), null);
+			int deviatingVoxels = 0;
+			for(int z = 0; z < imageSlices; z++){
+				for(int i = 0; i < sliceSize; i++){
+					if(completeSkeleton [z][i] != skeleton [z][i])	deviatingVoxels++;
+				}
+			}
+			if(deviatingVoxels > 0){
+				IJ.log("Incremental skeleton of time-step " + (t+1) + " deviates from complete thinning in " + deviatingVoxels 
+						+ " voxels - the complete thinning is used.");
+				skeleton = completeSkeleton;
+			}
+		}
+		
+		boolean unchanged = true;
+		for(int z = 0; z < imageSlices && unchanged; z++){
+			unchanged = Arrays.equals(skeleton [z], previousSkeleton [z]);
+		}
+		if(unchanged){
+			copySkeletonResults(t-1, t);
+		}else{
+			analyzeSkeleton(workspace, t, skeleton, cal);
+		}
+		return skeleton;
+	}
+	
+	private static byte [][] copySlices(byte slices [][]){
+		byte copy [][] = new byte [slices.length][];
+		for(int z = 0; z < slices.length; z++){
+			copy [z] = slices [z].clone();
+		}
+		return copy;
+	}
+	
+	/**
+	 * Copies the
+	 * @param slices into the
+	 * @param target (slices of the same size)
+	 * @return the target
+	 * */
+	private static byte [][] copySlices(byte slices [][], byte target [][]){
+		for(int z = 0; z < slices.length; z++){
+			System.arraycopy(slices [z], 0, target [z], 0, slices [z].length);
+		}
+		return target;
+	}
+	
+	/**
+	 * Copies the skeleton voxels and skeleton results of time-step
+	 * @param from to time-step
+	 * @param to (used if the skeleton did not change)
+	 * */
+	private void copySkeletonResults(int from, int to){
+		PointCloud points = new PointCloud(skeletonPoints [from].size());
+		PointCloud fromPoints = skeletonPoints [from];
+		for(int i = 0; i < fromPoints.size(); i++){
+			points.add(fromPoints.x [i], fromPoints.y [i], fromPoints.z [i], to, fromPoints.intensity [i]);
+		}
+		skeletonPoints [to] = points;
+		
+		foundSkl [to] = foundSkl [from];
+		IDofLargest [to] = IDofLargest [from];
+		branches [to] = branches [from];
+		junctions [to] = junctions [from];
+		tips [to] = tips [from];
+		triplePs [to] = triplePs [from];
+		quadruplePs [to] = quadruplePs [from];
+		junctionVx [to] = junctionVx [from];
+		slabVx [to] = slabVx [from];
+		avBranchLength [to] = avBranchLength [from];
+		maxBranchLength [to] = maxBranchLength [from];
+		treeLength [to] = treeLength [from];
+		largestShortestPath [to] = largestShortestPath [from];
+		
+		branchesOfAll [to] = branchesOfAll [from];
+		junctionsOfAll [to] = junctionsOfAll [from];
+		tipsOfAll [to] = tipsOfAll [from];
+		triplePsOfAll [to] = triplePsOfAll [from];
+		quadruplePsOfAll [to] = quadruplePsOfAll [from];
+		junctionVxOfAll [to] = junctionVxOfAll [from];
+		slabVxOfAll [to] = slabVxOfAll [from];
+		treeLengthOfAll [to] = treeLengthOfAll [from];
+		avBranchLengthOfAll [to] = avBranchLengthOfAll [from];
+		maxBranchLengthOfAll [to] = maxBranchLengthOfAll [from];
+		largestShortestPathOfAll [to] = largestShortestPathOfAll [from];
+	}
+	
+	/**
+	 * Analyzes the skeleton of time-step
+	 * @param t given by the
+	 * @param skeleton (thinned 8-bit slices) and writes the skeleton voxels into skeletonPoints and the skeleton results into the arrays of time-step t
+	 * */
+	private void analyzeSkeleton(SkeletonWorkspace workspace, int t, byte skeleton [][], Calibration cal){
+		ImageStack tempStack = new ImageStack(imageWidth, imageHeight);
+		for(int z = 0; z < skeleton.length; z++){
+			tempStack.addSlice("", skeleton [z]);
+		}
+		ImagePlus tempImp = new ImagePlus();
+		tempImp.setStack(tempStack);
+		tempImp.setCalibration(cal);
+		
+		//	Before skeleton analysis: cut skeleton in empty space	//TODO change for future mode
+//		tempImp = pruneSkeleton(particleImp, tempImp);
+		
+		AnalyzeSkeleton_ skel = workspace.analyzer;
+		skel.calculateShortestPath = true;
+		skel.setup("", tempImp);
+		
+		SkeletonResult sklRes = skel.run(AnalyzeSkeleton_.NONE, false, true, null, true, false);
+		//run(int pruneIndex, boolean pruneEnds, boolean shortPath, ImagePlus origIP, boolean silent, boolean verbose)
+		
+		{
+			//keep the (few) skeleton voxels, the skeleton image is only created on request
+			//(the tagged image is reused by the next analysis of the workspace)
+			ImageStack sklResult = skel.getResultImage(false);
+			PointCloud points = new PointCloud(64);
+			byte tags [];
+			for(int z = 0; z < sklResult.getSize(); z++){
+				tags = (byte []) sklResult.getPixels(z+1);
+				for(int x = 0; x < imageWidth; x++){
+					for(int y = 0; y < imageHeight; y++){
+						if(tags [x + y * imageWidth] != 0){
+							points.add(x, y, z, t, tags [x + y * imageWidth] & 0xff);
+						}
+					}
+				}
+			}
+			points.trimToSize();
+			skeletonPoints [t] = points;
+		}
+		
+						
+		foundSkl [t] = sklRes.getNumOfTrees();				
+		IDofLargest [t] = 0;	double sklLargestValue = 0.0;
+		branchesOfAll [t] = 0;
+		junctionsOfAll [t] = 0;
+		tipsOfAll [t] = 0;
+		triplePsOfAll [t] = 0;
+		quadruplePsOfAll [t] = 0;
+		junctionVxOfAll [t] = 0;
+		slabVxOfAll [t] = 0;				
+		int averageOfAllCounter = 0;
+		treeLengthOfAll [t] = 0.0;
+		maxBranchLengthOfAll [t] = 0.0;
+		avBranchLengthOfAll [t] = 0.0;
+		largestShortestPathOfAll [t] = 0.0;
+		
+		if(foundSkl [t]>0){
+			int [] sBranches = sklRes.getBranches();
+			int [] sJunctions = sklRes.getJunctions();
+			int [] sTips = sklRes.getEndPoints();
+			int [] sJunctionVx = sklRes.getJunctionVoxels();
+			int [] sSlabs = sklRes.getSlabs();
+			int [] sTriples = sklRes.getTriples();
+			int [] sQuadruples = sklRes.getQuadruples();
+			double [] sAvBrL = sklRes.getAverageBranchLength();
+			double [] sMaxBrL = sklRes.getMaximumBranchLength();
+			double [] sTreeL = new double [foundSkl [t]];
+			ArrayList<Double> lst = sklRes.getShortestPathList();
+//					IJ.log(lst.size() + " - size");
+			
+			for(int i = 0; i < foundSkl [t]; i++){
+				sTreeL [i] = sAvBrL[i]*sBranches[i];	//Total Tree length
+				if(sTreeL [i] > sklLargestValue){
+					IDofLargest [t] = i; sklLargestValue = sTreeL [i] ;
+				}
+				
+				//Parameters for connecting all skeletons
+				if(sBranches[i] > 0){	//connect only if at least one branch
+					if(i>0){
+						branchesOfAll [t] += sBranches[i] - 1;
+						tipsOfAll [t] += sTips[i] - 2;
+						if(sMaxBrL[i] > maxBranchLengthOfAll [t]){
+							maxBranchLengthOfAll [t] = 0 + sMaxBrL[i];
+						}
+					}else{
+						branchesOfAll [t] += sBranches[i];
+						tipsOfAll [t] += sTips[i];
+						maxBranchLengthOfAll [t] = 0 + sMaxBrL[i];
+					}
+					junctionsOfAll [t] += sJunctions[i];
+					junctionVxOfAll [t] += sJunctionVx[i];
+					slabVxOfAll [t] += sSlabs [i];						
+					avBranchLengthOfAll [t] += (sAvBrL[i] * sBranches[i]);
+						averageOfAllCounter += sBranches[i];
+					triplePsOfAll [t] += sTriples [i];
+					quadruplePsOfAll [t] += sQuadruples [i];
+					treeLengthOfAll [t] += sTreeL[i];
+					largestShortestPathOfAll [t] += lst.get(i); 
+				}						
+			}
+			avBranchLengthOfAll [t] /= (double) averageOfAllCounter;
+			
+			//Get values of largest Skeleton
+			branches [t] = sBranches [IDofLargest[t]];	//# Branches
+			junctions [t] = sJunctions [IDofLargest[t]];	//# Junctions
+			tips [t] = sTips [IDofLargest[t]];	//# End-Points
+			junctionVx [t] = sJunctionVx [IDofLargest[t]];	//# Junction Voxels
+			slabVx [t] = sSlabs [IDofLargest[t]];	//# Slab Voxels
+			avBranchLength [t] = sAvBrL [IDofLargest[t]];	//Averaged Branch length
+			triplePs [t] = sTriples [IDofLargest[t]];	//# Triple Points
+			quadruplePs [t] = sQuadruples [IDofLargest[t]];	//# Quadruple Points
+			maxBranchLength [t] = sMaxBrL [IDofLargest[t]];	//Maximum Branch length
+			treeLength [t] = sTreeL [IDofLargest[t]];	//Total Tree length
+			largestShortestPath [t] = lst.get(IDofLargest[t]);
+			lst.clear();
+			lst.trimToSize();
+		}				
+		
+		tempImp.changes = false;
+		tempImp.close();
+	}
+	
 	/** Closes all ImagePlus belonging to the particle*/
 	public void closeImps (){
-		if(branches!=null){
+		if(skeletonImp != null){
 			skeletonImp.changes = false;
 			skeletonImp.close();
+			skeletonImp = null;
 		}	
-		particleImp.changes = false;
-		particleImp.close();
-		convexHullImp.changes = false;
-		convexHullImp.close();
+		if(particleImp != null){
+			particleImp.changes = false;
+			particleImp.close();
+			particleImp = null;
+		}
+		if(convexHullImp != null){
+			convexHullImp.changes = false;
+			convexHullImp.close();
+			convexHullImp = null;
+		}
+	}
+	
+	/**
+	 * @return the image of the particle, the image is created at the first request
+	 * */
+	public ImagePlus getParticleImp(){
+		if(particleImp == null){
+			particleImp = createParticleImage();
+		}
+		return particleImp;
+	}
+	
+	/**
+	 * @return the image of the convex hull surface, the image is created at the first request; null in HULL_POLYTOPE mode
+	 * */
+	public ImagePlus getConvexHullImp(){
+		if(convexHullImp == null && hullData != null){
+			convexHullImp = createConvexHullImage();
+		}
+		return convexHullImp;
+	}
+	
+	/**
+	 * @return the image of the skeletons, the image is created at the first request; null if no skeletons were determined
+	 * */
+	public ImagePlus getSkeletonImp(){
+		if(skeletonImp == null && skeletonPoints != null){
+			skeletonImp = IJ.createHyperStack("Skl image", imageWidth, imageHeight, 1, imageSlices, imageFrames, 8);
+			skeletonImp.setCalibration(imageCal);
+			ImageStack stack = skeletonImp.getStack();
+			PointCloud points;
+			for(int t = 0; t < skeletonPoints.length; t++){
+				points = skeletonPoints [t];
+				for(int i = 0; i < points.size(); i++){
+					((byte []) stack.getPixels(skeletonImp.getStackIndex(1, points.z [i]+1, t+1))) [points.x [i] + points.y [i] * imageWidth] 
+							= (byte) points.intensity [i];
+				}
+			}
+		}
+		return skeletonImp;
+	}
+	
+	private ImagePlus createParticleImage(){
+		//(java.lang.String title,java.lang.String type,int width,int height,int channels,int slices,int frames)
+		final ImagePlus imp = IJ.createImage("Particle image", imageBitDepth, imageWidth, imageHeight, 1, imageSlices, imageFrames);
+		final ImageStack stack = imp.getStack();
+		forEachFrame(times, new FrameTask(){
+			@Override
+			public void run(int t){
+				double value;
+				for(int z = 0; z < slices; z++){
+					int iz = imp.getStackIndex(1,z+imageOffsetZ+1,t+imageOffsetT+1)-1;	//(int channel,int slice,int frame);
+					for(int x = 0; x < width; x++){
+						for(int y = 0; y < height; y++){
+							value = data.get(x, y, z, t);
+							if(value != 0.0){
+								stack.setVoxel(x+imageOffsetX,y+imageOffsetY,iz,value);
+							}
+						}
+					}
+				}
+			}
+		});
+		imp.setCalibration(imageCal);
+		imp.setDisplayRange(0.0,imageMaxIntensity);
+		return imp;
+	}
+	
+	/**
+	 * @return an image in which the surface voxels of the convex hull are set to 255
+	 * */
+	private ImagePlus createConvexHullImage(){
+		final ImagePlus imp = IJ.createImage("Convex Hull Image", "8-bit", imageWidth, imageHeight, 1, imageSlices, imageFrames);
+		final ImageStack stack = imp.getStack();
+		forEachFrame(times, new FrameTask(){
+			@Override
+			public void run(int t){
+				for(int z = 0; z < slices; z++){
+					int iz = imp.getStackIndex(1,z+imageOffsetZ+1,t+imageOffsetT+1)-1;	//(int channel,int slice,int frame);
+					for(int x = 0; x < width; x++){
+						for(int y = 0; y < height; y++){
+							if(hullData.isSet(x, y, z, t) && getHullSurface(x, y, z, t, 1.0, 1.0) != 0.0){
+								stack.setVoxel(x+imageOffsetX,y+imageOffsetY,iz,255.0);
+							}
+						}
+					}
+				}
+			}
+		});
+		imp.setCalibration(imageCal);
+		return imp;
+	}
+	
+	/**
+	 * @return the surface of the hull voxel (x,y,z,t) facing voxels outside the hull, 
+	 * calculated with the voxel dimensions
+	 * @param calibration and
+	 * @param voxelDepth
+	 * */
+	private double getHullSurface(int x, int y, int z, int t, double calibration, double voxelDepth){
+		double transientSurface = 0.0;
+		//Look for other cell particles in surroundings
+		if(y-1>=0){ 
+			if(!hullData.isSet(x, y-1, z, t)){transientSurface += calibration*voxelDepth;}
+		}else{transientSurface += calibration*voxelDepth;}
+		if(y+1<height){ 
+			if(!hullData.isSet(x, y+1, z, t)){transientSurface += calibration*voxelDepth;}
+		}else{transientSurface += calibration*voxelDepth;}
+		if(x-1>=0){ 
+			if(!hullData.isSet(x-1, y, z, t)){transientSurface += calibration*voxelDepth;}
+		}else{transientSurface += calibration*voxelDepth;}
+		if(x+1<width){ 
+			if(!hullData.isSet(x+1, y, z, t)){transientSurface += calibration*voxelDepth;}
+		}else{transientSurface += calibration*voxelDepth;}
+		if(z-1>=0){ 
+			if(!hullData.isSet(x, y, z-1, t)){transientSurface += calibration*calibration;}
+		}else{transientSurface += calibration*calibration;}
+		if(z+1<slices){ 
+			if(!hullData.isSet(x, y, z+1, t)){transientSurface += calibration*calibration;}
+		}else{transientSurface += calibration*calibration;}
+		//Look for other cell particles in surroundings
+		return transientSurface;
+	}
+	
+	/**
+	 * @return true if the voxel (coordinates relative to xMin, yMin, zMin, tMin) belongs to the convex hull
+	 * */
+	private boolean isInHull(int x, int y, int z, int t){
+		if(hullData != null){
+			return hullData.isSet(x, y, z, t);
+		}
+		int row = z * height + y;
+		return x >= hullRowBounds [t][0][row] && x <= hullRowBounds [t][1][row];
 	}
 	
 	/**
@@ -1830,8 +2214,27 @@ public class TimelapseParticle{
 	 * @param savePath = path, where to save image of 3D visualization as .tif
 	 * @param RPSuffix = String added to the path of the cell volume image to indicate which size-filter was used in detection
 	 * @param v3D = the visualizer containing the settings to create the Visualisations
+	 * The time-steps are rendered one after another.
+	 * */
+	public void save3DVisualizations(String savePath, String RPSuffix, Visualizer3D v3D) 
+			throws IOException, InterruptedException, ExecutionException{
+		save3DVisualizations(savePath, RPSuffix, v3D, 1);
+	}
+	
+	/**
+	 * Saves a 3D visualization of the ImagePlus imp using a modified code of the ImageJ plugin "Volume Viewer" by Kai Uwe Barthel (2012), 
+	 * which is implemented in FIJI (https://github.com/fiji/Volume_Viewer) and was released under the Public Domain license.
+	 * @param savePath = path, where to save image of 3D visualization as .tif
+	 * @param RPSuffix = String added to the path of the cell volume image to indicate which size-filter was used in detection
+	 * @param v3D = the visualizer containing the settings to create the Visualisations
+	 * @param threads = maximum number of threads, up to MAX_CONCURRENT_3D_FRAMES time-steps are rendered concurrently 
+	 * and written in order to the .tif files (see save3DVisualizationStack)
 	 * */
-	public void save3DVisualizations(String savePath, String RPSuffix, Visualizer3D v3D){
+	public void save3DVisualizations(String savePath, String RPSuffix, Visualizer3D v3D, int threads) 
+			throws IOException, InterruptedException, ExecutionException{
+		getParticleImp();
+		getConvexHullImp();
+		getSkeletonImp();
 		if(particleImp.getNSlices()==1)	return;
 		//add bar
 		int pxNrX, pxNrY, pxNrZ;
@@ -1868,13 +2271,6 @@ public class TimelapseParticle{
 			}
 		}
 		
-		ImagePlus impCal, imp3D, impOut;
-		ImageStack stackOut = new ImageStack(width,height);
-		
-		v3D.setImage(getTimePointFor3D(particleImp, 1));
-		int width =  v3D.getWidth(),
-			height = v3D.getHeight();
-		
 		OutputTextFile tp = new OutputTextFile(savePath + "_3Dinfo.txt");
 		tp.append("bars = " + calBarLength + " " + particleImp.getCalibration().getUnit());
 		tp.append("3D visualizations were generated via the ImageJ plugin <Volume Viewer 2.0> (27.11.2012, (C) Kai Uwe Barthel)");
@@ -1885,106 +2281,121 @@ public class TimelapseParticle{
 			v3D.setObjectLightValue(1.2f);
 			v3D.setLightPosX(-0.25f);
 			v3D.setAlphaOffset1(0);
-			
-			for(int i = 0; i < particleImp.getNFrames(); i++){
-				impCal = getTimePointFor3D(particleImp, i+1);
-				impCal = this.getContained3DScBar(impCal, pxNrX, pxNrY, pxNrZ);
-				convertToRGB(impCal);
-				
-//				if(impCal == null) impCal = particleImp.duplicate();
-
-				v3D.setImage(impCal);
-				imp3D = v3D.get3DVisualization();
-				
-				impCal.changes = false;
-				impCal.close();
-				
-				if(i == 0){
-					stackOut = new ImageStack(imp3D.getWidth(),imp3D.getHeight());
-				}
-				stackOut.addSlice(imp3D.getProcessor());
-				
-				imp3D.changes = false;
-				imp3D.close();
-			}			
-			
-			impOut = IJ.createImage("3D", width, height, particleImp.getNFrames(), 24);
-			impOut.setStack(stackOut);
-			IJ.saveAsTiff(impOut, savePath + RPSuffix + "-3D.tif");
-
-			impOut.changes = false;
-			impOut.close();
+			save3DVisualizationStack(VIS_PARTICLE, particleImp.getNFrames(), v3D, threads, pxNrX, pxNrY, pxNrZ, 
+					savePath + RPSuffix + "-3D.tif");
 		}
 		
 		//save 3D visualization of the convex hull imp
-		{
+		if(convexHullImp != null){
 			v3D.setObjectLightValue(1.2f);
 			v3D.setLightPosX(0.0f);
 			v3D.setAlphaOffset1(-45);
-			for(int i = 0; i < convexHullImp.getNFrames(); i++){
-				impCal = getTimePointFor3DHull(i+1);
-				impCal = this.getContained3DScBar(impCal, pxNrX, pxNrY, pxNrZ);
-//				ImageConverter iCv = new ImageConverter(impCal);
-//				iCv.convertToRGB();
-				convertToRGB(impCal);
-				
-				v3D.setImage(impCal);
-				imp3D = v3D.get3DVisualization();
-				
-				impCal.changes = false;
-				impCal.close();
-				
-				if(i == 0){
-					stackOut = new ImageStack(imp3D.getWidth(),imp3D.getHeight());
-				}
-				stackOut.addSlice(imp3D.getProcessor());
-				
-				imp3D.changes = false;
-				imp3D.close();
-			}
-			
-			impOut = IJ.createImage("3D", width, height, convexHullImp.getNFrames(), 24);
-			impOut.setStack(stackOut);
-			
-			IJ.saveAsTiff(impOut, savePath + "H-3D.tif");
-			
-			impOut.changes = false;
-			impOut.close();			
+			save3DVisualizationStack(VIS_HULL, convexHullImp.getNFrames(), v3D, threads, pxNrX, pxNrY, pxNrZ, 
+					savePath + "H-3D.tif");
 		}
 		
-		//save 3D visualization of the particle imp
+		//save 3D visualization of the skeleton imp
 		if(skeletonImp!=null){
 			v3D.setObjectLightValue(2.0f);
 			v3D.setLightPosX(-0.25f);
 			v3D.setAlphaOffset1(0);
-			for(int i = 0; i < skeletonImp.getNFrames(); i++){
-				impCal = getTimePointFor3DSkl(i+1);
-				impCal = this.getContained3DScBar(impCal, pxNrX, pxNrY, pxNrZ);
-				convertToRGB(impCal);
-			
-				v3D.setImage(impCal);
-				imp3D = v3D.get3DVisualization();
-				
-				impCal.changes = false;
-				impCal.close();
-				
-				if(i == 0){
-					stackOut = new ImageStack(imp3D.getWidth(),imp3D.getHeight());
+			save3DVisualizationStack(VIS_SKELETON, skeletonImp.getNFrames(), v3D, threads, pxNrX, pxNrY, pxNrZ, 
+					savePath + "Skl-3D.tif");
+		}
+		
+		v3D.releaseRenderContext();
+	}
+	
+	/**
+	 * Generates the 3D visualizations of all time-steps of the particle, convex hull or skeleton image and writes them to a .tif file.
+	 * The time-steps are prepared in the calling thread (ImageJ commands are not thread-safe) and rendered concurrently, 
+	 * each renderer with its own copy (render context) of the visualizer. The number of renderers is limited by 
+	 * MAX_CONCURRENT_3D_FRAMES and the available memory, one more time-step is prepared while the others are rendered. 
+	 * The visualizations are written in order while rendering continues.
+	 * @param source = VIS_PARTICLE, VIS_HULL, or VIS_SKELETON
+	 * @param nFrames = number of time-steps
+	 * @param v3D = the visualizer containing the settings to create the visualizations
+	 * @param threads = maximum number of renderers
+	 * @param pxNrX, pxNrY, pxNrZ = length of the scale bars in voxels
+	 * @param path = path of the .tif file
+	 * */
+	private void save3DVisualizationStack(final int source, int nFrames, final Visualizer3D v3D, int threads,
+			int pxNrX, int pxNrY, int pxNrZ, String path) throws IOException, InterruptedException, ExecutionException{
+		//the time-step images have a margin of 5 voxels (1 slice), the Volume Viewer pads the volume by 2 voxels
+		long voxels = (long) (particleImp.getWidth() + 14) * (particleImp.getHeight() + 14) * (particleImp.getNSlices() + 6);
+		int nThreads = MotiQ_3D.getAffordableCopies(RENDER_CONTEXT_BYTES_PER_VOXEL * voxels, 
+				Math.min(Math.max(1, threads), MAX_CONCURRENT_3D_FRAMES));
+		int framesInFlight = nThreads + 1;
+		final ArrayList<Visualizer3D> renderers = new ArrayList<Visualizer3D>(nThreads);
+		final ThreadLocal<Visualizer3D> threadRenderer = new ThreadLocal<Visualizer3D>(){
+			@Override
+			protected Visualizer3D initialValue(){
+				Visualizer3D renderer = v3D.copy();
+				synchronized(renderers){
+					renderers.add(renderer);
+				}
+				return renderer;
+			}
+		};
+		
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		LinkedList<Future<ImagePlus>> pending = new LinkedList<Future<ImagePlus>>();
+		TiffStackWriter writer = new TiffStackWriter(path, nFrames);
+		try{
+			int next = 0;
+			for(int t = 0; t < nFrames; t++){
+				while(next < nFrames && next - t < framesInFlight){
+					final ImagePlus impCal = getFrameFor3D(source, next+1, pxNrX, pxNrY, pxNrZ);
+					pending.add(executor.submit(new Callable<ImagePlus>(){
+						@Override
+						public ImagePlus call(){
+							Visualizer3D renderer = threadRenderer.get();
+							renderer.setImage(impCal);
+							ImagePlus imp3D = renderer.get3DVisualization();
+							impCal.changes = false;
+							impCal.close();
+							return imp3D;
+						}
+					}));
+					next++;
 				}
-				stackOut.addSlice(imp3D.getProcessor());
 				
+				ImagePlus imp3D = pending.removeFirst().get();
+				writer.write(imp3D.getProcessor());
 				imp3D.changes = false;
 				imp3D.close();
 			}
-			
-			impOut = IJ.createImage("3D", width, height, skeletonImp.getNFrames(), 24);
-			impOut.setStack(stackOut);
-			
-			IJ.saveAsTiff(impOut, savePath + "Skl-3D.tif");
-
-			impOut.changes = false;
-			impOut.close();
+		}finally{
+			for(int i = 0; i < pending.size(); i++){
+				pending.get(i).cancel(false);
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			writer.close();
+			for(int i = 0; i < renderers.size(); i++){
+				renderers.get(i).releaseRenderContext();
+			}
+		}
+	}
+	
+	/**
+	 * @return the time-step
+	 * @param t (one-based) of the particle (source = VIS_PARTICLE), convex hull (VIS_HULL) or skeleton (VIS_SKELETON) 
+	 * image as RGB image with scale bars of 
+	 * @param pxNrX, pxNrY, pxNrZ voxels, ready for 3D visualization
+	 * */
+	private ImagePlus getFrameFor3D(int source, int t, int pxNrX, int pxNrY, int pxNrZ){
+		ImagePlus impCal;
+		if(source == VIS_HULL){
+			impCal = getTimePointFor3DHull(t);
+		}else if(source == VIS_SKELETON){
+			impCal = getTimePointFor3DSkl(t);
+		}else{
+			impCal = getTimePointFor3D(particleImp, t);
 		}
+		impCal = this.getContained3DScBar(impCal, pxNrX, pxNrY, pxNrZ);
+		convertToRGB(impCal);
+		return impCal;
 	}
 	
 	/**
@@ -30,7 +30,7 @@ import java.awt.Color;
 import ij.ImagePlus;
 import motiQ3D.volumeViewer3D.Volume_Viewer;
 
-public class Visualizer3D{
+public class Visualizer3D implements Cloneable{
 	ImagePlus imp;
 	private boolean showTF = false;
 	private int displayMode = 4;
@@ -61,6 +61,7 @@ public class Visualizer3D{
 	private float lightPosX = -0.25f,	// light position x (-1 to 1)
 		lightPosY = 0.0f;	// light position y (-1 to 1)
 	int alphaOffset1 = -50;	//-150 to +150
+	private Volume_Viewer renderContext = null;	//keeps volume buffers, lookup table and transforms between offscreen visualizations
 	
 	/**
 	 * Generates a Visualizer3D for the ImagePlus
@@ -72,6 +73,20 @@ public class Visualizer3D{
 		setScale(scale);
 	}
 	
+	/**
+	 * @return a Visualizer3D with the same image and settings but its own render context, so that both can
+	 * generate visualizations concurrently
+	 * */
+	public Visualizer3D copy(){
+		try{
+			Visualizer3D copy = (Visualizer3D) clone();
+			copy.renderContext = null;
+			return copy;
+		}catch(CloneNotSupportedException e){
+			throw new AssertionError(e);
+		}
+	}
+	
 	/**
 	 * sets the ImagePlus to be visualized to
 	 * @param imp
@@ -143,9 +158,20 @@ public class Visualizer3D{
 	}
 	
 	/**
-	 * @return ImagePlus containing a 3D visualization
+	 * @return ImagePlus containing a 3D visualization, rendered offscreen (no Volume Viewer window needs to be built,
+	 * also works in headless mode) unless axes, slices, clip lines or an alpha mode other than 0 are requested.
+	 * Offscreen visualizations of images with the same size and view share a render context, call releaseRenderContext()
+	 * after the last visualization.
 	 * */
 	public ImagePlus get3DVisualization(){
+		if(alphaMode == 0 && !showAxes && !showSlice && !showClipLines){
+			if(renderContext == null)	renderContext = new Volume_Viewer();
+			return renderContext.get3DVisualizationOffscreen(imp, displayMode, interpolation, background,
+					lut, sampling, distance, scale, angleX, angleY, angleZ, width, height,
+					useLight, ambient, diffuse, specular, shine,
+					objectLight, lightRed, lightGreen, lightBlue, 
+					lightPosX, lightPosY, alphaOffset1);
+		}
 		Volume_Viewer vv = new Volume_Viewer();
 		return vv.get3DVisualization(imp, showTF, displayMode, interpolation, background,
 				lut, sampling, distance, showAxes, showSlice, showClipLines, scale,
@@ -154,6 +180,16 @@ public class Visualizer3D{
 				objectLight, lightRed, lightGreen, lightBlue, 
 				lightPosX, lightPosY, alphaOffset1);
 	}
+	
+	/**
+	 * Releases the volume buffers kept for offscreen visualizations (see get3DVisualization())
+	 * */
+	public void releaseRenderContext(){
+		if(renderContext != null){
+			renderContext.release();
+			renderContext = null;
+		}
+	}
 
 	/**
 	 * @return width of the output 3D Visualization
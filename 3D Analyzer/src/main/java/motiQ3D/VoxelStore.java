@@ -0,0 +1,181 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D;
+
+/**
+ * Storage for the voxel values of a particle (width x height x slices x times), replacing
+ * dense double[x][y][z][t] arrays. Values are kept at the bit depth of the image
+ * (8-bit: byte, 16-bit: short, 32-bit: float). Voxels that were never set have the value 0.
+ * Use create(...) to get a dense store for well-filled volumes or a bricked store, which
+ * only allocates bricks of BRICK_SIZE^3 voxels where voxels are set, for sparse volumes.
+ * */
+abstract class VoxelStore{
+	/** edge length of the bricks of the sparse store*/
+	static final int BRICK_SIZE = 8;
+	/** the bricked store is used if the fraction of voxels to be set is below this value*/
+	static final double SPARSE_FILL_RATIO = 0.25;
+
+	final int width, height, slices, times, bitDepth;
+
+	VoxelStore(int width, int height, int slices, int times, int bitDepth){
+		this.width = width;
+		this.height = height;
+		this.slices = slices;
+		this.times = times;
+		this.bitDepth = bitDepth;
+	}
+
+	/**
+	 * @return the value of the voxel, 0.0 if the voxel was never set
+	 * */
+	abstract double get(int x, int y, int z, int t);
+
+	/**
+	 * sets the voxel to
+	 * @param value (converted to the bit depth of the store)
+	 * */
+	abstract void set(int x, int y, int z, int t, double value);
+
+	/**
+	 * @return true if the voxel has a value other than 0
+	 * */
+	boolean isSet(int x, int y, int z, int t){
+		return get(x, y, z, t) != 0.0;
+	}
+
+	/**
+	 * @return a store for a volume of the given dimensions with values of the given
+	 * @param bitDepth (8, 16, or 32), sparse (bricked) if only
+	 * @param nrOfVoxels voxels are expected to be set in the volume and dense otherwise
+	 * */
+	static VoxelStore create(int width, int height, int slices, int times, int bitDepth, long nrOfVoxels){
+		double fillRatio = (double) nrOfVoxels / ((double) width * height * slices * times);
+		if(fillRatio < SPARSE_FILL_RATIO){
+			return new Bricked(width, height, slices, times, bitDepth);
+		}
+		return new Dense(width, height, slices, times, bitDepth);
+	}
+
+	/**
+	 * @return the bit depth (8, 16, or 32) required to store intensities up to
+	 * @param maxIntensity
+	 * */
+	static int getBitDepth(double maxIntensity){
+		if(maxIntensity > 65535.0)	return 32;
+		if(maxIntensity > 255.0)	return 16;
+		return 8;
+	}
+
+	static Object createArray(int bitDepth, int length){
+		if(bitDepth == 8)	return new byte [length];
+		if(bitDepth == 16)	return new short [length];
+		return new float [length];
+	}
+
+	static double getValue(Object array, int bitDepth, int i){
+		if(bitDepth == 8)	return ((byte[]) array)[i] & 0xff;
+		if(bitDepth == 16)	return ((short[]) array)[i] & 0xffff;
+		return ((float[]) array)[i];
+	}
+
+	static void setValue(Object array, int bitDepth, int i, double value){
+		if(bitDepth == 8){
+			((byte[]) array)[i] = (byte) value;
+		}else if(bitDepth == 16){
+			((short[]) array)[i] = (short) value;
+		}else{
+			((float[]) array)[i] = (float) value;
+		}
+	}
+
+	/**
+	 * Dense store: one array per time-step, index (z * height + y) * width + x
+	 * */
+	static class Dense extends VoxelStore{
+		private final Object frames [];
+
+		Dense(int width, int height, int slices, int times, int bitDepth){
+			super(width, height, slices, times, bitDepth);
+			frames = new Object [times];
+			for(int t = 0; t < times; t++){
+				frames [t] = createArray(bitDepth, width * height * slices);
+			}
+		}
+
+		@Override
+		double get(int x, int y, int z, int t){
+			return getValue(frames [t], bitDepth, (z * height + y) * width + x);
+		}
+
+		@Override
+		void set(int x, int y, int z, int t, double value){
+			setValue(frames [t], bitDepth, (z * height + y) * width + x, value);
+		}
+	}
+
+	/**
+	 * Sparse store: per time-step a grid of bricks, bricks are only allocated when a non-zero value is set
+	 * */
+	static class Bricked extends VoxelStore{
+		private final int bricksX, bricksY, bricksZ;
+		private final Object bricks [][];	//[t][brick index]
+
+		Bricked(int width, int height, int slices, int times, int bitDepth){
+			super(width, height, slices, times, bitDepth);
+			bricksX = (width + BRICK_SIZE - 1) / BRICK_SIZE;
+			bricksY = (height + BRICK_SIZE - 1) / BRICK_SIZE;
+			bricksZ = (slices + BRICK_SIZE - 1) / BRICK_SIZE;
+			bricks = new Object [times][bricksX * bricksY * bricksZ];
+		}
+
+		private int brickIndex(int x, int y, int z){
+			return ((z / BRICK_SIZE) * bricksY + (y / BRICK_SIZE)) * bricksX + (x / BRICK_SIZE);
+		}
+
+		private static int indexInBrick(int x, int y, int z){
+			return ((z % BRICK_SIZE) * BRICK_SIZE + (y % BRICK_SIZE)) * BRICK_SIZE + (x % BRICK_SIZE);
+		}
+
+		@Override
+		double get(int x, int y, int z, int t){
+			Object brick = bricks [t][brickIndex(x, y, z)];
+			if(brick == null)	return 0.0;
+			return getValue(brick, bitDepth, indexInBrick(x, y, z));
+		}
+
+		@Override
+		void set(int x, int y, int z, int t, double value){
+			int b = brickIndex(x, y, z);
+			Object brick = bricks [t][b];
+			if(brick == null){
+				if(value == 0.0)	return;
+				brick = createArray(bitDepth, BRICK_SIZE * BRICK_SIZE * BRICK_SIZE);
+				bricks [t][b] = brick;
+			}
+			setValue(brick, bitDepth, indexInBrick(x, y, z), value);
+		}
+	}
+}
@@ -37,11 +37,9 @@ import java.awt.AWTEvent;
 import java.awt.Checkbox;
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
 
 /**
  * AnalyzeSkeleton_ plugin for ImageJ and Fiji.
@@ -110,9 +108,39 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	private int depth = 0;
 	/** working image stack */
 	private ImageStack inputImage = null;
+	/** pixel arrays of the slices of the working image stack */
+	private byte[][] inputSlices = null;
+	/** pixel arrays of the slices of the tagged image */
+	private byte[][] taggedSlices = null;
 
 	/** visit flags */
-	private boolean [][][] visited = null;
+	private VisitedFlags visited = null;
+
+	/** 
+	 * offsets of the 26 neighbors of a voxel in search order: a neighbor search returns the first neighbor in this order
+	 * that fulfills the criteria (which is the last x/y combination and the first z in the order of the loops in the original search)
+	 */
+	private static final int[] NEIGHBOR_X = new int[26], NEIGHBOR_Y = new int[26], NEIGHBOR_Z = new int[26];
+	static
+	{
+		int k = 0;
+		for(int x = 1; x > -2; x--)
+			for(int y = 1; y > -2; y--)
+				for(int z = -1; z < 2; z++)
+				{
+					if(x == 0 && y == 0 && z == 0)
+						continue;
+					NEIGHBOR_X[k] = x;
+					NEIGHBOR_Y[k] = y;
+					NEIGHBOR_Z[k] = z;
+					k++;
+				}
+	}
+
+	/** junctions to revisit (x, y, z) in visitTree */
+	private int[] revisitList = new int[3 * 64];
+	/** coordinates of the voxels of the current branch (reused by visitBranch) */
+	private int[] branchX = new int[64], branchY = new int[64], branchZ = new int[64];
 
 	// Measures
 	/** total number of end points voxels */
@@ -182,9 +210,6 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 	/** list of groups of junction voxels that belong to the same tree junction (in every tree) */
 	private ArrayList < ArrayList <Point> > listOfSingleJunctions[] = null;
-	/** array of junction vertex per tree */
-	private Vertex[][] junctionVertex = null;
-
 	/** stack image containing the corresponding skeleton tags (end point, junction or slab) */
 	private ImageStack taggedImage = null;
 
@@ -207,12 +232,12 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	public static boolean calculateShortestPath = DEFAULT_CALCULATE_SHORTEST_PATH;
 
 	/** array of graphs (one per tree) */
-	private Graph[] graph = null;
+	private SkeletonGraph[] skeletonGraph = null;
 
-	/** auxiliary list of slabs */
-	private ArrayList<Point> slabList = null;
-	/** auxiliary final vertex */
-	private Vertex auxFinalVertex = null;
+	/** auxiliary final vertex (vertex id in the graph of the current tree) */
+	private int auxFinalVertex = -1;
+	/** value of auxFinalVertex when a branch ends in an end point that is not yet a vertex */
+	private static final int NEW_END_POINT_VERTEX = -2;
 
 	/** prune cycle options */
 	public static final String[] pruneCyclesModes = {"none", 
@@ -484,22 +509,20 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				IJ.log("Calculating longest shortest paths...");
 
 			// Copy input image
-			this.shortPathImage = new ImageStack(this.width, this.height, this.inputImage.getColorModel());
-			for(int i=1; i<=this.inputImage.getSize(); i++)
-				shortPathImage.addSlice(this.inputImage.getSliceLabel(i), this.inputImage.getProcessor(i).duplicate());
+			copyToShortPathImage();
 
 			shortestPathList = new ArrayList < Double >();
 
 			this.shortestPathPoints = new ArrayList [ this.numOfTrees ];
 
 			// Visit skeleton and measure distances.
-			// and apply Warshall algorithm
+			// and determine the longest shortest paths
 			spStartPosition = new double[this.numOfTrees][3];
 			for(int i = 0; i < this.numOfTrees; i++)
 			{
 				shortestPathPoints[ i ] = new ArrayList<Point>();
-				// Warshall algorithm including tag positions
-				this.shortestPath = warshallAlgorithm(this.graph[i], shortestPathPoints[ i ]);
+				// longest shortest path including tag positions
+				this.shortestPath = longestShortestPath(this.skeletonGraph[i], shortestPathPoints[ i ]);
 				shortestPathList.add(this.shortestPath);
 				spStartPosition[i][0] = spx * this.imRef.getCalibration().pixelWidth;
 				spStartPosition[i][1] = spy * this.imRef.getCalibration().pixelHeight;
@@ -508,7 +531,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 			if (!silent) {
 				// Display short paths in a new stack
-				ImagePlus shortIP = new ImagePlus("Longest shortest paths", shortPathImage);
+				ImagePlus shortIP = new ImagePlus("Longest shortest paths", shortPathImage.duplicate());
 				shortIP.show();
 
 				// Set same calibration as the input image
@@ -611,22 +634,20 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				IJ.log("Calculating longest shortest paths...");
 
 			// Copy input image
-			this.shortPathImage = new ImageStack(this.width, this.height, this.inputImage.getColorModel());
-			for(int i=1; i<=this.inputImage.getSize(); i++)
-				shortPathImage.addSlice(this.inputImage.getSliceLabel(i), this.inputImage.getProcessor(i).duplicate());
+			copyToShortPathImage();
 
 			shortestPathList = new ArrayList < Double >();
 
 			this.shortestPathPoints = new ArrayList [ this.numOfTrees ];
 
 			// Visit skeleton and measure distances.
-			// and apply Warshall algorithm
+			// and determine the longest shortest paths
 			spStartPosition = new double[this.numOfTrees][3];
 			for(int i = 0; i < this.numOfTrees; i++)
 			{
 				shortestPathPoints[ i ] = new ArrayList<Point>();
-				// Warshall algorithm including tag positions
-				this.shortestPath = warshallAlgorithm(this.graph[i], shortestPathPoints[ i ]);
+				// longest shortest path including tag positions
+				this.shortestPath = longestShortestPath(this.skeletonGraph[i], shortestPathPoints[ i ]);
 				shortestPathList.add(this.shortestPath);
 				spStartPosition[i][0] = spx * this.imRef.getCalibration().pixelWidth;
 				spStartPosition[i][1] = spy * this.imRef.getCalibration().pixelHeight;
@@ -657,11 +678,58 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	}
 
 	/**
-	 * Get the graphs of the current skeletons
+	 * Copy the input image into the shortest path image (the image of the previous run is reused if it has the same size)
+	 */
+	private void copyToShortPathImage()
+	{
+		if(fitsImage(this.shortPathImage))
+		{
+			for(int i=1; i<=this.inputImage.getSize(); i++)
+			{
+				System.arraycopy(this.inputImage.getPixels(i), 0, this.shortPathImage.getPixels(i), 0, this.width * this.height);
+				this.shortPathImage.setSliceLabel(this.inputImage.getSliceLabel(i), i);
+			}
+			return;
+		}
+		this.shortPathImage = new ImageStack(this.width, this.height, this.inputImage.getColorModel());
+		for(int i=1; i<=this.inputImage.getSize(); i++)
+			shortPathImage.addSlice(this.inputImage.getSliceLabel(i), this.inputImage.getProcessor(i).duplicate());
+	}
+
+	/**
+	 * Check if a result image of the previous run can be reused for the current image.
+	 * 
+	 * @param stack result image of the previous run (or null)
+	 * @return true if the stack has the size of the current image
+	 */
+	private boolean fitsImage(ImageStack stack)
+	{
+		return stack != null && stack.getWidth() == this.width && stack.getHeight() == this.height 
+				&& stack.getSize() == this.depth;
+	}
+
+	/**
+	 * Get the graphs of the current skeletons (the graph objects are created on the first request)
 	 * @return array of graphs (one per tree/skeleton)
 	 */
 	public Graph[] getGraphs()
 	{
+		return toGraphs(this.skeletonGraph);
+	}
+
+	/**
+	 * Create the graph objects of compact skeleton graphs.
+	 * @param skeletonGraph array of compact graphs (one per tree/skeleton)
+	 * @return array of graphs (one per tree/skeleton)
+	 */
+	static Graph[] toGraphs(SkeletonGraph[] skeletonGraph)
+	{
+		if(skeletonGraph == null)
+			return null;
+		final Graph[] graph = new Graph[skeletonGraph.length];
+		for(int i = 0; i < skeletonGraph.length; i++)
+			if(skeletonGraph[i] != null)
+				graph[i] = skeletonGraph[i].toGraph();
 		return graph;
 	}
 
@@ -703,102 +771,22 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			if(debug)
 				IJ.log("Pruning tree #" + t);
 
-			Graph g = graph[t];
-			ArrayList<Vertex> vertices = g.getVertices();
-			ListIterator<Vertex> vit = vertices.listIterator();
+			final SkeletonGraph g = this.skeletonGraph[t];
 
 			if(debug)
-				IJ.log("Initial number of vertices: " + graph[t].getVertices().size());
+				IJ.log("Initial number of vertices: " + countVertices(g));
 
-			while (vit.hasNext())
+			for (int v = 0; v < g.nVertices; v++)
 			{
-				Vertex v = vit.next();
+				if (g.vertexRemoved[v])
+					continue;
 				// Check if the vertex is an end point
-				if (v.getBranches().size() == 1 && isEndPoint( v.getPoints().get( 0 ), roi) )
-				{
-					if(debug)
-						IJ.log("Pruning branch starting at " + v.getPoints().get(0));
-
-					// Remove end point voxels
-					ArrayList<Point> points = v.getPoints();
-					final int nPoints = points.size();
-
-					for (int i = 0; i < nPoints; i++)
-					{
-						Point p = points.get(i);
-						setPixel(stack, p.x, p.y, p.z, (byte) 0);
-						setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
-						this.numberOfEndPoints[t]--;
-						this.totalNumberOfEndPoints--;
-						Iterator<Point> pit = this.listOfEndPoints.listIterator();
-						while (pit.hasNext()){
-							Point ep = pit.next();
-							if (ep.equals(p)){
-								pit.remove();
-								break;
-							}
-						}
-					}
-
-					// Remove branch voxels
-					Edge branch = v.getBranches().get(0);
-					points = branch.getSlabs();
-					final int nSlabs = points.size();
-					for (int i = 0; i < nSlabs; i++)
-					{
-						Point p = points.get(i);
-						setPixel(stack, p.x, p.y, p.z, (byte) 0);
-						setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
-						this.numberOfSlabs[t]--;
-						this.totalNumberOfSlabs--;
-						Iterator<Point> pit = this.listOfSlabVoxels.listIterator();
-						while (pit.hasNext())
-						{
-							Point ep = pit.next();
-							if (ep.equals(p)){
-								pit.remove();
-								break;
-							}
-						}
-					}
-
-					// remove the Edge from the Graph
-					ArrayList<Edge> gEdges = graph[t].getEdges();
-					Iterator<Edge> git = gEdges.listIterator();
-					while (git.hasNext())
-					{
-						Edge e = git.next();
-						if (e.equals(branch))
-						{
-							git.remove();
-							break;
-						}
-					}
-
-					// remove the Edge from the opposite Vertex
-					Vertex opp = branch.getOppositeVertex(v);
-					ArrayList<Edge> oppBranches = opp.getBranches();
-					Iterator<Edge> oppIt = oppBranches.listIterator();
-					while (oppIt.hasNext())
-					{
-						Edge oppBranch = oppIt.next();
-						if (oppBranch.equals(branch))
-						{
-							oppIt.remove();
-							break;
-						}
-					}
-
-					// remove the Edge from the Vertex
-					v.getBranches().remove(0);
-
-					// remove the Vertex from the Graph
-					vit.remove();
-				}
+				if (g.degree(v) == 1 && isEndPoint( g.firstPoint(v), roi) )
+					removeEndBranch(stack, taggedImage, t, v);
 			}
 
 			if(debug)
-				IJ.log("Final number of vertices: " + graph[t].getVertices().size());
+				IJ.log("Final number of vertices: " + countVertices(g));
 		}
 
 		return;
@@ -824,103 +812,79 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			if(debug)
 				IJ.log("Pruning tree #" + t);
 
-			Graph g = graph[t];
-			ArrayList<Vertex> vertices = g.getVertices();
-			ListIterator<Vertex> vit = vertices.listIterator();
+			final SkeletonGraph g = this.skeletonGraph[t];
 
 			if(debug)
-				IJ.log("Initial number of vertices: " + graph[t].getVertices().size());
+				IJ.log("Initial number of vertices: " + countVertices(g));
 
-			while (vit.hasNext())
+			for (int v = 0; v < g.nVertices; v++)
 			{
-				Vertex v = vit.next();
-				if (v.getBranches().size() == 1 && v.getBranches().get(0).getLength() <= length)
-				{
-					if(debug)
-						IJ.log("Pruning branch starting at " + v.getPoints().get(0));
-					// Remove end point voxels
-					ArrayList<Point> points = v.getPoints();
-					final int nPoints = points.size();
-
-					for (int i = 0; i < nPoints; i++)
-					{
-						Point p = points.get(i);
-						setPixel(stack, p.x, p.y, p.z, (byte) 0);
-						setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
-						this.numberOfEndPoints[t]--;
-						this.totalNumberOfEndPoints--;
-						Iterator<Point> pit = this.listOfEndPoints.listIterator();
-						while (pit.hasNext()){
-							Point ep = pit.next();
-							if (ep.equals(p)){
-								pit.remove();
-								break;
-							}
-						}
-					}
-
-					// Remove branch voxels
-					Edge branch = v.getBranches().get(0);
-					points = branch.getSlabs();
-					final int nSlabs = points.size();
-					for (int i = 0; i < nSlabs; i++)
-					{
-						Point p = points.get(i);
-						setPixel(stack, p.x, p.y, p.z, (byte) 0);
-						setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
-						this.numberOfSlabs[t]--;
-						this.totalNumberOfSlabs--;
-						Iterator<Point> pit = this.listOfSlabVoxels.listIterator();
-						while (pit.hasNext())
-						{
-							Point ep = pit.next();
-							if (ep.equals(p)){
-								pit.remove();
-								break;
-							}
-						}
-					}
+				if (g.vertexRemoved[v])
+					continue;
+				if (g.degree(v) == 1 && g.edgeLength[g.firstLiveBranch(v)] <= length)
+					removeEndBranch(stack, taggedImage, t, v);
+			}
 
-					// remove the Edge from the Graph
-					ArrayList<Edge> gEdges = graph[t].getEdges();
-					Iterator<Edge> git = gEdges.listIterator();
-					while (git.hasNext())
-					{
-						Edge e = git.next();
-						if (e.equals(branch))
-						{
-							git.remove();
-							break;
-						}
-					}
+			if(debug)
+				IJ.log("Final number of vertices: " + countVertices(g));
+		}
 
-					// remove the Edge from the opposite Vertex
-					Vertex opp = branch.getOppositeVertex(v);
-					ArrayList<Edge> oppBranches = opp.getBranches();
-					Iterator<Edge> oppIt = oppBranches.listIterator();
-					while (oppIt.hasNext())
-					{
-						Edge oppBranch = oppIt.next();
-						if (oppBranch.equals(branch))
-						{
-							oppIt.remove();
-							break;
-						}
-					}
+		return;
+	}
 
-					// remove the Edge from the Vertex
-					v.getBranches().remove(0);
+	/**
+	 * Remove an end vertex and its branch from the graph, the images and the point lists.
+	 *
+	 * @param stack input skeleton image
+	 * @param taggedImage tagged skeleton image
+	 * @param t tree index
+	 * @param v end vertex (exactly one branch)
+	 */
+	private void removeEndBranch(ImageStack stack, ImageStack taggedImage, int t, int v)
+	{
+		final SkeletonGraph g = this.skeletonGraph[t];
+		if(debug)
+			IJ.log("Pruning branch starting at " + g.firstPoint(v));
 
-					// remove the Vertex from the Graph
-					vit.remove();
-				}
-			}
+		// Remove end point voxels
+		for (int i = g.vertexPointStart[v]; i < g.vertexPointStart[v+1]; i++)
+		{
+			Point p = g.point(g.vertexPoints[i]);
+			setPixel(stack, p.x, p.y, p.z, (byte) 0);
+			setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
+			this.numberOfEndPoints[t]--;
+			this.totalNumberOfEndPoints--;
+			this.listOfEndPoints.remove(p);
+		}
 
-			if(debug)
-				IJ.log("Final number of vertices: " + graph[t].getVertices().size());
+		// Remove branch voxels
+		final int branch = g.firstLiveBranch(v);
+		for (int i = g.slabStart[branch]; i < g.slabStart[branch+1]; i++)
+		{
+			Point p = g.point(g.slabs[i]);
+			setPixel(stack, p.x, p.y, p.z, (byte) 0);
+			setPixel(taggedImage, p.x, p.y, p.z, (byte) 0);
+			this.numberOfSlabs[t]--;
+			this.totalNumberOfSlabs--;
+			this.listOfSlabVoxels.remove(p);
 		}
 
-		return;
+		// remove the edge (from the graph and both vertices) and the vertex
+		g.removeEdge(branch);
+		g.removeVertex(v);
+	}
+
+	/**
+	 * @return the number of vertices of
+	 * @param g that have not been removed
+	 */
+	private static int countVertices(SkeletonGraph g)
+	{
+		int n = 0;
+		for (int v = 0; v < g.nVertices; v++)
+			if (!g.vertexRemoved[v])
+				n++;
+		return n;
 	}
 
 
@@ -961,6 +925,8 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	public void processSkeleton(ImageStack inputImage2) 
 	{
+		this.inputSlices = getSlices(this.inputImage);
+
 		// Initialize  global lists of points
 		this.listOfEndPoints = new ArrayList<Point>();
 		this.listOfJunctionVoxels = new ArrayList<Point>();
@@ -1042,47 +1008,59 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			else // For the rest, we do depth-first search to detect the cycles
 			{
 				// DFS
-				ArrayList <Edge> backEdges = this.graph[iTree].depthFirstSearch();
+				final SkeletonGraph g = this.skeletonGraph[iTree];
+				final int[] visitOrder = new int[g.nVertices];
+				final int[] predecessor = new int[g.nVertices];
+				final int[] backEdges = g.depthFirstSearch(visitOrder, predecessor);
 
 				if(debug)
 				{
 					IJ.log( " --------------------------- ");
-					final String[] s = new String[]{"UNDEFINED", "TREE" , "BACK"};
-					for(final Edge e : this.graph[iTree].getEdges())
+					for(int e = 0; e < g.nEdges; e++)
 					{
-						IJ.log(" edge " + e.getV1().getPoints().get(0) + " - " + e.getV2().getPoints().get(0) + " : " + s[e.getType()+1]);
+						if(g.edgeRemoved[e])
+							continue;
+						String type = "UNDEFINED";
+						for(final int b : backEdges)
+							if(b == e)
+								type = "BACK";
+						if(type.equals("UNDEFINED") && (predecessor[g.edgeV1[e]] == e || predecessor[g.edgeV2[e]] == e))
+							type = "TREE";
+						IJ.log(" edge " + g.firstPoint(g.edgeV1[e]) + " - " + g.firstPoint(g.edgeV2[e]) + " : " + type);
 					}
 				}
 
 				// If DFS returned backEdges, we need to delete the loops
-				if(backEdges.size() > 0)
+				if(backEdges.length > 0)
 				{
+					final int[] loopEdges = new int[g.nEdges + 1];
 					// Find all edges of each loop (backtracking the predecessors)
-					for(final Edge e : backEdges)
+					for(final int e : backEdges)
 					{
-						ArrayList<Edge> loopEdges = new ArrayList<Edge>();
-						loopEdges.add(e);
+						int nLoopEdges = 0;
+						loopEdges[nLoopEdges++] = e;
 
-						Edge minEdge = e;
+						int minEdge = e;
 
+						final int v1 = g.edgeV1[e], v2 = g.edgeV2[e];
 						// backtracking (starting at the vertex with higher order index
-						final Vertex finalLoopVertex = e.getV1().getVisitOrder() < e.getV2().getVisitOrder() ? e.getV1() : e.getV2();
+						final int finalLoopVertex = visitOrder[v1] < visitOrder[v2] ? v1 : v2;
 
-						Vertex backtrackVertex = e.getV1().getVisitOrder() < e.getV2().getVisitOrder() ? e.getV2() : e.getV1();
+						int backtrackVertex = visitOrder[v1] < visitOrder[v2] ? v2 : v1;
 
 						// backtrack until reaching final loop vertex
-						while(!finalLoopVertex.equals(backtrackVertex))
+						while(finalLoopVertex != backtrackVertex)
 						{
 							// Extract predecessor
-							final Edge pre = backtrackVertex.getPredecessor();
+							final int pre = predecessor[backtrackVertex];
 							// Update shortest loop edge if necessary
 							if(pruningMode == AnalyzeSkeleton_.SHORTEST_BRANCH && 
-									pre.getSlabs().size() < minEdge.getSlabs().size())
+									g.slabCount(pre) < g.slabCount(minEdge))
 								minEdge = pre;
 							// Add to loop edge list
-							loopEdges.add(pre);
+							loopEdges[nLoopEdges++] = pre;
 							// Extract predecessor
-							backtrackVertex = pre.getV1().equals(backtrackVertex) ? pre.getV2() : pre.getV1(); 
+							backtrackVertex = g.oppositeVertex(pre, backtrackVertex);
 						}
 
 						// Prune cycle
@@ -1090,19 +1068,19 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 						{
 							// Remove middle slab from the shortest loop edge
 							Point removeCoords = null;
-							if(minEdge.getSlabs().size() > 0)
-								removeCoords = minEdge.getSlabs().get(minEdge.getSlabs().size()/2);
+							if(g.slabCount(minEdge) > 0)
+								removeCoords = g.point(g.slabs[g.slabStart[minEdge] + g.slabCount(minEdge)/2]);
 							else 
-								removeCoords = minEdge.getV1().getPoints().get(0);
+								removeCoords = g.firstPoint(g.edgeV1[minEdge]);
 							setPixel(inputImage, removeCoords,(byte) 0);
 						}
 						else if (pruningMode == AnalyzeSkeleton_.LOWEST_INTENSITY_VOXEL)
 						{
-							removeLowestIntensityVoxel(loopEdges, inputImage, originalImage);
+							removeLowestIntensityVoxel(g, loopEdges, nLoopEdges, inputImage, originalImage);
 						}
 						else if(pruningMode == AnalyzeSkeleton_.LOWEST_INTENSITY_BRANCH)
 						{
-							cutLowestIntensityBranch(loopEdges, inputImage, originalImage);
+							cutLowestIntensityBranch(g, loopEdges, nLoopEdges, inputImage, originalImage);
 						}
 					}// endfor backEdges
 
@@ -1119,12 +1097,16 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 * Cut the a list of edges in the lowest pixel intensity voxel (calculated
 	 * from the original -grayscale- image).
 	 * 
+	 * @param g graph containing the edges
 	 * @param loopEdges list of edges to be analyzed
+	 * @param nLoopEdges number of edges in the list
 	 * @param inputImage2 input skeleton image
 	 * @param originalGrayImage original gray image
 	 */
 	private void removeLowestIntensityVoxel(
-			final ArrayList<Edge> loopEdges,
+			final SkeletonGraph g,
+			final int[] loopEdges,
+			final int nLoopEdges,
 			ImageStack inputImage2,
 			ImageStack originalGrayImage) 
 	{
@@ -1132,10 +1114,12 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 		double lowestIntensityValue = Double.MAX_VALUE;
 
-		for(final Edge e : loopEdges)
+		for(int l = 0; l < nLoopEdges; l++)
 		{
-			for(final Point p : e.getSlabs())
+			final int e = loopEdges[l];
+			for(int i = g.slabStart[e]; i < g.slabStart[e+1]; i++)
 			{
+				final Point p = g.point(g.slabs[i]);
 				final double avg = getAverageNeighborhoodValue(originalGrayImage, p,
 						this.x_offset, this.y_offset, this.z_offset);
 				if(avg < lowestIntensityValue)
@@ -1179,22 +1163,27 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	/**
 	 * Cut the a list of edges in the lowest pixel intensity branch.
 	 * 
+	 * @param g graph containing the edges
 	 * @param loopEdges list of edges to be analyzed
+	 * @param nLoopEdges number of edges in the list
 	 * @param inputImage2 input skeleton image
 	 */
 	private void cutLowestIntensityBranch(
-			final ArrayList<Edge> loopEdges,
+			final SkeletonGraph g,
+			final int[] loopEdges,
+			final int nLoopEdges,
 			ImageStack inputImage2,
 			ImageStack originalGrayImage) 
 	{
-		Edge lowestIntensityEdge = null;
+		int lowestIntensityEdge = -1;
 
 		double lowestIntensityValue = Double.MAX_VALUE;
 
 		Point cutPoint = null;
 
-		for(final Edge e : loopEdges)
+		for(int l = 0; l < nLoopEdges; l++)
 		{
+			final int e = loopEdges[l];
 			// Calculate average intensity of the edge neighborhood
 			double min_val = Double.MAX_VALUE;
 			Point darkestPoint = null;
@@ -1203,8 +1192,9 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			double n_vox = 0;
 
 			// Check slab points
-			for(final Point p : e.getSlabs())
+			for(int i = g.slabStart[e]; i < g.slabStart[e+1]; i++)
 			{
+				final Point p = g.point(g.slabs[i]);
 				final double avg = getAverageNeighborhoodValue(originalGrayImage, p,
 						this.x_offset, this.y_offset, this.z_offset);
 				// Keep track of the darkest slab point of the edge
@@ -1217,15 +1207,15 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				n_vox++;
 			}
 			// Check vertices
-			for(final Point p : e.getV1().getPoints())
+			for(int i = g.vertexPointStart[g.edgeV1[e]]; i < g.vertexPointStart[g.edgeV1[e]+1]; i++)
 			{
-				edgeIntensity += getAverageNeighborhoodValue(originalGrayImage, p,
+				edgeIntensity += getAverageNeighborhoodValue(originalGrayImage, g.point(g.vertexPoints[i]),
 						this.x_offset, this.y_offset, this.z_offset);
 				n_vox++;
 			}
-			for(final Point p : e.getV2().getPoints())
+			for(int i = g.vertexPointStart[g.edgeV2[e]]; i < g.vertexPointStart[g.edgeV2[e]+1]; i++)
 			{
-				edgeIntensity += getAverageNeighborhoodValue(originalGrayImage, p,
+				edgeIntensity += getAverageNeighborhoodValue(originalGrayImage, g.point(g.vertexPoints[i]),
 						this.x_offset, this.y_offset, this.z_offset);
 				n_vox++;
 			}
@@ -1234,7 +1224,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				edgeIntensity /= n_vox;
 			if(debug)
 			{
-				IJ.log("Loop edge between " + e.getV1().getPoints().get(0) + " and " + e.getV2().getPoints().get(0) + ":");
+				IJ.log("Loop edge between " + g.firstPoint(g.edgeV1[e]) + " and " + g.firstPoint(g.edgeV2[e]) + ":");
 				IJ.log("avg edge intensity = " + edgeIntensity + " darkest slab point = " + darkestPoint.toString());
 			}
 			// Keep track of the lowest intensity edge
@@ -1248,13 +1238,13 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 		// Cut loop in the lowest intensity branch medium position
 		Point removeCoords = null;
-		if (lowestIntensityEdge.getSlabs().size() > 0)
+		if (g.slabCount(lowestIntensityEdge) > 0)
 			removeCoords = cutPoint;
 		else 
 		{
 			IJ.error("Lowest intensity branch without slabs?!: vertex " 
-					+ lowestIntensityEdge.getV1().getPoints().get(0));
-			removeCoords = lowestIntensityEdge.getV1().getPoints().get(0);
+					+ g.firstPoint(g.edgeV1[lowestIntensityEdge]));
+			removeCoords = g.firstPoint(g.edgeV1[lowestIntensityEdge]);
 		}
 
 		if(debug)
@@ -1344,7 +1334,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		this.startingSlabTree = new ArrayList[this.numOfTrees];
 		this.listOfSingleJunctions = new ArrayList[this.numOfTrees];
 
-		this.graph = new Graph[this.numOfTrees];
+		this.skeletonGraph = new SkeletonGraph[this.numOfTrees];
 
 		for(int i = 0; i < this.numOfTrees; i++)
 		{
@@ -1353,7 +1343,6 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			this.startingSlabTree[i] = new ArrayList <Point>();
 			this.listOfSingleJunctions[i] = new ArrayList < ArrayList <Point> > ();
 		}
-		this.junctionVertex  = new Vertex[this.numOfTrees][];
 	}// end method initializeTrees
 
 	// -----------------------------------------------------------------------
@@ -1424,9 +1413,10 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				}
 			};
 			// Display branch information for each tree
+			final Graph[] graph = getGraphs();
 			for(int i = 0 ; i < this.numOfTrees; i++)
 			{
-				final ArrayList<Edge> listEdges = this.graph[i].getEdges();
+				final ArrayList<Edge> listEdges = graph[i].getEdges();
 				// Sort branches by length
 				Collections.sort(listEdges, comp);
 				for(final Edge e : listEdges)
@@ -1454,6 +1444,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 	/**
 	 * Returns one of the two result images in an ImageStack object.
+	 * The result images are reused by the next run of this instance if the next image has the same size.
 	 *
 	 * @param longestShortestPath Get the tagged longest shortest paths instead of the standard tagged image
 	 *
@@ -1495,7 +1486,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		result.setShortestPathList(shortestPathList);
 		result.setSpStartPosition(spStartPosition);
 
-		result.setGraph(graph);
+		result.setSkeletonGraphs(skeletonGraph);
 
 		result.calculateNumberOfVoxels();
 
@@ -1519,18 +1510,19 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		if(debug)
 		{
 			// Junction vertices in the tree
-			IJ.log("this.junctionVertex["+(iTree)+"].length = " + this.junctionVertex[iTree].length);
-			for(int i = 0; i < this.junctionVertex[iTree].length; i++)
+			IJ.log("number of junction vertices in tree " + iTree + " = " + this.numberOfJunctions[iTree]);
+			for(int i = 0; i < this.numberOfJunctions[iTree]; i++)
 			{
-				IJ.log(" vertices points: " + this.junctionVertex[iTree][i]);
+				IJ.log(" vertices points: " + this.listOfSingleJunctions[iTree].get(i));
 			}
 		}
 
 		// Create new graph
-		this.graph[iTree] = new Graph();
-		// Add all junction vertices
-		for(int i = 0; i < this.junctionVertex[iTree].length; i++)
-			this.graph[iTree].addVertex(this.junctionVertex[iTree][i]);
+		final SkeletonGraph g = new SkeletonGraph(this.width, this.height);
+		this.skeletonGraph[iTree] = g;
+		// Add all junction vertices (the vertex id of junction i is i)
+		for(int i = 0; i < this.numberOfJunctions[iTree]; i++)
+			g.addVertex(this.listOfSingleJunctions[iTree].get(i));
 
 		if(debug)
 			IJ.log(" Analyzing tree number " + currentTree);
@@ -1559,14 +1551,12 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			}
 
 			// Initial vertex
-			Vertex v1 = new Vertex();
-			v1.addPoint(endPointCoord);
-			this.graph[iTree].addVertex(v1);
+			final int v1 = g.addVertex(endPointCoord);
 			if(i == 0)
-				this.graph[iTree].setRoot(v1);
+				g.root = v1;
 
 			// slab list for the edge
-			this.slabList = new ArrayList<Point>();
+			g.clearSlabs();
 
 			// Otherwise, visit branch until next junction or end point.
 			double[] properties = visitBranch(endPointCoord, iTree);
@@ -1581,20 +1571,19 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			{
 				// If there is an adjacent visited junction, count it
 				// as a single voxel branch
-				final Point aux = getVisitedJunctionNeighbor(endPointCoord, v1);
+				final Point aux = getVisitedJunctionNeighbor(endPointCoord, g, v1);
 				if(null != aux)
 				{
-					this.auxFinalVertex = findPointVertex(this.junctionVertex[iTree], aux);
+					this.auxFinalVertex = g.findPointVertex(aux);
 					length += calculateDistance(endPointCoord, aux);
 
 					// Add the length to the first point of the vertex (to prevent later from having
 					// euclidean distances larger than the actual distance)
-					length += calculateDistance(auxFinalVertex.getPoints().get(0), endPointCoord);
+					length += calculateDistance(g.firstPoint(this.auxFinalVertex), endPointCoord);
 					// Add branch to graph
 					if(debug)
-						IJ.log( "adding branch from " + v1.getPoints().get(0) + " to " + this.auxFinalVertex.getPoints().get(0) );
-					this.graph[iTree].addVertex(this.auxFinalVertex);
-					this.graph[iTree].addEdge(new Edge(v1, this.auxFinalVertex, this.slabList, length, color3rd, color, length_ra));
+						IJ.log( "adding branch from " + g.firstPoint(v1) + " to " + g.firstPoint(this.auxFinalVertex) );
+					g.addEdge(v1, this.auxFinalVertex, length, color3rd, color, length_ra);
 					// increase number of branches
 					this.numberOfBranches[iTree]++;
 
@@ -1616,8 +1605,8 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			{
 				final Point aux = this.auxPoint;
 				//IJ.log("Looking for " + this.auxPoint + " in the list of vertices...");
-				this.auxPoint = getVisitedJunctionNeighbor(this.auxPoint, v1);
-				this.auxFinalVertex = findPointVertex(this.junctionVertex[iTree], this.auxPoint);
+				this.auxPoint = getVisitedJunctionNeighbor(this.auxPoint, g, v1);
+				this.auxFinalVertex = g.findPointVertex(this.auxPoint);
 				if(this.auxPoint == null)
 				{
 					//IJ.log("Point "+ aux + " has not neighbor end junction! (inner loop)");
@@ -1629,14 +1618,18 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 				// Add the length to the first point of the vertex (to prevent later from having
 				// euclidean distances larger than the actual distance)
-				length += calculateDistance(auxFinalVertex.getPoints().get(0), auxPoint);
+				length += calculateDistance(g.firstPoint(this.auxFinalVertex), auxPoint);
+			}
+			else if(this.auxFinalVertex == NEW_END_POINT_VERTEX)
+			{
+				// the branch ends in an end point that is not yet a vertex
+				this.auxFinalVertex = g.addVertex(this.auxPoint);
 			}
 
 			// Add branch to graph
 			if(debug)
-				IJ.log("adding branch from " + v1.getPoints().get(0) + " to " + this.auxFinalVertex.getPoints().get(0) +  ", aux point = " + this.auxPoint);
-			this.graph[iTree].addVertex(this.auxFinalVertex);
-			this.graph[iTree].addEdge(new Edge(v1, this.auxFinalVertex, this.slabList, length, color3rd, color, length_ra));
+				IJ.log("adding branch from " + g.firstPoint(v1) + " to " + g.firstPoint(this.auxFinalVertex) +  ", aux point = " + this.auxPoint);
+			g.addEdge(v1, this.auxFinalVertex, length, color3rd, color, length_ra);
 
 			// increase number of branches
 			this.numberOfBranches[iTree]++;
@@ -1655,7 +1648,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 		// If there is no end points, set the first junction as root.
 		if(this.numberOfEndPoints[iTree] == 0 && this.junctionVoxelTree[iTree].size() > 0)
-			this.graph[iTree].setRoot(this.junctionVertex[iTree][0]);
+			g.root = 0;
 
 		if(debug)
 			IJ.log( " --------------------------- ");
@@ -1663,11 +1656,14 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		// Now visit branches starting at junctions
 		// 08/26/2009 Changed the loop to visit first the junction voxels that are
 		//            forming a single junction.
-		for(int i = 0; i < this.junctionVertex[iTree].length; i++)
+		for(int i = 0; i < this.numberOfJunctions[iTree]; i++)
 		{
-			for(int j = 0; j < this.junctionVertex[iTree][i].getPoints().size(); j++)
+			// the junction voxels all belong to the initial vertex i of the branches
+			final int initialVertex = i;
+			final ArrayList<Point> junctionPoints = this.listOfSingleJunctions[iTree].get(i);
+			for(int j = 0; j < junctionPoints.size(); j++)
 			{
-				final Point junctionCoord = this.junctionVertex[iTree][i].getPoints().get(j);
+				final Point junctionCoord = junctionPoints.get(j);
 
 				if(debug)
 					IJ.log("\n*** visit from junction " + junctionCoord + " *** ");
@@ -1686,8 +1682,8 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 							IJ.log("visiting " + nextPoint);
 
 						// Create graph edge
-						this.slabList = new ArrayList<Point>();
-						this.slabList.add(nextPoint);
+						g.clearSlabs();
+						g.addSlab(nextPoint);
 						this.numberOfSlabs[iTree]++;
 
 						// Calculate distance from junction to that point
@@ -1714,16 +1710,6 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 							this.numberOfBranches[iTree]++;
 
-							// Initial vertex
-							Vertex initialVertex = null;
-							for(int k = 0; k < this.junctionVertex[iTree].length; k++)
-								if(this.junctionVertex[iTree][k].isVertexPoint(junctionCoord))
-								{
-									initialVertex = this.junctionVertex[iTree][k];
-									break;
-								}
-
-
 							// If the final point is a slab, then we add the path to the
 							// neighbor junction voxel not belonging to the initial vertex
 							// (unless it is a self loop)
@@ -1731,8 +1717,8 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 							{
 								final Point aux = this.auxPoint;
 								//IJ.log("Looking for " + this.auxPoint + " in the list of vertices...");
-								this.auxPoint = getVisitedJunctionNeighbor(this.auxPoint, initialVertex);
-								this.auxFinalVertex = findPointVertex(this.junctionVertex[iTree], this.auxPoint);
+								this.auxPoint = getVisitedJunctionNeighbor(this.auxPoint, g, initialVertex);
+								this.auxFinalVertex = g.findPointVertex(this.auxPoint);
 								if(this.auxPoint == null)
 								{
 									//IJ.log("Point "+ aux + " has not neighbor end junction! (inner loop)");
@@ -1742,6 +1728,11 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 								}
 								length += calculateDistance(this.auxPoint, aux);
 							}
+							else if(this.auxFinalVertex == NEW_END_POINT_VERTEX)
+							{
+								// the branch ends in an end point that is not yet a vertex
+								this.auxFinalVertex = g.addVertex(this.auxPoint);
+							}
 
 							if(debug)
 								IJ.log("increased number of branches, length = " + length + " (last point = " + this.auxPoint + ")");
@@ -1754,13 +1745,13 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 							// Add the distance between the main vertex of the junction 
 							// and the initial junction vertex of the branch (this prevents from
 							// having branches in the graph larger than the calculated branch length)
-							length += calculateDistance(initialVertex.getPoints().get(0), junctionCoord);
+							length += calculateDistance(g.firstPoint(initialVertex), junctionCoord);
 
 							// Create graph branch
 							// Add branch to graph
 							if(debug)
-								IJ.log("adding branch from " + initialVertex.getPoints().get(0) + " to " + this.auxFinalVertex.getPoints().get(0));
-							this.graph[iTree].addEdge(new Edge(initialVertex, this.auxFinalVertex, this.slabList, length, color3rd, color, length_ra));
+								IJ.log("adding branch from " + g.firstPoint(initialVertex) + " to " + g.firstPoint(this.auxFinalVertex));
+							g.addEdge(initialVertex, this.auxFinalVertex, length, color3rd, color, length_ra);
 						}
 					}
 					else
@@ -1783,13 +1774,11 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			final Point startCoord = this.startingSlabTree[iTree].get(0);
 
 			// Create circular graph (only one vertex)
-			final Vertex v1 = new Vertex();
-			v1.addPoint(startCoord);
-			this.graph[iTree].addVertex(v1);
+			final int v1 = g.addVertex(startCoord);
 
 
-			this.slabList = new ArrayList<Point>();
-			this.slabList.add(startCoord);
+			g.clearSlabs();
+			g.addSlab(startCoord);
 
 			this.numberOfSlabs[iTree]++;
 
@@ -1814,9 +1803,12 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			}
 
 			// Create circular edge
-			this.graph[iTree].addEdge(new Edge(v1, v1, this.slabList, length, color3rd, color, length_ra));
+			g.addEdge(v1, v1, length, color3rd, color, length_ra);
 		}
 
+		// Create the branch lists of the vertices
+		g.finish();
+
 		if(debug)
 			IJ.log( " --------------------------- ");
 
@@ -1827,26 +1819,23 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 		if(debug)
 		{
-			IJ.log("Num of vertices = " + this.graph[iTree].getVertices().size() + " num of edges = " + this.graph[iTree].getEdges().size());
-			for(int i = 0; i < this.graph[iTree].getVertices().size(); i++)
+			IJ.log("Num of vertices = " + g.nVertices + " num of edges = " + g.nEdges);
+			for(int i = 0; i < g.nVertices; i++)
 			{
-				Vertex v = this.graph[iTree].getVertices().get(i);
-				IJ.log(" vertex " + v.getPoints().get(0) + " has neighbors: ");
-				for(int j = 0; j < v.getBranches().size(); j++)
+				IJ.log(" vertex " + g.firstPoint(i) + " has neighbors: ");
+				for(int j = g.firstBranch[i]; j < g.firstBranch[i+1]; j++)
 				{
-					final Vertex v1 = v.getBranches().get(j).getV1();
-					final Vertex oppositeVertex = v1.equals(v) ? v.getBranches().get(j).getV2() : v1 ;
-					IJ.log(j + ": " + oppositeVertex.getPoints().get(0));
+					IJ.log((j - g.firstBranch[i]) + ": " + g.firstPoint(g.oppositeVertex(g.branchEdge[j], i)));
 				}
 
 			}
 
 			IJ.log( " --------------------------- ");
-			for(int i = 0; i < this.junctionVertex[iTree].length; i ++)
+			for(int i = 0; i < this.numberOfJunctions[iTree]; i ++)
 			{
 				IJ.log("Junction #" + i + " is formed by: ");
-				for(int j = 0; j < this.junctionVertex[iTree][i].getPoints().size(); j++)
-					IJ.log(j + ": " + this.junctionVertex[iTree][i].getPoints().get(j));
+				for(int j = 0; j < this.listOfSingleJunctions[iTree].get(i).size(); j++)
+					IJ.log(j + ": " + this.listOfSingleJunctions[iTree].get(i).get(j));
 			}
 		}
 
@@ -1864,11 +1853,20 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	{
 		if(debug)
 			IJ.log("=== Mark Trees ===");
-		// Create output image
-		ImageStack outputImage = new ImageStack( this.width, this.height );
+		// Create output image (the image of the previous run is reused if it has the same size)
+		final boolean reuse = fitsImage(this.labeledSkeletons);
+		ImageStack outputImage = reuse ? this.labeledSkeletons : new ImageStack( this.width, this.height );
+		final float[][] outputSlices = new float[depth][];
 		for (int z = 0; z < depth; z++)
 		{
-			outputImage.addSlice(taggedImage.getSliceLabel(z+1), new FloatProcessor(this.width, this.height));
+			if(reuse)
+			{
+				outputImage.setSliceLabel(taggedImage.getSliceLabel(z+1), z+1);
+				Arrays.fill((float[]) outputImage.getPixels(z+1), 0f);
+			}
+			else
+				outputImage.addSlice(taggedImage.getSliceLabel(z+1), new FloatProcessor(this.width, this.height));
+			outputSlices[z] = (float[]) outputImage.getPixels(z+1);
 		}
 
 		this.numOfTrees = 0;
@@ -1895,7 +1893,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			if(debug)
 				IJ.log("-- Visit tree from end-point:");
 			// Visit the entire tree.
-			int numOfVoxelsInTree = visitTree(endPointCoord, outputImage, color);
+			int numOfVoxelsInTree = visitTree(endPointCoord, outputSlices, color);
 
 			// increase number of trees
 			this.numOfTrees++;
@@ -1922,7 +1920,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 				IJ.log("-- Visit tree from junction:");
 
 			// else, visit branch until next junction or end point.
-			int length = visitTree(junctionCoord, outputImage, color);
+			int length = visitTree(junctionCoord, outputSlices, color);
 
 			if(length == 0)
 			{
@@ -1956,7 +1954,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 					IJ.log("-- Visit tree from slab:");
 
 				// else, visit branch until next junction or end point.
-				int length = visitTree(p, outputImage, color);
+				int length = visitTree(p, outputSlices, color);
 
 				if(length == 0)
 				{
@@ -2005,13 +2003,14 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 * Visit tree marking the voxels with a reference tree color.
 	 * 
 	 * @param startingPoint starting tree point
-	 * @param outputImage 3D image to visit
+	 * @param outputSlices pixel arrays of the 3D image to mark
 	 * @param color reference tree color
 	 * @return number of voxels in the tree
 	 */
-	private int visitTree(Point startingPoint, ImageStack outputImage,
+	private int visitTree(Point startingPoint, float[][] outputSlices,
 			int color) 
 	{
+		int[] toRevisit = this.revisitList;
 		int numOfVoxels = 0;
 
 		if(debug)
@@ -2021,50 +2020,76 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			return 0;
 
 		// Set pixel color
-		this.setPixel(outputImage, startingPoint.x, startingPoint.y, startingPoint.z, color);
-		setVisited(startingPoint, true);
+		int x = startingPoint.x, y = startingPoint.y, z = startingPoint.z;
+		outputSlices[z][x + y * this.width] = color;
+		this.visited.setVisited(z, x + y * this.width, true);
 
-		ArrayList <Point> toRevisit = new ArrayList <Point>();
+		// junctions to revisit are toRevisit[3*first] ... toRevisit[3*end-1]
+		int first = 0, end = 0;
 
 		// Add starting point to revisit list if it is a junction
-		if(isJunction(startingPoint))
-			toRevisit.add(startingPoint);
+		if(this.taggedSlices[z][x + y * this.width] == AnalyzeSkeleton_.JUNCTION)
+		{
+			toRevisit[0] = x;
+			toRevisit[1] = y;
+			toRevisit[2] = z;
+			end = 1;
+		}
 
-		Point nextPoint = getNextUnvisitedVoxel(startingPoint);
+		int k = nextUnvisitedNeighbor(x, y, z);
 
-		while(nextPoint != null || toRevisit.size() != 0)
+		while(k >= 0 || first < end)
 		{
-			if(nextPoint != null)
+			if(k >= 0)
 			{
-				if(!isVisited(nextPoint))
-				{
-					numOfVoxels++;
-					if(debug)
-						IJ.log("visiting " + nextPoint+ " color = " + color);
-
-					// Set color and visit flat
-					this.setPixel(outputImage, nextPoint.x, nextPoint.y, nextPoint.z, color);
-					setVisited(nextPoint, true);
+				x += NEIGHBOR_X[k];
+				y += NEIGHBOR_Y[k];
+				z += NEIGHBOR_Z[k];
+				numOfVoxels++;
+				if(debug)
+					IJ.log("visiting " + new Point(x, y, z) + " color = " + color);
 
-					// If it is a junction, add it to the revisit list
-					if(isJunction(nextPoint))
-						toRevisit.add(nextPoint);
+				// Set color and visit flat
+				outputSlices[z][x + y * this.width] = color;
+				this.visited.setVisited(z, x + y * this.width, true);
 
-					// Calculate next point to visit
-					nextPoint = getNextUnvisitedVoxel(nextPoint);
+				// If it is a junction, add it to the revisit list
+				if(this.taggedSlices[z][x + y * this.width] == AnalyzeSkeleton_.JUNCTION)
+				{
+					if(3 * end + 3 > toRevisit.length)
+					{
+						// move the list to the front or grow it
+						System.arraycopy(toRevisit, 3 * first, toRevisit, 0, 3 * (end - first));
+						end -= first;
+						first = 0;
+						if(3 * end + 3 > toRevisit.length)
+						{
+							toRevisit = Arrays.copyOf(toRevisit, 2 * toRevisit.length);
+							this.revisitList = toRevisit;
+						}
+					}
+					toRevisit[3 * end] = x;
+					toRevisit[3 * end + 1] = y;
+					toRevisit[3 * end + 2] = z;
+					end++;
 				}
+
+				// Calculate next point to visit
+				k = nextUnvisitedNeighbor(x, y, z);
 			}
 			else // revisit list
 			{
-				nextPoint = toRevisit.get(0);
+				x = toRevisit[3 * first];
+				y = toRevisit[3 * first + 1];
+				z = toRevisit[3 * first + 2];
 				if(debug)
-					IJ.log("visiting " + nextPoint+ " color = " + color);
+					IJ.log("visiting " + new Point(x, y, z) + " color = " + color);
 
 				// Calculate next point to visit
-				nextPoint = getNextUnvisitedVoxel(nextPoint);
+				k = nextUnvisitedNeighbor(x, y, z);
 				// Maintain junction in the list until there is no more branches
-				if (nextPoint == null)
-					toRevisit.remove(0);
+				if (k < 0)
+					first++;
 			}
 		}
 
@@ -2134,6 +2159,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private double[] visitBranch(Point startingPoint, int iTree) 
 	{
+		final SkeletonGraph g = this.skeletonGraph[iTree];
 		//IJ.log("startingPoint = (" + startingPoint.x + ", " + startingPoint.y + ", " + startingPoint.z + ")");
 		double length = 0;
 		double intensity = 0.0;
@@ -2141,106 +2167,104 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		double length_ra = 0.0;
 		double[] ret = new double[4];
 
-		List<Point> pointHistory= new ArrayList<Point>(0);
-		pointHistory.add(0,startingPoint);
-
+		// points of the branch (in visiting order) are stored in branchX, branchY, branchZ
+		int x = startingPoint.x, y = startingPoint.y, z = startingPoint.z;
+		int size = addBranchPoint(0, x, y, z);
 
 		// mark starting point as visited
-		setVisited(startingPoint, true);
+		setVisited(x, y, z, true);
 
 		// Get next unvisited voxel
-		Point nextPoint = getNextUnvisitedVoxel(startingPoint);
+		int k = nextUnvisitedNeighbor(x, y, z);
 
-		if (nextPoint == null)
+		if (k < 0)
 			return ret;
 
-		Point previousPoint = startingPoint;
+		int nextX = x + NEIGHBOR_X[k], nextY = y + NEIGHBOR_Y[k], nextZ = z + NEIGHBOR_Z[k];
 
 		// We visit the branch until we find an end point or a junction
-		while(nextPoint != null && isSlab(nextPoint))
+		while(k >= 0 && getTag(nextX, nextY, nextZ) == AnalyzeSkeleton_.SLAB)
 		{
 			this.numberOfSlabs[iTree]++;
 
 			// Add slab voxel to the edge
-			this.slabList.add(nextPoint);
+			g.addSlab(g.index(nextX, nextY, nextZ));
 
 			// Add length
-			length += calculateDistance(previousPoint, nextPoint);
-			pointHistory.add(0,nextPoint);
+			length += calculateDistance(x, y, z, nextX, nextY, nextZ);
+			size = addBranchPoint(size, nextX, nextY, nextZ);
 
-			length_ra += calculateDistance(pointHistory);
+			length_ra += calculateBranchDistance(size);
 
 			// Mark as visited
-			setVisited(nextPoint, true);
+			setVisited(nextX, nextY, nextZ, true);
 
 			// Move in the graph
-			previousPoint = nextPoint;
+			x = nextX;
+			y = nextY;
+			z = nextZ;
 			if (debug)
-				IJ.log("visiting " + previousPoint);
-			nextPoint = getNextUnvisitedVoxel(previousPoint);
+				IJ.log("visiting " + new Point(x, y, z));
+			k = nextUnvisitedNeighbor(x, y, z);
+			if(k >= 0)
+			{
+				nextX = x + NEIGHBOR_X[k];
+				nextY = y + NEIGHBOR_Y[k];
+				nextZ = z + NEIGHBOR_Z[k];
+			}
 		}
 
 		// If we find an unvisited end-point or junction, we set it
 		// as final vertex of the branch
-		if(nextPoint != null)
+		if(k >= 0)
 		{
 			// Add distance to last point
-			length += calculateDistance(previousPoint, nextPoint);
-			pointHistory.add(0,nextPoint);
-			length_ra += calculateDistance(pointHistory);
+			length += calculateDistance(x, y, z, nextX, nextY, nextZ);
+			size = addBranchPoint(size, nextX, nextY, nextZ);
+			length_ra += calculateBranchDistance(size);
 
+			final Point nextPoint = new Point(nextX, nextY, nextZ);
 
 			// Mark last point as visited
-			setVisited(nextPoint, true);
+			setVisited(nextX, nextY, nextZ, true);
 
 			// Mark final vertex
-			if(isEndPoint(nextPoint))
+			final byte tag = getTag(nextX, nextY, nextZ);
+			if(tag == AnalyzeSkeleton_.END_POINT)
 			{
 				if(debug)
 					IJ.log("found unvisited end point: " + nextPoint);
-				this.auxFinalVertex = new Vertex();
-				this.auxFinalVertex.addPoint(nextPoint);
+				this.auxFinalVertex = NEW_END_POINT_VERTEX;
 			}
-			else if(isJunction(nextPoint))
+			else if(tag == AnalyzeSkeleton_.JUNCTION)
 			{
 				if(debug)
 					IJ.log("found unvisited junction point: " + nextPoint);
-				this.auxFinalVertex = findPointVertex(this.junctionVertex[iTree], nextPoint);
+				this.auxFinalVertex = g.findPointVertex(nextPoint);
 				// Add the length to the first point of the vertex (to prevent later from having
 				// euclidean distances larger than the actual distance)
-				length += calculateDistance(auxFinalVertex.getPoints().get(0), nextPoint);
-				length_ra += calculateDistance(auxFinalVertex.getPoints().get(0), nextPoint);
-				/*
-				int j = 0;
-				for(j = 0; j < this.junctionVertex[iTree].length; j++)
-					if(this.junctionVertex[iTree][j].isVertexPoint(nextPoint))
-					{
-						this.auxFinalVertex = this.junctionVertex[iTree][j];
-						IJ.log(" " + nextPoint + " belongs to junction " + this.auxFinalVertex.getPoints().get(0));
-						break;
-					}
-				if(j == this.junctionVertex[iTree].length)
-					IJ.log("point " + nextPoint + " was not found in vertex list!");
-					*/
+				final Point vertexPoint = g.firstPoint(this.auxFinalVertex);
+				length += calculateDistance(vertexPoint, nextPoint);
+				length_ra += calculateDistance(vertexPoint, nextPoint);
 			}
 
 			this.auxPoint = nextPoint;
 		}
 		else
-			this.auxPoint = previousPoint;
+			this.auxPoint = new Point(x, y, z);
 
 		//IJ.log("finalPoint = (" + nextPoint.x + ", " + nextPoint.y + ", " + nextPoint.z + ")");
 
 		// calculate average intensity (thickness) value, but only take the inner third of a branch.
 		// at both ends the intensity (thickness) is most likely affected by junctions.
+		// (i counts the points from the last to the first visited point)
 
-
-		int size = pointHistory.size();
 		int start = (int)(size/3.0);
 		int end = (int)(2*size/3.0);
 
 		for (int i = 0; i < size ;i++){
-			int value = getPixel(this.inputImage, pointHistory.get(i));
+			final int j = size - 1 - i;
+			int value = this.inputSlices[this.branchZ[j]][this.branchX[j] + this.branchY[j] * this.width];
 			if (value < 0){
 				value += 256;
 			}
@@ -2261,6 +2285,26 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		return ret;
 	} // end visitBranch
 
+	/**
+	 * Append a point to the points of the current branch (branchX, branchY, branchZ).
+	 * 
+	 * @param size number of points of the branch
+	 * @return new number of points of the branch
+	 */
+	private int addBranchPoint(int size, int x, int y, int z)
+	{
+		if(size == this.branchX.length)
+		{
+			this.branchX = Arrays.copyOf(this.branchX, 2 * size);
+			this.branchY = Arrays.copyOf(this.branchY, 2 * size);
+			this.branchZ = Arrays.copyOf(this.branchZ, 2 * size);
+		}
+		this.branchX[size] = x;
+		this.branchY[size] = y;
+		this.branchZ[size] = z;
+		return size + 1;
+	}
+
 	// -----------------------------------------------------------------------
 	/**
 	 * Find vertex in an array given a specific vertex point.
@@ -2294,22 +2338,32 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private double calculateDistance(Point point1, Point point2) 
 	{
-		return Math.sqrt(  Math.pow( (point1.x - point2.x) * this.imRef.getCalibration().pixelWidth, 2) 
-				          + Math.pow( (point1.y - point2.y) * this.imRef.getCalibration().pixelHeight, 2)
-				          + Math.pow( (point1.z - point2.z) * this.imRef.getCalibration().pixelDepth, 2));
+		return calculateDistance(point1.x, point1.y, point1.z, point2.x, point2.y, point2.z);
+	}
+
+	/**
+	 * Calculate distance between two points in 3D.
+	 * 
+	 * @return distance (in the corresponding units)
+	 */
+	private double calculateDistance(int x1, int y1, int z1, int x2, int y2, int z2) 
+	{
+		return Math.sqrt(  Math.pow( (x1 - x2) * this.imRef.getCalibration().pixelWidth, 2) 
+				          + Math.pow( (y1 - y2) * this.imRef.getCalibration().pixelHeight, 2)
+				          + Math.pow( (z1 - z2) * this.imRef.getCalibration().pixelDepth, 2));
 	}
 
 	// -----------------------------------------------------------------------
 		/**
 		 * Calculate linear corrected distance between two points in 3D.
-		 * Uses the PointHistory of a branch and its 5 last points.
+		 * Uses the points of the current branch (branchX, branchY, branchZ) and its 5 last points.
 		 * 
-		 * @param Points - the last visited Points (most recent has Index 0)
+		 * @param size - the number of visited points of the branch (most recent has Index size-1)
 		 * @return linear corrected distance between the last two Points (in the corresponding units)
 		 */
-	private double calculateDistance(List<Point> Points)
+	private double calculateBranchDistance(int size)
 	{
-		int indexOfLast = Points.size()-1;
+		int indexOfLast = size-1;
 
 		//no Distance to be calculated here...
 		if (indexOfLast < 1) return 0;
@@ -2321,9 +2375,10 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		if (indexOfLast < 5){
 			poi = indexOfLast;
 		}
-		return Math.sqrt(  Math.pow( (Points.get(poi).x - Points.get(0).x) * this.imRef.getCalibration().pixelWidth, 2) 
-		          + Math.pow( (Points.get(poi).y - Points.get(0).y) * this.imRef.getCalibration().pixelHeight, 2)
-		          + Math.pow( (Points.get(poi).z - Points.get(0).z) * this.imRef.getCalibration().pixelDepth, 2))/poi;
+		final int last = size-1, first = size-1-poi;
+		return Math.sqrt(  Math.pow( (this.branchX[first] - this.branchX[last]) * this.imRef.getCalibration().pixelWidth, 2) 
+		          + Math.pow( (this.branchY[first] - this.branchY[last]) * this.imRef.getCalibration().pixelHeight, 2)
+		          + Math.pow( (this.branchZ[first] - this.branchZ[last]) * this.imRef.getCalibration().pixelDepth, 2))/poi;
 	}
 
 	// -----------------------------------------------------------------------
@@ -2355,19 +2410,8 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 			if(debug)
 				IJ.log("this.listOfSingleJunctions["+iTree+"].size() = " + this.listOfSingleJunctions[iTree].size());
 
+			// (the junction vertices of the graph are created in visitSkeleton)
 			this.numberOfJunctions[iTree] = this.listOfSingleJunctions[iTree].size();
-
-			// Create array of junction vertices for the graph
-			this.junctionVertex[iTree] = new Vertex[this.listOfSingleJunctions[iTree].size()];
-
-			for(int j = 0 ; j < this.listOfSingleJunctions[iTree].size(); j++)
-			{
-				final ArrayList<Point> list = this.listOfSingleJunctions[iTree].get(j);
-				this.junctionVertex[iTree][j] = new Vertex();
-				for(final Point p : list)
-					this.junctionVertex[iTree][j].addPoint(p);
-
-			}
 		}
 
 		// Mark all unvisited
@@ -2380,15 +2424,9 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private void resetVisited()
 	{
-		// Reset visited variable
-		this.visited = null;
-		this.visited = new boolean[this.width][this.height][this.depth];
-		/*
-		for(int i = 0; i < this.width; i ++)
-			for(int j = 0; j < this.height; j++)
-				for(int k = 0; k < this.depth; k++)
-					this.visited[i][j][k] = false;
-		*/
+		// Reset visited variable (the flags of the thread are reused)
+		this.visited = VisitedFlags.get(this.width, this.height, this.depth);
+		this.visited.reset();
 	}
 
 	// -----------------------------------------------------------------------
@@ -2536,7 +2574,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private boolean isSlab(Point point) 
 	{
-		return getPixel(this.taggedImage, point.x, point.y, point.z) == AnalyzeSkeleton_.SLAB;
+		return getTag(point.x, point.y, point.z) == AnalyzeSkeleton_.SLAB;
 	}
 
 	/* -----------------------------------------------------------------------*/
@@ -2548,7 +2586,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private boolean isJunction(Point point) 
 	{
-		return getPixel(this.taggedImage, point.x, point.y, point.z) == AnalyzeSkeleton_.JUNCTION;
+		return getTag(point.x, point.y, point.z) == AnalyzeSkeleton_.JUNCTION;
 	}
 
 	/* -----------------------------------------------------------------------*/
@@ -2560,7 +2598,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private boolean isEndPoint(Point point) 
 	{
-		return getPixel(this.taggedImage, point.x, point.y, point.z) == AnalyzeSkeleton_.END_POINT;
+		return getTag(point.x, point.y, point.z) == AnalyzeSkeleton_.END_POINT;
 	}
 
 	/* -----------------------------------------------------------------------*/
@@ -2598,7 +2636,23 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private boolean isJunction(int x, int y, int z) 
 	{
-		return getPixel(this.taggedImage, x, y, z) == AnalyzeSkeleton_.JUNCTION;
+		return getTag(x, y, z) == AnalyzeSkeleton_.JUNCTION;
+	}
+
+	/* -----------------------------------------------------------------------*/
+	/**
+	 * Get the tag of a voxel (0 border conditions).
+	 *  
+	 * @param x x- voxel coordinate
+	 * @param y y- voxel coordinate
+	 * @param z z- voxel coordinate
+	 * @return tag (END_POINT, JUNCTION, SLAB) or 0 for background and out of image voxels
+	 */
+	private byte getTag(int x, int y, int z) 
+	{
+		if(x >= 0 && x < this.width && y >= 0 && y < this.height && z >= 0 && z < this.depth)
+			return this.taggedSlices[z][x + y * this.width];
+		return 0;
 	}
 
 	/* -----------------------------------------------------------------------*/
@@ -2610,28 +2664,39 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private Point getNextUnvisitedVoxel(Point point) 
 	{
-		Point unvisitedNeighbor = null;
-
-		// Check neighbors status
-		for(int x = -1; x < 2; x++)
-			for(int y = -1; y < 2; y++)
-				for(int z = -1; z < 2; z++)
-				{
-					if(x == 0 && y == 0 && z == 0)
-						continue;
-
-					if(getPixel(this.inputImage, point.x + x, point.y + y, point.z + z) != 0
-						&& isVisited(point.x + x, point.y + y, point.z + z) == false)
-					{
-						unvisitedNeighbor = new Point(point.x + x, point.y + y, point.z + z);
-						break;
-					}
-
-				}
-
-		return unvisitedNeighbor;
+		final int k = nextUnvisitedNeighbor(point.x, point.y, point.z);
+		if(k < 0)
+			return null;
+		return new Point(point.x + NEIGHBOR_X[k], point.y + NEIGHBOR_Y[k], point.z + NEIGHBOR_Z[k]);
 	}// end getNextUnvisitedVoxel
 
+	/* -----------------------------------------------------------------------*/
+	/**
+	 * Get next unvisited neighbor voxel.
+	 * 
+	 * @param x x- voxel coordinate
+	 * @param y y- voxel coordinate
+	 * @param z z- voxel coordinate
+	 * @return index of the unvisited neighbor in NEIGHBOR_X/Y/Z or -1 if all neighbors are visited
+	 */
+	private int nextUnvisitedNeighbor(int x, int y, int z) 
+	{
+		int nx, ny, nz, i;
+		for(int k = 0; k < 26; k++)
+		{
+			nx = x + NEIGHBOR_X[k];
+			ny = y + NEIGHBOR_Y[k];
+			nz = z + NEIGHBOR_Z[k];
+			if(nx >= 0 && nx < this.width && ny >= 0 && ny < this.height && nz >= 0 && nz < this.depth)
+			{
+				i = nx + ny * this.width;
+				if(this.inputSlices[nz][i] != 0 && !this.visited.isVisited(nz, i))
+					return k;
+			}
+		}
+		return -1;
+	}// end nextUnvisitedNeighbor
+
 	/* -----------------------------------------------------------------------*/
 	/**
 	 * Get next unvisited junction neighbor voxel.
@@ -2641,27 +2706,21 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private Point getNextUnvisitedJunctionVoxel(Point point) 
 	{
-		Point unvisitedNeighbor = null;
-
-		// Check neighbors status
-		for(int x = -1; x < 2; x++)
-			for(int y = -1; y < 2; y++)
-				for(int z = -1; z < 2; z++)
-				{
-					if(x == 0 && y == 0 && z == 0)
-						continue;
-
-					if(getPixel(this.inputImage, point.x + x, point.y + y, point.z + z) != 0
-						&& isVisited(point.x + x, point.y + y, point.z + z) == false 
-						&& isJunction(point.x + x, point.y + y, point.z + z))
-					{
-						unvisitedNeighbor = new Point(point.x + x, point.y + y, point.z + z);
-						break;
-					}
-
-				}
-
-		return unvisitedNeighbor;
+		int nx, ny, nz, i;
+		for(int k = 0; k < 26; k++)
+		{
+			nx = point.x + NEIGHBOR_X[k];
+			ny = point.y + NEIGHBOR_Y[k];
+			nz = point.z + NEIGHBOR_Z[k];
+			if(nx >= 0 && nx < this.width && ny >= 0 && ny < this.height && nz >= 0 && nz < this.depth)
+			{
+				i = nx + ny * this.width;
+				if(this.inputSlices[nz][i] != 0 && !this.visited.isVisited(nz, i)
+					&& this.taggedSlices[nz][i] == AnalyzeSkeleton_.JUNCTION)
+					return new Point(nx, ny, nz);
+			}
+		}
+		return null;
 	}// end getNextUnvisitedJunctionVoxel 
 
 	// -----------------------------------------------------------------------
@@ -2670,36 +2729,29 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 * to a give vertex
 	 * 
 	 * @param point starting point
+	 * @param g graph of the current tree
 	 * @param exclude exclusion vertex
 	 * @return unvisited neighbor or null if all neighbors are visited
 	 */
-	private Point getVisitedJunctionNeighbor(Point point, Vertex exclude) 
+	private Point getVisitedJunctionNeighbor(Point point, SkeletonGraph g, int exclude) 
 	{
-		Point finalNeighbor = null;
-
-		// Check neighbors status
-		for(int x = -1; x < 2; x++)
-			for(int y = -1; y < 2; y++)
-				for(int z = -1; z < 2; z++)
-				{
-					if(x == 0 && y == 0 && z == 0)
-						continue;
-
-					final Point neighbor = new Point( point.x + x, point.y + y, point.z + z);
-
-					if(getPixel(this.inputImage, neighbor) != 0
-						&& isVisited(neighbor)
-						&& isJunction(neighbor)
-						&& ! exclude.getPoints().contains(neighbor))
-					{
-						finalNeighbor = neighbor;
-						break;
-					}
-
-				}
-
-		return finalNeighbor;
-	}// end getNextUnvisitedJunctionVoxel 
+		int nx, ny, nz, i;
+		for(int k = 0; k < 26; k++)
+		{
+			nx = point.x + NEIGHBOR_X[k];
+			ny = point.y + NEIGHBOR_Y[k];
+			nz = point.z + NEIGHBOR_Z[k];
+			if(nx >= 0 && nx < this.width && ny >= 0 && ny < this.height && nz >= 0 && nz < this.depth)
+			{
+				i = nx + ny * this.width;
+				if(this.inputSlices[nz][i] != 0 && this.visited.isVisited(nz, i)
+					&& this.taggedSlices[nz][i] == AnalyzeSkeleton_.JUNCTION
+					&& g.findVertex(g.index(nx, ny, nz)) != exclude)
+					return new Point(nx, ny, nz);
+			}
+		}
+		return null;
+	}// end getVisitedJunctionNeighbor 
 
 	// -----------------------------------------------------------------------
 	/**
@@ -2727,7 +2779,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	private boolean isVisited(int x, int y, int z) 
 	{
 		if(x >= 0 && x < this.width && y >= 0 && y < this.height && z >= 0 && z < this.depth)
-			return this.visited[x][y][z];
+			return this.visited.isVisited(z, x + y * this.width);
 		return true;
 	}
 
@@ -2744,7 +2796,7 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	private void setVisited(int x, int y, int z, boolean b) 
 	{
 		if(x >= 0 && x < this.width && y >= 0 && y < this.height && z >= 0 && z < this.depth)
-			this.visited[x][y][z] = b;
+			this.visited.setVisited(z, x + y * this.width, b);
 	}
 
 	/* -----------------------------------------------------------------------*/
@@ -2772,36 +2824,47 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 	 */
 	private ImageStack tagImage(ImageStack inputImage2) 
 	{
-		// Create output image
-		ImageStack outputImage = new ImageStack(this.width, this.height, inputImage2.getColorModel());
+		// Create output image (the image of the previous run is reused if it has the same size)
+		final boolean reuse = fitsImage(this.taggedImage);
+		ImageStack outputImage = reuse ? this.taggedImage : new ImageStack(this.width, this.height, inputImage2.getColorModel());
+		final byte[][] input = getSlices(inputImage2);
+		this.taggedSlices = new byte[depth][];
 
 		// Tag voxels
 		for (int z = 0; z < depth; z++)
 		{
-			outputImage.addSlice(inputImage2.getSliceLabel(z+1), new ByteProcessor(this.width, this.height));
+			if(reuse)
+			{
+				outputImage.setSliceLabel(inputImage2.getSliceLabel(z+1), z+1);
+				Arrays.fill((byte[]) outputImage.getPixels(z+1), (byte) 0);
+			}
+			else
+				outputImage.addSlice(inputImage2.getSliceLabel(z+1), new ByteProcessor(this.width, this.height));
+			final byte[] tags = (byte[]) outputImage.getPixels(z+1);
+			this.taggedSlices[z] = tags;
 			for (int x = 0; x < width; x++) 
 				for (int y = 0; y < height; y++)
 				{
-					if(getPixel(inputImage2, x, y, z) != 0)
+					if(input[z][x + y * width] != 0)
 					{
-						int numOfNeighbors = getNumberOfNeighbors(inputImage2, x, y, z);
+						int numOfNeighbors = getNumberOfNeighbors(input, x, y, z);
 						if(numOfNeighbors < 2)
 						{
-							setPixel(outputImage, x, y, z, AnalyzeSkeleton_.END_POINT);
+							tags[x + y * width] = AnalyzeSkeleton_.END_POINT;
 							this.totalNumberOfEndPoints++;
 							Point endPoint = new Point(x, y, z);
 							this.listOfEndPoints.add(endPoint);
 						}
 						else if(numOfNeighbors > 2)
 						{
-							setPixel(outputImage, x, y, z, AnalyzeSkeleton_.JUNCTION);
+							tags[x + y * width] = AnalyzeSkeleton_.JUNCTION;
 							Point junction = new Point(x, y, z);
 							this.listOfJunctionVoxels.add(junction);
 							this.totalNumberOfJunctionVoxels++;
 						}
 						else
 						{
-							setPixel(outputImage, x, y, z, AnalyzeSkeleton_.SLAB);
+							tags[x + y * width] = AnalyzeSkeleton_.SLAB;
 							Point slab = new Point(x, y, z);
 							this.listOfSlabVoxels.add(slab);
 							this.totalNumberOfSlabs++;
@@ -2815,26 +2878,46 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 	/* -----------------------------------------------------------------------*/
 	/**
-	 * Get number of neighbors of a voxel in a 3D image (0 border conditions).
+	 * Get the pixel arrays of the slices of a (byte) image stack.
 	 * 
 	 * @param image 3D image (ImageStack)
+	 * @return pixel array of each slice
+	 */
+	private static byte[][] getSlices(ImageStack image)
+	{
+		final byte[][] slices = new byte[image.getSize()][];
+		for(int z = 0; z < slices.length; z++)
+			slices[z] = (byte[]) image.getPixels(z + 1);
+		return slices;
+	}
+
+	/* -----------------------------------------------------------------------*/
+	/**
+	 * Get number of neighbors of a voxel in a 3D image (0 border conditions).
+	 * 
+	 * @param slices pixel arrays of the slices of the 3D image
 	 * @param x x- coordinate
 	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding 27-pixels neighborhood (0 if out of image)
+	 * @param z z- coordinate (starting at 0)
+	 * @return number of non-zero voxels among the 26 neighbors
 	 */
-	private int getNumberOfNeighbors(ImageStack image, int x, int y, int z)
+	private int getNumberOfNeighbors(byte[][] slices, int x, int y, int z)
 	{
 		int n = 0;
-		byte[] neighborhood = getNeighborhood(image, x, y, z);
-
-		for(int i = 0; i < 27; i ++)
-			if(neighborhood[i] != 0)
+		int nx, ny, nz;
+		for(int k = 0; k < 26; k++)
+		{
+			nx = x + NEIGHBOR_X[k];
+			ny = y + NEIGHBOR_Y[k];
+			nz = z + NEIGHBOR_Z[k];
+			if(nx >= 0 && nx < this.width && ny >= 0 && ny < this.height && nz >= 0 && nz < this.depth
+				&& slices[nz][nx + ny * this.width] != 0)
 				n++;
-		// We return n-1 because neighborhood includes the actual voxel.
-		return (n-1);
+		}
+		return n;
 	}// end method getNumberOfNeighbors
 
+
 	// -----------------------------------------------------------------------
 	/**
 	 * Get average 3x3x3 neighborhood pixel value of a given point
@@ -3112,271 +3195,115 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 
 
 	/**
-	 * Determine the longest shortest path using the APSP (all pairs shortest path) 
-	 * warshall algorithm
+	 * Determine the longest shortest path using a sparse path engine: a double sweep of Dijkstra's
+	 * algorithm if the graph is a tree and a bounded Dijkstra search from each vertex otherwise
+	 * (replaces the APSP (all pairs shortest path) warshall algorithm, see SparsePathEngine)
 	 * 
 	 * @param graph the graph of a tree
 	 * @param shortestPathPoints list to store the longest shortest path points
 	 * @return longest shortest path length
-	 * @author Huub Hovens
 	 */
-	private double warshallAlgorithm(Graph graph, ArrayList <Point> shortestPathPoints)
-	{
-		// local fields
-		/** vertex 1 of an edge */
-		Vertex v1 = null;
-		/** vertex 2 of an edge */
-		Vertex v2 = null;
-		/** the equivalent of row in a matrix */
-		int row = 0;
-		/** the equivalent of column in a matrix */
-		int column = 0;
-		/** the value of the longest shortest path */
-		double maxPath = 0;
-		/** row that contains the longest shortest path value */
-		int a = 0;
-		/** column that contains the longest shortest path value */
-		int b = 0;
-
-		ArrayList< Edge > edgeList = graph.getEdges();
-		ArrayList< Vertex > vertexList = graph.getVertices();
-
+	private double longestShortestPath(SkeletonGraph graph, ArrayList <Point> shortestPathPoints)
+	{
 		// check for paths of only one vertex
-		if( vertexList.size() == 1 )
+		if( countVertices(graph) == 1 )
 		{
-			shortestPathPoints.add( vertexList.get( 0 ).getPoints().get( 0 ) );
-			spx = vertexList.get( 0 ).getPoints().get( 0 ).x;
-			spy = vertexList.get( 0 ).getPoints().get( 0 ).y;
-			spz = vertexList.get( 0 ).getPoints().get( 0 ).z;
+			int v = 0;
+			while( graph.vertexRemoved[ v ] )
+				v++;
+			final Point p = graph.firstPoint( v );
+			shortestPathPoints.add( p );
+			spx = p.x;
+			spy = p.y;
+			spz = p.z;
 			return 0;
 		}
 
-		//create empty adjacency and predecessor matrix
-
-		/** the matrix that contains the length of the shortest path from vertex a to vertex b */
-		double[][] adjacencyMatrix = new double[vertexList.size()][vertexList.size()];
-		/** the matrix that contains the predecessor vertex of vertex b in the shortest path from vertex a to b */
-		int[][] predecessorMatrix = new int[vertexList.size()][vertexList.size()];
-
-		// initial conditions for both matrices
-		/*
-		 * create 2D-adjacency array with the distance between the nodes.
-		 * distance i --> i = 0
-		 * distance i -/> j = infinite (edge does not exist)
-		 * distance i --> j = length of branch
-		 */
-
-		/*
-		 * create 2D-predecessor array using interconnected vertices.
-		 * the predecessor matrix contains the predecessor of j in a path from node i to j.
-		 * distance i --> i = NIL (there is no edge between a single vertex)
-		 * distance i -/> j = NIL (there is no edge between the vertices)
-		 * distance i --> j = i (the initial matrix only contains paths with a single edge)
-		 * 
-		 * I'm using -1 as NIL since it cannot refer to an index (and thus a vertex)
-		 */
-
-		// applying initial conditions
-		for(int i = 0 ; i < vertexList.size(); i++)
-		{
-			for(int j = 0 ; j < vertexList.size(); j++)
-			{
-				adjacencyMatrix[i][j]= Double.POSITIVE_INFINITY;
-				predecessorMatrix[i][j]= -1;
-			}
-		}
-
-
-		for (Edge edge : edgeList)
-		{
-			v1 = edge.getV1();
-			v2 = edge.getV2();
-			// use the index of the vertices as the index in the matrix
-			row = vertexList.indexOf(v1);
-			if(row == -1)
-			{
-				IJ.log("Vertex " + v1.getPoints().get(0) + " not found in the list of vertices!");
-				continue;
-			}
-
-			column = vertexList.indexOf(v2);
-			if(column == -1)
-			{
-				IJ.log("Vertex " + v2.getPoints().get(0) + " not found in the list of vertices!");
-				continue;
-			}
-
-			/* 
-			 * the diagonal is 0. 
-			 * 
-			 * Because not every vertex is a 'v1 vertex' 
-			 * the [column][column] statement is needed as well.
-			 *
-			 * in an undirected graph the adjacencyMatrix is symmetric 
-			 * thus A = Transpose(A)
-			 */
-			adjacencyMatrix[row][row] = 0;
-			adjacencyMatrix[column][column] = 0;
-			adjacencyMatrix[row][column] = edge.getLength();
-			adjacencyMatrix[column][row] = edge.getLength();
-
-			/* 
-			 * the diagonal remains -1.
-			 * for the rest I use the index of the vertex so I can later refer to the vertexList
-			 * for the correct information
-			 * 
-			 * Determining what belongs where requires careful consideration of the definition
-			 * 
-			 * the array contains the predecessor of "column" in a path from "row" to "column"
-			 * therefore in the other statement it is the other way around.   
-			 */
-			predecessorMatrix[row][row] = -1;
-			predecessorMatrix[column][column] = -1;
-			predecessorMatrix[row][column] = row;
-			predecessorMatrix[column][row] = column;
-		}
-		// matrices now have their initial conditions
-
-
-		// the warshall algorithm with k as candidate vertex and i and j walk through the adjacencyMatrix
-		// the predecessor matrix is updated at the same time. 
-
-		for(int k = 0 ; k < vertexList.size(); k++)
+		SparsePathEngine engine = new SparsePathEngine(graph);
+		engine.findLongestShortestPath();
+		if(engine.getLength() <= 0)
 		{
-			for(int i = 0 ; i < vertexList.size(); i++)
-			{
-				for(int j = 0 ; j < vertexList.size(); j++)
-				{
-					if(adjacencyMatrix[i][k] + adjacencyMatrix[k][j] < adjacencyMatrix[i][j])
-					{
-						adjacencyMatrix[i][j] = adjacencyMatrix[i][k] + adjacencyMatrix[k][j];
-						predecessorMatrix[i][j] = predecessorMatrix[k][j];
-
-					}
-				}
-			}
-		}
-
-		// find the maximum of all shortest paths
-		for(int i = 0; i < vertexList.size(); i++)
-		{
-			for(int j = 0; j < vertexList.size(); j++)
-			{
-				// sometimes infinities still remain
-				if (adjacencyMatrix[i][j] > maxPath && adjacencyMatrix[i][j] != Double.POSITIVE_INFINITY)
-				{
-					maxPath = adjacencyMatrix[i][j];
-					a = i;
-					b = j;
-
-				}
-			}
+			// no path of positive length
+			return 0;
 		}
 
 		// trace back the longest shortest path
-		reconstructPath(predecessorMatrix, a, b, edgeList, vertexList, shortestPathPoints);
+		reconstructPath(engine.getPredecessors(), engine.getStart(), engine.getEnd(), graph, shortestPathPoints);
 
-		// !important return maxPath;
-		return maxPath;
+		return engine.getLength();
 
 	}
-	// end method warshallAlgorithm
+	// end method longestShortestPath
 
 	/**
-	 * Reconstruction and visualisation of the longest shortest path found by the APSP warshall algorithm
+	 * Reconstruction and visualisation of the longest shortest path
 	 *  
-	 * @param predecessorMatrix the Matrix which contains the predecessor of vertex b in the shortest path from a to b
-	 * @param startIndex the index of the row which contains the longest shortest path
-	 * @param endIndex the index of the column which contains the longest shortest path
-	 * @param edgeList the list of edges 
-	 * @param vertexList the list of vertices
+	 * @param predecessors the predecessor of each vertex b in the shortest path from the start vertex a to b
+	 * @param startIndex the id of the first vertex of the longest shortest path
+	 * @param endIndex the id of the last vertex of the longest shortest path
+	 * @param graph the graph of the tree
 	 * @param shortestPathPoints contains points of the longest shortest path for each graph
 	 * @author Huub Hovens
 	 */
 	private void reconstructPath(
-			int[][] predecessorMatrix, 
+			int[] predecessors, 
 			int startIndex, 
 			int endIndex, 
-			ArrayList<Edge> edgeList, 
-			ArrayList<Vertex> vertexList,
+			SkeletonGraph graph,
 			ArrayList<Point> shortestPathPoints)
 	{
 		// We know the first and last vertex of the longest shortest path, namely a and b
-		// using the predecessor matrix we can now determine the path that is taken from a to b
-		// remember a and b are indices and not the actual vertices.
+		// using the predecessors we can now determine the path that is taken from a to b
+		// remember a and b are vertex ids.
 
 		int b = endIndex;
 		final int a = startIndex;
 
 		while (b != a)
 		{
-			Vertex predecessor = vertexList.get(predecessorMatrix[a][b]);
-			Vertex endvertex = vertexList.get(b);
-			ArrayList< Edge > sp_edgeslist = new ArrayList< Edge >();
-			Double lengthtest = Double.POSITIVE_INFINITY;
-			Edge shortestedge = null;
-
-			// search all edges for a combination of the two vertices
-			for (Edge edge : edgeList)
-			{
-
-				if ((edge.getV1()==predecessor && edge.getV2()==endvertex) || (edge.getV1()==endvertex && edge.getV2()==predecessor))
-				{
-					// sometimes there are multiple edges between two vertices so add them to a list
-					// for a second test
-					sp_edgeslist.add(edge);
-				}
-
-			}
-			// the second test
-			// this test looks which edge has the shortest length in sp_edgeslist
-			for (Edge edge : sp_edgeslist)
+			final int predecessor = predecessors[b];
+			final int endvertex = b;
+			double lengthtest = Double.POSITIVE_INFINITY;
+			int shortestedge = -1;
+
+			// search the edges of the end vertex for a combination of the two vertices
+			// (sometimes there are multiple edges between two vertices) and take the shortest one
+			for (int br = graph.firstBranch[endvertex]; br < graph.firstBranch[endvertex+1]; br++)
 			{
-				if (edge.getLength() < lengthtest)
+				final int edge = graph.branchEdge[br];
+				if (graph.edgeRemoved[edge])
+					continue;
+				if (((graph.edgeV1[edge]==predecessor && graph.edgeV2[edge]==endvertex) 
+						|| (graph.edgeV1[edge]==endvertex && graph.edgeV2[edge]==predecessor))
+						&& graph.edgeLength[edge] < lengthtest)
 				{
 					shortestedge = edge;
-					lengthtest = edge.getLength();
+					lengthtest = graph.edgeLength[edge];
 				}
-
 			}
 			// add vertex 1 points
-			Vertex v1 = shortestedge.getV2() != predecessor ?
-						shortestedge.getV2() : shortestedge.getV1();
-			for (Point p : v1.getPoints())
-			{
-				if( ! shortestPathPoints.contains( p ))
-				{
-					shortestPathPoints.add(p);
-					//setPixel(this.shortPathImage, p.x, p.y, p.z, SHORTEST_PATH);
-				}
-			}
+			final boolean reversed = graph.edgeV2[shortestedge] != predecessor;
+			int v1 = reversed ? graph.edgeV2[shortestedge] : graph.edgeV1[shortestedge];
+			addVertexPoints(graph, v1, shortestPathPoints);
 
+			// reverse order of the slabs if needed
+			if( reversed )
+				graph.reverseSlabs( shortestedge );
 			// add slab points of the shortest edge to the list of points
-			ArrayList<Point> slabs = shortestedge.getSlabs();
-			// reverse order if needed
-			if( shortestedge.getV2() != predecessor )
-				Collections.reverse( slabs );
-			for (Point p : slabs)
+			for (int i = graph.slabStart[shortestedge]; i < graph.slabStart[shortestedge+1]; i++)
 			{
+				Point p = graph.point(graph.slabs[i]);
 				shortestPathPoints.add(p);
 				setPixel(this.shortPathImage, p.x, p.y, p.z, SHORTEST_PATH);
 			}
 
 			// add vertex 2 points too
-			Vertex v2 = shortestedge.getV2() != predecessor ?
-					shortestedge.getV1() : shortestedge.getV2();
-			for (Point p : v2.getPoints())
-			{
-				if( ! shortestPathPoints.contains( p ))
-				{
-					shortestPathPoints.add(p);
-					//setPixel(this.shortPathImage, p.x, p.y, p.z, SHORTEST_PATH);
-				}
-			}
+			int v2 = reversed ? graph.edgeV1[shortestedge] : graph.edgeV2[shortestedge];
+			addVertexPoints(graph, v2, shortestPathPoints);
 
 			// now make the index of the endvertex the index of the predecessor so that the path now goes from
 			// a to predecessor and repeat cycle
-			b = predecessorMatrix[a][b];
+			b = predecessors[b];
 		}
 		if (shortestPathPoints.size() != 0)
 		{
@@ -3386,11 +3313,27 @@ public class AnalyzeSkeleton_ implements PlugInFilter, DialogListener
 		}
 
 	}
+
+	/**
+	 * Add the points of a vertex that are not yet in the list of points of the longest shortest path
+	 */
+	private static void addVertexPoints(SkeletonGraph graph, int v, ArrayList<Point> shortestPathPoints)
+	{
+		for (int i = graph.vertexPointStart[v]; i < graph.vertexPointStart[v+1]; i++)
+		{
+			Point p = graph.point(graph.vertexPoints[i]);
+			if( ! shortestPathPoints.contains( p ))
+			{
+				shortestPathPoints.add(p);
+				//setPixel(this.shortPathImage, p.x, p.y, p.z, SHORTEST_PATH);
+			}
+		}
+	}
 	// end method reconstructPath
 
 	/**
 	 * Get the stack containing all the trees labeld with their corresponding
-	 * skeleton id.
+	 * skeleton id (reused by the next run of this instance if the next image has the same size).
 	 *  
 	 * @return labeled-skeleton image stack
 	 */
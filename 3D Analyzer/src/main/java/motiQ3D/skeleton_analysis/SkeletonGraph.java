@@ -0,0 +1,407 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D.skeleton_analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compact graph of one skeleton (tree), replacing the object graph (Graph, Vertex, Edge) during the analysis.
+ * Vertices and edges are numbered in the order they are added (the order of the vertex and edge lists of a Graph).
+ * Voxels (vertex points and slabs) are stored as packed indices (z * height + y) * width + x.
+ * After finish(), the branches of each vertex are available as CSR adjacency (edges of vertex v are
+ * branchEdge [firstBranch [v]] ... branchEdge [firstBranch [v+1]-1], in the order the edges were added).
+ * Vertices and edges can be removed (pruning); removed elements are kept but skipped.
+ * A Graph is created from this graph only on request (toGraph()).
+ * */
+class SkeletonGraph{
+	final int width, height;
+
+	int nVertices = 0, nEdges = 0;
+	/** points of vertex v are vertexPoints [vertexPointStart [v]] ... vertexPoints [vertexPointStart [v+1]-1]*/
+	int vertexPointStart [] = new int [17];
+	long vertexPoints [] = new long [16];
+	boolean vertexRemoved [] = new boolean [16];
+	int root = -1;
+
+	int edgeV1 [] = new int [16], edgeV2 [] = new int [16];
+	double edgeLength [] = new double [16], edgeColor [] = new double [16], edgeColor3rd [] = new double [16], edgeLengthRa [] = new double [16];
+	/** slabs of edge e are slabs [slabStart [e]] ... slabs [slabStart [e+1]-1]; slabs added after the last edge are pending*/
+	int slabStart [] = new int [17];
+	long slabs [] = new long [64];
+	int nSlabs = 0;
+	boolean edgeRemoved [] = new boolean [16];
+
+	int firstBranch [], branchEdge [];
+
+	/** open addressing map from packed voxel index to vertex (keys + 1, 0 = empty)*/
+	private long pointKeys [] = new long [64];
+	private int pointVertex [] = new int [64];
+	private int nMappedPoints = 0;
+
+	private Graph graph = null;
+
+	SkeletonGraph(int width, int height){
+		this.width = width;
+		this.height = height;
+	}
+
+	long index(int x, int y, int z){
+		return ((long) z * height + y) * width + x;
+	}
+
+	long index(Point p){
+		return index(p.x, p.y, p.z);
+	}
+
+	int x(long index){
+		return (int) (index % width);
+	}
+
+	int y(long index){
+		return (int) ((index / width) % height);
+	}
+
+	int z(long index){
+		return (int) (index / ((long) width * height));
+	}
+
+	Point point(long index){
+		return new Point(x(index), y(index), z(index));
+	}
+
+	/**
+	 * adds a vertex consisting of
+	 * @param points
+	 * @return the id of the new vertex
+	 * */
+	int addVertex(ArrayList<Point> points){
+		int v = newVertex(points.size());
+		for(int i = 0; i < points.size(); i++){
+			addVertexPoint(v, vertexPointStart [v] + i, index(points.get(i)));
+		}
+		return v;
+	}
+
+	/**
+	 * adds a vertex consisting of the single point
+	 * @param p
+	 * @return the id of the new vertex
+	 * */
+	int addVertex(Point p){
+		int v = newVertex(1);
+		addVertexPoint(v, vertexPointStart [v], index(p));
+		return v;
+	}
+
+	private int newVertex(int nPoints){
+		if(nVertices == vertexRemoved.length){
+			vertexRemoved = Arrays.copyOf(vertexRemoved, nVertices * 2);
+			vertexPointStart = Arrays.copyOf(vertexPointStart, nVertices * 2 + 1);
+		}
+		int start = vertexPointStart [nVertices];
+		if(start + nPoints > vertexPoints.length){
+			vertexPoints = Arrays.copyOf(vertexPoints, Math.max(vertexPoints.length * 2, start + nPoints));
+		}
+		vertexPointStart [nVertices + 1] = start + nPoints;
+		graph = null;
+		return nVertices++;
+	}
+
+	private void addVertexPoint(int v, int i, long index){
+		vertexPoints [i] = index;
+		if(2 * (nMappedPoints + 1) > pointKeys.length){
+			long oldKeys [] = pointKeys;
+			int oldVertex [] = pointVertex;
+			pointKeys = new long [oldKeys.length * 2];
+			pointVertex = new int [oldKeys.length * 2];
+			for(int j = 0; j < oldKeys.length; j++){
+				if(oldKeys [j] != 0L)	putPoint(oldKeys [j], oldVertex [j]);
+			}
+		}
+		if(putPoint(index + 1L, v))	nMappedPoints++;
+	}
+
+	private boolean putPoint(long key, int v){
+		int mask = pointKeys.length - 1;
+		int slot = hash(key) & mask;
+		while(pointKeys [slot] != 0L){
+			if(pointKeys [slot] == key){
+				return false;	//a point stays with the first vertex it was added to
+			}
+			slot = (slot + 1) & mask;
+		}
+		pointKeys [slot] = key;
+		pointVertex [slot] = v;
+		return true;
+	}
+
+	private static int hash(long key){
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	/**
+	 * @return the vertex the point belongs to, -1 if the point is null or not a vertex point
+	 * */
+	int findPointVertex(Point p){
+		if(p == null)	return -1;
+		return findVertex(index(p));
+	}
+
+	/**
+	 * @return the vertex the voxel with the packed
+	 * @param index belongs to, -1 if the voxel is not a vertex point
+	 * */
+	int findVertex(long index){
+		long key = index + 1L;
+		int mask = pointKeys.length - 1;
+		int slot = hash(key) & mask;
+		while(pointKeys [slot] != 0L){
+			if(pointKeys [slot] == key)	return pointVertex [slot];
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the first point of vertex
+	 * @param v
+	 * */
+	Point firstPoint(int v){
+		return point(vertexPoints [vertexPointStart [v]]);
+	}
+
+	/**
+	 * appends a slab voxel to the pending slabs, which become the slabs of the next edge added
+	 * */
+	void addSlab(Point p){
+		addSlab(index(p));
+	}
+
+	/**
+	 * appends the slab voxel with the packed
+	 * @param index to the pending slabs
+	 * */
+	void addSlab(long index){
+		if(nSlabs == slabs.length){
+			slabs = Arrays.copyOf(slabs, nSlabs * 2);
+		}
+		slabs [nSlabs++] = index;
+	}
+
+	/**
+	 * discards the pending slabs
+	 * */
+	void clearSlabs(){
+		nSlabs = slabStart [nEdges];
+	}
+
+	/**
+	 * @return the number of pending slabs
+	 * */
+	int pendingSlabs(){
+		return nSlabs - slabStart [nEdges];
+	}
+
+	/**
+	 * adds an edge between the vertices v1 and v2, the pending slabs become the slabs of the edge
+	 * @return the id of the new edge
+	 * */
+	int addEdge(int v1, int v2, double length, double color3rd, double color, double length_ra){
+		if(nEdges == edgeRemoved.length){
+			int size = nEdges * 2;
+			edgeV1 = Arrays.copyOf(edgeV1, size);
+			edgeV2 = Arrays.copyOf(edgeV2, size);
+			edgeLength = Arrays.copyOf(edgeLength, size);
+			edgeColor = Arrays.copyOf(edgeColor, size);
+			edgeColor3rd = Arrays.copyOf(edgeColor3rd, size);
+			edgeLengthRa = Arrays.copyOf(edgeLengthRa, size);
+			edgeRemoved = Arrays.copyOf(edgeRemoved, size);
+			slabStart = Arrays.copyOf(slabStart, size + 1);
+		}
+		edgeV1 [nEdges] = v1;
+		edgeV2 [nEdges] = v2;
+		edgeLength [nEdges] = length;
+		edgeColor [nEdges] = color;
+		edgeColor3rd [nEdges] = color3rd;
+		edgeLengthRa [nEdges] = length_ra;
+		slabStart [nEdges + 1] = nSlabs;
+		graph = null;
+		return nEdges++;
+	}
+
+	int slabCount(int e){
+		return slabStart [e + 1] - slabStart [e];
+	}
+
+	/**
+	 * reverses the order of the slabs of edge
+	 * @param e
+	 * */
+	void reverseSlabs(int e){
+		long swap;
+		for(int i = slabStart [e], j = slabStart [e + 1] - 1; i < j; i++, j--){
+			swap = slabs [i];
+			slabs [i] = slabs [j];
+			slabs [j] = swap;
+		}
+		graph = null;
+	}
+
+	/**
+	 * creates the CSR adjacency of the vertices (to be called after all vertices and edges have been added);
+	 * self loops appear only once in the branches of their vertex
+	 * */
+	void finish(){
+		firstBranch = new int [nVertices + 1];
+		for(int e = 0; e < nEdges; e++){
+			firstBranch [edgeV1 [e] + 1]++;
+			if(edgeV1 [e] != edgeV2 [e])	firstBranch [edgeV2 [e] + 1]++;
+		}
+		for(int v = 0; v < nVertices; v++){
+			firstBranch [v + 1] += firstBranch [v];
+		}
+		branchEdge = new int [firstBranch [nVertices]];
+		int fill [] = Arrays.copyOf(firstBranch, nVertices);
+		for(int e = 0; e < nEdges; e++){
+			branchEdge [fill [edgeV1 [e]]++] = e;
+			if(edgeV1 [e] != edgeV2 [e])	branchEdge [fill [edgeV2 [e]]++] = e;
+		}
+	}
+
+	/**
+	 * @return the number of edges of
+	 * @param v that have not been removed
+	 * */
+	int degree(int v){
+		int degree = 0;
+		for(int b = firstBranch [v]; b < firstBranch [v + 1]; b++){
+			if(!edgeRemoved [branchEdge [b]])	degree++;
+		}
+		return degree;
+	}
+
+	/**
+	 * @return the first edge of
+	 * @param v that has not been removed, -1 if there is none
+	 * */
+	int firstLiveBranch(int v){
+		for(int b = firstBranch [v]; b < firstBranch [v + 1]; b++){
+			if(!edgeRemoved [branchEdge [b]])	return branchEdge [b];
+		}
+		return -1;
+	}
+
+	int oppositeVertex(int e, int v){
+		return edgeV1 [e] == v ? edgeV2 [e] : edgeV1 [e];
+	}
+
+	void removeEdge(int e){
+		edgeRemoved [e] = true;
+		graph = null;
+	}
+
+	void removeVertex(int v){
+		vertexRemoved [v] = true;
+		graph = null;
+	}
+
+	/**
+	 * Depth-first search from the root vertex that classifies the edges as tree or back edges
+	 * (same traversal order as Graph.depthFirstSearch()).
+	 * @param visitOrder receives the visit order of each vertex (-1 if not visited)
+	 * @param predecessor receives the edge through which each vertex was reached (-1 for the root and not visited vertices)
+	 * @return the back edges
+	 * */
+	int [] depthFirstSearch(int visitOrder [], int predecessor []){
+		Arrays.fill(visitOrder, -1);
+		Arrays.fill(predecessor, -1);
+		boolean classified [] = new boolean [nEdges];
+		int backEdges [] = new int [0];
+		int nBackEdges = 0;
+		if(root < 0)	return backEdges;
+		//each edge is pushed at most once from each of its vertices
+		int stack [] = new int [2 * nEdges + 1];
+		int stackSize = 0;
+		stack [stackSize++] = root;
+		int order = 0, u, e, ov;
+		while(stackSize > 0){
+			u = stack [--stackSize];
+			if(visitOrder [u] < 0){
+				if(predecessor [u] >= 0)	classified [predecessor [u]] = true;
+				visitOrder [u] = order++;
+				for(int b = firstBranch [u]; b < firstBranch [u + 1]; b++){
+					e = branchEdge [b];
+					if(edgeRemoved [e] || classified [e])	continue;
+					ov = oppositeVertex(e, u);
+					if(visitOrder [ov] < 0){
+						stack [stackSize++] = ov;
+						predecessor [ov] = e;
+					}else{
+						classified [e] = true;
+						if(nBackEdges == backEdges.length)	backEdges = Arrays.copyOf(backEdges, Math.max(4, nBackEdges * 2));
+						backEdges [nBackEdges++] = e;
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(backEdges, nBackEdges);
+	}
+
+	/**
+	 * @return the object graph (Vertex and Edge objects) of this graph, the object graph is created on the first request;
+	 * removed vertices and edges are not included
+	 * */
+	Graph toGraph(){
+		if(graph != null)	return graph;
+		graph = new Graph();
+		Vertex vertex [] = new Vertex [nVertices];
+		for(int v = 0; v < nVertices; v++){
+			vertex [v] = new Vertex();
+			for(int i = vertexPointStart [v]; i < vertexPointStart [v + 1]; i++){
+				vertex [v].addPoint(point(vertexPoints [i]));
+			}
+			if(!vertexRemoved [v])	graph.getVertices().add(vertex [v]);
+		}
+		ArrayList<Point> slabList;
+		Edge edge;
+		for(int e = 0; e < nEdges; e++){
+			if(edgeRemoved [e])	continue;
+			slabList = new ArrayList<Point>(slabCount(e));
+			for(int i = slabStart [e]; i < slabStart [e + 1]; i++){
+				slabList.add(point(slabs [i]));
+			}
+			edge = new Edge(vertex [edgeV1 [e]], vertex [edgeV2 [e]], slabList, edgeLength [e], edgeColor3rd [e], edgeColor [e], edgeLengthRa [e]);
+			//same as Graph.addEdge(), without the (linear) check for duplicates
+			vertex [edgeV1 [e]].setBranch(edge);
+			if(edgeV1 [e] != edgeV2 [e])	vertex [edgeV2 [e]].setBranch(edge);
+			graph.getEdges().add(edge);
+		}
+		if(root >= 0)	graph.setRoot(vertex [root]);
+		return graph;
+	}
+}
@@ -75,6 +75,8 @@ public class SkeletonResult
 
 	/** array of graphs (one per tree) */
 	private Graph[] graph = null;
+	/** compact graphs (one per tree), the graphs are created from these on request */
+	private SkeletonGraph[] skeletonGraph = null;
 
 
 	public SkeletonResult(int numOfTrees)
@@ -171,6 +173,13 @@ public class SkeletonResult
 	public void setGraph(Graph[] graph)
 	{
 		this.graph = graph;
+		this.skeletonGraph = null;
+	}
+
+	void setSkeletonGraphs(SkeletonGraph[] skeletonGraph)
+	{
+		this.graph = null;
+		this.skeletonGraph = skeletonGraph;
 	}
 
 
@@ -265,6 +274,8 @@ public class SkeletonResult
 
 	public Graph[] getGraph()
 	{
+		if(graph == null && skeletonGraph != null)
+			graph = AnalyzeSkeleton_.toGraphs(skeletonGraph);
 		return graph;
 	}
 
@@ -0,0 +1,399 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+package motiQ3D.skeleton_analysis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Finds the longest shortest path of a skeleton graph (replaces the all-pairs Warshall algorithm).
+ * The graph is stored as adjacency arrays, the vertices (that have not been removed from the SkeletonGraph) are numbered in id order.
+ * If the graph is a tree, the path is found with a double sweep of Dijkstra's algorithm.
+ * Otherwise, Dijkstra's algorithm is run from every vertex, skipping vertices whose eccentricity
+ * cannot exceed the longest path found so far (bound from a reference sweep and the triangle inequality).
+ * Ties are resolved as in the Warshall algorithm: the pair of vertices (a,b) that comes first in vertex order is chosen.
+ * Parallel edges and self loops are weighted as in the adjacency matrix of the Warshall algorithm. If a graph with cycles
+ * contains several shortest paths of exactly the same length between a and b, a different one of them may be returned.
+ * */
+class SparsePathEngine{
+	/** relative tolerance used to recognize path lengths that are equal except for rounding errors*/
+	private static final double TIE_TOLERANCE = 1.0E-10;
+
+	private final int nVertices;
+	/** id in the SkeletonGraph of each vertex*/
+	private final int vertexId [];
+	private final int nGraphVertices;
+	/** arcs of vertex i are arcs firstArc [i] ... firstArc [i+1]-1*/
+	private final int firstArc [];
+	private final int arcTarget [];
+	private final double arcLength [];
+	private boolean tree;
+	/** distance of each vertex to itself in the Warshall algorithm (shortest closed path)*/
+	private final double selfDistance [];
+
+	/** predecessors on the shortest paths from the start vertex of the found path*/
+	private int pathPredecessor [];
+	private int pathStart = 0, pathEnd = 0;
+	private double pathLength = 0.0;
+
+	//Dijkstra workspace
+	private final int heap [], heapPosition [];
+	private int heapSize;
+
+	SparsePathEngine(SkeletonGraph graph){
+		nGraphVertices = graph.nVertices;
+		int index [] = new int [nGraphVertices];
+		vertexId = new int [nGraphVertices];
+		int n = 0;
+		for(int v = 0; v < nGraphVertices; v++){
+			if(graph.vertexRemoved [v]){
+				index [v] = -1;
+			}else{
+				index [v] = n;
+				vertexId [n++] = v;
+			}
+		}
+		nVertices = n;
+
+		/*
+		 * resolve edges to vertex indices, as in the adjacency matrix of the Warshall algorithm
+		 * - only the last of several edges connecting the same vertices defines their distance
+		 * - the distance of a vertex to itself is the length of a self loop if that is the last
+		 * 	edge of the vertex in the list of edges, and 0 otherwise
+		 * */
+		int v1 [] = new int [graph.nEdges], v2 [] = new int [graph.nEdges];
+		double length [] = new double [graph.nEdges];
+		int degree [] = new int [nVertices + 1];
+		int nEdges = 0;
+		HashMap<Long,Integer> edgeOfPair = new HashMap<Long,Integer>(2 * graph.nEdges);
+		Integer e;
+		selfDistance = new double [nVertices];
+		Arrays.fill(selfDistance, Double.POSITIVE_INFINITY);
+		boolean complete = true, loops = false;
+		int i1, i2;
+		for(int edge = 0; edge < graph.nEdges; edge++){
+			if(graph.edgeRemoved [edge])	continue;
+			i1 = index [graph.edgeV1 [edge]];
+			i2 = index [graph.edgeV2 [edge]];
+			if(i1 < 0 || i2 < 0){
+				//edge to a removed vertex
+				complete = false;
+				continue;
+			}
+			if(i1 == i2){
+				selfDistance [i1] = graph.edgeLength [edge];
+				loops = true;
+				continue;
+			}
+			selfDistance [i1] = 0.0;
+			selfDistance [i2] = 0.0;
+			e = edgeOfPair.get(Math.min(i1, i2) * (long) nVertices + Math.max(i1, i2));
+			if(e != null){
+				length [e] = graph.edgeLength [edge];
+				continue;
+			}
+			edgeOfPair.put(Math.min(i1, i2) * (long) nVertices + Math.max(i1, i2), nEdges);
+			v1 [nEdges] = i1;
+			v2 [nEdges] = i2;
+			length [nEdges] = graph.edgeLength [edge];
+			degree [i1]++;
+			degree [i2]++;
+			nEdges++;
+		}
+
+		firstArc = new int [nVertices + 1];
+		for(int i = 0; i < nVertices; i++){
+			firstArc [i+1] = firstArc [i] + degree [i];
+		}
+		arcTarget = new int [2 * nEdges];
+		arcLength = new double [2 * nEdges];
+		int fill [] = Arrays.copyOf(firstArc, nVertices);
+		for(int i = 0; i < nEdges; i++){
+			arcTarget [fill [v1 [i]]] = v2 [i];
+			arcLength [fill [v1 [i]]++] = length [i];
+			arcTarget [fill [v2 [i]]] = v1 [i];
+			arcLength [fill [v2 [i]]++] = length [i];
+		}
+
+		//a path to a neighbor and back may be shorter than the self loop
+		for(int i = 0; i < nVertices; i++){
+			for(int a = firstArc [i]; a < firstArc [i+1]; a++){
+				if(2.0 * arcLength [a] < selfDistance [i])	selfDistance [i] = 2.0 * arcLength [a];
+			}
+		}
+
+		//a connected graph with V-1 edges is a tree (connectivity is checked in the first sweep)
+		tree = complete && !loops && nEdges == nVertices - 1;
+
+		heap = new int [nVertices];
+		heapPosition = new int [nVertices];
+	}
+
+	/**
+	 * Determines the longest shortest path of the graph; afterwards the path is available via
+	 * getStart(), getEnd(), getLength() and getPredecessors()
+	 * */
+	void findLongestShortestPath(){
+		if(nVertices < 2)	return;
+		double distance [] = new double [nVertices];
+		int predecessor [] = new int [nVertices];
+		dijkstra(0, distance, predecessor);
+		if(tree){
+			for(int i = 0; i < nVertices; i++){
+				if(distance [i] == Double.POSITIVE_INFINITY){
+					tree = false;
+					break;
+				}
+			}
+		}
+		if(tree){
+			findInTree(distance);
+		}else{
+			findInGraph(distance, predecessor);
+		}
+	}
+
+	/**
+	 * Double sweep: the vertex farthest from any vertex is an end of a diameter (v1), the vertex farthest
+	 * from v1 is the other end (v2). In a tree the eccentricity of each vertex is max(d(v,v1), d(v,v2)),
+	 * so that the first vertex (in vertex order) that is an end of a longest path can be identified.
+	 * @param distanceFrom0 distances from vertex 0
+	 * */
+	private void findInTree(double distanceFrom0 []){
+		int v1 = farthest(distanceFrom0);
+		double distance1 [] = new double [nVertices];
+		int predecessor1 [] = new int [nVertices];
+		dijkstra(v1, distance1, predecessor1);
+		int v2 = farthest(distance1);
+		double diameter = distance1 [v2];
+		if(diameter <= 0.0)	return;
+
+		double distance2 [] = new double [nVertices];
+		int predecessor2 [] = new int [nVertices];
+		dijkstra(v2, distance2, predecessor2);
+
+		double threshold = diameter * (1.0 - TIE_TOLERANCE);
+		int a = v1;
+		for(int i = 0; i < nVertices; i++){
+			if(distance1 [i] >= threshold || distance2 [i] >= threshold){
+				a = i;
+				break;
+			}
+		}
+
+		double pathDistance [];
+		if(a == v1){
+			pathDistance = distance1;
+			pathPredecessor = predecessor1;
+		}else if(a == v2){
+			pathDistance = distance2;
+			pathPredecessor = predecessor2;
+		}else{
+			pathDistance = new double [nVertices];
+			pathPredecessor = new int [nVertices];
+			dijkstra(a, pathDistance, pathPredecessor);
+		}
+		pathStart = a;
+		for(int j = 0; j < nVertices; j++){
+			if(pathDistance [j] >= threshold){
+				pathEnd = j;
+				break;
+			}
+		}
+		pathLength = pathDistance [pathEnd];
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from every vertex that may be the start of a longer path than the longest found so far.
+	 * The eccentricity of a vertex v is at most d(r,v) + eccentricity(r) for the reference vertex r = 0.
+	 * @param distanceFrom0 distances from vertex 0
+	 * @param predecessorFrom0 predecessors on the shortest paths from vertex 0
+	 * */
+	private void findInGraph(double distanceFrom0 [], int predecessorFrom0 []){
+		double eccentricity0 = 0.0;
+		for(int i = 0; i < nVertices; i++){
+			if(distanceFrom0 [i] != Double.POSITIVE_INFINITY && distanceFrom0 [i] > eccentricity0){
+				eccentricity0 = distanceFrom0 [i];
+			}
+		}
+		double distance [] = new double [nVertices];
+		int predecessor [] = new int [nVertices];
+		boolean longer;
+		for(int i = 0; i < nVertices; i++){
+			//only vertices connected to vertex 0 are bounded by the reference sweep
+			if(i > 0 && distanceFrom0 [i] != Double.POSITIVE_INFINITY
+					&& distanceFrom0 [i] + eccentricity0 <= pathLength){
+				continue;
+			}
+			if(i == 0){
+				System.arraycopy(distanceFrom0, 0, distance, 0, nVertices);
+				System.arraycopy(predecessorFrom0, 0, predecessor, 0, nVertices);
+			}else{
+				dijkstra(i, distance, predecessor);
+			}
+			distance [i] = selfDistance [i];
+			longer = false;
+			for(int j = 0; j < nVertices; j++){
+				//paths that are longer only by rounding errors do not replace the path found first
+				if(distance [j] > pathLength * (1.0 + TIE_TOLERANCE) && distance [j] != Double.POSITIVE_INFINITY){
+					pathLength = distance [j];
+					pathStart = i;
+					pathEnd = j;
+					longer = true;
+				}
+			}
+			if(longer)	pathPredecessor = predecessor.clone();
+		}
+	}
+
+	private int farthest(double distance []){
+		int farthest = 0;
+		for(int i = 1; i < nVertices; i++){
+			if(distance [i] > distance [farthest])	farthest = i;
+		}
+		return farthest;
+	}
+
+	/**
+	 * Dijkstra's algorithm with an indexed binary heap
+	 * @param source index of the start vertex
+	 * @param distance receives the lengths of the shortest paths from the source (infinity if not connected)
+	 * @param predecessor receives the predecessor of each vertex on its shortest path from the source (-1 for the source and not connected vertices)
+	 * */
+	private void dijkstra(int source, double distance [], int predecessor []){
+		Arrays.fill(distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(predecessor, -1);
+		Arrays.fill(heapPosition, -1);
+		heapSize = 0;
+		distance [source] = 0.0;
+		push(source, distance);
+		int u, v;
+		double d;
+		while(heapSize > 0){
+			u = pop(distance);
+			for(int a = firstArc [u]; a < firstArc [u+1]; a++){
+				v = arcTarget [a];
+				if(heapPosition [v] == nVertices)	continue;	//already settled
+				d = distance [u] + arcLength [a];
+				if(d < distance [v]){
+					distance [v] = d;
+					predecessor [v] = u;
+					if(heapPosition [v] < 0){
+						push(v, distance);
+					}else{
+						siftUp(heapPosition [v], distance);
+					}
+				}
+			}
+		}
+	}
+
+	private void push(int v, double distance []){
+		heap [heapSize] = v;
+		heapPosition [v] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1, distance);
+	}
+
+	private int pop(double distance []){
+		int top = heap [0];
+		heapSize--;
+		if(heapSize > 0){
+			heap [0] = heap [heapSize];
+			heapPosition [heap [0]] = 0;
+			siftDown(0, distance);
+		}
+		//settled vertices are marked with a position beyond the heap, so that they are never pushed again
+		heapPosition [top] = nVertices;
+		return top;
+	}
+
+	private void siftUp(int i, double distance []){
+		int v = heap [i], parent;
+		while(i > 0){
+			parent = (i - 1) >> 1;
+			if(distance [heap [parent]] <= distance [v])	break;
+			heap [i] = heap [parent];
+			heapPosition [heap [i]] = i;
+			i = parent;
+		}
+		heap [i] = v;
+		heapPosition [v] = i;
+	}
+
+	private void siftDown(int i, double distance []){
+		int v = heap [i], child;
+		while((child = 2 * i + 1) < heapSize){
+			if(child + 1 < heapSize && distance [heap [child + 1]] < distance [heap [child]])	child++;
+			if(distance [heap [child]] >= distance [v])	break;
+			heap [i] = heap [child];
+			heapPosition [heap [i]] = i;
+			i = child;
+		}
+		heap [i] = v;
+		heapPosition [v] = i;
+	}
+
+	/**
+	 * @return the id of the first vertex of the longest shortest path
+	 * */
+	int getStart(){
+		return vertexId [pathStart];
+	}
+
+	/**
+	 * @return the id of the last vertex of the longest shortest path
+	 * */
+	int getEnd(){
+		return vertexId [pathEnd];
+	}
+
+	/**
+	 * @return the length of the longest shortest path (0 if the graph has no path of positive length)
+	 * */
+	double getLength(){
+		return pathLength;
+	}
+
+	/**
+	 * @return the predecessor (vertex id, -1 if none) of each vertex (by id) on its shortest path from getStart()
+	 * */
+	int [] getPredecessors(){
+		int predecessor [] = new int [nGraphVertices];
+		Arrays.fill(predecessor, -1);
+		for(int i = 0; i < nVertices; i++){
+			if(pathPredecessor [i] >= 0)	predecessor [vertexId [i]] = vertexId [pathPredecessor [i]];
+		}
+		return predecessor;
+	}
+
+	/**
+	 * @return true if the graph was processed as a tree (double sweep)
+	 * */
+	boolean isTree(){
+		return tree;
+	}
+}
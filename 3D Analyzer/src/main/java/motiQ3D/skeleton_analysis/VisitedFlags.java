@@ -0,0 +1,92 @@
+/***===============================================================================
+ *
+ * MotiQ_3D Version plugin for ImageJ
+ *
+ * Copyright (C) 2014-2026 Jan N. Hansen
+ * First version: July 28, 2014
+ * This Version: October 18, 2026
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation (http://www.gnu.org/licenses/gpl.txt )
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/gpl-3.0.html>.
+ *
+ * For any questions please feel free to contact me (jan.hansen@uni-bonn.de).
+ *
+ * ===========================================================================**/
+
+
+package motiQ3D.skeleton_analysis;
+
+import java.util.Arrays;
+
+/**
+ * Visited flags of the voxels of a 3D image, stored as generation stamps (one array per slice, index x + y * width):
+ * a voxel is visited if its stamp equals the current generation, so that all flags are reset by starting a new generation.
+ * The flags are reused by all skeleton analyses that run on the same thread (see get(...)).
+ * */
+class VisitedFlags{
+	private static final ThreadLocal<VisitedFlags> threadFlags = new ThreadLocal<VisitedFlags>();
+	
+	private byte stamp [][] = new byte [0][];
+	private byte generation = 0;
+
+	/**
+	 * @return the visited flags of the current thread, with room for an image of
+	 * @param width
+	 * @param height
+	 * @param depth
+	 * The flags are not reset, call reset() before use.
+	 * */
+	static VisitedFlags get(int width, int height, int depth){
+		VisitedFlags flags = threadFlags.get();
+		if(flags == null){
+			flags = new VisitedFlags();
+			threadFlags.set(flags);
+		}
+		flags.ensureSize(width * height, depth);
+		return flags;
+	}
+
+	private void ensureSize(int sliceSize, int depth){
+		if(stamp.length < depth){
+			stamp = Arrays.copyOf(stamp, depth);
+		}
+		for(int z = 0; z < depth; z++){
+			if(stamp [z] == null || stamp [z].length < sliceSize){
+				//new arrays are 0, which is never a current generation
+				stamp [z] = new byte [sliceSize];
+			}
+		}
+	}
+
+	/**
+	 * marks all voxels as not visited
+	 * */
+	void reset(){
+		generation++;
+		if(generation == 0){
+			//all generations used, clear the stamps
+			for(int z = 0; z < stamp.length; z++){
+				if(stamp [z] != null)	Arrays.fill(stamp [z], (byte) 0);
+			}
+			generation = 1;
+		}
+	}
+
+	boolean isVisited(int z, int i){
+		return stamp [z][i] == generation;
+	}
+
+	void setVisited(int z, int i, boolean b){
+		stamp [z][i] = b ? generation : 0;
+	}
+}
@@ -28,7 +28,10 @@ import ij.ImageStack;
 import ij.plugin.filter.PlugInFilter;
 import ij.process.ImageProcessor;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Main class.
@@ -65,6 +68,27 @@ public class Skeletonize3D_ implements PlugInFilter
     /** number of iterations thinning took */
 	private int iterations;
 	
+	/** 
+	 * Memoized simple point test (isSimplePoint) of each 26-neighborhood, the index is the neighborhood pattern 
+	 * (bit i = neighbor i for i < 13, bit i-1 = neighbor i for i > 13). Two bits per neighborhood: 
+	 * 0 = not yet tested, 1 = not simple, 2 = simple. The table is filled on demand and shared by all instances.
+	 * Concurrent updates may lose an entry (which is then tested again) but never store a wrong result.
+	 */
+	private static int[] simplePointLUT = null;
+	
+	/** number of threads used to gather the simple border points (1 = sequential) */
+	private int numberOfThreads = 1;
+	/** minimum number of border points per z-slab to gather them in parallel */
+	private static final int MIN_SLAB_BORDER_POINTS = 4096;
+	/** points that are never deleted (index x + y * width + z * width * height), null = all points may be deleted */
+	private boolean[] fixedPoints = null;
+	/** 
+	 * border list flags and border point lists, kept for the next run of this instance (all flags are false between runs), 
+	 * so that an instance that thins many images of similar size does not allocate them again 
+	 */
+	private boolean[] inBorderList = new boolean[0];
+	private int[] borderPoints = new int[64], mergedBorderPoints = new int[64];
+	
 	/* -----------------------------------------------------------------------*/
 	/**
 	 * This method is called once when the filter is loaded.
@@ -105,9 +129,14 @@ public class Skeletonize3D_ implements PlugInFilter
 		// Compute Thinning	
 		computeThinImage(this.inputImage);
 		
-		// Convert image to binary 0-255
+		// Convert image to binary 0-255 (in the pixel arrays, same as multiplying by 255)
 		for(int i = 1; i <= this.inputImage.getSize(); i++)
-			this.inputImage.getProcessor(i).multiply(255);
+		{
+			final byte[] pixels = (byte[]) this.inputImage.getPixels(i);
+			for(int j = 0; j < pixels.length; j++)
+				if( pixels[j] != 0 )
+					pixels[j] = (byte) 255;
+		}
 		
 		this.inputImage.update(ip);
 	} /* end run */
@@ -153,9 +182,44 @@ public class Skeletonize3D_ implements PlugInFilter
 		int pointsLUT[] = new int[ 256 ];
 		fillnumOfPointsLUT(pointsLUT);
 		
+		final byte[][] slices = new byte[depth][];
+		for (int z = 0; z < depth; z++)
+			slices[z] = (byte[]) outputImage.getPixels(z + 1);
+		final boolean is3D = outputImage.getSize() > 1;
+		final int sliceSize = width * height;
+		
+		// Only border points (foreground points with a background 6-neighbor) can be deleted,
+		// so only a list of the current border points is visited (sorted in the scan order z, y, x of the image)
+		int[] borderPoints = this.borderPoints;
+		int nBorderPoints = 0;
+		if( this.inBorderList.length < sliceSize * depth )
+			this.inBorderList = new boolean[sliceSize * depth];
+		final boolean[] inBorderList = this.inBorderList;
+		int[] merged = this.mergedBorderPoints;
+		for (int z = 0; z < depth; z++)
+			for (int y = 0; y < height; y++)
+				for (int x = 0; x < width; x++)
+					if( slices[z][x + y * width] == 1 && isBorderPoint(slices, x, y, z, is3D)
+							&& (fixedPoints == null || !fixedPoints[x + y * width + z * sliceSize]) )
+					{
+						if( nBorderPoints == borderPoints.length )
+							borderPoints = Arrays.copyOf(borderPoints, 2 * nBorderPoints);
+						borderPoints[nBorderPoints++] = x + y * width + z * sliceSize;
+						inBorderList[x + y * width + z * sliceSize] = true;
+					}
+		
 		// Following Lee[94], save versions (Q) of input image S, while 
 		// deleting each type of border points (R)
-		ArrayList <int[]> simpleBorderPoints = new ArrayList<int[]>();				
+		int[] simpleBorderPoints = new int[64];
+		int nSimpleBorderPoints;
+		int[] newBorderPoints = new int[64];
+		int nNewBorderPoints;
+		
+		final byte[] neighborhood = new byte[27];
+		final int[] simplePoints = getSimplePointLUT();
+		
+		// created on demand if gathering in parallel outside of a ForkJoinPool
+		ForkJoinPool pool = null;
 		
 		iterations = 0;
 		// Loop through the image several times until there is no change.
@@ -170,109 +234,299 @@ public class Skeletonize3D_ implements PlugInFilter
 
 				boolean noChange = true;				
 				
-				// Loop through the image.				 
-				for (int z = 0; z < depth; z++)
+				// Gather the simple border points (read-only, in parallel z-slabs for large images)
+				final GatherSlab[] slabs = createSlabs(slices, is3D, currentBorder, borderPoints, nBorderPoints, eulerLUT, simplePoints);
+				if( slabs.length == 1 )
+					slabs[0].compute();
+				else if( ForkJoinTask.inForkJoinPool() )
+					ForkJoinTask.invokeAll(slabs);
+				else
 				{
-					for (int y = 0; y < height; y++)
-					{
-						for (int x = 0; x < width; x++)						
-						{
-
-							// check if point is foreground
-							if ( getPixelNoCheck(outputImage, x, y, z) != 1 )
-							{
-								continue;         // current point is already background 
-							}
-																				
-							// check 6-neighbors if point is a border point of type currentBorder
-							boolean isBorderPoint = false;
-							// North
-							if( currentBorder == 1 && N(outputImage, x, y, z) <= 0 )
-								isBorderPoint = true;
-							// South
-							if( currentBorder == 2 && S(outputImage, x, y, z) <= 0 )
-								isBorderPoint = true;
-							// East
-							if( currentBorder == 3 && E(outputImage, x, y, z) <= 0 )
-								isBorderPoint = true;
-							// West
-							if( currentBorder == 4 && W(outputImage, x, y, z) <= 0 )
-								isBorderPoint = true;
-							if(outputImage.getSize() > 1)
-							{
-								// Up							
-								if( currentBorder == 5 && U(outputImage, x, y, z) <= 0 )
-									isBorderPoint = true;
-								// Bottom
-								if( currentBorder == 6 && B(outputImage, x, y, z) <= 0 )
-									isBorderPoint = true;
-							}
-							if( !isBorderPoint )
-							{
-								continue;         // current point is not deletable
-							}
-
-							if( isEndPoint( outputImage, x, y, z))
-							{
-								continue;
-							}
-
-							final byte[] neighborhood = getNeighborhood(outputImage, x, y, z);
-							
-							// Check if point is Euler invariant (condition 1 in Lee[94])
-							if( !isEulerInvariant( neighborhood, eulerLUT ) )
-							{
-								continue;         // current point is not deletable
-							}
-
-							// Check if point is simple (deletion does not change connectivity in the 3x3x3 neighborhood)
-							// (conditions 2 and 3 in Lee[94])
-							if( !isSimplePoint( neighborhood ) )
-							{
-								continue;         // current point is not deletable
-							}
-
-
-
-							// add all simple border points to a list for sequential re-checking
-							int[] index = new int[3];
-							index[0] = x;
-							index[1] = y;
-							index[2] = z;
-							simpleBorderPoints.add(index);
-						}
-					}					
-					IJ.showProgress(z, this.depth);				
-				}							
-
+					if( pool == null )
+						pool = new ForkJoinPool(this.numberOfThreads);
+					pool.invoke(new GatherAll(slabs));
+				}
+				nSimpleBorderPoints = 0;
+				for (int s = 0; s < slabs.length; s++)
+				{
+					if( nSimpleBorderPoints + slabs[s].size > simpleBorderPoints.length )
+						simpleBorderPoints = Arrays.copyOf(simpleBorderPoints, 2 * (nSimpleBorderPoints + slabs[s].size));
+					System.arraycopy(slabs[s].points, 0, simpleBorderPoints, nSimpleBorderPoints, slabs[s].size);
+					nSimpleBorderPoints += slabs[s].size;
+				}
+				IJ.showProgress(currentBorder, 6);
 
 				// sequential re-checking to preserve connectivity when
 				// deleting in a parallel way
-				int[] index;
-
-				for (int[] simpleBorderPoint : simpleBorderPoints) {
-					index = simpleBorderPoint;
+				nNewBorderPoints = 0;
+				for (int i = 0; i < nSimpleBorderPoints; i++) {
+					final int index = simpleBorderPoints[i];
+					final int z = index / sliceSize;
+					final int y = (index % sliceSize) / width;
+					final int x = index % width;
 
 					// Check if border points is simple			        
-					if (isSimplePoint(getNeighborhood(outputImage, index[0], index[1], index[2]))) {
+					if (isSimplePoint(getNeighborhood(slices, x, y, z, neighborhood), neighborhood, simplePoints)) {
 						// we can delete the current point
-						setPixel(outputImage, index[0], index[1], index[2], (byte) 0);
+						slices[z][x + y * width] = 0;
 						noChange = false;
+						
+						// foreground 6-neighbors of the deleted point become border points
+						if( nNewBorderPoints + 6 > newBorderPoints.length )
+							newBorderPoints = Arrays.copyOf(newBorderPoints, 2 * newBorderPoints.length + 6);
+						nNewBorderPoints = addBorderPoint(slices, inBorderList, x, y-1, z, newBorderPoints, nNewBorderPoints);
+						nNewBorderPoints = addBorderPoint(slices, inBorderList, x, y+1, z, newBorderPoints, nNewBorderPoints);
+						nNewBorderPoints = addBorderPoint(slices, inBorderList, x+1, y, z, newBorderPoints, nNewBorderPoints);
+						nNewBorderPoints = addBorderPoint(slices, inBorderList, x-1, y, z, newBorderPoints, nNewBorderPoints);
+						if(is3D)
+						{
+							nNewBorderPoints = addBorderPoint(slices, inBorderList, x, y, z+1, newBorderPoints, nNewBorderPoints);
+							nNewBorderPoints = addBorderPoint(slices, inBorderList, x, y, z-1, newBorderPoints, nNewBorderPoints);
+						}
 					}
-
-
 				}
 
 				if( noChange )
 					unchangedBorders++;
-
-				simpleBorderPoints.clear();
+				else
+				{
+					// update the list of border points: remove deleted points and merge the new border points (keeping the scan order)
+					Arrays.sort(newBorderPoints, 0, nNewBorderPoints);
+					if( merged.length < nBorderPoints + nNewBorderPoints )
+						merged = new int[nBorderPoints + nNewBorderPoints];
+					int nMerged = 0, j = 0;
+					for (int i = 0; i < nBorderPoints; i++)
+					{
+						final int index = borderPoints[i];
+						if( slices[index / sliceSize][index % sliceSize] != 1 )
+						{
+							inBorderList[index] = false;
+							continue;
+						}
+						while( j < nNewBorderPoints && newBorderPoints[j] < index )
+							merged[nMerged++] = newBorderPoints[j++];
+						merged[nMerged++] = index;
+					}
+					while( j < nNewBorderPoints )
+						merged[nMerged++] = newBorderPoints[j++];
+					final int[] swap = borderPoints;
+					borderPoints = merged;
+					merged = swap;
+					nBorderPoints = nMerged;
+				}
 			} // end currentBorder for loop
 		}
+		if( pool != null )
+			pool.shutdown();
+		
+		// the remaining border points are the only flags set, clear them for the next run
+		for (int i = 0; i < nBorderPoints; i++)
+			inBorderList[borderPoints[i]] = false;
+		this.borderPoints = borderPoints;
+		this.mergedBorderPoints = merged;
 
 		IJ.showStatus("Computed thin image.");
 	} /* end computeThinImage */	
 	
+	/**
+	 * Set the number of threads used to gather the simple border points of each thinning sub-iteration.
+	 * The border points are split into z-slabs that are checked in parallel, the candidates are re-checked 
+	 * sequentially, so the result does not depend on the number of threads. If called from a ForkJoinPool
+	 * the slabs are processed by the threads of that pool.
+	 * 
+	 * @param threads number of threads (1 = sequential, default)
+	 */
+	public void setNumberOfThreads(int threads)
+	{
+		this.numberOfThreads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Set points that are kept during thinning, e.g. to re-thin only a region of an image whose
+	 * remainder is already thin. Fixed points are never added to the border points, but they 
+	 * remain foreground in the neighborhoods of the other points.
+	 * 
+	 * @param fixedPoints true for the points to keep (index x + y * width + z * width * height),
+	 * null = all points may be deleted (default)
+	 */
+	public void setFixedPoints(boolean[] fixedPoints)
+	{
+		this.fixedPoints = fixedPoints;
+	}
+	
+	/**
+	 * Split the (sorted) list of border points into z-slabs for gathering the simple border points.
+	 * 
+	 * @return a single slab with all border points if the list is too short for parallel processing
+	 */
+	private GatherSlab[] createSlabs(byte[][] slices, boolean is3D, int currentBorder, int[] borderPoints, int nBorderPoints,
+			int[] eulerLUT, int[] simplePoints)
+	{
+		int nSlabs = Math.min(Math.min(4 * this.numberOfThreads, this.depth), nBorderPoints / MIN_SLAB_BORDER_POINTS);
+		if( this.numberOfThreads < 2 || nSlabs < 2 )
+			nSlabs = 1;
+		final GatherSlab[] slabs = new GatherSlab[nSlabs];
+		final int sliceSize = this.width * this.height;
+		int first = 0, end;
+		for (int s = 0; s < nSlabs; s++)
+		{
+			end = nBorderPoints;
+			if( s < nSlabs - 1 )
+			{
+				// first border point in the first slice of the next slab
+				end = Arrays.binarySearch(borderPoints, first, nBorderPoints, (s + 1) * this.depth / nSlabs * sliceSize);
+				if( end < 0 )
+					end = -end - 1;
+			}
+			slabs[s] = new GatherSlab(slices, is3D, currentBorder, borderPoints, first, end, eulerLUT, simplePoints);
+			first = end;
+		}
+		return slabs;
+	}
+	
+	/**
+	 * Gathers the simple border points of type currentBorder in a range of the border point list (a z-slab).
+	 * Only reads the image, so slabs can be processed in parallel.
+	 */
+	private class GatherSlab extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final byte[][] slices;
+		private final boolean is3D;
+		private final int currentBorder, first, end;
+		private final int[] borderPoints, eulerLUT, simplePoints;
+		/** gathered simple border points (in the order of the border point list) */
+		int[] points = new int[64];
+		int size = 0;
+		
+		GatherSlab(byte[][] slices, boolean is3D, int currentBorder, int[] borderPoints, int first, int end,
+				int[] eulerLUT, int[] simplePoints)
+		{
+			this.slices = slices;
+			this.is3D = is3D;
+			this.currentBorder = currentBorder;
+			this.borderPoints = borderPoints;
+			this.first = first;
+			this.end = end;
+			this.eulerLUT = eulerLUT;
+			this.simplePoints = simplePoints;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			final int sliceSize = width * height;
+			final byte[] neighborhood = new byte[27];
+			for (int i = first; i < end; i++)
+			{
+				final int index = borderPoints[i];
+				final int z = index / sliceSize;
+				final int y = (index % sliceSize) / width;
+				final int x = index % width;
+
+				// check 6-neighbors if point is a border point of type currentBorder
+				boolean isBorderPoint = false;
+				// North
+				if( currentBorder == 1 && getPixel(slices, x, y-1, z) <= 0 )
+					isBorderPoint = true;
+				// South
+				if( currentBorder == 2 && getPixel(slices, x, y+1, z) <= 0 )
+					isBorderPoint = true;
+				// East
+				if( currentBorder == 3 && getPixel(slices, x+1, y, z) <= 0 )
+					isBorderPoint = true;
+				// West
+				if( currentBorder == 4 && getPixel(slices, x-1, y, z) <= 0 )
+					isBorderPoint = true;
+				if(is3D)
+				{
+					// Up							
+					if( currentBorder == 5 && getPixel(slices, x, y, z+1) <= 0 )
+						isBorderPoint = true;
+					// Bottom
+					if( currentBorder == 6 && getPixel(slices, x, y, z-1) <= 0 )
+						isBorderPoint = true;
+				}
+				if( !isBorderPoint )
+				{
+					continue;         // current point is not deletable
+				}
+
+				final int pattern = getNeighborhood(slices, x, y, z, neighborhood);
+
+				// end point: exactly one neighbor
+				if( Integer.bitCount(pattern) == 1 )
+				{
+					continue;
+				}
+
+				// Check if point is Euler invariant (condition 1 in Lee[94])
+				if( !isEulerInvariant( neighborhood, eulerLUT ) )
+				{
+					continue;         // current point is not deletable
+				}
+
+				// Check if point is simple (deletion does not change connectivity in the 3x3x3 neighborhood)
+				// (conditions 2 and 3 in Lee[94])
+				if( !isSimplePoint( pattern, neighborhood, simplePoints ) )
+				{
+					continue;         // current point is not deletable
+				}
+
+				// add all simple border points to a list for sequential re-checking
+				if( size == points.length )
+					points = Arrays.copyOf(points, 2 * size);
+				points[size++] = index;
+			}
+		}
+	}
+	
+	/** runs the slabs in a ForkJoinPool */
+	private static class GatherAll extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final GatherSlab[] slabs;
+		
+		GatherAll(GatherSlab[] slabs)
+		{
+			this.slabs = slabs;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			invokeAll(slabs);
+		}
+	}
+	
+	/**
+	 * Check if a foreground point has a background point (or the image border) among its 6-neighbors
+	 * (only in x and y if the image is 2D).
+	 */
+	private boolean isBorderPoint(byte[][] slices, int x, int y, int z, boolean is3D)
+	{
+		return getPixel(slices, x, y-1, z) <= 0 || getPixel(slices, x, y+1, z) <= 0
+				|| getPixel(slices, x+1, y, z) <= 0 || getPixel(slices, x-1, y, z) <= 0
+				|| (is3D && (getPixel(slices, x, y, z+1) <= 0 || getPixel(slices, x, y, z-1) <= 0));
+	}
+	
+	/**
+	 * Add a point to the new border points if it is a foreground point that is neither fixed nor yet in the list of border points.
+	 * 
+	 * @return the new number of new border points
+	 */
+	private int addBorderPoint(byte[][] slices, boolean[] inBorderList, int x, int y, int z, int[] newBorderPoints, int nNewBorderPoints)
+	{
+		if( getPixel(slices, x, y, z) != 1 )
+			return nNewBorderPoints;
+		final int index = x + y * width + z * width * height;
+		if( inBorderList[index] || (fixedPoints != null && fixedPoints[index]) )
+			return nNewBorderPoints;
+		inBorderList[index] = true;
+		newBorderPoints[nNewBorderPoints] = index;
+		return nNewBorderPoints + 1;
+	}
+	
 	
 	/**
 	 * Check if a point in the given stack is at the end of an arc
@@ -349,6 +603,46 @@ public class Skeletonize3D_ implements PlugInFilter
 		return neighborhood;
 	} /* end getNeighborhood */
 	
+	/* -----------------------------------------------------------------------*/
+	/**
+	 * Get neighborhood of a pixel in a 3D image (0 border conditions) 
+	 * 
+	 * @param slices pixel arrays of the slices of the 3D image
+	 * @param x x- coordinate
+	 * @param y y- coordinate
+	 * @param z z- coordinate (starting at 0)
+	 * @param neighborhood receives the corresponding 27-pixels neighborhood (0 if out of image)
+	 * @return the neighborhood pattern (bits of the 26 neighbors with value 1, see simplePointLUT)
+	 */
+	private int getNeighborhood(byte[][] slices, int x, int y, int z, byte[] neighborhood)
+	{
+		int pattern = 0, bit = 1, i = 0;
+		final boolean xInside = x > 0 && x < this.width - 1;
+		for( int dz = -1; dz < 2; dz++ )
+		{
+			final byte[] slice = (z + dz >= 0 && z + dz < this.depth) ? slices[z + dz] : null;
+			for( int dy = -1; dy < 2; dy++ )
+			{
+				final boolean rowInside = slice != null && y + dy >= 0 && y + dy < this.height;
+				int index = x - 1 + (y + dy) * this.width;
+				for( int dx = -1; dx < 2; dx++, index++, i++ )
+				{
+					if( rowInside && (xInside || (x + dx >= 0 && x + dx < this.width)) )
+						neighborhood[i] = slice[index];
+					else
+						neighborhood[i] = 0;
+					if( i != 13 )
+					{
+						if( neighborhood[i] == 1 )
+							pattern |= bit;
+						bit <<= 1;
+					}
+				}
+			}
+		}
+		return pattern;
+	} /* end getNeighborhood */
+	
 	/* -----------------------------------------------------------------------*/
 	/**
 	 * Get pixel in 3D image (0 border conditions) 
@@ -368,19 +662,20 @@ public class Skeletonize3D_ implements PlugInFilter
 	
 	/* -----------------------------------------------------------------------*/
 	/**
-	 * Get pixel in 3D image (no border checking) 
+	 * Get pixel in 3D image (0 border conditions) 
 	 * 
-	 * @param image 3D image
+	 * @param slices pixel arrays of the slices of the 3D image
 	 * @param x x- coordinate
 	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding pixel
+	 * @param z z- coordinate (starting at 0)
+	 * @return corresponding pixel (0 if out of image)
 	 */
-	private byte getPixelNoCheck(ImageStack image, int x, int y, int z)
-	{		
-		return ((byte[]) image.getPixels(z + 1))[x + y * this.width];		
-	} /* end getPixelNocheck */
-	
+	private byte getPixel(byte[][] slices, int x, int y, int z)
+	{
+		if(x >= 0 && x < this.width && y >= 0 && y < this.height && z >= 0 && z < this.depth)
+			return slices[z][x + y * this.width];
+		else return 0;
+	} /* end getPixel */
 	
 	/* -----------------------------------------------------------------------*/
 	/**
@@ -398,96 +693,6 @@ public class Skeletonize3D_ implements PlugInFilter
 			((byte[]) image.getPixels(z + 1))[x + y * this.width] = value;
 	} /* end setPixel */
 
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * North neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding north pixel
-	 */
-	private byte N(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x, y-1, z);
-	} /* end N */
-	
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * South neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding south pixel
-	 */
-	private byte S(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x, y+1, z);
-	} /* end S */
-	
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * East neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding east pixel
-	 */
-	private byte E(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x+1, y, z);
-	} /* end E */
-	
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * West neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding west pixel
-	 */
-	private byte W(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x-1, y, z);
-	} /* end W */
-	
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * Up neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding up pixel
-	 */
-	private byte U(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x, y, z+1);
-	} /* end U */
-	
-	/* -----------------------------------------------------------------------*/
-	/**
-	 * Bottom neighborhood (0 border conditions) 
-	 * 
-	 * @param image 3D image
-	 * @param x x- coordinate
-	 * @param y y- coordinate
-	 * @param z z- coordinate (in image stacks the indexes start at 1)
-	 * @return corresponding bottom pixel
-	 */
-	private byte B(ImageStack image, int x, int y, int z)
-	{
-		return getPixel(image, x, y, z-1);
-	} /* end B */
-	
 	/* -----------------------------------------------------------------------*/
 	/**
 	 * Fill Euler LUT
@@ -850,6 +1055,36 @@ public class Skeletonize3D_ implements PlugInFilter
 		return n;
 	}
 	
+	/* -----------------------------------------------------------------------*/
+	/**
+	 * Check if current point is a Simple Point, using the memoized results (simplePointLUT).
+	 * 
+	 * @param pattern neighborhood pattern of the point
+	 * @param neighbors neighbor pixels of the point
+	 * @param lut the table of memoized results
+	 * @return true or false if the point is simple or not
+	 */
+	private boolean isSimplePoint(int pattern, byte[] neighbors, int[] lut) 
+	{
+		final int shift = (pattern & 15) << 1;
+		final int entry = (lut[pattern >>> 4] >>> shift) & 3;
+		if( entry != 0 )
+			return entry == 2;
+		final boolean simple = isSimplePoint(neighbors);
+		lut[pattern >>> 4] |= (simple ? 2 : 1) << shift;
+		return simple;
+	}
+	
+	/**
+	 * @return the table of memoized simple point tests (created on the first call)
+	 */
+	private static synchronized int[] getSimplePointLUT()
+	{
+		if( simplePointLUT == null )
+			simplePointLUT = new int[1 << 22];
+		return simplePointLUT;
+	}
+	
 	/* -----------------------------------------------------------------------*/
 	/**
 	 * Check if current point is a Simple Point.
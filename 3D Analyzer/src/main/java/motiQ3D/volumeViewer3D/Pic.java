@@ -24,6 +24,10 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.swing.SwingWorker;
 import javax.swing.UIManager;
@@ -571,6 +575,10 @@ public  class Pic {
 	}
 
 	private int maxThreads = 8;
+	/** edge length of the square tiles of the tile renderer (render_volumeOffscreen) */
+	private static final int TILE_SIZE = 16;
+	/** pool of the tile renderer, sized to the available processors and created on first use */
+	private static ForkJoinPool renderPool = null;
 	private int numThreads = 1;
 	private int subMax;
 	private int counter = 0;
@@ -581,6 +589,8 @@ public  class Pic {
 	private float[] light;
 	private boolean lastReady;
 	private boolean isRGB;
+	/** bricks of the brick map of the volume that rays may skip (null if empty space skipping is not possible) */
+	private boolean[] emptyBricks;
 
 
 	public void render_volume(int sub){
@@ -589,12 +599,53 @@ public  class Pic {
 		isRendering = true;
 		counter = numThreads = (sub == subMax) ? 1 : maxThreads;
 		
-		setPixelsToZero();
-
 		int actualInterpolationMode = control.interpolationMode;
 		if (sub > 1)
 			control.interpolationMode = Control.NN;
 
+		RenderCalculations calculations = initVolumeRendering(sub);
+		int stripHeight = (calculations.ySmax-calculations.ySmin) / numThreads;
+		stripHeight = (stripHeight/sub) *sub;
+		int stripStart = calculations.ySmin;
+		for(int i = 0; i < numThreads; i++, stripStart += stripHeight) 
+			new RenderStrip(calculations, stripStart, stripStart+stripHeight).execute();
+			
+		control.interpolationMode = actualInterpolationMode;			
+	}
+
+	/**
+	 * Renders the volume at full resolution and returns when the image is complete. In contrast to startVolumeRendering(),
+	 * there is no progressive refinement and the Gui is not notified, so that no Gui needs to be constructed (offscreen rendering).
+	 * The image is split into small tiles, which are rendered in a ForkJoinPool sized to the available processors (or in the
+	 * pool of the calling thread, if called from a ForkJoinPool).
+	 * This method was integrated by JN Hansen 
+	 * */
+	void render_volumeOffscreen(){
+		if (control.LOG) System.out.println("render volume offscreen");
+		sub = 1;
+		RenderCalculations calculations = initVolumeRendering(sub);
+		RenderTiles tiles = new RenderTiles(calculations, 0, calculations.nTiles());
+		if (ForkJoinTask.inForkJoinPool())
+			tiles.invoke();
+		else
+			getRenderPool().invoke(tiles);
+		updateImage();
+	}
+
+	private static synchronized ForkJoinPool getRenderPool() {
+		if (renderPool == null)
+			renderPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		return renderPool;
+	}
+
+	/**
+	 * Clears the image and prepares the transfer function, the gradients and the light for rendering with the subsampling
+	 * @param sub
+	 * @return the ray caster for the screen region covered by the volume
+	 * */
+	private RenderCalculations initVolumeRendering(int sub){
+		setPixelsToZero();
+
 		getXYRenderingBoundsSlice(); 
 		
 		// light 
@@ -631,8 +682,9 @@ public  class Pic {
 		dzV  /= sample;
 
 		if (control.alphaMode == Control.ALPHA1) {
+			int[] a1 = vv.getA1();
 			for (int i = 0; i < vv.a1_R.length; i++) {
-				float a = (vv.tf_a1.a1[i])/255f; 
+				float a = (a1[i])/255f; 
 				if (a < 0) a = 0;
 				a = a * a;
 				vv.a1_R[i] = Math.min(1,a/sample); 		
@@ -664,43 +716,36 @@ public  class Pic {
 
 		volData3D = vv.vol.data3D[0];
 		
+		// empty space skipping, the interpolated values must not exceed the range of the voxels read (not for tricubic interpolation)
+		if (control.alphaMode == Control.ALPHA1 && control.interpolationMode <= Control.TRILINEAR)
+			emptyBricks = vv.vol.getEmptyBricks(vv.a1_R);
+		else
+			emptyBricks = null;
+		
 		ySmin = (ySmin/sub)*sub;
-		int stripHeight = (ySmax-ySmin) / numThreads;
-		stripHeight = (stripHeight/sub) *sub;
-		int stripStart = ySmin;
 
 		isRGB = control.isRGB && control.lutNr == 0;
 		
-		for(int i = 0; i < numThreads-1; i++, stripStart += stripHeight) 
-			new RenderCalculations(sub, nd, dxV, dyV, dzV, xSmin, xSmax, stripStart, stripStart+stripHeight, zSmin).execute();
-		new RenderCalculations(sub, nd, dxV, dyV, dzV, xSmin, xSmax, stripStart, stripStart+stripHeight, zSmin).execute();
-			
-		control.interpolationMode = actualInterpolationMode;			
+		return new RenderCalculations(sub, nd, dxV, dyV, dzV, xSmin, xSmax, ySmin, ySmax, zSmin);
 	}
 
+	/** renders a horizontal strip of the image in a SwingWorker and continues the progressive refinement when all strips are done */
+	private class RenderStrip extends SwingWorker<Void, Void> {
 
-	private class RenderCalculations extends SwingWorker<Void, Void> {
-
-		private int sub, nd, xSMin, xSMax, ySMin, ySMax;
-		private float dxV, dyV, dzV, zSMin;
+		private RenderCalculations calculations;
+		private int sub, ySMin, ySMax;
 		
-		public RenderCalculations(int sub, int nd, float dxV, float dyV, float dzV, 
-				int xSMin, int xSMax, int ySMin, int ySMax, float zSMin) {
-			this.sub = sub;
-			this.nd = nd;
-			this.dxV = dxV;
-			this.dyV = dyV;
-			this.dzV = dzV; 
-			this.xSMin = xSMin;
-			this.xSMax = xSMax;
+		public RenderStrip(RenderCalculations calculations, int ySMin, int ySMax) {
+			this.calculations = calculations;
+			this.sub = calculations.sub;
 			this.ySMin = ySMin;
 			this.ySMax = ySMax;
-			this.zSMin = zSMin;
 		}
 
 		@Override
 		protected Void doInBackground(){
-			return doRendering();
+			calculations.render(calculations.xSmin, calculations.xSmax, ySMin, ySMax);
+			return null;
 		}
 
 		@Override
@@ -736,8 +781,73 @@ public  class Pic {
 				}
 			}
 		}
+	}
 
-		private Void doRendering() {
+	/** renders the tiles first ... end-1 (numbered row by row) of the image, splitting the range until a single tile remains */
+	private static class RenderTiles extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final RenderCalculations calculations;
+		private final int first, end;
+		
+		RenderTiles(RenderCalculations calculations, int first, int end) {
+			this.calculations = calculations;
+			this.first = first;
+			this.end = end;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - first == 1) {
+				calculations.renderTile(first);
+				return;
+			}
+			int middle = (first + end) >>> 1;
+			invokeAll(new RenderTiles(calculations, first, middle), new RenderTiles(calculations, middle, end));
+		}
+	}
+
+	/** 
+	 * casts the rays for the screen region xSmin - xSmax, ySmin - ySmax covered by the volume, 
+	 * writes directly to the pixels (parts of the region may be rendered in parallel)
+	 * */
+	private class RenderCalculations {
+
+		private int sub, nd, xSmin, xSmax, ySmin, ySmax;
+		private float dxV, dyV, dzV, zSMin;
+		
+		public RenderCalculations(int sub, int nd, float dxV, float dyV, float dzV, 
+				int xSmin, int xSmax, int ySmin, int ySmax, float zSMin) {
+			this.sub = sub;
+			this.nd = nd;
+			this.dxV = dxV;
+			this.dyV = dyV;
+			this.dzV = dzV; 
+			this.xSmin = xSmin;
+			this.xSmax = xSmax;
+			this.ySmin = ySmin;
+			this.ySmax = ySmax;
+			this.zSMin = zSMin;
+		}
+		
+		/** @return the number of tiles of the tile renderer */
+		int nTiles() {
+			int nTilesX = (xSmax - xSmin + TILE_SIZE - 1) / TILE_SIZE;
+			int nTilesY = (ySmax - ySmin + TILE_SIZE - 1) / TILE_SIZE;
+			return Math.max(1, nTilesX * nTilesY);
+		}
+		
+		/** 
+		 * renders the
+		 * @param tile (tiles of TILE_SIZE x TILE_SIZE pixels numbered row by row, see nTiles())
+		 * */
+		void renderTile(int tile) {
+			int nTilesX = Math.max(1, (xSmax - xSmin + TILE_SIZE - 1) / TILE_SIZE);
+			int xS = xSmin + (tile % nTilesX) * TILE_SIZE;
+			int yS = ySmin + (tile / nTilesX) * TILE_SIZE;
+			render(xS, Math.min(xS + TILE_SIZE, xSmax), yS, Math.min(yS + TILE_SIZE, ySmax));
+		}
+
+		void render(int xSMin, int xSMax, int ySMin, int ySMax) {
 			int s_2 = sub/2;
 
 			// Startpunkt xSMin ySMin zSMin (tiefster Punkt) in Screenkoordinaten
@@ -754,12 +864,12 @@ public  class Pic {
 
 			for (int yS = ySMin; yS < ySMax; yS++) {				
 				for (int j=0, xS = xSMin; xS < xSMax; xS++, j++) {
-					if (doStopRendering) return null;
+					if (doStopRendering) return;
 					if (vv.cube.isInside(xS, yS)) {
 						if (yS%sub == 0 && xS%sub == 0) {
 							boolean hasBeenInTheVolume = false;
 
-							float rand = (float) (-Math.random());
+							float rand = -ThreadLocalRandom.current().nextFloat();
 							float xV = x0V + j*dxVx + rand*dxV; 
 							float yV = y0V + j*dyVx + rand*dyV; 
 							float zV = z0V + j*dzVx + rand*dzV; 
@@ -797,6 +907,24 @@ public  class Pic {
 								if (xV >= 0 && xV <= vv.vol.widthV && yV >= 0 && yV <= vv.vol.heightV && zV >= 0 && zV <= vv.vol.depthV) { 
 									hasBeenInTheVolume = true;
 									
+									if (emptyBricks != null) {
+										// brick of the voxels read by the interpolation
+										int xB = ((int)(xV+0.5f)+1) >> Volume.BRICK_SHIFT;
+										int yB = ((int)(yV+0.5f)+1) >> Volume.BRICK_SHIFT;
+										int zB = ((int)(zV+0.5f)+1) >> Volume.BRICK_SHIFT;
+										if (emptyBricks[(zB*vv.vol.nBricksY + yB)*vv.vol.nBricksX + xB]) {
+											// skip the samples inside the brick
+											int m = Math.min(stepsInBrick(xV, dxV, xB), Math.min(stepsInBrick(yV, dyV, yB), stepsInBrick(zV, dzV, zB)));
+											if (m > 1) {
+												n += m-1;
+												xV += (m-1)*dxV;
+												yV += (m-1)*dyV;
+												zV += (m-1)*dzV;
+											}
+											continue;
+										}
+									}
+									
 									if (control.alphaMode == Control.ALPHA1) {
 										val = interpolation.get(volData3D, zV, yV, xV);
 										a = vv.a1_R[val];
@@ -963,11 +1091,27 @@ public  class Pic {
 				y0V += dyVy; 
 				z0V += dzVy; 
 			}
-			return null;
 		}
 	}
 	
 	
+	/**
+	 * @return the number of steps of length
+	 * @param d from the position
+	 * @param v (volume coordinate along one axis) for which the samples are certainly still inside brick
+	 * @param b of the brick map (along the axis)
+	 * */
+	private static int stepsInBrick(float v, float d, int b) {
+		float dist;
+		if (d > 0) 
+			dist = (b+1)*Volume.BRICK_SIZE - 1.5f - v;
+		else if (d < 0)
+			dist = v - (b*Volume.BRICK_SIZE - 1.5f);
+		else 
+			return Integer.MAX_VALUE;
+		return (int) ((dist - 0.01f) / Math.abs(d));
+	}
+	
 	public void render_sphere(){
 		if (control.LOG) System.out.println("render sphere");
 		
@@ -1185,8 +1329,9 @@ public  class Pic {
 		});
 
 		Color color = (control.showClipLines) ? Color.ORANGE : new Color (0,0,0,0);
-		for (int i = 0; i < 6; i++)
-			vv.gui.imageRegion.setClipLine(i, x[id[i]], y[id[i]], x[id[(i+1)%6]], y[id[(i+1)%6]], -1, color);
+		if (vv.gui != null)
+			for (int i = 0; i < 6; i++)
+				vv.gui.imageRegion.setClipLine(i, x[id[i]], y[id[i]], x[id[(i+1)%6]], y[id[(i+1)%6]], -1, color);
 
 		xSMin --;
 		xSMax ++;
@@ -66,6 +66,18 @@ public class TFalpha1 extends JPanel implements MouseListener, MouseMotionListen
 	}
 
 	public void scaleAlpha() {
+		scaleAlpha(alpha1, alphaOffset, a1);
+		control.alphaWasChanged = true;
+	}
+
+	/**
+	 * Writes the alpha values
+	 * @param alpha1 shifted by
+	 * @param alphaOffset and limited to 0 - 255 to
+	 * @param a1
+	 * This method was integrated by JN Hansen (used without a TFalpha1 panel for offscreen rendering)
+	 * */
+	static void scaleAlpha(float[] alpha1, int alphaOffset, int[] a1) {
 		for (int x = 0; x < 256; x++) {
 			int alpha = (int) alpha1[x];
 			if (alpha > 0)
@@ -74,21 +86,33 @@ public class TFalpha1 extends JPanel implements MouseListener, MouseMotionListen
 			if (alpha < 0)   alpha = 0;
 			a1[x] = alpha;
 		}
-		control.alphaWasChanged = true;
 	}
 
 	public void setAlphaAuto() {
+		setAlphaAuto(vol.histVal, alpha1);
+		for (int x = 0; x < 256; x++) 
+			a1[x] = (int) Math.min(Math.max(0,alpha1[x]), 255);
+		control.alphaWasChanged = true;
+	}
+
+	/**
+	 * Derives the automatic transfer function from the histogram
+	 * @param histVal of the volume and writes it to
+	 * @param alpha1 (scaled by 255, values may be > 255 or < 0)
+	 * This method was integrated by JN Hansen (used without a TFalpha1 panel for offscreen rendering)
+	 * */
+	static void setAlphaAuto(int[] histVal, float[] alpha1) {
 
 		float max1 = 0; //, max2 = 0; 
-		for (int i = 0; i < vol.histVal.length; i++) { // find the max / modal value
-			int val = vol.histVal[i];
+		for (int i = 0; i < histVal.length; i++) { // find the max / modal value
+			int val = histVal[i];
 			if (val > max1) 
 				max1 = val;
 		}
 
 		float sum = 0;
 		for (int x = 0; x < 256; x++) { // norm the histogram, store in alpha1D
-			float val = (float) (1 - 1.2*Math.pow(vol.histVal[x]/max1, 0.3));
+			float val = (float) (1 - 1.2*Math.pow(histVal[x]/max1, 0.3));
 
 			if (val > 0)
 				sum += val;
@@ -107,11 +131,8 @@ public class TFalpha1 extends JPanel implements MouseListener, MouseMotionListen
 			alpha1Dauto[x] = 255*val; // scale alpha1auto by 255, values may be > 255 or < 0  
 		}
 
-		for (int x = 0; x < 256; x++) {
+		for (int x = 0; x < 256; x++) 
 			alpha1[x] = alpha1Dauto[x]; // copy alpha1Dauto to alpha1
-			a1[x] = (int) Math.min(Math.max(0,alpha1[x]), 255);
-		}
-		control.alphaWasChanged = true;
 	}
 
 	public void clearAlpha() {
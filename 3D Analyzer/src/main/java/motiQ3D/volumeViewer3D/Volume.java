@@ -22,6 +22,8 @@ import ij.ImageStack;
 import ij.measure.Calibration;
 import ij.process.ImageProcessor;
 
+import java.util.Arrays;
+
 
 public class Volume {
 	
@@ -58,6 +60,22 @@ public class Volume {
 	int[][] histMeanDiff = new int[256][128]; 
 	int[] histVal = new int[256];			// lum
 
+	/** 
+	 * occupancy brick map (integrated by JN Hansen): minimum and maximum luminance (data3D[0]) in bricks of 
+	 * BRICK_SIZE^3 voxels of the padded volume, extended by one voxel in positive direction (so that the voxels read
+	 * by nearest neighbor and trilinear interpolation at a sample position are always inside one brick)
+	 * */
+	static final int BRICK_SHIFT = 3;
+	static final int BRICK_SIZE = 1 << BRICK_SHIFT;
+	int nBricksX, nBricksY, nBricksZ;
+	byte[] brickMin = null, brickMax = null;
+	
+	/** 
+	 * alpha and smoothed alpha of the last gradient calculation, kept to update the gradients only in the bricks
+	 * in which alpha changed (integrated by JN Hansen)
+	 * */
+	private byte[][][] alpha_3D = null, alpha_3D_smooth = null;
+
 	private ImageProcessor ip;
 	private Control control;
 	private ImagePlus imp;
@@ -106,6 +124,97 @@ public class Volume {
 		getMinMax();
 
 		readVolumeData();
+		
+		calculateBricks();
+	}
+	
+	/**
+	 * @return whether the voxels of 
+	 * @param imp can be read into the buffers of this volume (same size and type)
+	 * This method was integrated by JN Hansen 
+	 * */
+	boolean fits(ImagePlus imp) {
+		return imp.getWidth() == widthV && imp.getHeight() == heightV && imp.getStackSize() == depthV
+				&& (imp.getType() == ImagePlus.COLOR_RGB) == control.isRGB;
+	}
+	
+	/**
+	 * Reads the voxels of 
+	 * @param imp (see fits()) into the buffers of this volume, instead of creating a new volume. 
+	 * The next calculateGradients() updates the gradients only where alpha changed.
+	 * This method was integrated by JN Hansen 
+	 * */
+	void update(ImagePlus imp) {
+		this.imp = imp;
+		ip = imp.getProcessor();
+		
+		Arrays.fill(histVal, 0);
+		for (int i = 0; i < 256; i++) {
+			Arrays.fill(histValGrad[i], 0);
+			Arrays.fill(histMeanDiff[i], 0);
+		}
+		
+		getMinMax();
+
+		readVolumeData();
+		
+		calculateBricks();
+	}
+	
+	/**
+	 * Determines the minimum and maximum luminance of each brick of the brick map
+	 * This method was integrated by JN Hansen 
+	 * */
+	void calculateBricks() {
+		int width = widthV+4, height = heightV+4, depth = depthV+4;
+		nBricksX = (width + BRICK_SIZE - 1) >> BRICK_SHIFT;
+		nBricksY = (height + BRICK_SIZE - 1) >> BRICK_SHIFT;
+		nBricksZ = (depth + BRICK_SIZE - 1) >> BRICK_SHIFT;
+		if (brickMin == null || brickMin.length != nBricksX*nBricksY*nBricksZ) {
+			brickMin = new byte[nBricksX*nBricksY*nBricksZ];
+			brickMax = new byte[nBricksX*nBricksY*nBricksZ];
+		}
+		
+		byte[][][] data = data3D[0];
+		for (int bz = 0, brick = 0; bz < nBricksZ; bz++) {
+			int z1 = Math.min(depth-1, (bz+1)*BRICK_SIZE);
+			for (int by = 0; by < nBricksY; by++) {
+				int y1 = Math.min(height-1, (by+1)*BRICK_SIZE);
+				for (int bx = 0; bx < nBricksX; bx++, brick++) {
+					int x1 = Math.min(width-1, (bx+1)*BRICK_SIZE);
+					int min = 255, max = 0;
+					for (int z = bz*BRICK_SIZE; z <= z1; z++) {
+						for (int y = by*BRICK_SIZE; y <= y1; y++) {
+							byte[] row = data[z][y];
+							for (int x = bx*BRICK_SIZE; x <= x1; x++) {
+								int val = 0xff & row[x];
+								if (val < min) min = val;
+								if (val > max) max = val;
+							}
+						}
+					}
+					brickMin[brick] = (byte) min;
+					brickMax[brick] = (byte) max;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return for each brick of the brick map, whether all luminance values between the minimum and the maximum of the brick 
+	 * have zero opacity in the transfer function
+	 * @param alpha (rays may skip these bricks)
+	 * This method was integrated by JN Hansen 
+	 * */
+	boolean[] getEmptyBricks(float[] alpha) {
+		int[] nOpaque = new int[257];	// number of values with non-zero opacity below each value
+		for (int i = 0; i < 256; i++) 
+			nOpaque[i+1] = nOpaque[i] + (alpha[i] == 0 ? 0 : 1);
+		
+		boolean[] empty = new boolean[brickMin.length];
+		for (int i = 0; i < empty.length; i++) 
+			empty[i] = nOpaque[(0xff & brickMax[i]) + 1] == nOpaque[0xff & brickMin[i]];
+		return empty;
 	}
 	
 	void getMinMax() {
@@ -312,8 +421,11 @@ public class Volume {
 	void calculateGradients() {
 		control.alphaWasChanged = false;
 		
-		byte[][][] alpha_3D = new byte[depthV+4][heightV+4][widthV+4]; //z y x 
-		byte[][][] alpha_3D_smooth = new byte[depthV+4][heightV+4][widthV+4]; //z y x
+		boolean all = alpha_3D == null;
+		if (all) {
+			alpha_3D = new byte[depthV+4][heightV+4][widthV+4]; //z y x 
+			alpha_3D_smooth = new byte[depthV+4][heightV+4][widthV+4]; //z y x
+		}
 
 		long start = 0;
 		if (control.LOG) { 
@@ -321,74 +433,105 @@ public class Volume {
 			start = System.currentTimeMillis();
 		}
 
-		if (control.alphaMode == Control.ALPHA1) {
-			for(int z = 2; z < depthV+2; z++) {
-				for (int y = 2; y < heightV+2; y++) {
-					for (int x = 2; x < widthV+2; x++) {
+		// alpha, mark the bricks in which alpha changed since the last calculation
+		boolean[] changed = new boolean[nBricksX*nBricksY*nBricksZ];
+		for(int z = 2; z < depthV+2; z++) {
+			for (int y = 2; y < heightV+2; y++) {
+				int brickZY = ((z >> BRICK_SHIFT)*nBricksY + (y >> BRICK_SHIFT))*nBricksX;
+				for (int x = 2; x < widthV+2; x++) {
+					byte alpha;
+					if (control.alphaMode == Control.ALPHA1) {
 						int val = data3D[0][z][y][x] & 0xFF;
-						alpha_3D[z][y][x] = (byte) (vv.a1_R[val]*255);
+						alpha = (byte) (vv.a1_R[val]*255);
 					}
-				}
-			}			
-		}
-		else if (control.alphaMode == Control.ALPHA2) {
-			for(int z = 2; z < depthV+2; z++) {
-				for (int y = 2; y < heightV+2; y++) {
-					for (int x = 2; x < widthV+2; x++) {
+					else if (control.alphaMode == Control.ALPHA2) {
 						int val = data3D[0][z][y][x] & 0xFF;
 						int grad = grad3D[z][y][x] & 0xFF;
-						alpha_3D[z][y][x] = (byte) (vv.a2_R[val][grad]*255);
+						alpha = (byte) (vv.a2_R[val][grad]*255);
 					}
-				}
-			}
-		}
-		else if (control.alphaMode == Control.ALPHA3) {
-			for(int z = 2; z < depthV+2; z++) {
-				for (int y = 2; y < heightV+2; y++) {
-					for (int x = 2; x < widthV+2; x++) {
+					else if (control.alphaMode == Control.ALPHA3) {
 						int val = mean3D[z][y][x] & 0xFF;
 						int diff = diff3D[z][y][x] & 0xFF;
-						alpha_3D[z][y][x] = (byte) (vv.a3_R[val][diff]*255);
+						alpha = (byte) (vv.a3_R[val][diff]*255);
+					}
+					else {
+						alpha = aPaint_3D[z][y][x];
+					}
+					if (alpha != alpha_3D[z][y][x]) {
+						alpha_3D[z][y][x] = alpha;
+						changed[brickZY + (x >> BRICK_SHIFT)] = true;
 					}
 				}
 			}
 		}
-		else if (control.alphaMode == Control.ALPHA4) {
-			for(int z = 2; z < depthV+2; z++) {
-				for (int y = 2; y < heightV+2; y++) {
-					for (int x = 2; x < widthV+2; x++) {
-						alpha_3D[z][y][x] = aPaint_3D[z][y][x];
+
+		if (all) {
+			smoothAlpha(1, depthV+3, 1, heightV+3, 1, widthV+3);
+			calculateNormals(1, depthV+3, 1, heightV+3, 1, widthV+3);
+		}
+		else {
+			// smoothed alpha and gradients depend on alpha within two voxels, update the changed bricks and their neighbors
+			boolean[] update = new boolean[changed.length];
+			for (int bz = 0, brick = 0; bz < nBricksZ; bz++) 
+				for (int by = 0; by < nBricksY; by++) 
+					for (int bx = 0; bx < nBricksX; bx++, brick++) {
+						if (!changed[brick]) continue;
+						for (int nz = Math.max(0, bz-1); nz <= Math.min(nBricksZ-1, bz+1); nz++) 
+							for (int ny = Math.max(0, by-1); ny <= Math.min(nBricksY-1, by+1); ny++) 
+								for (int nx = Math.max(0, bx-1); nx <= Math.min(nBricksX-1, bx+1); nx++) 
+									update[(nz*nBricksY + ny)*nBricksX + nx] = true;
+					}
+			for (int pass = 0; pass < 2; pass++) {
+				for (int bz = 0, brick = 0; bz < nBricksZ; bz++) {
+					int z0 = Math.max(1, bz*BRICK_SIZE), z1 = Math.min(depthV+3, (bz+1)*BRICK_SIZE);
+					for (int by = 0; by < nBricksY; by++) {
+						int y0 = Math.max(1, by*BRICK_SIZE), y1 = Math.min(heightV+3, (by+1)*BRICK_SIZE);
+						for (int bx = 0; bx < nBricksX; bx++, brick++) {
+							if (!update[brick]) continue;
+							int x0 = Math.max(1, bx*BRICK_SIZE), x1 = Math.min(widthV+3, (bx+1)*BRICK_SIZE);
+							if (pass == 0)
+								smoothAlpha(z0, z1, y0, y1, x0, x1);
+							else
+								calculateNormals(z0, z1, y0, y1, x0, x1);
+						}
 					}
 				}
 			}
 		}
 
-		// filter alpha
-		for(int z=1; z < depthV+3; z++) {
-			for (int y = 1; y < heightV+3; y++) {
+		if (control.LOG) {
+			long end = System.currentTimeMillis();
+			System.out.println("  Execution time "+(end-start)+" ms.");
+		}
+	}
+	
+	/** filters alpha_3D into alpha_3D_smooth for z0 <= z < z1, y0 <= y < y1, x0 <= x < x1 (ranges within 1 and size+3) */
+	private void smoothAlpha(int z0, int z1, int y0, int y1, int x0, int x1) {
+		for(int z = z0; z < z1; z++) {
+			for (int y = y0; y < y1; y++) {
 				int a000, a010, a020;
-				int a001 = 0xff & alpha_3D[z-1][y-1][0];
-				int a011 = 0xff & alpha_3D[z-1][y  ][0];
-				int a021 = 0xff & alpha_3D[z-1][y+1][0];
-				int a002 = 0xff & alpha_3D[z-1][y-1][1];
-				int a012 = 0xff & alpha_3D[z-1][y  ][1];
-				int a022 = 0xff & alpha_3D[z-1][y+1][1];
+				int a001 = 0xff & alpha_3D[z-1][y-1][x0-1];
+				int a011 = 0xff & alpha_3D[z-1][y  ][x0-1];
+				int a021 = 0xff & alpha_3D[z-1][y+1][x0-1];
+				int a002 = 0xff & alpha_3D[z-1][y-1][x0];
+				int a012 = 0xff & alpha_3D[z-1][y  ][x0];
+				int a022 = 0xff & alpha_3D[z-1][y+1][x0];
 				int a100, a110, a120;
-				int a101 = 0xff & alpha_3D[z][y-1][0];
-				int a111 = 0xff & alpha_3D[z][y  ][0];
-				int a121 = 0xff & alpha_3D[z][y+1][0];
-				int a102 = 0xff & alpha_3D[z][y-1][1];
-				int a112 = 0xff & alpha_3D[z][y  ][1];
-				int a122 = 0xff & alpha_3D[z][y+1][1];
+				int a101 = 0xff & alpha_3D[z][y-1][x0-1];
+				int a111 = 0xff & alpha_3D[z][y  ][x0-1];
+				int a121 = 0xff & alpha_3D[z][y+1][x0-1];
+				int a102 = 0xff & alpha_3D[z][y-1][x0];
+				int a112 = 0xff & alpha_3D[z][y  ][x0];
+				int a122 = 0xff & alpha_3D[z][y+1][x0];
 				int a200, a210, a220;
-				int a201 = 0xff & alpha_3D[z+1][y-1][0];
-				int a211 = 0xff & alpha_3D[z+1][y  ][0];
-				int a221 = 0xff & alpha_3D[z+1][y+1][0];
-				int a202 = 0xff & alpha_3D[z+1][y-1][1];
-				int a212 = 0xff & alpha_3D[z+1][y  ][1];
-				int a222 = 0xff & alpha_3D[z+1][y+1][1];
-
-				for (int x = 1; x < widthV+3; x++) {
+				int a201 = 0xff & alpha_3D[z+1][y-1][x0-1];
+				int a211 = 0xff & alpha_3D[z+1][y  ][x0-1];
+				int a221 = 0xff & alpha_3D[z+1][y+1][x0-1];
+				int a202 = 0xff & alpha_3D[z+1][y-1][x0];
+				int a212 = 0xff & alpha_3D[z+1][y  ][x0];
+				int a222 = 0xff & alpha_3D[z+1][y+1][x0];
+
+				for (int x = x0; x < x1; x++) {
 					a000 = a001; a010 = a011; a020 = a021;
 					a001 = a002; a011 = a012; a021 = a022;
 					a002 = 0xff & alpha_3D[z-1][y-1][x+1];
@@ -415,35 +558,35 @@ public class Volume {
 				}
 			}
 		}
-
-		//alpha_3D_smooth = alpha_3D;
-		
-		// gradient
-		for(int z=1; z < depthV+3; z++) {
-			for (int y = 1; y < heightV+3; y++) {			
+	}
+	
+	/** calculates the normals (gradients of alpha_3D_smooth) for z0 <= z < z1, y0 <= y < y1, x0 <= x < x1 (ranges within 1 and size+3) */
+	private void calculateNormals(int z0, int z1, int y0, int y1, int x0, int x1) {
+		for(int z = z0; z < z1; z++) {
+			for (int y = y0; y < y1; y++) {			
 				int a000, a010, a020;
-				int a001 = 0xff & alpha_3D_smooth[z-1][y-1][0];
-				int a011 = 0xff & alpha_3D_smooth[z-1][y  ][0];
-				int a021 = 0xff & alpha_3D_smooth[z-1][y+1][0];
-				int a002 = 0xff & alpha_3D_smooth[z-1][y-1][1];
-				int a012 = 0xff & alpha_3D_smooth[z-1][y  ][1];
-				int a022 = 0xff & alpha_3D_smooth[z-1][y+1][1];
+				int a001 = 0xff & alpha_3D_smooth[z-1][y-1][x0-1];
+				int a011 = 0xff & alpha_3D_smooth[z-1][y  ][x0-1];
+				int a021 = 0xff & alpha_3D_smooth[z-1][y+1][x0-1];
+				int a002 = 0xff & alpha_3D_smooth[z-1][y-1][x0];
+				int a012 = 0xff & alpha_3D_smooth[z-1][y  ][x0];
+				int a022 = 0xff & alpha_3D_smooth[z-1][y+1][x0];
 				int a100, a110, a120;
-				int a101 = 0xff & alpha_3D_smooth[z][y-1][0];
-				int a111 = 0xff & alpha_3D_smooth[z][y  ][0];
-				int a121 = 0xff & alpha_3D_smooth[z][y+1][0];
-				int a102 = 0xff & alpha_3D_smooth[z][y-1][1];
-				int a112 = 0xff & alpha_3D_smooth[z][y  ][1];
-				int a122 = 0xff & alpha_3D_smooth[z][y+1][1];
+				int a101 = 0xff & alpha_3D_smooth[z][y-1][x0-1];
+				int a111 = 0xff & alpha_3D_smooth[z][y  ][x0-1];
+				int a121 = 0xff & alpha_3D_smooth[z][y+1][x0-1];
+				int a102 = 0xff & alpha_3D_smooth[z][y-1][x0];
+				int a112 = 0xff & alpha_3D_smooth[z][y  ][x0];
+				int a122 = 0xff & alpha_3D_smooth[z][y+1][x0];
 				int a200, a210, a220;
-				int a201 = 0xff & alpha_3D_smooth[z+1][y-1][0];
-				int a211 = 0xff & alpha_3D_smooth[z+1][y  ][0];
-				int a221 = 0xff & alpha_3D_smooth[z+1][y+1][0];
-				int a202 = 0xff & alpha_3D_smooth[z+1][y-1][1];
-				int a212 = 0xff & alpha_3D_smooth[z+1][y  ][1];
-				int a222 = 0xff & alpha_3D_smooth[z+1][y+1][1];
-
-				for (int x = 1; x < widthV+3; x++) {
+				int a201 = 0xff & alpha_3D_smooth[z+1][y-1][x0-1];
+				int a211 = 0xff & alpha_3D_smooth[z+1][y  ][x0-1];
+				int a221 = 0xff & alpha_3D_smooth[z+1][y+1][x0-1];
+				int a202 = 0xff & alpha_3D_smooth[z+1][y-1][x0];
+				int a212 = 0xff & alpha_3D_smooth[z+1][y  ][x0];
+				int a222 = 0xff & alpha_3D_smooth[z+1][y+1][x0];
+
+				for (int x = x0; x < x1; x++) {
 					a000 = a001; a010 = a011; a020 = a021;
 					a001 = a002; a011 = a012; a021 = a022;
 					a002 = 0xff & alpha_3D_smooth[z-1][y-1][x+1];
@@ -481,14 +624,6 @@ public class Volume {
 				}
 			}
 		}
-		
-		alpha_3D = null;
-		alpha_3D_smooth = null;
-
-		if (control.LOG) {
-			long end = System.currentTimeMillis();
-			System.out.println("  Execution time "+(end-start)+" ms.");
-		}
 	}
 	
 	private static final byte YES = 1;
@@ -25,21 +25,23 @@ import ij.ImagePlus;
 //import ij.Macro;
 //import ij.Prefs;
 //import ij.WindowManager;
-//import ij.gui.NewImage;
+import ij.gui.NewImage;
+import ij.measure.Calibration;
 //import ij.macro.Interpreter;
 //import ij.plugin.PlugIn;
-//import ij.process.ImageProcessor;
+import ij.process.ImageProcessor;
 
 import java.awt.Color;
 import java.awt.Dimension;
-//import java.awt.Graphics2D;
+import java.awt.Graphics2D;
 import java.awt.Insets;
 //import java.awt.Toolkit;
 //import java.awt.event.ComponentAdapter;
 //import java.awt.event.ComponentEvent;
 //import java.awt.event.WindowAdapter;
 //import java.awt.event.WindowEvent;
-//import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 //import java.util.StringTokenizer;
 
 import javax.swing.JFrame;
@@ -67,6 +69,15 @@ public final class Volume_Viewer{
 	TFalpha2 tf_a2 = null;
 	TFalpha3 tf_a3 = null;
 	TFalpha4 tf_a4 = null;
+	
+	/** alpha values of the 1D transfer function for offscreen rendering (no TFalpha1 panel), see get3DVisualizationOffscreen*/
+	private int[] offscreenA1 = null;
+	/** 
+	 * view of the last offscreen visualization (window size, scale, angles and voxel aspect), the volume, lookup table, 
+	 * transforms and Pic of that visualization are reused for a volume of the same size and the same view
+	 * */
+	private float[] offscreenView = null;
+	private Pic offscreenPic = null;
 
 //	private boolean batch = false;
 	
@@ -212,6 +223,163 @@ public final class Volume_Viewer{
 		return imp2;
 	}
 	
+	/**
+	 * Generates the same visualization as get3DVisualization(...) with the 1D transfer function (alpha mode 0) but without
+	 * axes, slice outlines and clip lines. Volume, LookupTable, Transform and Pic are driven directly: no Gui and no transfer
+	 * function panels are constructed and the volume is rendered at full resolution in the calling thread, so the method
+	 * returns as soon as the image is rendered and does not require a display (works in headless mode).
+	 * The Volume_Viewer keeps the volume, lookup table, transforms and Pic as a render context: if the next call 
+	 * has the same view and a volume of the same size (e.g., the next time-step), only the voxels are read into the 
+	 * existing buffers and the gradients are recalculated where alpha changed. Call release() after the last call.
+	 * This method was integrated by JN Hansen 
+	 * */
+	public ImagePlus get3DVisualizationOffscreen(ImagePlus newImp, 
+			int renderMode, //display_mode
+			int interpolationMode, //interpolation
+			Color backgroundColor,
+			int lutNr,	//"lut="
+			float sampling,	//"sampling="
+			float dist,	//"dist"
+			float scale,
+			float angleX,
+			float angleY,
+			float angleZ,
+			int windowWidthImageRegion,	//width
+			int windowHeight,	//height
+			boolean useLight,
+			float ambientValue,
+			float diffuseValue,
+			float specularValue,
+			float shineValue,
+			float objectLightValue,
+			int lightRed,
+			int lightGreen,
+			int lightBlue,
+			float rotationLightX,	//-1.0 to + 1.0 (on trackball from left (=-1.0), from right (=1.0))
+			float rotationLightY,	//-1.0 to + 1.0 (on trackball from down (=-1.0), to up (=1.0))
+			int alphaOffset1) {	//0 - 255
+		
+		Calibration cal = newImp.getCalibration();
+		float[] view = {windowWidthImageRegion, windowHeight, scale, angleX, angleY, angleZ, 
+				(float) cal.pixelWidth, (float) cal.pixelDepth};
+		boolean reuse = vol != null && offscreenPic != null && Arrays.equals(view, offscreenView) && vol.fits(newImp);
+		
+		if (!reuse)
+			control = new Control(this);
+		control.showTF = false;
+		control.renderMode = renderMode;
+		control.interpolationMode = interpolationMode;
+		control.backgroundColor =  backgroundColor;
+		control.lutNr = lutNr;
+		control.sampling = sampling;
+		control.dist = dist;
+		control.showAxes = false;
+		control.showSlices = false;
+		control.showClipLines = false;
+		control.scale = scale;
+		control.degreeX = angleX;
+		control.degreeY = angleY;
+		control.degreeZ = angleZ;
+		control.alphaMode = Control.ALPHA1;
+		if(windowWidthImageRegion > 480){
+			control.windowWidthImageRegion = windowWidthImageRegion;	
+		}
+		control.windowHeight = windowHeight;
+		control.useLight = useLight;
+		control.ambientValue = ambientValue;
+		control.diffuseValue = diffuseValue;
+		control.specularValue = specularValue;
+		control.shineValue = shineValue;
+		control.objectLightValue = objectLightValue;
+		control.lightRed = lightRed;
+		control.lightGreen = lightGreen;
+		control.lightBlue = lightBlue;
+		control.snapshot = true;
+		imp = newImp;
+		if(imp.getType()==ImagePlus.COLOR_RGB) 	// Check for RGB stack.
+			control.isRGB = true;
+		
+		if (reuse) {
+			//only the voxels changed: read them into the buffers of the volume, the view is kept
+			vol.update(imp);
+			lookupTable.readLut();
+		}
+		else {
+			vol = new Volume(control, this);
+			
+			lookupTable = new LookupTable(control, this);
+			lookupTable.readLut();
+			
+			cube = new Cube(control, vol.widthV, vol.heightV, vol.depthV);
+			cube.setSlicePositions(control.positionFactorX, control.positionFactorY, control.positionFactorZ, control.zAspect);
+			
+			tr = new Transform(control, control.windowWidthImageRegion, control.windowHeight, vol.xOffa, vol.yOffa, vol.zOffa);	
+			tr.setScale(control.scale);
+			tr.setZAspect(control.zAspect);
+			setRotation(control.degreeX, control.degreeY, control.degreeZ);
+			initializeTransformation();
+			cube.setTransform(tr);
+			cube.setTextPositions(control.scale, control.zAspect);
+			
+			offscreenPic = new Pic(control, this, control.windowWidthImageRegion, control.windowHeight);
+			offscreenView = view;
+		}
+		trLight = new Transform(control, -1, -1, 0, 0, 0);
+		trLight.initializeTransformation();
+		control.scaledDist = control.scale*control.dist;
+		
+		//transfer function as set up by the TFalpha1 panel
+		float[] alpha1 = new float[256];
+		TFalpha1.setAlphaAuto(vol.histVal, alpha1);
+		if (offscreenA1 == null)
+			offscreenA1 = new int[256];
+		TFalpha1.scaleAlpha(alpha1, alphaOffset1, offscreenA1);
+		control.alphaWasChanged = true;
+		
+		lookupTable.setLut();
+		lookupTable.orig();
+		
+		this.changeRotationLight(0, 0, (int)Math.round((1f+rotationLightX)*10), (int)Math.round((1f+rotationLightY)*10), 20);
+		
+		Pic pic = offscreenPic;
+		if (control.renderMode >= Control.PROJECTION_MAX)
+			pic.render_volumeOffscreen();
+		else if (control.renderMode == Control.SLICE_AND_BORDERS) 
+			pic.render_SliceAndBorders();
+		else 
+			pic.render_Slice();
+		
+		//compose the image as ImageRegion.getImage() does
+		int width = pic.getWidth(), height = pic.getHeight();
+		BufferedImage bufferedImage =  new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2d = bufferedImage.createGraphics();
+		g2d.setBackground(control.backgroundColor);
+		g2d.clearRect(0, 0, width, height);
+		g2d.drawImage(pic.getImage(), 0, 0, width, height, null);
+		if (backgroundColor.getRed()+ backgroundColor.getGreen() + backgroundColor.getGreen() > 3*128)
+			g2d.setColor(Color.black);
+		else
+			g2d.setColor(Color.white);
+		g2d.drawString("Volume Viewer", width - 100, height - 10); 
+		g2d.dispose();
+		
+		ImagePlus imp2 = NewImage.createRGBImage("Volume_Viewer_1", width, height, 1, NewImage.FILL_BLACK);
+		ImageProcessor ip = imp2.getProcessor();
+		bufferedImage.getRGB(0, 0, width, height, (int[]) ip.getPixels(), 0, width);
+		
+		imp = null;
+		return imp2;
+	}
+	
+	/**
+	 * @return the alpha values of the 1D transfer function
+	 * */
+	int[] getA1() {
+		if (tf_a1 != null)
+			return tf_a1.a1;
+		return offscreenA1;
+	}
+	
 //	private void paint(Graphics2D createGraphics) {
 //		// TODO Auto-generated method stub
 //		
@@ -361,6 +529,15 @@ public final class Volume_Viewer{
 		}
 	}
 	
+	/**
+	 * Releases the render context kept by get3DVisualizationOffscreen(...)
+	 * This method was integrated by JN Hansen 
+	 * */
+	public void release() {
+		if (vol != null)
+			cleanup();
+	}
+	
 	private void cleanup() {
 		
 		vol.data3D = null;
@@ -383,9 +560,11 @@ public final class Volume_Viewer{
 		vol.histVal =  null;			
 		vol = null;
 		
-		gui.pic = null;
-		gui.picSlice = null;
-		gui = null;
+		if (gui != null) {
+			gui.pic = null;
+			gui.picSlice = null;
+			gui = null;
+		}
 		
 		cube = null;
 		lookupTable = null;
@@ -399,10 +578,11 @@ public final class Volume_Viewer{
 		tf_a2 = null;
 		tf_a3 = null;
 		tf_a4 = null;
+		offscreenA1 = null;
+		offscreenView = null;
+		offscreenPic = null;
 		
 		control = null;
-		
-		System.gc();
 	}
 	
 //	private void readPrefs() {